@@ -0,0 +1,100 @@
+package com.example.chat.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh AesGcmEngine với converter cũ (LegacyAesEncryptor) trên một trường và trên một trang lịch sử
+ * 50 tin nhắn (100 trường: message_content + file_url).
+ * Chạy: ./mvnw -Pjmh test-compile exec:exec — mặc định kèm "-prof gc" để có gc.alloc.rate.norm (byte / op).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AesEncryptorBenchmark {
+
+    private static final String KEY = "0123456789abcdef0123456789abcdef";
+    private static final int PAGE_MESSAGES = 50;
+
+    private AesGcmEngine engine;
+    private LegacyAesEncryptor legacy;
+
+    private String plainText;
+    private String cipherText;
+    private List<String> page;
+
+    @Setup
+    public void setUp() {
+        EncryptionProperties properties = new EncryptionProperties();
+        properties.setKey(KEY);
+        engine = new AesGcmEngine(properties);
+        engine.init();
+        legacy = new LegacyAesEncryptor(KEY);
+
+        plainText = "Chào bác sĩ, em bị đau đầu từ tối qua, uống thuốc hạ sốt vẫn chưa đỡ ạ.";
+        cipherText = engine.encrypt(plainText);
+
+        page = new ArrayList<>(PAGE_MESSAGES * 2);
+        for (int i = 0; i < PAGE_MESSAGES; i++) {
+            page.add(engine.encrypt(plainText + " #" + i));
+            page.add(engine.encrypt("https://res.cloudinary.com/demo/image/upload/v1/chat/" + i + ".jpg"));
+        }
+    }
+
+    @Benchmark
+    public String encryptLegacy() {
+        return legacy.convertToDatabaseColumn(plainText);
+    }
+
+    @Benchmark
+    public String encryptEngine() {
+        return engine.encrypt(plainText);
+    }
+
+    @Benchmark
+    public String decryptLegacy() {
+        return legacy.convertToEntityAttribute(cipherText);
+    }
+
+    @Benchmark
+    public String decryptEngine() {
+        return engine.decrypt(cipherText);
+    }
+
+    // Một trang lịch sử qua converter cũ: Hibernate gọi converter cho từng trường
+    @Benchmark
+    public void decryptPageLegacy(Blackhole blackhole) {
+        for (String value : page) {
+            blackhole.consume(legacy.convertToEntityAttribute(value));
+        }
+    }
+
+    @Benchmark
+    public void decryptPageEngine(Blackhole blackhole) {
+        for (String value : page) {
+            blackhole.consume(engine.decrypt(value));
+        }
+    }
+
+    // Đường ChatHistoryLoader: cả trang một lần decryptAll
+    @Benchmark
+    public List<String> decryptPageEngineBatch() {
+        return engine.decryptAll(page);
+    }
+}
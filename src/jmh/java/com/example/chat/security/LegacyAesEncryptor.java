@@ -0,0 +1,77 @@
+package com.example.chat.security;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Bản sao AesEncryptor trước khi chuyển sang AesGcmEngine, chỉ dùng làm mốc so sánh trong benchmark:
+ * mỗi trường tạo mới Cipher, SecureRandom, SecretKeySpec và copy qua ByteBuffer.
+ */
+class LegacyAesEncryptor {
+
+    private static final String ALGO = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH = 128;
+
+    private final String key;
+
+    LegacyAesEncryptor(String key) {
+        this.key = key;
+    }
+
+    private SecretKeySpec getKey() {
+        return new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "AES");
+    }
+
+    String convertToDatabaseColumn(String attribute) {
+        if (attribute == null || attribute.isBlank()) return null;
+
+        try {
+            Cipher cipher = Cipher.getInstance(ALGO);
+
+            byte[] iv = new byte[IV_LENGTH];
+            new SecureRandom().nextBytes(iv);
+
+            cipher.init(Cipher.ENCRYPT_MODE, getKey(), new GCMParameterSpec(TAG_LENGTH, iv));
+
+            byte[] encrypted = cipher.doFinal(attribute.getBytes(StandardCharsets.UTF_8));
+
+            return Base64.getEncoder().encodeToString(
+                    ByteBuffer.allocate(iv.length + encrypted.length)
+                            .put(iv)
+                            .put(encrypted)
+                            .array()
+            );
+
+        } catch (Exception e) {
+            throw new RuntimeException("Encrypt failed", e);
+        }
+    }
+
+    String convertToEntityAttribute(String dbData) {
+        if (dbData == null || dbData.isBlank()) return null;
+
+        try {
+            byte[] decoded = Base64.getDecoder().decode(dbData);
+
+            ByteBuffer buffer = ByteBuffer.wrap(decoded);
+            byte[] iv = new byte[IV_LENGTH];
+            buffer.get(iv);
+            byte[] encrypted = new byte[buffer.remaining()];
+            buffer.get(encrypted);
+
+            Cipher cipher = Cipher.getInstance(ALGO);
+            cipher.init(Cipher.DECRYPT_MODE, getKey(), new GCMParameterSpec(TAG_LENGTH, iv));
+
+            return new String(cipher.doFinal(encrypted), StandardCharsets.UTF_8);
+
+        } catch (Exception e) {
+            throw new RuntimeException("Decrypt failed", e);
+        }
+    }
+}
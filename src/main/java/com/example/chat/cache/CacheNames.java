@@ -0,0 +1,17 @@
+package com.example.chat.cache;
+
+/**
+ * Tên các cache dùng chung cho @Cacheable / @CacheEvict và cấu hình cache.two-tier.caches.
+ */
+public final class CacheNames {
+
+    // Danh bạ bác sĩ (không kèm cờ yêu thích của từng user)
+    public static final String DOCTOR_DIRECTORY = "doctor-directory";
+    // Trang chi tiết bác sĩ kèm danh sách review
+    public static final String DOCTOR_DETAIL = "doctor-detail";
+    // Thẻ user (id, username, avatar) dùng trong payload socket
+    public static final String USER_CARD = "user-card";
+
+    private CacheNames() {
+    }
+}
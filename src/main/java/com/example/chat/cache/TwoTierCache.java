@@ -0,0 +1,299 @@
+package com.example.chat.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.BiConsumer;
+
+/**
+ * Cache 2 tầng: L1 là LRU giới hạn kích thước trong JVM, L2 là Redis dùng chung giữa các node.
+ * Đọc: L1 -> L2 -> nguồn (DB). Khi evict/clear, bản trên Redis bị xoá và các node khác được báo
+ * qua pub/sub để bỏ bản L1; localTtl giới hạn thời gian một bản L1 cũ sống sót nếu lỡ sự kiện.
+ * Lỗi Redis không làm hỏng request: coi như miss và đọc thẳng từ nguồn.
+ * Chống ghi lại giá trị cũ: khi miss, cache ghi nhớ thế hệ (generation) của key và của cả cache;
+ * evict / clear tăng thế hệ, nên put của lần nạp bắt đầu trước evict bị bỏ qua thay vì ghi đè bản mới.
+ */
+@Slf4j
+public class TwoTierCache extends AbstractValueAdaptingCache {
+
+    private record LocalEntry(Object value, long expiresAt) {
+    }
+
+    // Chỉ ghi khi thế hệ cache / key vẫn như lúc miss (ARGV[1] = "cacheGen/keyGen")
+    private static final RedisScript<Long> GUARDED_SET_SCRIPT = new DefaultRedisScript<>("""
+            local current = (redis.call('GET', KEYS[2]) or '0') .. '/' .. (redis.call('GET', KEYS[3]) or '0')
+            if current ~= ARGV[1] then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])
+            return 1
+            """, Long.class);
+
+    private static final RedisScript<Long> EVICT_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('DEL', KEYS[1])
+            redis.call('INCR', KEYS[2])
+            redis.call('PEXPIRE', KEYS[2], ARGV[1])
+            return 1
+            """, Long.class);
+
+    private final String name;
+    private final String keyPrefix;
+    // Nằm ngoài keyPrefix để clear() (SCAN keyPrefix*) không xoá mất thế hệ
+    private final String generationKey;
+    private final TwoTierCacheProperties.Spec spec;
+    private final RedisTemplate<String, Object> redisTemplate;
+    // (tên cache, key) -> phát sự kiện invalidate cho các node khác
+    private final BiConsumer<String, String> invalidationPublisher;
+
+    private final Map<String, LocalEntry> local;
+    // key -> thế hệ đọc được lúc miss trên luồng hiện tại, dùng cho put ngay sau đó
+    private final ThreadLocal<Map<String, String>> pendingGenerations = ThreadLocal.withInitial(HashMap::new);
+
+    private final Counter l1Hits;
+    private final Counter l2Hits;
+    private final Counter misses;
+    private final Counter puts;
+    private final Counter evictions;
+
+    public TwoTierCache(String name,
+                        String keyPrefix,
+                        TwoTierCacheProperties.Spec spec,
+                        RedisTemplate<String, Object> redisTemplate,
+                        BiConsumer<String, String> invalidationPublisher,
+                        MeterRegistry meterRegistry) {
+        super(false);
+        this.name = name;
+        this.keyPrefix = keyPrefix + ":" + name + ":";
+        this.generationKey = keyPrefix + ":" + name + "#gen";
+        this.spec = spec;
+        this.redisTemplate = redisTemplate;
+        this.invalidationPublisher = invalidationPublisher;
+
+        int maxEntries = spec.getMaxLocalEntries();
+        this.local = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LocalEntry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+
+        this.l1Hits = counter(meterRegistry, "cache.gets", "result", "hit", "tier", "l1");
+        this.l2Hits = counter(meterRegistry, "cache.gets", "result", "hit", "tier", "l2");
+        this.misses = counter(meterRegistry, "cache.gets", "result", "miss", "tier", "none");
+        this.puts = counter(meterRegistry, "cache.puts");
+        this.evictions = counter(meterRegistry, "cache.evictions");
+        Gauge.builder("cache.size", local, Map::size)
+                .tag("cache", name)
+                .tag("tier", "l1")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String cacheKey = String.valueOf(key);
+
+        LocalEntry entry = local.get(cacheKey);
+        if (entry != null) {
+            if (entry.expiresAt() > System.currentTimeMillis()) {
+                l1Hits.increment();
+                return entry.value();
+            }
+            local.remove(cacheKey);
+        }
+
+        Object remote = readRemote(cacheKey);
+        if (remote != null) {
+            l2Hits.increment();
+            putLocal(cacheKey, remote);
+            return remote;
+        }
+
+        misses.increment();
+        String generation = readGeneration(cacheKey);
+        if (generation != null) {
+            pendingGenerations.get().put(cacheKey, generation);
+        }
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+
+        String cacheKey = String.valueOf(key);
+        Object stored = toStoreValue(value);
+        String generation = pendingGenerations.get().remove(cacheKey);
+        try {
+            if (generation == null) {
+                redisTemplate.opsForValue().set(keyPrefix + cacheKey, stored, spec.getTtl());
+            } else if (!guardedSet(cacheKey, stored, generation)) {
+                // Đã bị evict trong lúc nạp: giá trị vừa nạp có thể đã cũ
+                return;
+            }
+        } catch (Exception e) {
+            log.warn("Ghi cache {} lên Redis thất bại: {}", name, e.getMessage());
+        }
+        putLocal(cacheKey, stored);
+        puts.increment();
+    }
+
+    @Override
+    public void evict(Object key) {
+        String cacheKey = String.valueOf(key);
+        local.remove(cacheKey);
+        try {
+            redisTemplate.execute(EVICT_SCRIPT, RedisSerializer.string(), null,
+                    List.of(keyPrefix + cacheKey, generationKey + ":" + cacheKey),
+                    String.valueOf(generationTtlMillis()));
+        } catch (Exception e) {
+            log.warn("Xoá cache {}:{} trên Redis thất bại: {}", name, cacheKey, e.getMessage());
+        }
+        evictions.increment();
+        invalidationPublisher.accept(name, cacheKey);
+    }
+
+    @Override
+    public void clear() {
+        local.clear();
+        try {
+            redisTemplate.execute((RedisCallback<Long>) connection ->
+                    connection.stringCommands().incr(RedisSerializer.string().serialize(generationKey)));
+            List<String> keys = new ArrayList<>();
+            try (Cursor<String> cursor = redisTemplate.scan(ScanOptions.scanOptions()
+                    .match(keyPrefix + "*")
+                    .count(500)
+                    .build())) {
+                cursor.forEachRemaining(keys::add);
+            }
+            if (!keys.isEmpty()) {
+                redisTemplate.delete(keys);
+            }
+        } catch (Exception e) {
+            log.warn("Xoá toàn bộ cache {} trên Redis thất bại: {}", name, e.getMessage());
+        }
+        evictions.increment();
+        invalidationPublisher.accept(name, null);
+    }
+
+    /**
+     * Chỉ bỏ bản L1 (khi nhận sự kiện từ node khác, Redis đã được node đó xoá). key null = toàn bộ.
+     */
+    public void evictLocal(String key) {
+        if (key == null) {
+            local.clear();
+        } else {
+            local.remove(key);
+        }
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private Object readRemote(String cacheKey) {
+        try {
+            return redisTemplate.opsForValue().get(keyPrefix + cacheKey);
+        } catch (Exception e) {
+            log.warn("Đọc cache {} từ Redis thất bại: {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    // "cacheGen/keyGen"; null nếu Redis lỗi (put khi đó ghi thẳng như trước)
+    private String readGeneration(String cacheKey) {
+        try {
+            List<byte[]> values = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                    connection.stringCommands().mGet(
+                            RedisSerializer.string().serialize(generationKey),
+                            RedisSerializer.string().serialize(generationKey + ":" + cacheKey)));
+            if (values == null || values.size() < 2) return null;
+            return generationPart(values.get(0)) + "/" + generationPart(values.get(1));
+        } catch (Exception e) {
+            log.warn("Đọc thế hệ cache {} từ Redis thất bại: {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean guardedSet(String cacheKey, Object stored, String generation) {
+        byte[] value = ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(stored);
+        Long result = redisTemplate.execute(
+                GUARDED_SET_SCRIPT,
+                RedisSerializer.byteArray(),
+                null,
+                List.of(keyPrefix + cacheKey, generationKey, generationKey + ":" + cacheKey),
+                RedisSerializer.string().serialize(generation),
+                value,
+                RedisSerializer.string().serialize(String.valueOf(spec.getTtl().toMillis()))
+        );
+        return Long.valueOf(1).equals(result);
+    }
+
+    private String generationPart(byte[] raw) {
+        return raw != null ? RedisSerializer.string().deserialize(raw) : "0";
+    }
+
+    // Thế hệ của key phải sống lâu hơn mọi lần nạp đang dở; gấp đôi TTL giá trị là đủ
+    private long generationTtlMillis() {
+        return spec.getTtl().toMillis() * 2;
+    }
+
+    private void putLocal(String cacheKey, Object value) {
+        local.put(cacheKey, new LocalEntry(value, System.currentTimeMillis() + spec.getLocalTtl().toMillis()));
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String meter, String... tags) {
+        return Counter.builder(meter)
+                .tag("cache", name)
+                .tags(tags)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.chat.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CacheManager cho TwoTierCache. Cache được bọc transaction-aware nên put/evict trong @Transactional
+ * chỉ chạy sau khi commit. Đồng thời là listener của kênh invalidate: sự kiện từ node khác chỉ xoá L1.
+ * Sự kiện có dạng "origin|cacheName|key", key rỗng nghĩa là clear cả cache.
+ */
+@Slf4j
+public class TwoTierCacheManager extends AbstractTransactionSupportingCacheManager implements MessageListener {
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final TwoTierCacheProperties properties;
+    private final RedisTemplate<String, Object> cacheRedisTemplate;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * @param cacheRedisTemplate template lưu giá trị cache (JSON kèm kiểu để đọc lại đúng DTO)
+     * @param redisTemplate      template chung, dùng để publish sự kiện invalidate
+     */
+    public TwoTierCacheManager(TwoTierCacheProperties properties,
+                               RedisTemplate<String, Object> cacheRedisTemplate,
+                               RedisTemplate<String, Object> redisTemplate,
+                               MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.cacheRedisTemplate = cacheRedisTemplate;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        setTransactionAware(true);
+    }
+
+    /**
+     * Evict theo tên cache dùng ở những chỗ không gắn được @CacheEvict (private helper, key tính trong thân hàm).
+     */
+    public void evict(String cacheName, Object key) {
+        Cache cache = getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+
+    public void clear(String cacheName) {
+        Cache cache = getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return properties.getCaches().keySet().stream()
+                .map(this::createCache)
+                .toList();
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        return createCache(name);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+            if (body == null) return;
+
+            String[] parts = body.toString().split("\\|", 3);
+            if (parts.length < 3 || nodeId.equals(parts[0])) return;
+
+            TwoTierCache cache = caches.get(parts[1]);
+            if (cache != null) {
+                cache.evictLocal(parts[2].isEmpty() ? null : parts[2]);
+            }
+        } catch (Exception e) {
+            log.warn("Bỏ qua cache event không hợp lệ: {}", e.getMessage());
+        }
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private TwoTierCache createCache(String name) {
+        return caches.computeIfAbsent(name, n -> new TwoTierCache(
+                n,
+                properties.getKeyPrefix(),
+                properties.resolve(n),
+                cacheRedisTemplate,
+                this::publishInvalidation,
+                meterRegistry
+        ));
+    }
+
+    private void publishInvalidation(String cacheName, String key) {
+        try {
+            redisTemplate.convertAndSend(properties.getChannel(),
+                    nodeId + "|" + cacheName + "|" + (key != null ? key : ""));
+        } catch (Exception e) {
+            log.warn("Publish invalidate cache {} thất bại: {}", cacheName, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.chat.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "cache.two-tier")
+public class TwoTierCacheProperties {
+
+    // Kênh pub/sub báo các node bỏ bản L1 khi dữ liệu thay đổi
+    private String channel = "cache:invalidate";
+    private String keyPrefix = "cache";
+
+    private Spec defaults = new Spec(Duration.ofMinutes(10), Duration.ofMinutes(1), 1000);
+    // Ghi đè theo tên cache, trường nào bỏ trống thì lấy từ defaults
+    private Map<String, Spec> caches = new HashMap<>();
+
+    public Spec resolve(String name) {
+        Spec spec = caches.get(name);
+        if (spec == null) {
+            return defaults;
+        }
+        return new Spec(
+                spec.getTtl() != null ? spec.getTtl() : defaults.getTtl(),
+                spec.getLocalTtl() != null ? spec.getLocalTtl() : defaults.getLocalTtl(),
+                spec.getMaxLocalEntries() != null ? spec.getMaxLocalEntries() : defaults.getMaxLocalEntries()
+        );
+    }
+
+    @Getter
+    @Setter
+    public static class Spec {
+        // TTL của bản trên Redis (L2)
+        private Duration ttl;
+        // TTL của bản trong JVM (L1), chặn trên độ trễ khi lỡ mất sự kiện invalidate
+        private Duration localTtl;
+        private Integer maxLocalEntries;
+
+        public Spec() {
+        }
+
+        public Spec(Duration ttl, Duration localTtl, Integer maxLocalEntries) {
+            this.ttl = ttl;
+            this.localTtl = localTtl;
+            this.maxLocalEntries = maxLocalEntries;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.chat.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "websocket.broker")
+public class BrokerRelayProperties {
+
+    public enum Mode {
+        // Chỉ giao tin cho session trên cùng JVM (chạy 1 instance)
+        SIMPLE,
+        // Relay /topic và /user giữa các node qua Redis pub/sub
+        REDIS
+    }
+
+    private Mode mode = Mode.SIMPLE;
+    private String channel = "stomp:relay";
+
+    public boolean isRedis() {
+        return mode == Mode.REDIS;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.chat.config;
+
+import com.example.chat.cache.TwoTierCacheManager;
+import com.example.chat.cache.TwoTierCacheProperties;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    @Bean
+    public TwoTierCacheManager cacheManager(LettuceConnectionFactory factory,
+                                            RedisTemplate<String, Object> redisTemplate,
+                                            RedisMessageListenerContainer redisMessageListenerContainer,
+                                            TwoTierCacheProperties properties,
+                                            MeterRegistry meterRegistry) {
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(
+                properties, cacheRedisTemplate(factory), redisTemplate, meterRegistry);
+        redisMessageListenerContainer.addMessageListener(cacheManager, new ChannelTopic(properties.getChannel()));
+        return cacheManager;
+    }
+
+    // Không đăng ký làm bean để không đụng với RedisTemplate<String, Object> chung khi inject theo kiểu
+    private RedisTemplate<String, Object> cacheRedisTemplate(LettuceConnectionFactory factory) {
+        // Giá trị cache cần kèm tên lớp để đọc lại đúng DTO (template chung serialize không kèm kiểu)
+        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+        serializer.configure(mapper -> mapper
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(factory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(serializer);
+        template.afterPropertiesSet();
+        return template;
+    }
+}
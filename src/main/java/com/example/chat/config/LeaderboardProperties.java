@@ -0,0 +1,18 @@
+package com.example.chat.config;
+
+import com.example.chat.enums.LeaderboardMetric;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "leaderboard.doctors")
+public class LeaderboardProperties {
+    // C trong rating Bayes: số review "ảo" mang rating trung bình toàn hệ thống
+    private double priorWeight = 10;
+    private LeaderboardMetric defaultMetric = LeaderboardMetric.REVIEW_COUNT;
+    private int maxLimit = 50;
+}
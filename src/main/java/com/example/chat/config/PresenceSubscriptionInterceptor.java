@@ -0,0 +1,55 @@
+package com.example.chat.config;
+
+import com.example.chat.service.PresenceService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * Chặn SUBSCRIBE vào /topic/presence/{userId} nếu userId không phải chính mình hoặc liên hệ của người đăng ký
+ * (partner trong inbox, đối tác lịch hẹn).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PresenceSubscriptionInterceptor implements ChannelInterceptor {
+
+    // Lazy: PresenceService phụ thuộc SimpMessagingTemplate, được tạo sau WebSocketConfig
+    private final ObjectProvider<PresenceService> presenceService;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            return message;
+        }
+
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith(PresenceService.PRESENCE_TOPIC)) {
+            return message;
+        }
+
+        Principal user = accessor.getUser();
+        try {
+            Long viewerId = Long.parseLong(user.getName());
+            Long targetId = Long.parseLong(destination.substring(PresenceService.PRESENCE_TOPIC.length()));
+            if (presenceService.getObject().canWatch(viewerId, targetId)) {
+                return message;
+            }
+        } catch (Exception e) {
+            // Không có principal hoặc destination sai định dạng
+        }
+
+        log.warn("Từ chối subscribe {} của {}", destination, user != null ? user.getName() : null);
+        return null;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.chat.config;
+
+import com.example.chat.service.PresenceService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+/**
+ * Relay tin nhắn STOMP giữa các node qua Redis pub/sub (websocket.broker.mode=redis).
+ * Gắn vào brokerChannel: mọi tin gửi tới /topic/** hoặc /user/** từ node này được publish lên Redis,
+ * các node khác nhận lại và đẩy vào simple broker cục bộ, UserDestinationMessageHandler của từng node
+ * tự resolve session của user. Tin /user chỉ được relay khi user còn session ở node khác (theo presence).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisBrokerRelay implements ChannelInterceptor, MessageListener {
+
+    private static final String RELAY_HEADER = "relayOrigin";
+    private static final String USER_PREFIX = "/user/";
+    private static final String TOPIC_PREFIX = "/topic/";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final BrokerRelayProperties properties;
+    private final ObjectMapper objectMapper;
+
+    // Lazy: brokerChannel / SimpMessagingTemplate được tạo sau khi WebSocketConfig đăng ký interceptor này
+    private final ObjectProvider<SimpMessagingTemplate> messagingTemplate;
+    private final ObjectProvider<PresenceService> presenceService;
+
+    public record RelayEnvelope(String origin, String destination, String contentType, byte[] payload) {
+    }
+
+    @PostConstruct
+    public void init() {
+        if (properties.isRedis()) {
+            redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(properties.getChannel()));
+        }
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (message.getHeaders().containsKey(RELAY_HEADER)
+                || !(message.getPayload() instanceof byte[] payload)
+                || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null || !shouldRelay(destination)) {
+            return message;
+        }
+
+        try {
+            Object contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+            redisTemplate.convertAndSend(properties.getChannel(), new RelayEnvelope(
+                    presenceService.getObject().getNodeId(),
+                    destination,
+                    contentType != null ? contentType.toString() : null,
+                    payload
+            ));
+        } catch (Exception e) {
+            // Không chặn việc giao tin cho session cục bộ
+            log.warn("Relay {} qua Redis thất bại: {}", destination, e.getMessage());
+        }
+        return message;
+    }
+
+    @Override
+    public void onMessage(org.springframework.data.redis.connection.Message message, byte[] pattern) {
+        try {
+            RelayEnvelope envelope = objectMapper.readValue(message.getBody(), RelayEnvelope.class);
+            if (presenceService.getObject().getNodeId().equals(envelope.origin())) {
+                return;
+            }
+
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setDestination(envelope.destination());
+            if (envelope.contentType() != null) {
+                accessor.setContentType(MimeType.valueOf(envelope.contentType()));
+            }
+            accessor.setHeader(RELAY_HEADER, envelope.origin());
+            accessor.setLeaveMutable(true);
+
+            messagingTemplate.getObject().send(
+                    envelope.destination(),
+                    MessageBuilder.createMessage(envelope.payload(), accessor.getMessageHeaders())
+            );
+        } catch (Exception e) {
+            log.warn("Không xử lý được tin relay: {}", e.getMessage());
+        }
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private boolean shouldRelay(String destination) {
+        if (destination.startsWith(TOPIC_PREFIX)) {
+            return true;
+        }
+        if (!destination.startsWith(USER_PREFIX)) {
+            // Đích đã resolve (/queue/...-user{session}) chỉ thuộc về node hiện tại
+            return false;
+        }
+
+        int end = destination.indexOf('/', USER_PREFIX.length());
+        String user = end > 0 ? destination.substring(USER_PREFIX.length(), end) : null;
+        try {
+            return user == null || presenceService.getObject().hasRemoteSessions(Long.parseLong(user));
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+}
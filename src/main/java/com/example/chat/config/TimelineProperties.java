@@ -0,0 +1,23 @@
+package com.example.chat.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "timeline.home")
+public class TimelineProperties {
+    // Số bài tối đa giữ trong timeline của một người
+    private int maxSize = 800;
+    // Bác sĩ có nhiều người theo dõi hơn ngưỡng này không fan-out khi đăng bài, bài được trộn vào lúc đọc
+    private long fanOutLimit = 5000;
+    private int fanOutBatchSize = 500;
+    // Timeline không được dựng lại trong khoảng này thì hết hạn, lần đọc sau dựng lại từ DB
+    private Duration ttl = Duration.ofDays(3);
+    private int maxPageSize = 50;
+}
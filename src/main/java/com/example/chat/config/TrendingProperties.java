@@ -0,0 +1,25 @@
+package com.example.chat.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "trending.articles")
+public class TrendingProperties {
+    // Trọng số tương tác: điểm = ln(1 + vote*voteWeight + comment*commentWeight + share*shareWeight)
+    private double voteWeight = 1;
+    private double commentWeight = 2;
+    private double shareWeight = 3;
+    // Sau mỗi halfLife, cùng mức tương tác chỉ còn một nửa trọng lượng
+    private Duration halfLife = Duration.ofHours(24);
+    // Chỉ xếp hạng bài đăng trong khoảng này
+    private Duration window = Duration.ofDays(7);
+    private int maxSize = 5000;
+    private int maxPageSize = 50;
+}
@@ -1,7 +1,10 @@
 package com.example.chat.config;
 
-import com.example.chat.security.JwtTokenProvider;
+import com.example.chat.security.JwtPrincipal;
+import com.example.chat.security.TokenBlacklist;
+import com.example.chat.security.VerifiedTokenCache;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.context.annotation.Configuration;
 
@@ -19,12 +22,20 @@ import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBr
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+import java.util.Optional;
+
+@Slf4j
 @RequiredArgsConstructor
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
-    private final JwtTokenProvider jwtTokenProvider;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenBlacklist tokenBlacklist;
+    private final BrokerRelayProperties brokerRelayProperties;
+    private final RedisBrokerRelay redisBrokerRelay;
+    private final PresenceSubscriptionInterceptor presenceSubscriptionInterceptor;
+
     private TaskScheduler customWebSocketTaskScheduler() {
         var scheduler = new org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler();
         scheduler.setPoolSize(1);
@@ -49,6 +60,11 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setHeartbeatValue(new long[]{3000, 3000}) // {server->client, client->server} ms
                 .setTaskScheduler(customWebSocketTaskScheduler());
         registry.setUserDestinationPrefix("/user");
+
+        // Nhiều instance: relay tin /topic và /user sang các node khác qua Redis
+        if (brokerRelayProperties.isRedis()) {
+            registry.configureBrokerChannel().interceptors(redisBrokerRelay);
+        }
     }
 
 
@@ -67,20 +83,25 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
                     String token = accessor.getFirstNativeHeader("Authorization");
 
+                    // Cùng đường xác thực với JwtAuthenticationFilter
+                    Optional<JwtPrincipal> principal = Optional.empty();
                     if (token != null && token.startsWith("Bearer ")) {
                         token = token.substring(7);
-                        if(!jwtTokenProvider.isValidAccessToken(token)){
-                            System.out.println("❌ Invalid or missing token. Connection refused.");
-                            return null;
+                        if (!tokenBlacklist.isRevoked(token)) {
+                            principal = verifiedTokenCache.verify(token);
                         }
                     }
 
-                    Long accountId = jwtTokenProvider.getAccountIdFromAccessToken(token);
-                    accessor.setUser(new StompPrincipal(String.valueOf(accountId)));
+                    if (principal.isEmpty()) {
+                        log.warn("Từ chối kết nối STOMP: token không hợp lệ hoặc thiếu (session {})", accessor.getSessionId());
+                        return null;
+                    }
+
+                    accessor.setUser(new StompPrincipal(String.valueOf(principal.get().accountId())));
                 }
 
                 return message;
             }
-        });
+        }, presenceSubscriptionInterceptor);
     }
 }
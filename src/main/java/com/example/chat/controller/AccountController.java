@@ -5,6 +5,7 @@ import com.example.chat.dto.PagingResponse;
 import com.example.chat.dto.req.UpdateAccountRequest;
 import com.example.chat.dto.res.AccountResponse;
 import com.example.chat.dto.res.CurrentUserResponse;
+import com.example.chat.dto.res.DeletionJobResponse;
 import com.example.chat.dto.res.DoctorResponse;
 import com.example.chat.dto.res.ProfileUserResponse;
 import com.example.chat.entity.Account;
@@ -16,7 +17,9 @@ import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -47,6 +50,20 @@ public class AccountController {
         );
     }
 
+    @PreAuthorize("hasRole('ADMIN')")
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ApiResponse<DeletionJobResponse>> deleteAccount(@PathVariable Long id) {
+        DeletionJobResponse job = accountService.deleteAccount(id);
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(
+                ApiResponse.<DeletionJobResponse>builder()
+                        .code(HttpServletResponse.SC_ACCEPTED)
+                        .message("Đã nhận yêu cầu xóa tài khoản")
+                        .data(job)
+                        .build()
+        );
+    }
+
     @GetMapping("/users")
     public ResponseEntity<PagingResponse<AccountResponse>> getAllUsers(
             @RequestParam(defaultValue = "0") int page,
@@ -65,6 +65,23 @@ public class AppointmentController {
         );
     }
 
+    @GetMapping("/available-slots/range")
+    public ResponseEntity<ApiResponse<Map<LocalDate, List<LocalTime>>>> getAvailableSlotsInRange(
+            @RequestParam Long doctorId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        Map<LocalDate, List<LocalTime>> slots = appointmentService.getAvailableSlots(doctorId, from, to);
+
+        return ResponseEntity.ok(
+                ApiResponse.<Map<LocalDate, List<LocalTime>>>builder()
+                        .code(200)
+                        .message("Danh sách slot còn trống theo ngày")
+                        .data(slots)
+                        .build()
+        );
+    }
+
     @PutMapping("/{id}/status")
     public ResponseEntity<ApiResponse<Appointment>> updateStatus(
             @PathVariable Long id,
@@ -81,12 +98,14 @@ public class AppointmentController {
         );
     }
 
-    // 📌 Lấy lịch hẹn theo bác sĩ (có thể lọc theo status)
+    // 📌 Lấy lịch hẹn theo bác sĩ (có thể lọc theo status, phân trang keyset theo cursorId)
     @GetMapping("/doctor")
     public ResponseEntity<ApiResponse<List<AppointmentResponse>>> getByDoctor(
-            @RequestParam(required = false) AppointmentStatus status
+            @RequestParam(required = false) AppointmentStatus status,
+            @RequestParam(required = false) Long cursorId,
+            @RequestParam(defaultValue = "20") int limit
     ) {
-        List<AppointmentResponse> data = appointmentService.getAppointmentsByDoctor(status);
+        List<AppointmentResponse> data = appointmentService.getAppointmentsByDoctor(status, cursorId, limit);
         return ResponseEntity.ok(
                 ApiResponse.<List<AppointmentResponse>>builder()
                         .code(200)
@@ -96,12 +115,14 @@ public class AppointmentController {
         );
     }
 
-    // 📌 Lấy lịch hẹn theo bệnh nhân (có thể lọc theo status)
+    // 📌 Lấy lịch hẹn theo bệnh nhân (có thể lọc theo status, phân trang keyset theo cursorId)
     @GetMapping("/user")
     public ResponseEntity<ApiResponse<List<AppointmentResponse>>> getByUser(
-            @RequestParam(required = false) AppointmentStatus status
+            @RequestParam(required = false) AppointmentStatus status,
+            @RequestParam(required = false) Long cursorId,
+            @RequestParam(defaultValue = "20") int limit
     ) {
-        List<AppointmentResponse> data = appointmentService.getAppointmentsByUser(status);
+        List<AppointmentResponse> data = appointmentService.getAppointmentsByUser(status, cursorId, limit);
         return ResponseEntity.ok(
                 ApiResponse.<List<AppointmentResponse>>builder()
                         .code(200)
@@ -8,6 +8,7 @@ import com.example.chat.dto.req.VoteArticleRequest;
 import com.example.chat.dto.req.VoteCommentRequest;
 import com.example.chat.dto.res.ArticleCommentResponse;
 import com.example.chat.dto.res.ArticleResponse;
+import com.example.chat.dto.res.DeletionJobResponse;
 import com.example.chat.service.ArticleCommentService;
 import com.example.chat.service.ArticleService;
 import jakarta.servlet.http.HttpServletResponse;
@@ -15,10 +16,12 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -67,14 +70,15 @@ public class ArticleController {
         );
     }
 
+    // Xoá chạy nền: trả về job id, theo dõi tiến độ qua GET /api/deletions/{jobId}
     @DeleteMapping("/{id}")
-    public ResponseEntity<ApiResponse<Void>> deleteArticle(@PathVariable Long id) {
-        articleService.deleteArticle(id);
-        return ResponseEntity.ok(
-                ApiResponse.<Void>builder()
-                        .code(HttpServletResponse.SC_OK)
-                        .message("Xóa bài viết thành công")
-                        .data(null)
+    public ResponseEntity<ApiResponse<DeletionJobResponse>> deleteArticle(@PathVariable Long id) {
+        DeletionJobResponse job = articleService.deleteArticle(id);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(
+                ApiResponse.<DeletionJobResponse>builder()
+                        .code(HttpServletResponse.SC_ACCEPTED)
+                        .message("Đã nhận yêu cầu xóa bài viết")
+                        .data(job)
                         .build()
         );
     }
@@ -87,9 +91,71 @@ public class ArticleController {
         return articleService.listPublicArticles(pageable);
     }
 
+    // Feed keyset: trang sau truyền cursorUpdatedAt + cursorId = updatedAt, id của bài cuối trang trước
+    @GetMapping("/feed")
+    public ResponseEntity<ApiResponse<List<ArticleResponse>>> getPublicFeed(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime cursorUpdatedAt,
+            @RequestParam(required = false) Long cursorId,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        List<ArticleResponse> data = articleService.getPublicFeed(cursorUpdatedAt, cursorId, limit);
+        return ResponseEntity.ok(
+                ApiResponse.<List<ArticleResponse>>builder()
+                        .code(200)
+                        .message("Feed bài viết")
+                        .data(data)
+                        .build()
+        );
+    }
+
+    // Timeline trang chủ: bài của bác sĩ đang theo dõi và của chính mình; trang sau truyền cursorId = id bài cuối trang trước
+    @GetMapping("/home")
+    public ResponseEntity<ApiResponse<List<ArticleResponse>>> getHomeTimeline(
+            @RequestParam(required = false) Long cursorId,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        List<ArticleResponse> data = articleService.getHomeTimeline(cursorId, limit);
+        return ResponseEntity.ok(
+                ApiResponse.<List<ArticleResponse>>builder()
+                        .code(200)
+                        .message("Timeline trang chủ")
+                        .data(data)
+                        .build()
+        );
+    }
+
+    // Bài viết thịnh hành: điểm tương tác giảm dần theo tuổi bài
+    @GetMapping("/trending")
+    public PagingResponse<ArticleResponse> getTrending(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        return articleService.getTrending(page, size);
+    }
+
+    // Comment gốc mới -> cũ theo keyset: trang sau truyền cursorCreatedAt + cursorId của comment gốc cuối trang trước.
+    // Mỗi comment kèm tối đa replyLimit reply đầu, phần còn lại lấy qua /comment/{id}/replies
     @GetMapping("/{articleId}/comments")
-    public List<ArticleCommentResponse> getCommentsByArticle(@PathVariable Long articleId) {
-        return articleCommentService.getCommentsByArticle(articleId);
+    public List<ArticleCommentResponse> getCommentsByArticle(
+            @PathVariable Long articleId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime cursorCreatedAt,
+            @RequestParam(required = false) Long cursorId,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "3") int replyLimit
+    ) {
+        return articleCommentService.getCommentsByArticle(articleId, cursorCreatedAt, cursorId, limit, replyLimit);
+    }
+
+    // "Xem thêm trả lời": cursor là createdAt, id của reply cuối cùng đang hiển thị
+    @GetMapping("/comment/{id}/replies")
+    public List<ArticleCommentResponse> getReplies(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime cursorCreatedAt,
+            @RequestParam(required = false) Long cursorId,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "3") int replyLimit
+    ) {
+        return articleCommentService.getReplies(id, cursorCreatedAt, cursorId, limit, replyLimit);
     }
 
     @PostMapping("/comment/{id}/vote")
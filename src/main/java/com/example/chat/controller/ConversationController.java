@@ -4,11 +4,14 @@ import com.example.chat.dto.res.ConversationResponse;
 import com.example.chat.service.ConversationService;
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -18,9 +21,14 @@ public class ConversationController {
 
     private final ConversationService conversationService;
 
+    // Phân trang keyset: truyền last_activity_at và conversation_id của phần tử cuối trang trước
     @GetMapping
-    public List<ConversationResponse> getAllConversations() {
+    public List<ConversationResponse> getAllConversations(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime cursorTime,
+            @RequestParam(required = false) Long cursorId,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
         Long accountId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        return conversationService.getUserConversations(accountId);
+        return conversationService.getUserConversations(accountId, cursorTime, cursorId, limit);
     }
 }
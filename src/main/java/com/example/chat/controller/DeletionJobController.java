@@ -0,0 +1,35 @@
+package com.example.chat.controller;
+
+import com.example.chat.dto.ApiResponse;
+import com.example.chat.dto.res.DeletionJobResponse;
+import com.example.chat.service.BulkDeletionService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/deletions")
+@RequiredArgsConstructor
+public class DeletionJobController {
+    private final BulkDeletionService bulkDeletionService;
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ApiResponse<DeletionJobResponse>> getDeletionJob(@PathVariable Long jobId) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        boolean admin = auth.getAuthorities().stream().anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
+
+        return ResponseEntity.ok(
+                ApiResponse.<DeletionJobResponse>builder()
+                        .code(HttpServletResponse.SC_OK)
+                        .message("Tiến độ xóa")
+                        .data(bulkDeletionService.getStatus(jobId, (Long) auth.getPrincipal(), admin))
+                        .build()
+        );
+    }
+}
@@ -1,17 +1,22 @@
 package com.example.chat.controller;
 
 import com.example.chat.dto.ApiResponse;
+import com.example.chat.dto.PagingResponse;
 import com.example.chat.dto.req.CreateDoctorRequest;
 import com.example.chat.dto.req.UpdateDoctorRequest;
+import com.example.chat.dto.res.DeletionJobResponse;
 import com.example.chat.dto.res.DoctorDetailResponse;
 import com.example.chat.dto.res.DoctorListResponse;
 import com.example.chat.dto.res.DoctorResponse;
+import com.example.chat.enums.LeaderboardMetric;
 import com.example.chat.exception.ConflictException;
 import com.example.chat.repository.AccountRepository;
+import com.example.chat.service.DoctorSearchIndex;
 import com.example.chat.service.DoctorService;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -76,15 +81,16 @@ public class DoctorController {
 
     @PreAuthorize("hasRole('ADMIN')")
     @DeleteMapping("/delete/{id}")
-    public ResponseEntity<ApiResponse<Void>> deleteDoctorById(
+    public ResponseEntity<ApiResponse<DeletionJobResponse>> deleteDoctorById(
             @PathVariable("id") Long accountId
     ) {
-        doctorService.deleteDoctorById(accountId);
+        DeletionJobResponse job = doctorService.deleteDoctorById(accountId);
 
-        return ResponseEntity.ok(
-                ApiResponse.<Void>builder()
-                        .code(HttpServletResponse.SC_OK)
-                        .message("Xóa bác sĩ thành công")
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(
+                ApiResponse.<DeletionJobResponse>builder()
+                        .code(HttpServletResponse.SC_ACCEPTED)
+                        .message("Đã nhận yêu cầu xóa bác sĩ")
+                        .data(job)
                         .build()
         );
     }
@@ -115,6 +121,37 @@ public class DoctorController {
         );
     }
 
+    @GetMapping("/top")
+    public ResponseEntity<ApiResponse<List<DoctorListResponse>>> getTopDoctors(
+            @RequestParam(required = false) LeaderboardMetric metric,
+            @RequestParam(required = false) String specialization,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        List<DoctorListResponse> topDoctors = doctorService.getTopDoctors(metric, specialization, limit);
+
+        return ResponseEntity.ok(
+                ApiResponse.<List<DoctorListResponse>>builder()
+                        .code(200)
+                        .message("Bảng xếp hạng bác sĩ")
+                        .data(topDoctors)
+                        .build()
+        );
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<PagingResponse<DoctorListResponse>> searchDoctors(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String specialization,
+            @RequestParam(required = false) Long minFee,
+            @RequestParam(required = false) Long maxFee,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        DoctorSearchIndex.Query query = new DoctorSearchIndex.Query(q, specialization, minFee, maxFee, minRating);
+        return ResponseEntity.ok(doctorService.searchDoctors(query, page, size));
+    }
+
     @GetMapping("/{specialization}")
     public ResponseEntity<ApiResponse<List<DoctorListResponse>>> getDoctorsBySpecialization(
             @PathVariable String specialization
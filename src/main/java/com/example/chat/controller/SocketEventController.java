@@ -7,13 +7,16 @@ import com.example.chat.dto.res.SendMessageResponse;
 import com.example.chat.dto.res.SignalReponse;
 import com.example.chat.entity.*;
 import com.example.chat.enums.MessageType;
-import com.example.chat.listener.OnlineUserTracker;
 import com.example.chat.repository.AccountRepository;
 import com.example.chat.repository.CallSessionRepository;
 import com.example.chat.repository.MessageRepository;
 import com.example.chat.service.CallService;
+import com.example.chat.service.ConversationInboxService;
 import com.example.chat.service.ConversationService;
-import com.example.chat.service.ConversationUnreadService;
+import com.example.chat.service.MessageTailService;
+import com.example.chat.service.PresenceService;
+import com.example.chat.service.UnreadCounterService;
+import com.example.chat.service.UserCardService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
@@ -31,25 +34,29 @@ import java.util.Map;
 @Controller
 @RequiredArgsConstructor
 public class SocketEventController {
-    private final ConversationUnreadService conversationUnreadService;
+    private final UnreadCounterService unreadCounterService;
     private final SimpMessagingTemplate messagingTemplate;
     private final CallService callService;
     private final AccountRepository accountRepository;
     private final MessageRepository messageRepository;
-    private final OnlineUserTracker onlineUserTracker;
+    private final PresenceService presenceService;
     private final ConversationService conversationService;
     private final CallSessionRepository callSessionRepository;
+    private final ConversationInboxService conversationInboxService;
+    private final MessageTailService messageTailService;
+    private final UserCardService userCardService;
 
     @MessageMapping("/request-online-users")
-    public void getOnlineUsers(Principal principal) {
+    public void getOnlineUsers(@Payload(required = false) OnlineUsersRequest request, Principal principal) {
         if (principal != null) {
-            String accountId = principal.getName();
+            Long accountId = Long.parseLong(principal.getName());
 
-            // Gửi danh sách người dùng online về cho chính user đó (FE đang dùng /user/queue/online-users)
+            // Chỉ trả trạng thái của các user liên quan (mặc định: partner trong inbox), có phân trang.
+            // Thay đổi sau đó được đẩy dạng delta qua /topic/presence/{userId}
             messagingTemplate.convertAndSendToUser(
-                    accountId,
+                    principal.getName(),
                     "/queue/online-users",
-                    onlineUserTracker.getOnlineUsers()
+                    presenceService.snapshot(accountId, request)
             );
         }
     }
@@ -60,7 +67,7 @@ public class SocketEventController {
         Long accountId = Long.parseLong(principal.getName());
 
         // Gọi service để reset số lượng unread
-        conversationUnreadService.resetUnreadCount(payload.getConversationId(), accountId);
+        unreadCounterService.reset(payload.getConversationId(), accountId);
 
         // Gửi thông báo về lại cho người dùng
         messagingTemplate.convertAndSendToUser(
@@ -80,19 +87,8 @@ public class SocketEventController {
         );
 
 
-        Account caller = getUserById(accountId);
-        Account receiver = getUserById(request.getReceiverId());
-
         // Chuẩn bị thông tin người gọi
-        UserDto callerDto = UserDto.builder()
-                .id(caller.getId())
-                .username(caller.getUsername())
-                .avatarUrl(
-                        caller.getUserDetail() != null
-                                ? caller.getUserDetail().getAvatar_url()
-                                : null
-                )
-                .build();
+        UserDto callerDto = userCardService.getUserCard(accountId);
 
         // Tạo payload gửi cho người nhận
         IncomingCallPayload payload = IncomingCallPayload.builder()
@@ -102,15 +98,7 @@ public class SocketEventController {
                 .build();
 
         // Chuẩn bị thông tin người nhận
-        UserDto receiverDto = UserDto.builder()
-                .id(receiver.getId())
-                .username(receiver.getUsername())
-                .avatarUrl(
-                        receiver.getUserDetail() != null
-                                ? receiver.getUserDetail().getAvatar_url()
-                                : null
-                )
-                .build();
+        UserDto receiverDto = userCardService.getUserCard(request.getReceiverId());
 
         // Tạo payload cho người gọi
         CallStartedPayload payload1 = CallStartedPayload.builder()
@@ -128,7 +116,7 @@ public class SocketEventController {
 
         // Gửi socket đến người gọi
         messagingTemplate.convertAndSendToUser(
-                caller.getId().toString(),
+                callerDto.getId().toString(),
                 "/queue/call-started",
                 payload1
         );
@@ -205,17 +193,7 @@ public class SocketEventController {
         );
 
         Long accountId = Long.parseLong(principal.getName());
-        Account receiver = getUserById(accountId);
-
-        UserDto receiverDto = UserDto.builder()
-                .id(receiver.getId())
-                .username(receiver.getUsername())
-                .avatarUrl(
-                        receiver.getUserDetail() != null
-                                ? receiver.getUserDetail().getAvatar_url()
-                                : null
-                )
-                .build();
+        UserDto receiverDto = userCardService.getUserCard(accountId);
 
         // Tạo response
         CallAcceptResponse response = new CallAcceptResponse();
@@ -282,6 +260,12 @@ public class SocketEventController {
         callMessage.setMessageContent(messageContent);
 
         messageRepository.save(callMessage);
+        conversationInboxService.onMessageSaved(callMessage);
+
+        // Người gửi của tin nhắn cuộc gọi là người gọi (callSession.account)
+        Long callerId = callSession.getAccount().getId();
+        Account caller = callerId.equals(currentUser.getId()) ? currentUser : getUserById(callerId);
+        messageTailService.append(conversation.getId(), MessageTailService.toChatItem(callMessage, caller));
 
         Conversation conversationWithMembers = conversationService.getConversationWithMembers(conversation.getId());
 
@@ -289,7 +273,7 @@ public class SocketEventController {
         if ("CANCELLED".equals(messageContent)) {
             for (ConversationMember member : conversationWithMembers.getMembers()) {
                 if (!member.getAccount().getId().equals(currentUser.getId())) {
-                    conversationUnreadService.incrementUnreadCount(conversation, member.getAccount());
+                    unreadCounterService.increment(conversation.getId(), member.getAccount().getId());
                 }
             }
         }
@@ -297,7 +281,7 @@ public class SocketEventController {
         else if ("REJECTED".equals(messageContent)) {
             for (ConversationMember member : conversationWithMembers.getMembers()) {
                 if (member.getAccount().getId().equals(currentUser.getId())) {
-                    conversationUnreadService.incrementUnreadCount(conversation, member.getAccount());
+                    unreadCounterService.increment(conversation.getId(), member.getAccount().getId());
                 }
             }
         }
@@ -305,7 +289,7 @@ public class SocketEventController {
         else if ("MISSED".equals(messageContent)) {
             for (ConversationMember member : conversationWithMembers.getMembers()) {
                 if (!member.getAccount().getId().equals(currentUser.getId())) {
-                    conversationUnreadService.incrementUnreadCount(conversation, member.getAccount());
+                    unreadCounterService.increment(conversation.getId(), member.getAccount().getId());
                 }
             }
         }
@@ -314,9 +298,8 @@ public class SocketEventController {
         Map<Long, Long> unreadCounts = new HashMap<>();
 
         for (ConversationMember member : conversationWithMembers.getMembers()) {
-            Account memberAccount = member.getAccount();
-            ConversationUnread unread = conversationUnreadService.getOrCreateUnread(conversation, memberAccount);
-            unreadCounts.put(memberAccount.getId(), unread.getUnreadCount().longValue());
+            Long memberId = member.getAccount().getId();
+            unreadCounts.put(memberId, unreadCounterService.getUnreadCount(conversation.getId(), memberId));
         }
 
         MessageDto messageDto = MessageDto.from(callMessage);
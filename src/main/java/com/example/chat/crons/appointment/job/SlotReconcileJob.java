@@ -0,0 +1,28 @@
+package com.example.chat.crons.appointment.job;
+
+import com.example.chat.service.SlotAvailabilityService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class SlotReconcileJob implements Job {
+    private final SlotAvailabilityService slotAvailabilityService;
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        try {
+            slotAvailabilityService.reconcile();
+        } catch (Exception e) {
+            log.error("Error processing SlotReconcileJob: {}", e.getMessage(), e);
+            throw new JobExecutionException(e);
+        }
+    }
+}
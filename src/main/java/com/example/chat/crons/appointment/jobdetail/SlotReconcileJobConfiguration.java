@@ -0,0 +1,21 @@
+package com.example.chat.crons.appointment.jobdetail;
+
+import com.example.chat.crons.appointment.job.SlotReconcileJob;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SlotReconcileJobConfiguration {
+    @Bean(name="slotReconcileJobDetail")
+    public JobDetail slotReconcileJobDetail(){
+        return JobBuilder.newJob()
+                .ofType(SlotReconcileJob.class)
+                .storeDurably()
+                .withIdentity("slotReconcileJob")
+                .withDescription("Slot Reconcile Job")
+                .usingJobData("jobName", "slotReconcileJob")
+                .build();
+    }
+}
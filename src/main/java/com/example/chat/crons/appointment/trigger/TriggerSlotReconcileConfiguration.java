@@ -0,0 +1,36 @@
+package com.example.chat.crons.appointment.trigger;
+
+import com.example.chat.crons.config.JobFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobDetail;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+@RequiredArgsConstructor
+public class TriggerSlotReconcileConfiguration {
+    private final JobFactory jobFactory;
+
+    @Bean
+    public Trigger triggerSlotReconcileJob(@Qualifier("slotReconcileJobDetail") JobDetail slotReconcileJobDetail) {
+        log.info("Creating trigger for Slot Reconcile Job");
+        try {
+            String jobName = "slotReconcileJob";
+            return TriggerBuilder.newTrigger()
+                    .forJob(slotReconcileJobDetail)
+                    .withIdentity(jobName + "Trigger")
+                    .withDescription("Trigger for Slot Reconcile Job")
+                    .withSchedule(CronScheduleBuilder.cronSchedule(jobFactory.getCronJobByName(jobName)))
+                    .build();
+        } catch (Exception e) {
+            log.error("Error creating trigger for Slot Reconcile Job: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to create SlotReconcileJob trigger", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.chat.crons.blacklist.job;
+
+import com.example.chat.security.TokenBlacklist;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class BlacklistSyncJob implements Job {
+    private final TokenBlacklist tokenBlacklist;
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        try {
+            // Bù các event pub/sub bị lỡ và dọn token đã hết hạn khỏi Bloom filter
+            tokenBlacklist.resync();
+        } catch (Exception e) {
+            log.error("Error processing BlacklistSyncJob: {}", e.getMessage(), e);
+            throw new JobExecutionException(e);
+        }
+    }
+}
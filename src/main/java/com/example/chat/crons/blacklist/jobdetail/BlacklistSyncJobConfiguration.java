@@ -0,0 +1,21 @@
+package com.example.chat.crons.blacklist.jobdetail;
+
+import com.example.chat.crons.blacklist.job.BlacklistSyncJob;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class BlacklistSyncJobConfiguration {
+    @Bean(name="blacklistSyncJobDetail")
+    public JobDetail blacklistSyncJobDetail(){
+        return JobBuilder.newJob()
+                .ofType(BlacklistSyncJob.class)
+                .storeDurably()
+                .withIdentity("blacklistSyncJob")
+                .withDescription("Blacklist Sync Job")
+                .usingJobData("jobName", "blacklistSyncJob")
+                .build();
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.chat.crons.blacklist.trigger;
+
+import com.example.chat.crons.config.JobFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobDetail;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+@RequiredArgsConstructor
+public class TriggerBlacklistSyncConfiguration {
+    private final JobFactory jobFactory;
+
+    @Bean
+    public Trigger triggerBlacklistSyncJob(@Qualifier("blacklistSyncJobDetail") JobDetail blacklistSyncJobDetail) {
+        log.info("Creating trigger for Blacklist Sync Job");
+        try {
+            String jobName = "blacklistSyncJob";
+            return TriggerBuilder.newTrigger()
+                    .forJob(blacklistSyncJobDetail)
+                    .withIdentity(jobName + "Trigger")
+                    .withDescription("Trigger for Blacklist Sync Job")
+                    .withSchedule(CronScheduleBuilder.cronSchedule(jobFactory.getCronJobByName(jobName)))
+                    .build();
+        } catch (Exception e) {
+            log.error("Error creating trigger for Blacklist Sync Job: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to create BlacklistSyncJob trigger", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.chat.crons.deletion.job;
+
+import com.example.chat.service.DeletionWorker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class DeletionSweepJob implements Job {
+    private final DeletionWorker deletionWorker;
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        try {
+            // Nhận các job xoá đến hạn retry hoặc bị bỏ dở khi node chết
+            deletionWorker.wakeUp();
+        } catch (Exception e) {
+            log.error("Error processing DeletionSweepJob: {}", e.getMessage(), e);
+            throw new JobExecutionException(e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.chat.crons.deletion.jobdetail;
+
+import com.example.chat.crons.deletion.job.DeletionSweepJob;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class DeletionSweepJobConfiguration {
+    @Bean(name="deletionSweepJobDetail")
+    public JobDetail deletionSweepJobDetail(){
+        return JobBuilder.newJob()
+                .ofType(DeletionSweepJob.class)
+                .storeDurably()
+                .withIdentity("deletionSweepJob")
+                .withDescription("Deletion Sweep Job")
+                .usingJobData("jobName", "deletionSweepJob")
+                .build();
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.chat.crons.deletion.trigger;
+
+import com.example.chat.crons.config.JobFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobDetail;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+@RequiredArgsConstructor
+public class TriggerDeletionSweepConfiguration {
+    private final JobFactory jobFactory;
+
+    @Bean
+    public Trigger triggerDeletionSweepJob(@Qualifier("deletionSweepJobDetail") JobDetail deletionSweepJobDetail) {
+        log.info("Creating trigger for Deletion Sweep Job");
+        try {
+            String jobName = "deletionSweepJob";
+            return TriggerBuilder.newTrigger()
+                    .forJob(deletionSweepJobDetail)
+                    .withIdentity(jobName + "Trigger")
+                    .withDescription("Trigger for Deletion Sweep Job")
+                    .withSchedule(CronScheduleBuilder.cronSchedule(jobFactory.getCronJobByName(jobName)))
+                    .build();
+        } catch (Exception e) {
+            log.error("Error creating trigger for Deletion Sweep Job: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to create DeletionSweepJob trigger", e);
+        }
+    }
+}
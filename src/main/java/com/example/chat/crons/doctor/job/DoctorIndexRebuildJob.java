@@ -0,0 +1,28 @@
+package com.example.chat.crons.doctor.job;
+
+import com.example.chat.service.DoctorSearchIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class DoctorIndexRebuildJob implements Job {
+    private final DoctorSearchIndex doctorSearchIndex;
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        try {
+            doctorSearchIndex.rebuild();
+        } catch (Exception e) {
+            log.error("Error processing DoctorIndexRebuildJob: {}", e.getMessage(), e);
+            throw new JobExecutionException(e);
+        }
+    }
+}
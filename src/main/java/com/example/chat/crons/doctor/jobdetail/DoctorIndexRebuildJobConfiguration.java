@@ -0,0 +1,21 @@
+package com.example.chat.crons.doctor.jobdetail;
+
+import com.example.chat.crons.doctor.job.DoctorIndexRebuildJob;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class DoctorIndexRebuildJobConfiguration {
+    @Bean(name="doctorIndexRebuildJobDetail")
+    public JobDetail doctorIndexRebuildJobDetail(){
+        return JobBuilder.newJob()
+                .ofType(DoctorIndexRebuildJob.class)
+                .storeDurably()
+                .withIdentity("doctorIndexRebuildJob")
+                .withDescription("Doctor Index Rebuild Job")
+                .usingJobData("jobName", "doctorIndexRebuildJob")
+                .build();
+    }
+}
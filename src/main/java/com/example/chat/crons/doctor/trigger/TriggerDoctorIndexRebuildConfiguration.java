@@ -0,0 +1,36 @@
+package com.example.chat.crons.doctor.trigger;
+
+import com.example.chat.crons.config.JobFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobDetail;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+@RequiredArgsConstructor
+public class TriggerDoctorIndexRebuildConfiguration {
+    private final JobFactory jobFactory;
+
+    @Bean
+    public Trigger triggerDoctorIndexRebuildJob(@Qualifier("doctorIndexRebuildJobDetail") JobDetail doctorIndexRebuildJobDetail) {
+        log.info("Creating trigger for Doctor Index Rebuild Job");
+        try {
+            String jobName = "doctorIndexRebuildJob";
+            return TriggerBuilder.newTrigger()
+                    .forJob(doctorIndexRebuildJobDetail)
+                    .withIdentity(jobName + "Trigger")
+                    .withDescription("Trigger for Doctor Index Rebuild Job")
+                    .withSchedule(CronScheduleBuilder.cronSchedule(jobFactory.getCronJobByName(jobName)))
+                    .build();
+        } catch (Exception e) {
+            log.error("Error creating trigger for Doctor Index Rebuild Job: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to create DoctorIndexRebuildJob trigger", e);
+        }
+    }
+}
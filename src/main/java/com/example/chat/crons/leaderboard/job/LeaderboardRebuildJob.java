@@ -0,0 +1,28 @@
+package com.example.chat.crons.leaderboard.job;
+
+import com.example.chat.service.DoctorLeaderboardService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class LeaderboardRebuildJob implements Job {
+    private final DoctorLeaderboardService doctorLeaderboardService;
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        try {
+            doctorLeaderboardService.rebuild();
+        } catch (Exception e) {
+            log.error("Error processing LeaderboardRebuildJob: {}", e.getMessage(), e);
+            throw new JobExecutionException(e);
+        }
+    }
+}
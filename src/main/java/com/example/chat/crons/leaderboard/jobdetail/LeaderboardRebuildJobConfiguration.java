@@ -0,0 +1,21 @@
+package com.example.chat.crons.leaderboard.jobdetail;
+
+import com.example.chat.crons.leaderboard.job.LeaderboardRebuildJob;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LeaderboardRebuildJobConfiguration {
+    @Bean(name="leaderboardRebuildJobDetail")
+    public JobDetail leaderboardRebuildJobDetail(){
+        return JobBuilder.newJob()
+                .ofType(LeaderboardRebuildJob.class)
+                .storeDurably()
+                .withIdentity("leaderboardRebuildJob")
+                .withDescription("Leaderboard Rebuild Job")
+                .usingJobData("jobName", "leaderboardRebuildJob")
+                .build();
+    }
+}
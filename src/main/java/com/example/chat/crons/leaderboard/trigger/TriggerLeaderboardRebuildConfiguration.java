@@ -0,0 +1,36 @@
+package com.example.chat.crons.leaderboard.trigger;
+
+import com.example.chat.crons.config.JobFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobDetail;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+@RequiredArgsConstructor
+public class TriggerLeaderboardRebuildConfiguration {
+    private final JobFactory jobFactory;
+
+    @Bean
+    public Trigger triggerLeaderboardRebuildJob(@Qualifier("leaderboardRebuildJobDetail") JobDetail leaderboardRebuildJobDetail) {
+        log.info("Creating trigger for Leaderboard Rebuild Job");
+        try {
+            String jobName = "leaderboardRebuildJob";
+            return TriggerBuilder.newTrigger()
+                    .forJob(leaderboardRebuildJobDetail)
+                    .withIdentity(jobName + "Trigger")
+                    .withDescription("Trigger for Leaderboard Rebuild Job")
+                    .withSchedule(CronScheduleBuilder.cronSchedule(jobFactory.getCronJobByName(jobName)))
+                    .build();
+        } catch (Exception e) {
+            log.error("Error creating trigger for Leaderboard Rebuild Job: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to create LeaderboardRebuildJob trigger", e);
+        }
+    }
+}
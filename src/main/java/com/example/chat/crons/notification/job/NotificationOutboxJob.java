@@ -0,0 +1,29 @@
+package com.example.chat.crons.notification.job;
+
+import com.example.chat.service.NotificationDispatcher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class NotificationOutboxJob implements Job {
+    private final NotificationDispatcher notificationDispatcher;
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        try {
+            // Quét các bản ghi đến hạn retry hoặc bị bỏ dở khi node chết
+            notificationDispatcher.wakeUp();
+        } catch (Exception e) {
+            log.error("Error processing NotificationOutboxJob: {}", e.getMessage(), e);
+            throw new JobExecutionException(e);
+        }
+    }
+}
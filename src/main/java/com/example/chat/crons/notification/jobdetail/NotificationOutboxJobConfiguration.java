@@ -0,0 +1,21 @@
+package com.example.chat.crons.notification.jobdetail;
+
+import com.example.chat.crons.notification.job.NotificationOutboxJob;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class NotificationOutboxJobConfiguration {
+    @Bean(name="notificationOutboxJobDetail")
+    public JobDetail notificationOutboxJobDetail(){
+        return JobBuilder.newJob()
+                .ofType(NotificationOutboxJob.class)
+                .storeDurably()
+                .withIdentity("notificationOutboxJob")
+                .withDescription("Notification Outbox Job")
+                .usingJobData("jobName", "notificationOutboxJob")
+                .build();
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.chat.crons.notification.trigger;
+
+import com.example.chat.crons.config.JobFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobDetail;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+@RequiredArgsConstructor
+public class TriggerNotificationOutboxConfiguration {
+    private final JobFactory jobFactory;
+
+    @Bean
+    public Trigger triggerNotificationOutboxJob(@Qualifier("notificationOutboxJobDetail") JobDetail notificationOutboxJobDetail) {
+        log.info("Creating trigger for Notification Outbox Job");
+        try {
+            String jobName = "notificationOutboxJob";
+            return TriggerBuilder.newTrigger()
+                    .forJob(notificationOutboxJobDetail)
+                    .withIdentity(jobName + "Trigger")
+                    .withDescription("Trigger for Notification Outbox Job")
+                    .withSchedule(CronScheduleBuilder.cronSchedule(jobFactory.getCronJobByName(jobName)))
+                    .build();
+        } catch (Exception e) {
+            log.error("Error creating trigger for Notification Outbox Job: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to create NotificationOutboxJob trigger", e);
+        }
+    }
+}
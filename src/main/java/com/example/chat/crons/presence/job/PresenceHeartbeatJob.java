@@ -0,0 +1,28 @@
+package com.example.chat.crons.presence.job;
+
+import com.example.chat.service.PresenceService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class PresenceHeartbeatJob implements Job {
+    private final PresenceService presenceService;
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        try {
+            presenceService.heartbeat();
+        } catch (Exception e) {
+            log.error("Error processing PresenceHeartbeatJob: {}", e.getMessage(), e);
+            throw new JobExecutionException(e);
+        }
+    }
+}
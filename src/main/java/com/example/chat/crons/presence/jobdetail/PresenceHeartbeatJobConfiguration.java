@@ -0,0 +1,21 @@
+package com.example.chat.crons.presence.jobdetail;
+
+import com.example.chat.crons.presence.job.PresenceHeartbeatJob;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PresenceHeartbeatJobConfiguration {
+    @Bean(name="presenceHeartbeatJobDetail")
+    public JobDetail presenceHeartbeatJobDetail(){
+        return JobBuilder.newJob()
+                .ofType(PresenceHeartbeatJob.class)
+                .storeDurably()
+                .withIdentity("presenceHeartbeatJob")
+                .withDescription("Presence Heartbeat Job")
+                .usingJobData("jobName", "presenceHeartbeatJob")
+                .build();
+    }
+}
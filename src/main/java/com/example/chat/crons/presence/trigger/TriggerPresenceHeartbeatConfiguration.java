@@ -0,0 +1,36 @@
+package com.example.chat.crons.presence.trigger;
+
+import com.example.chat.crons.config.JobFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobDetail;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+@RequiredArgsConstructor
+public class TriggerPresenceHeartbeatConfiguration {
+    private final JobFactory jobFactory;
+
+    @Bean
+    public Trigger triggerPresenceHeartbeatJob(@Qualifier("presenceHeartbeatJobDetail") JobDetail presenceHeartbeatJobDetail) {
+        log.info("Creating trigger for Presence Heartbeat Job");
+        try {
+            String jobName = "presenceHeartbeatJob";
+            return TriggerBuilder.newTrigger()
+                    .forJob(presenceHeartbeatJobDetail)
+                    .withIdentity(jobName + "Trigger")
+                    .withDescription("Trigger for Presence Heartbeat Job")
+                    .withSchedule(CronScheduleBuilder.cronSchedule(jobFactory.getCronJobByName(jobName)))
+                    .build();
+        } catch (Exception e) {
+            log.error("Error creating trigger for Presence Heartbeat Job: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to create PresenceHeartbeatJob trigger", e);
+        }
+    }
+}
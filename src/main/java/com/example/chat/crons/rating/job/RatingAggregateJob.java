@@ -0,0 +1,31 @@
+package com.example.chat.crons.rating.job;
+
+import com.example.chat.service.DoctorReviewService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class RatingAggregateJob implements Job {
+    private final DoctorReviewService doctorReviewService;
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        try {
+            int fixed = doctorReviewService.rebuildRatingAggregates();
+            if (fixed > 0) {
+                log.warn("Đã sửa tổng hợp đánh giá của {} bác sĩ", fixed);
+            }
+        } catch (Exception e) {
+            log.error("Error processing RatingAggregateJob: {}", e.getMessage(), e);
+            throw new JobExecutionException(e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.chat.crons.rating.jobdetail;
+
+import com.example.chat.crons.rating.job.RatingAggregateJob;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RatingAggregateJobConfiguration {
+    @Bean(name="ratingAggregateJobDetail")
+    public JobDetail ratingAggregateJobDetail(){
+        return JobBuilder.newJob()
+                .ofType(RatingAggregateJob.class)
+                .storeDurably()
+                .withIdentity("ratingAggregateJob")
+                .withDescription("Rating Aggregate Job")
+                .usingJobData("jobName", "ratingAggregateJob")
+                .build();
+    }
+}
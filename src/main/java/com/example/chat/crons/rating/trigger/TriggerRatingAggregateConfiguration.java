@@ -0,0 +1,36 @@
+package com.example.chat.crons.rating.trigger;
+
+import com.example.chat.crons.config.JobFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobDetail;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+@RequiredArgsConstructor
+public class TriggerRatingAggregateConfiguration {
+    private final JobFactory jobFactory;
+
+    @Bean
+    public Trigger triggerRatingAggregateJob(@Qualifier("ratingAggregateJobDetail") JobDetail ratingAggregateJobDetail) {
+        log.info("Creating trigger for Rating Aggregate Job");
+        try {
+            String jobName = "ratingAggregateJob";
+            return TriggerBuilder.newTrigger()
+                    .forJob(ratingAggregateJobDetail)
+                    .withIdentity(jobName + "Trigger")
+                    .withDescription("Trigger for Rating Aggregate Job")
+                    .withSchedule(CronScheduleBuilder.cronSchedule(jobFactory.getCronJobByName(jobName)))
+                    .build();
+        } catch (Exception e) {
+            log.error("Error creating trigger for Rating Aggregate Job: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to create RatingAggregateJob trigger", e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.chat.crons.trending.job;
+
+import com.example.chat.service.TrendingArticleService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class TrendingRebuildJob implements Job {
+    private final TrendingArticleService trendingArticleService;
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        try {
+            trendingArticleService.rebuild();
+        } catch (Exception e) {
+            log.error("Error processing TrendingRebuildJob: {}", e.getMessage(), e);
+            throw new JobExecutionException(e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.chat.crons.trending.jobdetail;
+
+import com.example.chat.crons.trending.job.TrendingRebuildJob;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TrendingRebuildJobConfiguration {
+    @Bean(name="trendingRebuildJobDetail")
+    public JobDetail trendingRebuildJobDetail(){
+        return JobBuilder.newJob()
+                .ofType(TrendingRebuildJob.class)
+                .storeDurably()
+                .withIdentity("trendingRebuildJob")
+                .withDescription("Trending Rebuild Job")
+                .usingJobData("jobName", "trendingRebuildJob")
+                .build();
+    }
+}
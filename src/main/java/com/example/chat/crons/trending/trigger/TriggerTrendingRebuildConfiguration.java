@@ -0,0 +1,36 @@
+package com.example.chat.crons.trending.trigger;
+
+import com.example.chat.crons.config.JobFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobDetail;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+@RequiredArgsConstructor
+public class TriggerTrendingRebuildConfiguration {
+    private final JobFactory jobFactory;
+
+    @Bean
+    public Trigger triggerTrendingRebuildJob(@Qualifier("trendingRebuildJobDetail") JobDetail trendingRebuildJobDetail) {
+        log.info("Creating trigger for Trending Rebuild Job");
+        try {
+            String jobName = "trendingRebuildJob";
+            return TriggerBuilder.newTrigger()
+                    .forJob(trendingRebuildJobDetail)
+                    .withIdentity(jobName + "Trigger")
+                    .withDescription("Trigger for Trending Rebuild Job")
+                    .withSchedule(CronScheduleBuilder.cronSchedule(jobFactory.getCronJobByName(jobName)))
+                    .build();
+        } catch (Exception e) {
+            log.error("Error creating trigger for Trending Rebuild Job: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to create TrendingRebuildJob trigger", e);
+        }
+    }
+}
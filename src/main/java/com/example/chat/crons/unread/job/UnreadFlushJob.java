@@ -0,0 +1,39 @@
+package com.example.chat.crons.unread.job;
+
+import com.example.chat.service.UnreadCounterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class UnreadFlushJob implements Job {
+    private final UnreadCounterService unreadCounterService;
+
+    private static final int BATCH_SIZE = 500;
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        try {
+            int total = 0;
+            int flushed;
+            do {
+                flushed = unreadCounterService.flushDirty(BATCH_SIZE);
+                total += flushed;
+            } while (flushed == BATCH_SIZE);
+
+            if (total > 0) {
+                log.debug("Flush {} unread counter xuống DB", total);
+            }
+        } catch (Exception e) {
+            log.error("Error processing UnreadFlushJob: {}", e.getMessage(), e);
+            throw new JobExecutionException(e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.chat.crons.unread.jobdetail;
+
+import com.example.chat.crons.unread.job.UnreadFlushJob;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class UnreadFlushJobConfiguration {
+    @Bean(name="unreadFlushJobDetail")
+    public JobDetail unreadFlushJobDetail(){
+        return JobBuilder.newJob()
+                .ofType(UnreadFlushJob.class)
+                .storeDurably()
+                .withIdentity("unreadFlushJob")
+                .withDescription("Unread Flush Job")
+                .usingJobData("jobName", "unreadFlushJob")
+                .build();
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.chat.crons.unread.trigger;
+
+import com.example.chat.crons.config.JobFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobDetail;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+@RequiredArgsConstructor
+public class TriggerUnreadFlushConfiguration {
+    private final JobFactory jobFactory;
+
+    @Bean
+    public Trigger triggerUnreadFlushJob(@Qualifier("unreadFlushJobDetail") JobDetail unreadFlushJobDetail) {
+        log.info("Creating trigger for Unread Flush Job");
+        try {
+            String jobName = "unreadFlushJob";
+            return TriggerBuilder.newTrigger()
+                    .forJob(unreadFlushJobDetail)
+                    .withIdentity(jobName + "Trigger")
+                    .withDescription("Trigger for Unread Flush Job")
+                    .withSchedule(CronScheduleBuilder.cronSchedule(jobFactory.getCronJobByName(jobName)))
+                    .build();
+        } catch (Exception e) {
+            log.error("Error creating trigger for Unread Flush Job: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to create UnreadFlushJob trigger", e);
+        }
+    }
+}
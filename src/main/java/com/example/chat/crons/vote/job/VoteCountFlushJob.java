@@ -0,0 +1,39 @@
+package com.example.chat.crons.vote.job;
+
+import com.example.chat.service.VoteCounterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class VoteCountFlushJob implements Job {
+    private final VoteCounterService voteCounterService;
+
+    private static final int BATCH_SIZE = 500;
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        try {
+            int total = 0;
+            int flushed;
+            do {
+                flushed = voteCounterService.flushDirty(BATCH_SIZE);
+                total += flushed;
+            } while (flushed == BATCH_SIZE);
+
+            if (total > 0) {
+                log.debug("Flush {} vote counter xuống DB", total);
+            }
+        } catch (Exception e) {
+            log.error("Error processing VoteCountFlushJob: {}", e.getMessage(), e);
+            throw new JobExecutionException(e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.chat.crons.vote.job;
+
+import com.example.chat.service.VoteCounterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class VoteCountReconcileJob implements Job {
+    private final VoteCounterService voteCounterService;
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        try {
+            for (VoteCounterService.Target target : VoteCounterService.Target.values()) {
+                int fixed = voteCounterService.reconcile(target);
+                if (fixed > 0) {
+                    log.warn("Reconcile vote counter {}: sửa {} bộ đếm bị lệch", target, fixed);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error processing VoteCountReconcileJob: {}", e.getMessage(), e);
+            throw new JobExecutionException(e);
+        }
+    }
+}
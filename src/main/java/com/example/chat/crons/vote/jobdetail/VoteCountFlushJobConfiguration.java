@@ -0,0 +1,21 @@
+package com.example.chat.crons.vote.jobdetail;
+
+import com.example.chat.crons.vote.job.VoteCountFlushJob;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class VoteCountFlushJobConfiguration {
+    @Bean(name="voteCountFlushJobDetail")
+    public JobDetail voteCountFlushJobDetail(){
+        return JobBuilder.newJob()
+                .ofType(VoteCountFlushJob.class)
+                .storeDurably()
+                .withIdentity("voteCountFlushJob")
+                .withDescription("Vote Count Flush Job")
+                .usingJobData("jobName", "voteCountFlushJob")
+                .build();
+    }
+}
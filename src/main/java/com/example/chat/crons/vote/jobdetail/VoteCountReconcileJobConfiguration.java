@@ -0,0 +1,21 @@
+package com.example.chat.crons.vote.jobdetail;
+
+import com.example.chat.crons.vote.job.VoteCountReconcileJob;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class VoteCountReconcileJobConfiguration {
+    @Bean(name="voteCountReconcileJobDetail")
+    public JobDetail voteCountReconcileJobDetail(){
+        return JobBuilder.newJob()
+                .ofType(VoteCountReconcileJob.class)
+                .storeDurably()
+                .withIdentity("voteCountReconcileJob")
+                .withDescription("Vote Count Reconcile Job")
+                .usingJobData("jobName", "voteCountReconcileJob")
+                .build();
+    }
+}
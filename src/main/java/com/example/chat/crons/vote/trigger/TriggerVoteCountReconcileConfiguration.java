@@ -0,0 +1,36 @@
+package com.example.chat.crons.vote.trigger;
+
+import com.example.chat.crons.config.JobFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobDetail;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+@RequiredArgsConstructor
+public class TriggerVoteCountReconcileConfiguration {
+    private final JobFactory jobFactory;
+
+    @Bean
+    public Trigger triggerVoteCountReconcileJob(@Qualifier("voteCountReconcileJobDetail") JobDetail voteCountReconcileJobDetail) {
+        log.info("Creating trigger for Vote Count Reconcile Job");
+        try {
+            String jobName = "voteCountReconcileJob";
+            return TriggerBuilder.newTrigger()
+                    .forJob(voteCountReconcileJobDetail)
+                    .withIdentity(jobName + "Trigger")
+                    .withDescription("Trigger for Vote Count Reconcile Job")
+                    .withSchedule(CronScheduleBuilder.cronSchedule(jobFactory.getCronJobByName(jobName)))
+                    .build();
+        } catch (Exception e) {
+            log.error("Error creating trigger for Vote Count Reconcile Job: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to create VoteCountReconcileJob trigger", e);
+        }
+    }
+}
@@ -2,9 +2,11 @@ package com.example.chat.dto;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
 @AllArgsConstructor
+@NoArgsConstructor
 public class ChatItem {
     private UserDto sender;
     private MessageDto message;
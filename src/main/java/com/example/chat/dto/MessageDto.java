@@ -4,11 +4,13 @@ import com.example.chat.entity.Message;
 import com.example.chat.enums.MessageType;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
 @Data
 @AllArgsConstructor
+@NoArgsConstructor
 public class MessageDto {
     private Long id;
     private MessageType message_type;
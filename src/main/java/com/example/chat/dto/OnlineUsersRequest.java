@@ -0,0 +1,17 @@
+package com.example.chat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OnlineUsersRequest {
+    // Danh sách user cần lấy trạng thái; để trống thì lấy các partner trong inbox
+    private List<Long> userIds;
+    private int page = 0;
+    private int size = 50;
+}
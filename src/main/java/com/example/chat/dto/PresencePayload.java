@@ -0,0 +1,14 @@
+package com.example.chat.dto;
+
+import lombok.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresencePayload {
+    private Long userId;
+    private boolean online;
+    // epoch millis của lần offline gần nhất (null nếu chưa từng ghi nhận)
+    private Long lastSeen;
+}
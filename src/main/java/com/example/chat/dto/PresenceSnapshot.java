@@ -0,0 +1,16 @@
+package com.example.chat.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceSnapshot {
+    private int page;
+    private int size;
+    private long totalElements;
+    private List<PresencePayload> data;
+}
@@ -23,6 +23,9 @@ public class ArticleCommentResponse {
 
     // replies để hiển thị comment con (reply)
     private List<ArticleCommentResponse> replies;
+    // Tổng số reply trực tiếp; hasMoreReplies = còn reply chưa nạp (gọi "xem thêm trả lời" với cursor là reply cuối)
+    private Integer replyCount;
+    private boolean hasMoreReplies;
     private boolean userVoted;
     private VoteType userTypeVote;
 }
@@ -20,6 +20,8 @@ public class ArticleResponse {
     private Integer commentCount;
     private Integer shareCount;
     private LocalDateTime createdAt;
+    // Cursor keyset của feed: trang sau truyền (updatedAt, id) của bài cuối
+    private LocalDateTime updatedAt;
     private List<ArticleMediaDto> medias;
     private boolean userVoted;
     private VoteType userTypeVote;
@@ -5,6 +5,8 @@ import com.example.chat.dto.UserDto;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+import java.time.LocalDateTime;
+
 @Data
 @AllArgsConstructor
 public class ConversationResponse {
@@ -12,4 +14,5 @@ public class ConversationResponse {
     private UserDto partner;
     private MessageDto message;
     private Long unread;
+    private LocalDateTime last_activity_at;
 }
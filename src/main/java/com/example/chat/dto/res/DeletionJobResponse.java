@@ -0,0 +1,44 @@
+package com.example.chat.dto.res;
+
+import com.example.chat.entity.DeletionJob;
+import com.example.chat.enums.DeletionJobStatus;
+import com.example.chat.enums.DeletionTarget;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class DeletionJobResponse {
+    private Long jobId;
+    private DeletionTarget targetType;
+    private Long targetId;
+    private DeletionJobStatus status;
+    // Bước đang chạy (bắt đầu từ 0) trên tổng số bước
+    private Integer stepIndex;
+    private Integer totalSteps;
+    private String stepName;
+    private Long deletedRows;
+    private Integer removedObjects;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+
+    public static DeletionJobResponse from(DeletionJob job, int totalSteps) {
+        return DeletionJobResponse.builder()
+                .jobId(job.getId())
+                .targetType(job.getTargetType())
+                .targetId(job.getTargetId())
+                .status(job.getStatus())
+                .stepIndex(job.getStepIndex())
+                .totalSteps(totalSteps)
+                .stepName(job.getStepName())
+                .deletedRows(job.getDeletedRows())
+                .removedObjects(job.getRemovedObjects())
+                .lastError(job.getLastError())
+                .createdAt(job.getCreatedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+}
@@ -14,15 +14,9 @@ import java.time.LocalTime;
 
 
 @Entity
-@Table(
-        name = "appointments",
-        uniqueConstraints = {
-                @UniqueConstraint(
-                        name = "uq_doctor_date_time",
-                        columnNames = {"doctor_id", "appointment_date", "appointment_time"}
-                )
-        }
-)
+// Slot (doctor_id, appointment_date, appointment_time) là duy nhất với lịch chưa huỷ:
+// partial unique index uq_appointments_active_slot (changelog-0025)
+@Table(name = "appointments")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -0,0 +1,67 @@
+package com.example.chat.entity;
+
+import com.example.chat.enums.MessageType;
+import com.example.chat.security.AesEncryptor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read model của danh sách hội thoại: mỗi thành viên một dòng, giữ sẵn tin nhắn cuối và người còn lại.
+ * Được cập nhật mỗi khi có tin nhắn mới nên GET /api/conversations không cần đụng tới bảng messages.
+ */
+@Entity
+@Table(name = "conversation_inbox")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConversationInbox {
+    @EmbeddedId
+    private ConversationMemberId id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JsonIgnore
+    @JoinColumn(name = "partner_id", nullable = false)
+    private Account partner;
+
+    @Column(name = "last_message_id")
+    private Long lastMessageId;
+
+    @Column(name = "last_message_type", length = 20)
+    @Enumerated(EnumType.STRING)
+    private MessageType lastMessageType;
+
+    @Convert(converter = AesEncryptor.class)
+    @Column(name = "last_message_content")
+    private String lastMessageContent;
+
+    @Column(name = "last_file_name")
+    private String lastFileName;
+
+    @Convert(converter = AesEncryptor.class)
+    @Column(name = "last_file_url")
+    private String lastFileUrl;
+
+    @Column(name = "last_file_size")
+    private Long lastFileSize;
+
+    @Column(name = "last_file_type")
+    private String lastFileType;
+
+    @Column(name = "last_activity_at", nullable = false)
+    private LocalDateTime lastActivityAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,81 @@
+package com.example.chat.entity;
+
+import com.example.chat.enums.DeletionJobStatus;
+import com.example.chat.enums.DeletionTarget;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một yêu cầu xoá bài viết / bác sĩ / tài khoản. Worker chạy lần lượt các bước xoá theo lô,
+ * stepIndex là bước đang chạy nên job bị gián đoạn chạy tiếp được từ đúng bước đó.
+ */
+@Entity
+@Table(name = "deletion_jobs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeletionJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "target_type", nullable = false)
+    private DeletionTarget targetType;
+
+    @Column(name = "target_id", nullable = false)
+    private Long targetId;
+
+    @Column(name = "requested_by")
+    private Long requestedBy;
+
+    @Builder.Default
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private DeletionJobStatus status = DeletionJobStatus.PENDING;
+
+    @Builder.Default
+    @Column(name = "step_index", nullable = false)
+    private Integer stepIndex = 0;
+
+    @Column(name = "step_name", length = 100)
+    private String stepName;
+
+    @Builder.Default
+    @Column(name = "deleted_rows", nullable = false)
+    private Long deletedRows = 0L;
+
+    @Builder.Default
+    @Column(name = "removed_objects", nullable = false)
+    private Integer removedObjects = 0;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    // PENDING: thời điểm được chạy (lại); RUNNING: hạn giữ lock, quá hạn thì worker khác nhận lại
+    @Builder.Default
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
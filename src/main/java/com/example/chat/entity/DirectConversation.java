@@ -0,0 +1,26 @@
+package com.example.chat.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "direct_conversations")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DirectConversation {
+    @EmbeddedId
+    private DirectConversationId id;
+
+    @Column(name = "conversation_id", nullable = false, unique = true)
+    private Long conversationId;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
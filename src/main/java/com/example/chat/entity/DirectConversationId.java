@@ -0,0 +1,27 @@
+package com.example.chat.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode
+public class DirectConversationId implements Serializable {
+    @Column(name = "account_low_id")
+    private Long accountLowId;
+
+    @Column(name = "account_high_id")
+    private Long accountHighId;
+
+    // Chuẩn hoá cặp: id nhỏ luôn đứng trước
+    public static DirectConversationId of(Long accountId1, Long accountId2) {
+        return new DirectConversationId(Math.min(accountId1, accountId2), Math.max(accountId1, accountId2));
+    }
+}
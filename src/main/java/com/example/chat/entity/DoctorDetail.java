@@ -53,6 +53,16 @@ public class DoctorDetail {
     @Builder.Default
     private Long fee = 0L;
 
+    // Tổng hợp đánh giá, cập nhật cùng transaction khi tạo review (RatingAggregateJob đối soát lại).
+    // Chỉ ghi bằng UPDATE nguyên tử trong DoctorDetailRepository: save() entity không được ghi đè giá trị cũ
+    @Column(name = "review_count", nullable = false, insertable = false, updatable = false)
+    @Builder.Default
+    private Long reviewCount = 0L;
+
+    @Column(name = "rating_sum", nullable = false, insertable = false, updatable = false)
+    @Builder.Default
+    private Long ratingSum = 0L;
+
     @OneToOne(fetch = FetchType.LAZY)
     @JsonIgnore
     @JoinColumn(name = "user_id", referencedColumnName = "id", unique = true)
@@ -65,4 +75,8 @@ public class DoctorDetail {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    public double averageRating() {
+        return reviewCount != null && reviewCount > 0 ? (double) ratingSum / reviewCount : 0.0;
+    }
 }
@@ -0,0 +1,8 @@
+package com.example.chat.enums;
+
+public enum DeletionJobStatus {
+    PENDING,
+    RUNNING,
+    DONE,
+    FAILED
+}
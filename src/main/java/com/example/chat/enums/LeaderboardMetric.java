@@ -0,0 +1,18 @@
+package com.example.chat.enums;
+
+public enum LeaderboardMetric {
+    // Số lượt review
+    REVIEW_COUNT("reviews"),
+    // Rating trung bình có trọng số Bayes: (C * m + tổng sao) / (C + số review)
+    BAYESIAN_RATING("rating");
+
+    private final String key;
+
+    LeaderboardMetric(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+}
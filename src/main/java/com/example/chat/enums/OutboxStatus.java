@@ -0,0 +1,7 @@
+package com.example.chat.enums;
+
+public enum OutboxStatus {
+    PENDING,
+    PROCESSING,
+    FAILED
+}
@@ -0,0 +1,21 @@
+package com.example.chat.firebase;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "firebase.fcm")
+public class FcmProperties {
+    // Đổi sang stub HTTP cục bộ khi đo tải
+    private String endpoint = "https://fcm.googleapis.com";
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    private Duration requestTimeout = Duration.ofSeconds(10);
+    // Số request FCM đang bay tối đa trên một node
+    private int maxConcurrency = 64;
+}
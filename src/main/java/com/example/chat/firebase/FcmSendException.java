@@ -0,0 +1,21 @@
+package com.example.chat.firebase;
+
+import lombok.Getter;
+
+/**
+ * Lỗi khi gửi FCM, đã phân loại để worker quyết định retry, bỏ qua hay xoá token.
+ */
+@Getter
+public class FcmSendException extends Exception {
+
+    // Token không còn hợp lệ (app bị gỡ, token hết hạn) -> xoá khỏi device_tokens
+    private final boolean unregistered;
+    // Lỗi tạm thời (429, 5xx, mạng) -> thử lại sau
+    private final boolean retryable;
+
+    public FcmSendException(String message, boolean unregistered, boolean retryable, Throwable cause) {
+        super(message, cause);
+        this.unregistered = unregistered;
+        this.retryable = retryable;
+    }
+}
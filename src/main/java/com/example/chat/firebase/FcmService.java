@@ -1,17 +1,50 @@
 package com.example.chat.firebase;
 
-import lombok.RequiredArgsConstructor;
-import org.springframework.http.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
 
+/**
+ * Client FCM HTTP v1 dùng chung một HttpClient (HTTP/2, giữ kết nối), access token được cache
+ * trong GoogleCredentialProvider và giới hạn số request đồng thời bằng semaphore.
+ */
 @Service
-@RequiredArgsConstructor
 public class FcmService {
 
     private final GoogleCredentialProvider credentialProvider;
+    private final FcmProperties properties;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final HttpClient httpClient;
+    private final Semaphore inFlight;
+
+    public FcmService(GoogleCredentialProvider credentialProvider,
+                      FcmProperties properties,
+                      ObjectMapper objectMapper,
+                      MeterRegistry meterRegistry) {
+        this.credentialProvider = credentialProvider;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(properties.getConnectTimeout())
+                .build();
+        this.inFlight = new Semaphore(properties.getMaxConcurrency());
+    }
 
     /**
      * Gửi push notification đơn giản chỉ có title + body.
@@ -28,14 +61,73 @@ public class FcmService {
      * @param data map chứa payload (ví dụ type, appointmentId)
      */
     public void sendNotification(String targetToken, String title, String body, Map<String, String> data) throws Exception {
-        String endpoint = "https://fcm.googleapis.com/v1/projects/"
+        try {
+            sendAsync(targetToken, title, body, data).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Gửi bất đồng bộ. Lỗi HTTP được phân loại thành FcmSendException.
+     * Khi đã đủ maxConcurrency request đang bay, luồng gọi bị chặn lại (backpressure).
+     */
+    public CompletableFuture<Void> sendAsync(String targetToken, String title, String body, Map<String, String> data) {
+        HttpRequest request;
+        try {
+            request = buildRequest(targetToken, title, body, data);
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<HttpResponse<String>> future;
+        try {
+            future = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        } catch (RuntimeException e) {
+            inFlight.release();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return future
+                .handle((response, error) -> {
+                    inFlight.release();
+
+                    if (error != null) {
+                        sample.stop(timer("error"));
+                        throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+                    }
+
+                    int status = response.statusCode();
+                    if (status >= 200 && status < 300) {
+                        sample.stop(timer("success"));
+                        return null;
+                    }
+
+                    FcmSendException failure = classify(status, response.body());
+                    sample.stop(timer(failure.isUnregistered() ? "unregistered" : failure.isRetryable() ? "retryable" : "rejected"));
+                    throw new CompletionException(failure);
+                });
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private HttpRequest buildRequest(String targetToken, String title, String body, Map<String, String> data) throws Exception {
+        String endpoint = properties.getEndpoint() + "/v1/projects/"
                 + credentialProvider.getProjectId() + "/messages:send";
 
         // Thông tin hiển thị trên notification bar
         Map<String, Object> notification = Map.of("title", title, "body", body);
 
         // Message
-        var messageBuilder = new java.util.HashMap<String, Object>();
+        var messageBuilder = new HashMap<String, Object>();
         messageBuilder.put("token", targetToken);
         messageBuilder.put("notification", notification);
         if (data != null && !data.isEmpty()) {
@@ -44,11 +136,26 @@ public class FcmService {
 
         Map<String, Object> payload = Map.of("message", messageBuilder);
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setBearerAuth(credentialProvider.getAccessToken());
+        return HttpRequest.newBuilder(URI.create(endpoint))
+                .timeout(properties.getRequestTimeout())
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + credentialProvider.getAccessToken())
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(payload)))
+                .build();
+    }
+
+    private FcmSendException classify(int status, String responseBody) {
+        String bodyText = responseBody != null ? responseBody : "";
+
+        boolean unregistered = status == 404 || bodyText.contains("UNREGISTERED");
+        boolean retryable = status == 429 || status >= 500;
+
+        return new FcmSendException("FCM " + status + ": " + bodyText, unregistered, retryable, null);
+    }
 
-        RestTemplate restTemplate = new RestTemplate();
-        restTemplate.exchange(endpoint, HttpMethod.POST, new HttpEntity<>(payload, headers), String.class);
+    private Timer timer(String result) {
+        return Timer.builder("fcm.send")
+                .tag("result", result)
+                .register(meterRegistry);
     }
 }
@@ -2,26 +2,45 @@ package com.example.chat.firebase;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.auth.oauth2.AccessToken;
 import com.google.auth.oauth2.GoogleCredentials;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.*;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
 import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+@Slf4j
 @Getter
 @Setter
 @Component
 @ConfigurationProperties(prefix = "firebase")
 public class GoogleCredentialProvider {
 
+    // Làm mới khi token còn dưới ngưỡng này (token Google sống ~60 phút)
+    private static final long REFRESH_BEFORE_MS = 5 * 60 * 1000L;
+    private static final long MIN_VALIDITY_MS = 60 * 1000L;
+
     private String credentials;
     private String projectId;
     private GoogleCredentials googleCredentials;
 
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile AccessToken cachedToken;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private ScheduledExecutorService refresher;
+
     @PostConstruct
     private void init() throws Exception {
         if (credentials == null || credentials.isEmpty()) {
@@ -37,10 +56,55 @@ public class GoogleCredentialProvider {
         this.googleCredentials = GoogleCredentials
                 .fromStream(new ByteArrayInputStream(credentials.getBytes(StandardCharsets.UTF_8)))
                 .createScoped(Collections.singletonList("https://www.googleapis.com/auth/firebase.messaging"));
+
+        // Làm mới nền để luồng gửi push không phải chờ OAuth
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fcm-token-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refreshInBackground, 0, 1, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
     }
 
     public String getAccessToken() throws Exception {
-        googleCredentials.refreshIfExpired();
-        return googleCredentials.getAccessToken().getTokenValue();
+        AccessToken token = cachedToken;
+        if (remainingMillis(token) > MIN_VALIDITY_MS) {
+            return token.getTokenValue();
+        }
+        return refresh().getTokenValue();
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private synchronized AccessToken refresh() throws Exception {
+        // Luồng khác có thể vừa làm mới xong
+        if (remainingMillis(cachedToken) > REFRESH_BEFORE_MS) {
+            return cachedToken;
+        }
+        googleCredentials.refresh();
+        cachedToken = googleCredentials.getAccessToken();
+        return cachedToken;
+    }
+
+    private void refreshInBackground() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("Làm mới FCM access token thất bại: {}", e.getMessage());
+        }
+    }
+
+    private long remainingMillis(AccessToken token) {
+        if (token == null || token.getExpirationTime() == null) {
+            return token == null ? 0 : Long.MAX_VALUE;
+        }
+        return token.getExpirationTime().getTime() - System.currentTimeMillis();
     }
 }
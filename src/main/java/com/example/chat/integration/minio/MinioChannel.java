@@ -1,10 +1,15 @@
 package com.example.chat.integration.minio;
 
 import io.minio.*;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.UUID;
 
 @Component
@@ -74,6 +79,22 @@ public class MinioChannel {
         );
     }
 
+    /** Xoá nhiều object trong một request, trả về các key xoá thất bại (key không tồn tại coi như đã xoá) */
+    public Set<String> removeObjects(Collection<String> objectKeys) throws Exception {
+        Iterable<Result<DeleteError>> results = minioClient.removeObjects(
+                RemoveObjectsArgs.builder()
+                        .bucket(props.getBucket())
+                        .objects(objectKeys.stream().map(DeleteObject::new).toList())
+                        .build()
+        );
+        // Kết quả trả về lười: phải duyệt hết thì request xoá mới thực sự được gửi
+        Set<String> failed = new HashSet<>();
+        for (Result<DeleteError> result : results) {
+            failed.add(result.get().objectName());
+        }
+        return failed;
+    }
+
     /** Presigned URL GET (FE tải file từ MinIO) */
     public String presignedGetUrl(String objectKey, int ttlSeconds) throws Exception {
         return minioClient.getPresignedObjectUrl(
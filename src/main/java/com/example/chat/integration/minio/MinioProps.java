@@ -18,4 +18,12 @@ public class MinioProps {
     private String keyPrefix ;
     private int presignExpirySeconds;
     private boolean makeBucketPublic;
+    private String region = "us-east-1";
+    // TTL của presigned GET URL cho media bài viết
+    private int getUrlExpirySeconds = 86400;
+    // Dùng lại URL đã ký đến khi thời hạn còn lại dưới tỉ lệ này của TTL
+    private double presignMinRemainingFraction = 0.25;
+    private int presignCacheSize = 10000;
+    // Số object tối đa trong một request /download-urls
+    private int maxBatchSize = 100;
 }
@@ -0,0 +1,205 @@
+package com.example.chat.integration.minio;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Ký presigned GET URL (SigV4, query string) cho object trên MinIO và cache URL đã ký.
+ * Một URL được dùng lại cho mọi người xem đến khi thời hạn còn lại dưới presignMinRemainingFraction * TTL,
+ * nên cùng một object không bị ký lại ở mỗi request. Signing key (chuỗi 4 HMAC) chỉ tính lại khi sang ngày mới.
+ */
+@Component
+public class PresignedUrlService {
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    private static final String SERVICE = "s3";
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final HexFormat HEX = HexFormat.of();
+
+    public record PresignedUrl(String url, Instant expiresAt) {
+    }
+
+    private record CachedUrl(PresignedUrl presigned, long refreshAt) {
+    }
+
+    private record SigningKey(String date, byte[] key) {
+    }
+
+    private final MinioProps props;
+    private final Clock clock;
+    private final String baseUrl;
+    private final String host;
+
+    private final Map<String, CachedUrl> cache;
+    private volatile SigningKey signingKey;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    @Autowired
+    public PresignedUrlService(MinioProps props, MeterRegistry meterRegistry) {
+        this(props, meterRegistry, Clock.systemUTC());
+    }
+
+    // Clock cố định trong test để so chữ ký với MinIO SDK
+    PresignedUrlService(MinioProps props, MeterRegistry meterRegistry, Clock clock) {
+        this.props = props;
+        this.clock = clock;
+
+        // Cùng cách chuẩn hoá endpoint với MinioConfig; URL ký theo path-style.
+        // Header Host trình duyệt gửi không kèm cổng mặc định nên chữ ký cũng không được kèm
+        URI u = URI.create(props.getEndpoint());
+        boolean defaultPort = u.getPort() <= 0
+                || ("https".equals(u.getScheme()) && u.getPort() == 443)
+                || ("http".equals(u.getScheme()) && u.getPort() == 80);
+        this.host = u.getHost() + (defaultPort ? "" : ":" + u.getPort());
+        this.baseUrl = u.getScheme() + "://" + host;
+
+        int maxEntries = props.getPresignCacheSize();
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedUrl> eldest) {
+                return size() > maxEntries;
+            }
+        });
+
+        this.hits = Counter.builder("minio.presign").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("minio.presign").tag("result", "miss").register(meterRegistry);
+    }
+
+    /**
+     * Presigned GET URL cho một object (lấy từ cache nếu còn đủ hạn).
+     */
+    public PresignedUrl presignGet(String objectKey) {
+        long now = clock.millis();
+
+        CachedUrl cached = cache.get(objectKey);
+        if (cached != null && cached.refreshAt() > now) {
+            hits.increment();
+            return cached.presigned();
+        }
+
+        misses.increment();
+        int ttlSeconds = props.getGetUrlExpirySeconds();
+        PresignedUrl presigned = sign(objectKey, Instant.ofEpochMilli(now), ttlSeconds);
+
+        long reuseMillis = (long) (ttlSeconds * 1000L * (1 - props.getPresignMinRemainingFraction()));
+        cache.put(objectKey, new CachedUrl(presigned, now + reuseMillis));
+        return presigned;
+    }
+
+    /**
+     * Ký theo lô: objectKey -> URL, giữ thứ tự đầu vào; các key trùng chỉ ký một lần.
+     */
+    public Map<String, PresignedUrl> presignGet(Collection<String> objectKeys) {
+        Map<String, PresignedUrl> result = new LinkedHashMap<>();
+        for (String objectKey : objectKeys) {
+            if (objectKey != null && !result.containsKey(objectKey)) {
+                result.put(objectKey, presignGet(objectKey));
+            }
+        }
+        return result;
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private PresignedUrl sign(String objectKey, Instant now, int ttlSeconds) {
+        String date = DATE.format(now);
+        String amzDate = DATE_TIME.format(now);
+        String scope = date + "/" + props.getRegion() + "/" + SERVICE + "/aws4_request";
+
+        String canonicalUri = "/" + props.getBucket() + "/" + encode(objectKey, false);
+        // Tham số đã theo thứ tự chữ cái như SigV4 yêu cầu
+        String canonicalQuery = "X-Amz-Algorithm=" + ALGORITHM
+                + "&X-Amz-Credential=" + encode(props.getAccessKey() + "/" + scope, true)
+                + "&X-Amz-Date=" + amzDate
+                + "&X-Amz-Expires=" + ttlSeconds
+                + "&X-Amz-SignedHeaders=host";
+
+        String canonicalRequest = "GET\n"
+                + canonicalUri + "\n"
+                + canonicalQuery + "\n"
+                + "host:" + host + "\n\n"
+                + "host\n"
+                + UNSIGNED_PAYLOAD;
+
+        String stringToSign = ALGORITHM + "\n"
+                + amzDate + "\n"
+                + scope + "\n"
+                + HEX.formatHex(sha256(canonicalRequest));
+
+        String signature = HEX.formatHex(hmac(signingKey(date), stringToSign));
+
+        return new PresignedUrl(
+                baseUrl + canonicalUri + "?" + canonicalQuery + "&X-Amz-Signature=" + signature,
+                now.plusSeconds(ttlSeconds)
+        );
+    }
+
+    private byte[] signingKey(String date) {
+        SigningKey current = signingKey;
+        if (current != null && current.date().equals(date)) {
+            return current.key();
+        }
+
+        byte[] key = hmac(("AWS4" + props.getSecretKey()).getBytes(StandardCharsets.UTF_8), date);
+        key = hmac(key, props.getRegion());
+        key = hmac(key, SERVICE);
+        key = hmac(key, "aws4_request");
+        signingKey = new SigningKey(date, key);
+        return key;
+    }
+
+    // URI-encode theo SigV4: giữ A-Z a-z 0-9 - _ . ~, giữ '/' trong path
+    private static String encode(String value, boolean encodeSlash) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (c == '/' && !encodeSlash)) {
+                sb.append(c);
+            } else {
+                sb.append('%').append(HEX.withUpperCase().toHexDigits(b));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new IllegalStateException("Không ký được presigned URL", e);
+        }
+    }
+
+    private static byte[] sha256(String data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package com.example.chat.integration.minio;
 
 import com.example.chat.enums.FileType;
+import com.example.chat.integration.minio.dto.DownloadResult;
 import com.example.chat.integration.minio.dto.PresignPutRequest;
 import com.example.chat.integration.minio.dto.UploadResult;
+import com.example.chat.repository.ArticleMediaRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/storage")
@@ -15,6 +20,8 @@ import java.util.List;
 public class StorageController {
     private final MinioChannel minioChannel;
     private final MinioProps props;
+    private final PresignedUrlService presignedUrlService;
+    private final ArticleMediaRepository articleMediaRepository;
 
     /**
      * FE gửi danh sách file (filename + contentType)
@@ -42,6 +49,40 @@ public class StorageController {
         return result;
     }
 
+    /**
+     * FE gửi danh sách objectKey (media đã gắn vào bài viết)
+     * BE trả về presigned GET URLs cho các object người gọi được xem, URL được cache và dùng lại cho đến gần hết hạn
+     */
+    @PostMapping("/download-urls")
+    public List<DownloadResult> getDownloadUrls(@RequestBody List<String> objectKeys) {
+        if (objectKeys.size() > props.getMaxBatchSize()) {
+            throw new IllegalArgumentException("Tối đa " + props.getMaxBatchSize() + " file mỗi lần");
+        }
+
+        String prefix = props.getKeyPrefix() == null ? "" : props.getKeyPrefix().trim();
+        List<String> candidates = objectKeys.stream()
+                .filter(key -> key != null && key.startsWith(prefix))
+                .distinct()
+                .toList();
+
+        // Chỉ ký object gắn với bài viết người gọi được xem; key lạ hoặc của bài riêng tư người khác bị bỏ qua
+        Long viewerId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        Set<String> visible = candidates.isEmpty()
+                ? Set.of()
+                : new HashSet<>(articleMediaRepository.findVisibleObjectKeys(candidates, viewerId));
+        List<String> allowed = candidates.stream().filter(visible::contains).toList();
+
+        List<DownloadResult> result = new ArrayList<>();
+        presignedUrlService.presignGet(allowed).forEach((objectKey, presigned) ->
+                result.add(DownloadResult.builder()
+                        .objectKey(objectKey)
+                        .downloadUrl(presigned.url())
+                        .expiresAt(presigned.expiresAt())
+                        .build()
+                ));
+        return result;
+    }
+
     /**
      * Hàm map contentType → FileType (IMAGE, VIDEO, FILE, NONE)
      */
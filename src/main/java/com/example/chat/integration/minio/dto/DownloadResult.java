@@ -0,0 +1,18 @@
+package com.example.chat.integration.minio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DownloadResult {
+    private String objectKey;
+    private String downloadUrl;
+    private Instant expiresAt;
+}
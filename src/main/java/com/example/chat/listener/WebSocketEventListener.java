@@ -1,20 +1,21 @@
 package com.example.chat.listener;
 
+import com.example.chat.service.PresenceService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.EventListener;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.*;
 
 import java.security.Principal;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class WebSocketEventListener {
 
-    private final OnlineUserTracker onlineUserTracker;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final PresenceService presenceService;
 
     @EventListener
     public void handleSessionConnected(SessionConnectEvent event) {
@@ -22,29 +23,22 @@ public class WebSocketEventListener {
         Principal user = accessor.getUser();
 
         if (user != null) {
-            String userId = user.getName();
-            System.out.println("🔌 CONNECTED: " + userId);
-
-            onlineUserTracker.addUser(userId);
-            messagingTemplate.convertAndSend("/topic/online-users", onlineUserTracker.getOnlineUsers());
+            log.debug("CONNECTED: {} ({})", user.getName(), accessor.getSessionId());
+            presenceService.connect(Long.parseLong(user.getName()), accessor.getSessionId());
         } else {
-            System.out.println("⚠️ CONNECTED: user is null");
+            log.warn("CONNECTED: user is null");
         }
     }
 
     @EventListener
     public void handleSessionDisconnect(SessionDisconnectEvent event) {
-        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
-        Principal user = accessor.getUser();
+        Principal user = event.getUser();
 
         if (user != null) {
-            String userId = user.getName();
-            System.out.println("❌ DISCONNECTED: " + userId);
-
-            onlineUserTracker.removeUser(userId);
-            messagingTemplate.convertAndSend("/topic/online-users", onlineUserTracker.getOnlineUsers());
+            log.debug("DISCONNECTED: {} ({})", user.getName(), event.getSessionId());
+            presenceService.disconnect(Long.parseLong(user.getName()), event.getSessionId());
         } else {
-            System.out.println("⚠️ DISCONNECTED: user is null");
+            log.warn("DISCONNECTED: user is null");
         }
     }
 }
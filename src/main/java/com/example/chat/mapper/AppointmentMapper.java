@@ -0,0 +1,81 @@
+package com.example.chat.mapper;
+
+import com.example.chat.dto.res.AppointmentResponse;
+import com.example.chat.dto.res.PaymentInfoDto;
+import com.example.chat.entity.Account;
+import com.example.chat.entity.Appointment;
+import com.example.chat.entity.DoctorDetail;
+import com.example.chat.entity.Transaction;
+import com.example.chat.entity.UserDetail;
+import com.example.chat.enums.AppointmentStatus;
+import com.example.chat.repository.DoctorReviewRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Dựng danh sách AppointmentResponse theo lô: detail (kèm tổng hợp đánh giá) và giao dịch đã được fetch
+ * cùng appointment, cờ "đã review" được nạp bằng một IN-query thay vì một query cho mỗi dòng.
+ */
+@Component
+@RequiredArgsConstructor
+public class AppointmentMapper {
+
+    private final DoctorReviewRepository doctorReviewRepository;
+
+    public List<AppointmentResponse> toResponses(List<Appointment> appointments, AppointmentStatus status) {
+        if (appointments.isEmpty()) return List.of();
+
+        // Giữ nguyên hành vi cũ: chỉ trả cờ reviewed khi lọc theo COMPLETED
+        Set<Long> reviewed = status == AppointmentStatus.COMPLETED
+                ? new HashSet<>(doctorReviewRepository.findReviewedAppointmentIds(
+                        appointments.stream().map(Appointment::getId).toList()))
+                : Set.of();
+
+        return appointments.stream()
+                .map(a -> toResponse(a, status == AppointmentStatus.COMPLETED ? reviewed.contains(a.getId()) : null))
+                .toList();
+    }
+
+    private AppointmentResponse toResponse(Appointment a, Boolean reviewed) {
+        Account doctor = a.getDoctor();
+        Account user = a.getUser();
+        DoctorDetail detail = doctor.getDoctorDetail();
+        UserDetail userDetail = user.getUserDetail();
+        Transaction tx = a.getTransaction();
+
+        PaymentInfoDto paymentInfo = null;
+
+        if (tx != null) {
+            paymentInfo = PaymentInfoDto.builder()
+                    .paymentStatus(tx.getPaymentStatus())
+                    .appTransId(tx.getAppTransId())
+                    .zpTransId(tx.getZpTransId())
+                    .refundId(tx.getRefundId())
+                    .zpRefundId(tx.getZpRefundId())
+                    .paymentDate(tx.getPaymentDate())
+                    .build();
+        }
+
+        return AppointmentResponse.builder()
+                .id(a.getId())
+                .date(a.getAppointmentDate())
+                .time(a.getAppointmentTime())
+                .status(a.getStatus())
+                .doctorId(doctor.getId())
+                .doctorName(doctor.getUsername())
+                .specialization(detail != null ? detail.getSpecialization() : null)
+                .doctorAvatarUrl(detail != null ? detail.getAvatar_url() : null)
+                .totalReviews(detail != null ? detail.getReviewCount() : 0L)
+                .avgRating(detail != null ? detail.averageRating() : 0.0)
+                .userId(user.getId())
+                .username(user.getUsername())
+                .userAvatarUrl(userDetail != null ? userDetail.getAvatar_url() : null)
+                .reviewed(reviewed)
+                .paymentMethod(a.getPaymentMethod())
+                .amount(a.getFee())
+                .paymentInfo(paymentInfo)
+                .build();
+    }
+}
@@ -3,6 +3,7 @@ package com.example.chat.mapper;
 import com.example.chat.dto.UserDto;
 import com.example.chat.dto.res.ArticleCommentResponse;
 import com.example.chat.entity.ArticleComment;
+import com.example.chat.enums.VoteType;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -54,4 +55,23 @@ public class ArticleCommentMapper {
 
         return res;
     }
+
+    // Một node của thread nạp theo lô: không chạm các collection lazy (replies, votes) và article
+    public static ArticleCommentResponse toThreadNode(ArticleComment comment, Long articleId, Integer articleCommentCount,
+                                                      int voteCount, VoteType viewerVote, int replyCount) {
+        ArticleCommentResponse res = new ArticleCommentResponse();
+        res.setId(comment.getId());
+        res.setArticleId(articleId);
+        res.setArticleCommentCount(articleCommentCount);
+        res.setUser(UserDto.from(comment.getUser()));
+        res.setComment(comment.getContent());
+        res.setFileType(comment.getFileType());
+        res.setFileUrl(comment.getFileUrl());
+        res.setVoteCount(voteCount);
+        res.setCreatedAt(comment.getCreatedAt());
+        res.setUserVoted(viewerVote != null);
+        res.setUserTypeVote(viewerVote);
+        res.setReplyCount(replyCount);
+        return res;
+    }
 }
@@ -4,24 +4,66 @@ import com.example.chat.dto.ArticleMediaDto;
 import com.example.chat.dto.UserDto;
 import com.example.chat.dto.res.ArticleResponse;
 import com.example.chat.entity.Article;
+import com.example.chat.entity.ArticleMedia;
 import com.example.chat.entity.ArticleVote;
-import com.example.chat.integration.minio.MinioChannel;
+import com.example.chat.enums.VoteType;
+import com.example.chat.integration.minio.PresignedUrlService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
 public class ArticleMapper {
 
-    private final MinioChannel minioChannel;
+    private final PresignedUrlService presignedUrlService;
 
     // ❌ bỏ static
     public ArticleResponse toArticleResponse(Article article, Long currentUserId) {
         if (article == null) return null;
 
-        ArticleResponse response = ArticleResponse.builder()
+        ArticleResponse response = toResponse(article, article.getMedias());
+
+        // ✅ Xử lý trạng thái vote của user
+        if (currentUserId != null && article.getVotes() != null) {
+            article.getVotes().stream()
+                    .filter(v -> v.getUser().getId().equals(currentUserId))
+                    .findFirst()
+                    .ifPresent((ArticleVote vote) -> {
+                        response.setUserVoted(true);
+                        response.setUserTypeVote(vote.getReactionType());
+                    });
+        } else {
+            response.setUserVoted(false);
+            response.setUserTypeVote(null);
+        }
+
+        return response;
+    }
+
+    /**
+     * Map một trang bài viết với media và reaction của người xem đã nạp theo lô,
+     * không chạm tới các collection lazy (medias, votes) của Article.
+     */
+    public List<ArticleResponse> toArticleResponses(List<Article> articles,
+                                                    Map<Long, List<ArticleMedia>> mediasByArticle,
+                                                    Map<Long, VoteType> viewerReactions) {
+        return articles.stream()
+                .map(article -> {
+                    ArticleResponse response = toResponse(article, mediasByArticle.getOrDefault(article.getId(), List.of()));
+                    VoteType reaction = viewerReactions.get(article.getId());
+                    response.setUserVoted(reaction != null);
+                    response.setUserTypeVote(reaction);
+                    return response;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private ArticleResponse toResponse(Article article, List<ArticleMedia> medias) {
+        return ArticleResponse.builder()
                 .id(article.getId())
                 .content(article.getContent())
                 .status(article.getStatus().name())
@@ -30,15 +72,14 @@ public class ArticleMapper {
                 .commentCount(article.getCommentCount())
                 .shareCount(article.getShareCount())
                 .createdAt(article.getCreatedAt())
-                .medias(article.getMedias() != null
-                        ? article.getMedias().stream()
+                .updatedAt(article.getUpdatedAt())
+                .medias(medias != null
+                        ? medias.stream()
                         .map(m -> {
                             String presignedUrl;
                             try {
-                                presignedUrl = minioChannel.presignedGetUrl(
-                                        m.getObjectKey(),
-                                        86400
-                                );
+                                // URL đã ký được cache, cùng object không bị ký lại cho mỗi người xem
+                                presignedUrl = presignedUrlService.presignGet(m.getObjectKey()).url();
                             } catch (Exception e) {
                                 presignedUrl = null;
                             }
@@ -53,21 +94,5 @@ public class ArticleMapper {
                         .collect(Collectors.toList())
                         : null)
                 .build();
-
-        // ✅ Xử lý trạng thái vote của user
-        if (currentUserId != null && article.getVotes() != null) {
-            article.getVotes().stream()
-                    .filter(v -> v.getUser().getId().equals(currentUserId))
-                    .findFirst()
-                    .ifPresent((ArticleVote vote) -> {
-                        response.setUserVoted(true);
-                        response.setUserTypeVote(vote.getReactionType());
-                    });
-        } else {
-            response.setUserVoted(false);
-            response.setUserTypeVote(null);
-        }
-
-        return response;
     }
 }
@@ -4,21 +4,15 @@ import com.example.chat.dto.MessageDto;
 import com.example.chat.dto.UserDto;
 import com.example.chat.dto.res.ConversationResponse;
 import com.example.chat.entity.Account;
-import com.example.chat.entity.Conversation;
-import com.example.chat.entity.ConversationMember;
-import com.example.chat.entity.ConversationUnread;
+import com.example.chat.entity.ConversationInbox;
 import org.springframework.stereotype.Component;
 
 @Component
 public class ConversationMapper {
 
-    public ConversationResponse toDTO(Conversation conversation, Long currentUserId) {
-        // Lấy người còn lại (partner)
-        Account partner = conversation.getMembers().stream()
-                .map(ConversationMember::getAccount)
-                .filter(account -> !account.getId().equals(currentUserId))
-                .findFirst()
-                .orElse(null);
+    public ConversationResponse toDTO(ConversationInbox inbox, long unread) {
+        // Người còn lại (partner)
+        Account partner = inbox.getPartner();
 
         UserDto partnerDTO = null;
         if (partner != null) {
@@ -26,41 +20,30 @@ public class ConversationMapper {
             partnerDTO = new UserDto(partner.getId(), partner.getUsername(), avatarUrl);
         }
 
-        // Lấy tin nhắn cuối
-        MessageDto lastMessageDto = extractLastMessage(conversation);
-
-        // Lấy số lượng tin chưa đọc (unread)
-        Integer unread = conversation.getUnreads().stream()
-                .filter(unreadEntry -> unreadEntry.getAccount().getId().equals(currentUserId))
-                .map(ConversationUnread::getUnreadCount)
-                .findFirst()
-                .orElse(0); // mặc định 0 nếu không có
-
         return new ConversationResponse(
-                conversation.getId(),
+                inbox.getId().getConversationId(),
                 partnerDTO,
-                lastMessageDto,
-                unread.longValue()
+                extractLastMessage(inbox),
+                unread,
+                inbox.getLastActivityAt()
         );
     }
 
-    private MessageDto extractLastMessage(Conversation conversation) {
-        if (conversation.getMessages().isEmpty()) {
+    private MessageDto extractLastMessage(ConversationInbox inbox) {
+        if (inbox.getLastMessageId() == null) {
             return null;
         }
 
-        var lastMessage = conversation.getMessages().getLast();
         return new MessageDto(
-                lastMessage.getId(),
-                lastMessage.getMessageType(),
-                lastMessage.getMessageContent(),
-                lastMessage.getFileName(),
-                lastMessage.getFileUrl(),
-                lastMessage.getFileSize(),
-                lastMessage.getFileType(),
-                lastMessage.getCreatedAt()
+                inbox.getLastMessageId(),
+                inbox.getLastMessageType(),
+                inbox.getLastMessageContent(),
+                inbox.getLastFileName(),
+                inbox.getLastFileUrl(),
+                inbox.getLastFileSize(),
+                inbox.getLastFileType(),
+                inbox.getLastActivityAt()
         );
     }
 
 }
-
@@ -6,6 +6,7 @@ import com.example.chat.enums.Role;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 import java.util.Optional;
@@ -16,5 +17,8 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     Optional<Account> findByEmail(String email);
     List<Account> findByRole(Role role);
 
+    @Query("SELECT a FROM Account a LEFT JOIN FETCH a.doctorDetail LEFT JOIN FETCH a.userDetail WHERE a.role = :role")
+    List<Account> findWithDetailsByRole(Role role);
+
     Page<Account> findAllByRole(Role role, Pageable pageable);
 }
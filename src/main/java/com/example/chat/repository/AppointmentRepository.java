@@ -3,21 +3,17 @@ package com.example.chat.repository;
 import com.example.chat.entity.Account;
 import com.example.chat.entity.Appointment;
 import com.example.chat.enums.AppointmentStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
 
-    // Kiểm tra một slot có tồn tại hay không
-    Optional<Appointment> findByDoctorAndAppointmentDateAndAppointmentTime(
-            Account doctor, LocalDate date, LocalTime time
-    );
-
     // Lấy tất cả giờ đã đặt của 1 bác sĩ trong 1 ngày
     @Query("SELECT a.appointmentTime FROM Appointment a " +
             "WHERE a.doctor = :doctor " +
@@ -25,6 +21,44 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
             "AND a.status <> com.example.chat.enums.AppointmentStatus.CANCELLED")
     List<LocalTime> findBookedSlots(Account doctor, LocalDate date);
 
+    // [doctorId, appointmentDate, appointmentTime] của các lịch chưa huỷ trong khoảng ngày
+    @Query("SELECT a.doctor.id, a.appointmentDate, a.appointmentTime FROM Appointment a " +
+            "WHERE a.doctor.id IN :doctorIds " +
+            "AND a.appointmentDate BETWEEN :from AND :to " +
+            "AND a.status <> com.example.chat.enums.AppointmentStatus.CANCELLED")
+    List<Object[]> findBookedSlotsBetween(Collection<Long> doctorIds, LocalDate from, LocalDate to);
+
+    // Keyset theo id giảm dần; fetch sẵn bác sĩ, bệnh nhân (kèm detail) và giao dịch để tránh N+1
+    @Query("SELECT a FROM Appointment a " +
+            "JOIN FETCH a.doctor d LEFT JOIN FETCH d.doctorDetail LEFT JOIN FETCH d.userDetail " +
+            "JOIN FETCH a.user u LEFT JOIN FETCH u.userDetail LEFT JOIN FETCH u.doctorDetail " +
+            "LEFT JOIN FETCH a.transaction " +
+            "WHERE d.id = :doctorId " +
+            "AND (:status IS NULL OR a.status = :status) " +
+            "AND (:cursorId IS NULL OR a.id < :cursorId) " +
+            "ORDER BY a.id DESC")
+    List<Appointment> findDoctorPage(Long doctorId, AppointmentStatus status, Long cursorId, Pageable pageable);
+
+    @Query("SELECT a FROM Appointment a " +
+            "JOIN FETCH a.doctor d LEFT JOIN FETCH d.doctorDetail LEFT JOIN FETCH d.userDetail " +
+            "JOIN FETCH a.user u LEFT JOIN FETCH u.userDetail LEFT JOIN FETCH u.doctorDetail " +
+            "LEFT JOIN FETCH a.transaction " +
+            "WHERE u.id = :userId " +
+            "AND (:status IS NULL OR a.status = :status) " +
+            "AND (:cursorId IS NULL OR a.id < :cursorId) " +
+            "ORDER BY a.id DESC")
+    List<Appointment> findUserPage(Long userId, AppointmentStatus status, Long cursorId, Pageable pageable);
+
+    // Đối tác qua lịch hẹn: bệnh nhân của bác sĩ / bác sĩ của bệnh nhân
+    @Query("SELECT DISTINCT CASE WHEN a.doctor.id = :accountId THEN a.user.id ELSE a.doctor.id END " +
+            "FROM Appointment a WHERE a.doctor.id = :accountId OR a.user.id = :accountId")
+    List<Long> findCounterpartIds(Long accountId);
+
+    @Query("SELECT COUNT(a) > 0 FROM Appointment a " +
+            "WHERE (a.doctor.id = :firstId AND a.user.id = :secondId) " +
+            "OR (a.doctor.id = :secondId AND a.user.id = :firstId)")
+    boolean existsBetween(Long firstId, Long secondId);
+
     List<Appointment> findByDoctor(Account doctor);
     List<Appointment> findByUser(Account user);
 
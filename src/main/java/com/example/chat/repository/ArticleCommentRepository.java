@@ -2,9 +2,86 @@ package com.example.chat.repository;
 
 import com.example.chat.entity.ArticleComment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface ArticleCommentRepository extends JpaRepository<ArticleComment, Long> {
-    List<ArticleComment> findByArticleIdAndParentCommentIsNullOrderByCreatedAtDesc(Long articleId);
+
+    // Phần đệ quy dùng chung: từ các comment neo, lấy tối đa :replyLimit reply đầu tiên (cũ -> mới) của mỗi comment,
+    // sâu tối đa :maxDepth tầng. Kết quả: [id, parentId, depth, replyCount] (replyCount = tổng số reply trực tiếp)
+    String THREAD_CTE_TAIL =
+            "thread AS ( " +
+            "    SELECT a.id, a.parent_comment_id, 0 AS depth FROM anchor a " +
+            "    UNION ALL " +
+            "    SELECT r.id, r.parent_comment_id, t.depth + 1 " +
+            "    FROM thread t " +
+            "    CROSS JOIN LATERAL ( " +
+            "        SELECT c.id, c.parent_comment_id FROM article_comments c " +
+            "        WHERE c.parent_comment_id = t.id " +
+            "        ORDER BY c.created_at, c.id " +
+            "        LIMIT :replyLimit " +
+            "    ) r " +
+            "    WHERE t.depth < :maxDepth " +
+            ") " +
+            "SELECT t.id, t.parent_comment_id, t.depth, " +
+            "       (SELECT count(*) FROM article_comments x WHERE x.parent_comment_id = t.id) " +
+            "FROM thread t";
+
+    // Một trang comment gốc (mới -> cũ, keyset sau (cursorCreatedAt, cursorId)) kèm cây reply của chúng
+    @Query(value = "WITH RECURSIVE anchor AS ( " +
+            "    SELECT c.id, c.parent_comment_id FROM article_comments c " +
+            "    WHERE c.article_id = :articleId AND c.parent_comment_id IS NULL " +
+            "      AND (c.created_at, c.id) < (:cursorCreatedAt, :cursorId) " +
+            "    ORDER BY c.created_at DESC, c.id DESC " +
+            "    LIMIT :limit " +
+            "), " + THREAD_CTE_TAIL,
+            nativeQuery = true)
+    List<Object[]> findRootThreads(Long articleId, LocalDateTime cursorCreatedAt, Long cursorId,
+                                   int limit, int replyLimit, int maxDepth);
+
+    // "Xem thêm trả lời": trang reply trực tiếp tiếp theo của một comment (cũ -> mới) kèm cây reply của chúng
+    @Query(value = "WITH RECURSIVE anchor AS ( " +
+            "    SELECT c.id, c.parent_comment_id FROM article_comments c " +
+            "    WHERE c.parent_comment_id = :parentId " +
+            "      AND (c.created_at, c.id) > (:cursorCreatedAt, :cursorId) " +
+            "    ORDER BY c.created_at, c.id " +
+            "    LIMIT :limit " +
+            "), " + THREAD_CTE_TAIL,
+            nativeQuery = true)
+    List<Object[]> findReplyThreads(Long parentId, LocalDateTime cursorCreatedAt, Long cursorId,
+                                    int limit, int replyLimit, int maxDepth);
+
+    // Nạp comment kèm người viết (userDetail/doctorDetail là OneToOne ngược, luôn nạp eager nên fetch luôn)
+    @Query("SELECT c FROM ArticleComment c " +
+            "JOIN FETCH c.user u " +
+            "LEFT JOIN FETCH u.userDetail " +
+            "LEFT JOIN FETCH u.doctorDetail " +
+            "WHERE c.id IN :ids")
+    List<ArticleComment> findWithUserByIdIn(Collection<Long> ids);
+
+    // Số comment trong cây con (tính cả chính nó)
+    @Query(value = "WITH RECURSIVE subtree AS ( " +
+            "    SELECT c.id FROM article_comments c WHERE c.id = :commentId " +
+            "    UNION ALL " +
+            "    SELECT c.id FROM article_comments c JOIN subtree s ON c.parent_comment_id = s.id " +
+            ") " +
+            "SELECT count(*) FROM subtree",
+            nativeQuery = true)
+    long countSubtree(Long commentId);
+
+    // Xoá một comment; reply và vote bị xoá theo FK ON DELETE CASCADE, không nạp cây vào persistence context
+    @Modifying
+    @Query(value = "DELETE FROM article_comments WHERE id = :commentId", nativeQuery = true)
+    int deleteSubtree(Long commentId);
+
+    // Ghi đè số vote (write-behind từ Redis)
+    @Modifying
+    @Transactional
+    @Query("UPDATE ArticleComment c SET c.voteCount = :voteCount WHERE c.id = :commentId")
+    int updateVoteCount(Long commentId, int voteCount);
 }
@@ -2,10 +2,22 @@ package com.example.chat.repository;
 
 import com.example.chat.entity.ArticleCommentVote;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface ArticleCommentVoteRepository extends JpaRepository<ArticleCommentVote, Long> {
     Optional<ArticleCommentVote> findByCommentIdAndUserId(Long commentId, Long userId);
     int countByCommentId(Long commentId);
+
+    // Reaction của một người xem trên cả thread: [commentId, reactionType]
+    @Query("SELECT v.comment.id, v.reactionType FROM ArticleCommentVote v " +
+            "WHERE v.user.id = :userId AND v.comment.id IN :commentIds")
+    List<Object[]> findReactions(Long userId, Collection<Long> commentIds);
+
+    // Số vote theo từng id (reconcile bộ đếm Redis): [commentId, count], id không có vote không có dòng
+    @Query("SELECT v.comment.id, COUNT(v) FROM ArticleCommentVote v WHERE v.comment.id IN :commentIds GROUP BY v.comment.id")
+    List<Object[]> countByCommentIds(Collection<Long> commentIds);
 }
@@ -2,6 +2,18 @@ package com.example.chat.repository;
 
 import com.example.chat.entity.ArticleMedia;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface ArticleMediaRepository extends JpaRepository<ArticleMedia,Long> {
+
+    @Query("SELECT m FROM ArticleMedia m WHERE m.article.id IN :articleIds ORDER BY m.article.id, m.orderIndex, m.id")
+    List<ArticleMedia> findByArticleIds(Collection<Long> articleIds);
+
+    // objectKey người xem được phép tải: thuộc bài công khai hoặc bài của chính họ
+    @Query("SELECT DISTINCT m.objectKey FROM ArticleMedia m WHERE m.objectKey IN :objectKeys " +
+            "AND (m.article.status = com.example.chat.enums.ArticleStatus.PUBLIC OR m.article.user.id = :viewerId)")
+    List<String> findVisibleObjectKeys(Collection<String> objectKeys, Long viewerId);
 }
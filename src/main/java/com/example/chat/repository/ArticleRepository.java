@@ -5,7 +5,58 @@ import com.example.chat.enums.ArticleStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface ArticleRepository extends JpaRepository<Article,Long> {
     Page<Article> findByStatus(ArticleStatus status, Pageable pageable);
+
+    // Keyset theo (updatedAt, id) giảm dần; trang đầu truyền cursor null. Nạp sẵn tác giả (và các detail eager)
+    @Query("SELECT a FROM Article a JOIN FETCH a.user u LEFT JOIN FETCH u.userDetail LEFT JOIN FETCH u.doctorDetail " +
+            "WHERE a.status = :status " +
+            "AND (:cursorUpdatedAt IS NULL OR a.updatedAt < :cursorUpdatedAt " +
+            "     OR (a.updatedAt = :cursorUpdatedAt AND a.id < :cursorId)) " +
+            "ORDER BY a.updatedAt DESC, a.id DESC")
+    List<Article> findFeedPage(ArticleStatus status, LocalDateTime cursorUpdatedAt, Long cursorId, Pageable pageable);
+
+    // Nạp theo danh sách id (trang bảng thịnh hành), kèm tác giả và các detail eager
+    @Query("SELECT a FROM Article a " +
+            "JOIN FETCH a.user u " +
+            "LEFT JOIN FETCH u.userDetail " +
+            "LEFT JOIN FETCH u.doctorDetail " +
+            "WHERE a.id IN :ids")
+    List<Article> findWithUserByIdIn(Collection<Long> ids);
+
+    // Ứng viên bảng thịnh hành: [id, createdAt, voteCount, commentCount, shareCount]
+    @Query("SELECT a.id, a.createdAt, a.voteCount, a.commentCount, a.shareCount FROM Article a " +
+            "WHERE a.status = :status AND a.createdAt >= :since")
+    List<Object[]> findTrendingCandidates(ArticleStatus status, LocalDateTime since);
+
+    // Id bài công khai của các tác giả có id < beforeId, mới -> cũ (timeline trang chủ).
+    // LATERAL: mỗi tác giả chỉ đọc tối đa limit dòng đầu của index (user_id, id DESC) WHERE status = 'PUBLIC'
+    // rồi trộn; status viết cứng để planner khớp được partial index
+    @Query(value = """
+            SELECT x.id FROM accounts au
+            CROSS JOIN LATERAL (
+                SELECT a.id FROM articles a
+                WHERE a.user_id = au.id AND a.status = 'PUBLIC' AND a.id < :beforeId
+                ORDER BY a.id DESC
+                LIMIT :limit
+            ) x
+            WHERE au.id IN (:authorIds)
+            ORDER BY x.id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Long> findTimelineIds(Collection<Long> authorIds, long beforeId, int limit);
+
+    // Ghi đè số vote (write-behind từ Redis), không đụng updated_at để vote không đẩy bài lên đầu feed
+    @Modifying
+    @Transactional
+    @Query("UPDATE Article a SET a.voteCount = :voteCount WHERE a.id = :articleId")
+    int updateVoteCount(Long articleId, int voteCount);
 }
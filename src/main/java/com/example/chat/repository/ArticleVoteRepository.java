@@ -2,10 +2,22 @@ package com.example.chat.repository;
 
 import com.example.chat.entity.ArticleVote;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface ArticleVoteRepository extends JpaRepository<ArticleVote, Long> {
     Optional<ArticleVote> findByArticleIdAndUserId(Long articleId, Long userId);
     int countByArticleId(Long articleId);
+
+    // Reaction của một người xem trên cả trang bài viết: [articleId, reactionType]
+    @Query("SELECT v.article.id, v.reactionType FROM ArticleVote v " +
+            "WHERE v.user.id = :userId AND v.article.id IN :articleIds")
+    List<Object[]> findReactions(Long userId, Collection<Long> articleIds);
+
+    // Số vote theo từng id (reconcile bộ đếm Redis): [articleId, count], id không có vote không có dòng
+    @Query("SELECT v.article.id, COUNT(v) FROM ArticleVote v WHERE v.article.id IN :articleIds GROUP BY v.article.id")
+    List<Object[]> countByArticleIds(Collection<Long> articleIds);
 }
@@ -0,0 +1,79 @@
+package com.example.chat.repository;
+
+import com.example.chat.entity.ConversationInbox;
+import com.example.chat.entity.ConversationMemberId;
+import com.example.chat.enums.MessageType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ConversationInboxRepository extends JpaRepository<ConversationInbox, ConversationMemberId> {
+
+    List<ConversationInbox> findById_ConversationId(Long conversationId);
+
+    // Trang đầu của inbox, mới nhất trước
+    @Query("""
+    SELECT i FROM ConversationInbox i
+    JOIN FETCH i.partner p
+    LEFT JOIN FETCH p.userDetail
+    LEFT JOIN FETCH p.doctorDetail
+    WHERE i.id.accountId = :accountId
+    ORDER BY i.lastActivityAt DESC, i.id.conversationId DESC
+""")
+    List<ConversationInbox> findFirstPage(@Param("accountId") Long accountId, Pageable pageable);
+
+    // Các trang tiếp theo theo keyset (lastActivityAt, conversationId)
+    @Query("""
+    SELECT i FROM ConversationInbox i
+    JOIN FETCH i.partner p
+    LEFT JOIN FETCH p.userDetail
+    LEFT JOIN FETCH p.doctorDetail
+    WHERE i.id.accountId = :accountId
+      AND (i.lastActivityAt < :cursorTime
+           OR (i.lastActivityAt = :cursorTime AND i.id.conversationId < :cursorId))
+    ORDER BY i.lastActivityAt DESC, i.id.conversationId DESC
+""")
+    List<ConversationInbox> findPageAfter(@Param("accountId") Long accountId,
+                                          @Param("cursorTime") LocalDateTime cursorTime,
+                                          @Param("cursorId") Long cursorId,
+                                          Pageable pageable);
+
+    @Query("SELECT i.partner.id FROM ConversationInbox i WHERE i.id.accountId = :accountId")
+    List<Long> findPartnerIds(@Param("accountId") Long accountId);
+
+    // Ghi tin nhắn cuối cho mọi dòng inbox của conversation, chỉ khi dòng chưa giữ tin mới hơn.
+    // Điều kiện nằm trong chính lệnh UPDATE: Postgres kiểm tra lại sau khi chờ khoá dòng, nên hai tin gửi cùng lúc
+    // không ghi đè nhau theo thứ tự commit. JPQL (không native) để nội dung / URL vẫn đi qua AesEncryptor
+    @Modifying(clearAutomatically = true)
+    @Query("""
+    UPDATE ConversationInbox i SET
+        i.lastMessageId = :messageId,
+        i.lastMessageType = :messageType,
+        i.lastMessageContent = :content,
+        i.lastFileName = :fileName,
+        i.lastFileUrl = :fileUrl,
+        i.lastFileSize = :fileSize,
+        i.lastFileType = :fileType,
+        i.lastActivityAt = :activityAt,
+        i.updatedAt = :updatedAt
+    WHERE i.id.conversationId = :conversationId
+      AND (i.lastMessageId IS NULL OR i.lastMessageId < :messageId)
+""")
+    int updateLastMessage(@Param("conversationId") Long conversationId,
+                          @Param("messageId") Long messageId,
+                          @Param("messageType") MessageType messageType,
+                          @Param("content") String content,
+                          @Param("fileName") String fileName,
+                          @Param("fileUrl") String fileUrl,
+                          @Param("fileSize") Long fileSize,
+                          @Param("fileType") String fileType,
+                          @Param("activityAt") LocalDateTime activityAt,
+                          @Param("updatedAt") LocalDateTime updatedAt);
+
+    boolean existsById_AccountIdAndPartner_Id(Long accountId, Long partnerId);
+}
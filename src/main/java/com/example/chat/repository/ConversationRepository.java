@@ -9,18 +9,6 @@ import java.util.List;
 import java.util.Optional;
 
 public interface ConversationRepository extends JpaRepository<Conversation, Long> {
-    @Query("""
-    SELECT c FROM Conversation c
-    JOIN c.members m1
-    JOIN c.members m2
-    WHERE m1.account.id IN (:userId1, :userId2)
-      AND m2.account.id IN (:userId1, :userId2)
-      AND m1.account.id <> m2.account.id
-      AND SIZE(c.members) = 2
-""")
-    List<Conversation> findDirectConversationBetween(@Param("userId1") Long userId1, @Param("userId2") Long userId2);
-
-
     @Query("""
     SELECT DISTINCT c FROM Conversation c
     JOIN c.members cm
@@ -36,4 +24,7 @@ public interface ConversationRepository extends JpaRepository<Conversation, Long
        """)
     Optional<Conversation> findByIdWithMembers(@Param("id") Long id);
 
+    @Query("SELECT cm.id.conversationId FROM ConversationMember cm WHERE cm.id.accountId = :accountId")
+    List<Long> findIdsByMemberId(@Param("accountId") Long accountId);
+
 }
@@ -3,9 +3,30 @@ package com.example.chat.repository;
 import com.example.chat.entity.ConversationMemberId;
 import com.example.chat.entity.ConversationUnread;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface ConversationUnreadRepository extends JpaRepository<ConversationUnread, ConversationMemberId> {
     Optional<ConversationUnread> findById_ConversationIdAndId_AccountId(Long conversationId, Long accountId);
+
+    List<ConversationUnread> findById_AccountIdAndId_ConversationIdIn(Long accountId, Collection<Long> conversationIds);
+
+    // Ghi đè số tin chưa đọc (write-behind từ Redis)
+    @Modifying
+    @Transactional
+    @Query(value = """
+    INSERT INTO conversation_unreads (conversation_id, account_id, unread_count, created_at, updated_at)
+    VALUES (:conversationId, :accountId, :unreadCount, now(), now())
+    ON CONFLICT (conversation_id, account_id)
+    DO UPDATE SET unread_count = EXCLUDED.unread_count, updated_at = now()
+""", nativeQuery = true)
+    int upsertUnreadCount(@Param("conversationId") Long conversationId,
+                          @Param("accountId") Long accountId,
+                          @Param("unreadCount") int unreadCount);
 }
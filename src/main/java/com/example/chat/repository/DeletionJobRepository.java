@@ -0,0 +1,77 @@
+package com.example.chat.repository;
+
+import com.example.chat.entity.DeletionJob;
+import com.example.chat.enums.DeletionJobStatus;
+import com.example.chat.enums.DeletionTarget;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface DeletionJobRepository extends JpaRepository<DeletionJob, Long> {
+
+    // SKIP LOCKED: nhiều node cùng quét không nhận trùng job
+    @Query(value = """
+            SELECT * FROM deletion_jobs
+            WHERE status IN ('PENDING', 'RUNNING')
+              AND next_attempt_at <= :now
+            ORDER BY next_attempt_at, id
+            LIMIT 1
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<DeletionJob> findClaimable(@Param("now") LocalDateTime now);
+
+    // clearAutomatically: bỏ entity cũ khỏi persistence context để lần đọc lại thấy attempts mới
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE DeletionJob j SET j.status = com.example.chat.enums.DeletionJobStatus.RUNNING, " +
+            "j.nextAttemptAt = :leaseUntil, j.attempts = j.attempts + 1 WHERE j.id = :id")
+    int markRunning(@Param("id") Long id, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // Ghi tiến độ sau mỗi lô, đồng thời gia hạn lock
+    @Modifying
+    @Transactional
+    @Query("UPDATE DeletionJob j SET j.stepIndex = :stepIndex, j.stepName = :stepName, " +
+            "j.deletedRows = j.deletedRows + :deleted, j.nextAttemptAt = :leaseUntil " +
+            "WHERE j.id = :id")
+    int recordProgress(@Param("id") Long id,
+                       @Param("stepIndex") int stepIndex,
+                       @Param("stepName") String stepName,
+                       @Param("deleted") long deleted,
+                       @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE DeletionJob j SET j.removedObjects = j.removedObjects + :removed, " +
+            "j.nextAttemptAt = :leaseUntil WHERE j.id = :id")
+    int recordObjectsRemoved(@Param("id") Long id, @Param("removed") int removed,
+                             @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE DeletionJob j SET j.status = :status, j.nextAttemptAt = :nextAttemptAt, j.lastError = :error, " +
+            "j.finishedAt = :finishedAt WHERE j.id = :id")
+    int updateOutcome(@Param("id") Long id,
+                      @Param("status") DeletionJobStatus status,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                      @Param("error") String error,
+                      @Param("finishedAt") LocalDateTime finishedAt);
+
+    // Job đang chờ / đang chạy cho cùng đối tượng, để không tạo trùng
+    @Query("SELECT j FROM DeletionJob j WHERE j.targetType = :targetType AND j.targetId = :targetId " +
+            "AND j.status IN (com.example.chat.enums.DeletionJobStatus.PENDING, com.example.chat.enums.DeletionJobStatus.RUNNING)")
+    List<DeletionJob> findActive(@Param("targetType") DeletionTarget targetType,
+                                 @Param("targetId") Long targetId);
+
+    @Query(value = "SELECT object_key FROM deletion_job_objects WHERE job_id = :jobId LIMIT :limit", nativeQuery = true)
+    List<String> findObjectKeys(@Param("jobId") Long jobId, @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM deletion_job_objects WHERE job_id = :jobId AND object_key IN (:objectKeys)", nativeQuery = true)
+    int deleteObjectKeys(@Param("jobId") Long jobId, @Param("objectKeys") Collection<String> objectKeys);
+}
@@ -2,6 +2,9 @@ package com.example.chat.repository;
 
 import com.example.chat.entity.DeviceToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -10,4 +13,9 @@ public interface DeviceTokenRepository extends JpaRepository<DeviceToken, Long>
     List<DeviceToken> findByUserId(Long userId);
     Optional<DeviceToken> findByUserIdAndDeviceId(Long userId, String deviceId);
     void deleteByUserIdAndDeviceId(Long userId, String deviceId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DeviceToken d WHERE d.fcmToken = :fcmToken")
+    int deleteByFcmToken(String fcmToken);
 }
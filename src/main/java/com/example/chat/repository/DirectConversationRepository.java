@@ -0,0 +1,27 @@
+package com.example.chat.repository;
+
+import com.example.chat.entity.DirectConversation;
+import com.example.chat.entity.DirectConversationId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface DirectConversationRepository extends JpaRepository<DirectConversation, DirectConversationId> {
+
+    @Query("SELECT d FROM DirectConversation d WHERE d.id.accountLowId = :accountId OR d.id.accountHighId = :accountId")
+    List<DirectConversation> findByAccountId(@Param("accountId") Long accountId);
+
+    // Trả về 0 nếu cặp đã được transaction khác đăng ký trước (unique constraint)
+    @Modifying
+    @Query(value = """
+    INSERT INTO direct_conversations (account_low_id, account_high_id, conversation_id, created_at)
+    VALUES (:lowId, :highId, :conversationId, now())
+    ON CONFLICT (account_low_id, account_high_id) DO NOTHING
+""", nativeQuery = true)
+    int insertIfAbsent(@Param("lowId") Long lowId,
+                       @Param("highId") Long highId,
+                       @Param("conversationId") Long conversationId);
+}
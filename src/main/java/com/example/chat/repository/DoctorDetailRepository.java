@@ -1,12 +1,42 @@
 package com.example.chat.repository;
 
 import com.example.chat.entity.DoctorDetail;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface DoctorDetailRepository extends JpaRepository<DoctorDetail, Long> {
     Optional<DoctorDetail> findByAccount_Id(Long userId);
-    List<DoctorDetail> findBySpecializationIgnoreCase(String specialization);
+
+
+    @Query("SELECT d FROM DoctorDetail d JOIN FETCH d.account a LEFT JOIN FETCH a.userDetail " +
+            "WHERE d.reviewCount > 0 ORDER BY d.reviewCount DESC, d.id ASC")
+    List<DoctorDetail> findTopByReviewCount(Pageable pageable);
+
+    // Cộng dồn nguyên tử trong transaction tạo review
+    @Modifying
+    @Query("UPDATE DoctorDetail d SET d.reviewCount = d.reviewCount + 1, d.ratingSum = d.ratingSum + :rating " +
+            "WHERE d.account.id = :doctorId")
+    int addReview(Long doctorId, long rating);
+
+    // Tính lại tổng hợp từ doctor_reviews, chỉ ghi các dòng bị lệch. Trả về số dòng đã sửa
+    @Modifying
+    @Query(value = """
+            UPDATE doctor_details d
+            SET review_count = agg.cnt,
+                rating_sum = agg.total
+            FROM (
+                SELECT dd.id, COUNT(r.id) AS cnt, COALESCE(SUM(r.rating), 0) AS total
+                FROM doctor_details dd
+                LEFT JOIN doctor_reviews r ON r.doctor_id = dd.user_id
+                GROUP BY dd.id
+            ) agg
+            WHERE agg.id = d.id
+              AND (d.review_count <> agg.cnt OR d.rating_sum <> agg.total)
+            """, nativeQuery = true)
+    int rebuildRatingAggregates();
 }
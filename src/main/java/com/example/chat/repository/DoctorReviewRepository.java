@@ -4,25 +4,23 @@ import com.example.chat.entity.DoctorReview;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface DoctorReviewRepository extends JpaRepository<DoctorReview,Long> {
     Optional<DoctorReview> findByAppointmentId(Long appointmentId);
 
-    @Query("SELECT COUNT(r) FROM DoctorReview r WHERE r.doctor.id = :doctorId")
-    Long countByDoctorId(Long doctorId);
-
-    @Query("SELECT AVG(r.rating) FROM DoctorReview r WHERE r.doctor.id = :doctorId")
-    Double avgRatingByDoctorId(Long doctorId);
+    List<DoctorReview> findAllByDoctor_Id(Long doctorId);
 
-    @Query("SELECT r.doctor.id, COUNT(r), AVG(r.rating) " +
-            "FROM DoctorReview r " +
-            "GROUP BY r.doctor.id " +
-            "ORDER BY COUNT(r) DESC")
-    List<Object[]> findTopDoctorsByReviewCount();
+    // Các lịch hẹn đã được chính bệnh nhân của lịch đó đánh giá
+    @Query("SELECT r.appointment.id FROM DoctorReview r " +
+            "WHERE r.appointment.id IN :appointmentIds AND r.user.id = r.appointment.user.id")
+    List<Long> findReviewedAppointmentIds(Collection<Long> appointmentIds);
 
-    List<DoctorReview> findAllByDoctor_Id(Long doctorId);
+    // Bác sĩ có review của user (trang chi tiết bác sĩ hiển thị tên, avatar người review)
+    @Query("SELECT DISTINCT r.doctor.id FROM DoctorReview r WHERE r.user.id = :userId")
+    List<Long> findReviewedDoctorIds(Long userId);
 
     boolean existsByAppointmentIdAndUserId(Long appointmentId, Long userId);
 }
@@ -2,6 +2,7 @@ package com.example.chat.repository;
 
 import com.example.chat.entity.Account;
 import com.example.chat.entity.FavoriteDoctor;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
@@ -15,10 +16,38 @@ public interface FavoriteDoctorRepository extends JpaRepository<FavoriteDoctor,
     Optional<FavoriteDoctor> findByUserAndDoctor(Account user, Account doctor);
     List<FavoriteDoctor> findAllByUser(Account user);
 
+    @Query("""
+           select fd
+           from FavoriteDoctor fd
+           join fetch fd.doctor d
+           left join fetch d.doctorDetail
+           left join fetch d.userDetail
+           where fd.user.id = :userId
+           """)
+    List<FavoriteDoctor> findAllWithDoctorByUserId(Long userId);
+
     @Query("""
            select fd.doctor.id
            from FavoriteDoctor fd
            where fd.user.id = :userId and fd.doctor.id in :doctorIds
            """)
     Set<Long> findFavoritedDoctorIds(Long userId, Collection<Long> doctorIds);
+
+    long countByDoctor_Id(Long doctorId);
+
+    @Query("""
+           select fd.doctor.id
+           from FavoriteDoctor fd
+           where fd.user.id = :userId
+           """)
+    List<Long> findDoctorIdsByUserId(Long userId);
+
+    // Người theo dõi của bác sĩ theo keyset trên id (fan-out bài mới): [id, userId]
+    @Query("""
+           select fd.id, fd.user.id
+           from FavoriteDoctor fd
+           where fd.doctor.id = :doctorId and fd.id > :afterId
+           order by fd.id
+           """)
+    List<Object[]> findFollowerPage(Long doctorId, int afterId, Pageable pageable);
 }
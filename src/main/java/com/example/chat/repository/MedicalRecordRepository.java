@@ -15,4 +15,6 @@ public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Lo
     // 🔍 Tìm theo tên bệnh nhân (có chứa keyword)
     @Query("SELECT m FROM MedicalRecord m WHERE LOWER(m.patientName) LIKE LOWER(CONCAT('%', :name, '%'))")
     List<MedicalRecord> findByPatientNameContainingIgnoreCase(@Param("name") String name);
+
+    boolean existsByDoctor_Id(Long doctorId);
 }
@@ -27,6 +27,23 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
                                     @Param("lastMessageId") Long lastMessageId,
                                     Pageable pageable);
 
+    // Các tin nhắn mới nhất (id < beforeId) kèm người gửi, ciphertext thô để giải mã theo lô (ChatHistoryLoader):
+    // [id, message_type, message_content, file_name, file_url, file_size, file_type, created_at,
+    //  sender_id, username, avatar_url]
+    @Query(value = """
+    SELECT m.id, m.message_type, m.message_content, m.file_name, m.file_url, m.file_size, m.file_type, m.created_at,
+           a.id AS sender_id, a.username, ud.avatar_url
+    FROM messages m
+    JOIN accounts a ON a.id = m.sender_id
+    LEFT JOIN user_details ud ON ud.user_id = a.id
+    WHERE m.conversation_id = :conversationId AND m.id < :beforeId
+    ORDER BY m.id DESC
+    LIMIT :limit
+""", nativeQuery = true)
+    List<Object[]> findRawPage(@Param("conversationId") Long conversationId,
+                               @Param("beforeId") long beforeId,
+                               @Param("limit") int limit);
+
     // Đếm tổng số tin nhắn
     long countByConversationId(Long conversationId);
 
@@ -0,0 +1,41 @@
+package com.example.chat.repository;
+
+import com.example.chat.entity.NotificationOutbox;
+import com.example.chat.enums.OutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    // SKIP LOCKED: nhiều node cùng quét không nhận trùng bản ghi
+    @Query(value = """
+            SELECT * FROM notification_outbox
+            WHERE status IN ('PENDING', 'PROCESSING')
+              AND next_attempt_at <= :now
+            ORDER BY next_attempt_at, id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<NotificationOutbox> findClaimable(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // clearAutomatically: các dòng findClaimable vừa nạp bị tách khỏi context, flush không ghi đè giá trị cũ
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE NotificationOutbox o SET o.status = com.example.chat.enums.OutboxStatus.PROCESSING, " +
+            "o.nextAttemptAt = :leaseUntil, o.attempts = o.attempts + 1 WHERE o.id IN :ids")
+    int markProcessing(@Param("ids") List<Long> ids, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationOutbox o SET o.status = :status, o.nextAttemptAt = :nextAttemptAt, " +
+            "o.lastError = :error WHERE o.id = :id")
+    int updateOutcome(@Param("id") Long id,
+                      @Param("status") OutboxStatus status,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                      @Param("error") String error);
+}
@@ -5,86 +5,20 @@ import jakarta.persistence.Converter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.Cipher;
-import javax.crypto.spec.GCMParameterSpec;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
-import java.security.SecureRandom;
-import java.util.Base64;
-
 @Component
 @Converter
 @RequiredArgsConstructor
 public class AesEncryptor implements AttributeConverter<String, String> {
 
-    private final EncryptionProperties encryptionProperties;
-
-    private static final String ALGO = "AES/GCM/NoPadding";
-    private static final int IV_LENGTH = 12;
-    private static final int TAG_LENGTH = 128;
-
-    private SecretKeySpec getKey() {
-        return new SecretKeySpec(
-                encryptionProperties.getKey().getBytes(StandardCharsets.UTF_8),
-                "AES"
-        );
-    }
+    private final AesGcmEngine aesGcmEngine;
 
     @Override
     public String convertToDatabaseColumn(String attribute) {
-        if (attribute == null || attribute.isBlank()) return null;
-
-        try {
-            Cipher cipher = Cipher.getInstance(ALGO);
-
-            byte[] iv = new byte[IV_LENGTH];
-            new SecureRandom().nextBytes(iv);
-
-            cipher.init(
-                    Cipher.ENCRYPT_MODE,
-                    getKey(),
-                    new GCMParameterSpec(TAG_LENGTH, iv)
-            );
-
-            byte[] encrypted = cipher.doFinal(attribute.getBytes(StandardCharsets.UTF_8));
-
-            return Base64.getEncoder().encodeToString(
-                    ByteBuffer.allocate(iv.length + encrypted.length)
-                            .put(iv)
-                            .put(encrypted)
-                            .array()
-            );
-
-        } catch (Exception e) {
-            throw new RuntimeException("Encrypt failed", e);
-        }
+        return aesGcmEngine.encrypt(attribute);
     }
 
     @Override
     public String convertToEntityAttribute(String dbData) {
-        if (dbData == null || dbData.isBlank()) return null;
-
-        try {
-            byte[] decoded = Base64.getDecoder().decode(dbData);
-
-            ByteBuffer buffer = ByteBuffer.wrap(decoded);
-            byte[] iv = new byte[IV_LENGTH];
-            buffer.get(iv);
-            byte[] encrypted = new byte[buffer.remaining()];
-            buffer.get(encrypted);
-
-            Cipher cipher = Cipher.getInstance(ALGO);
-            cipher.init(
-                    Cipher.DECRYPT_MODE,
-                    getKey(),
-                    new GCMParameterSpec(TAG_LENGTH, iv)
-            );
-
-            return new String(cipher.doFinal(encrypted), StandardCharsets.UTF_8);
-
-        } catch (Exception e) {
-            throw new RuntimeException("Decrypt failed", e);
-        }
+        return aesGcmEngine.decrypt(dbData);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,116 @@
+package com.example.chat.security;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * AES-GCM dùng chung cho các cột được mã hoá.
+ * Key được dựng một lần, Cipher và SecureRandom giữ theo thread, IV và ciphertext ghi thẳng vào cùng một mảng.
+ * Định dạng lưu trữ không đổi: Base64(IV 12 byte || ciphertext || tag 16 byte).
+ */
+@Component
+@RequiredArgsConstructor
+public class AesGcmEngine {
+
+    private final EncryptionProperties encryptionProperties;
+
+    private static final String ALGO = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH = 128;
+
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(ALGO);
+        } catch (Exception e) {
+            throw new IllegalStateException("AES/GCM không khả dụng", e);
+        }
+    });
+
+    private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(SecureRandom::new);
+
+    private SecretKeySpec key;
+
+    @PostConstruct
+    public void init() {
+        key = new SecretKeySpec(
+                encryptionProperties.getKey().getBytes(StandardCharsets.UTF_8),
+                "AES"
+        );
+    }
+
+    public String encrypt(String plainText) {
+        if (plainText == null || plainText.isBlank()) return null;
+
+        try {
+            byte[] input = plainText.getBytes(StandardCharsets.UTF_8);
+            Cipher cipher = CIPHER.get();
+
+            byte[] iv = new byte[IV_LENGTH];
+            RANDOM.get().nextBytes(iv);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH, iv));
+
+            // IV và ciphertext nằm chung một mảng, không cần ByteBuffer trung gian
+            byte[] output = new byte[IV_LENGTH + cipher.getOutputSize(input.length)];
+            System.arraycopy(iv, 0, output, 0, IV_LENGTH);
+            cipher.doFinal(input, 0, input.length, output, IV_LENGTH);
+
+            return Base64.getEncoder().encodeToString(output);
+
+        } catch (Exception e) {
+            throw new RuntimeException("Encrypt failed", e);
+        }
+    }
+
+    public String decrypt(String cipherText) {
+        if (cipherText == null || cipherText.isBlank()) return null;
+
+        try {
+            byte[] decoded = Base64.getDecoder().decode(cipherText);
+
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH, decoded, 0, IV_LENGTH));
+
+            byte[] plain = cipher.doFinal(decoded, IV_LENGTH, decoded.length - IV_LENGTH);
+            return new String(plain, StandardCharsets.UTF_8);
+
+        } catch (Exception e) {
+            throw new RuntimeException("Decrypt failed", e);
+        }
+    }
+
+    /**
+     * Giải mã hàng loạt cho các list load (lịch sử chat, đuôi tin nhắn): một lần lấy Cipher / decoder cho cả lô,
+     * giữ nguyên thứ tự, null / rỗng trả về null.
+     */
+    public List<String> decryptAll(List<String> cipherTexts) {
+        List<String> result = new ArrayList<>(cipherTexts.size());
+        Base64.Decoder decoder = Base64.getDecoder();
+        Cipher cipher = CIPHER.get();
+
+        for (String cipherText : cipherTexts) {
+            if (cipherText == null || cipherText.isBlank()) {
+                result.add(null);
+                continue;
+            }
+            try {
+                byte[] decoded = decoder.decode(cipherText);
+                cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH, decoded, 0, IV_LENGTH));
+                byte[] plain = cipher.doFinal(decoded, IV_LENGTH, decoded.length - IV_LENGTH);
+                result.add(new String(plain, StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                throw new RuntimeException("Decrypt failed", e);
+            }
+        }
+        return result;
+    }
+}
@@ -1,6 +1,5 @@
 package com.example.chat.security;
 
-import com.example.chat.service.RedisBaseService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,13 +15,14 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtTokenProvider jwtTokenProvider;
-    private final RedisBaseService redisBaseService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenBlacklist tokenBlacklist;
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
@@ -38,24 +38,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String token = authHeader.substring(7);
 
-        if (redisBaseService.isTokenBlacklisted(token)) {
+        if (tokenBlacklist.isRevoked(token)) {
             setErrorResponse(response, "Token has been revoked", 401);
             return;
         }
 
-        if (!jwtTokenProvider.isValidAccessToken(token)) {
+        Optional<JwtPrincipal> principal = verifiedTokenCache.verify(token);
+        if (principal.isEmpty()) {
             setErrorResponse(response, "Token expired", 401);
             return;
         }
 
-        Long accountId = jwtTokenProvider.getAccountIdFromAccessToken(token);
-        String role = jwtTokenProvider.getRoleFromAccessToken(token);
-
         UsernamePasswordAuthenticationToken authentication =
                 new UsernamePasswordAuthenticationToken(
-                        accountId,
+                        principal.get().accountId(),
                         null,
-                        List.of(new SimpleGrantedAuthority("ROLE_" + role))
+                        List.of(new SimpleGrantedAuthority("ROLE_" + principal.get().role()))
                 );
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -0,0 +1,7 @@
+package com.example.chat.security;
+
+/**
+ * Thông tin đã xác thực từ access token (chỉ parse và verify chữ ký một lần).
+ */
+public record JwtPrincipal(Long accountId, String username, String role, long expiresAt) {
+}
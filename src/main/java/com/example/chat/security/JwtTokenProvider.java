@@ -9,6 +9,7 @@ import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.Optional;
 
 @Getter
 @Setter
@@ -26,10 +27,16 @@ public class JwtTokenProvider {
     private Key accessSecretKey;
     private Key refreshSecretKey;
 
+    // JwtParser là immutable và thread-safe nên chỉ dựng một lần
+    private JwtParser accessParser;
+    private JwtParser refreshParser;
+
     @PostConstruct
     public void init() {
         accessSecretKey = Keys.hmacShaKeyFor(accessSecret.getBytes());
         refreshSecretKey = Keys.hmacShaKeyFor(refreshSecret.getBytes());
+        accessParser = Jwts.parserBuilder().setSigningKey(accessSecretKey).build();
+        refreshParser = Jwts.parserBuilder().setSigningKey(refreshSecretKey).build();
     }
 
     public String generateAccessToken(Long accountId, String username, String role) {
@@ -54,6 +61,23 @@ public class JwtTokenProvider {
                 .compact();
     }
 
+    /**
+     * Parse và verify access token một lần, trả về principal đã có đủ accountId, role và thời điểm hết hạn.
+     */
+    public Optional<JwtPrincipal> verifyAccessToken(String token) {
+        try {
+            Claims claims = accessParser.parseClaimsJws(token).getBody();
+            return Optional.of(new JwtPrincipal(
+                    claims.get("accountId", Long.class),
+                    claims.get("username", String.class),
+                    claims.get("role", String.class),
+                    claims.getExpiration().getTime()
+            ));
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
     public boolean isValidAccessToken(String token) {
         return validateToken(token, accessSecretKey);
     }
@@ -72,13 +96,17 @@ public class JwtTokenProvider {
     }
 
     public Claims getClaims(String token, Key key) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
+        return parserFor(key)
                 .parseClaimsJws(token)
                 .getBody();
     }
 
+    private JwtParser parserFor(Key key) {
+        if (key == accessSecretKey) return accessParser;
+        if (key == refreshSecretKey) return refreshParser;
+        return Jwts.parserBuilder().setSigningKey(key).build();
+    }
+
     public Long getAccountIdFromAccessToken(String token) {
         return getClaims(token, accessSecretKey).get("accountId", Long.class);
     }
@@ -97,9 +125,7 @@ public class JwtTokenProvider {
 
     public long getExpirationTime(String token) {
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(accessSecretKey)
-                    .build()
+            Claims claims = accessParser
                     .parseClaimsJws(token)
                     .getBody();
 
@@ -113,9 +139,7 @@ public class JwtTokenProvider {
 
     public Long extractUserIdIgnoreExpiration(String token) {
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(accessSecretKey)
-                    .build()
+            Claims claims = accessParser
                     .parseClaimsJws(token)
                     .getBody();
 
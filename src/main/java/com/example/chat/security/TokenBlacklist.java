@@ -0,0 +1,128 @@
+package com.example.chat.security;
+
+import com.example.chat.service.RedisBaseService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Blacklist access token trong JVM: Bloom filter + tập chính xác (SHA-256 -> thời điểm hết hạn).
+ * Được nạp từ Redis khi khởi động, đồng bộ định kỳ và cập nhật qua pub/sub mỗi khi logout.
+ * Redis chỉ được hỏi khi Bloom filter báo "có thể có" mà tập chính xác không xác nhận.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenBlacklist implements MessageListener {
+
+    private final RedisBaseService redisBaseService;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final TokenBlacklistProperties properties;
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloomFilter;
+    // addLocal và bước dựng + thay Bloom filter của resync loại trừ nhau, để token thu hồi giữa chừng không bị mất
+    private final Object filterLock = new Object();
+
+    @PostConstruct
+    public void init() {
+        bloomFilter = newBloomFilter();
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(properties.getChannel()));
+        resync();
+    }
+
+    public boolean isRevoked(String token) {
+        byte[] digest = TokenDigest.sha256(token);
+        if (!bloomFilter.mightContain(digest)) {
+            return false;
+        }
+
+        Long expiresAt = revoked.get(Base64.getEncoder().encodeToString(digest));
+        if (expiresAt != null && expiresAt > System.currentTimeMillis()) {
+            return true;
+        }
+
+        try {
+            return redisBaseService.isTokenBlacklisted(token);
+        } catch (Exception e) {
+            log.warn("Không kiểm tra được blacklist trên Redis: {}", e.getMessage());
+            return !properties.isFailOpen();
+        }
+    }
+
+    /**
+     * Thu hồi token đến khi hết hạn: ghi Redis, cập nhật local và báo cho các node khác.
+     */
+    public void revoke(String token, long expiresAt) {
+        long ttlMillis = expiresAt - System.currentTimeMillis();
+        if (ttlMillis <= 0) return;
+
+        redisBaseService.blacklistToken(token, ttlMillis);
+
+        String digest = TokenDigest.sha256Base64(token);
+        addLocal(digest, expiresAt);
+        redisTemplate.convertAndSend(properties.getChannel(), digest + "|" + expiresAt);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+            if (body == null) return;
+
+            String[] parts = body.toString().split("\\|");
+            addLocal(parts[0], Long.parseLong(parts[1]));
+        } catch (Exception e) {
+            log.warn("Bỏ qua blacklist event không hợp lệ: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Nạp lại toàn bộ blacklist từ Redis, bỏ các token đã hết hạn và dựng lại Bloom filter.
+     */
+    public void resync() {
+        try {
+            long now = System.currentTimeMillis();
+
+            Map<String, Long> fresh = new HashMap<>();
+            redisBaseService.findBlacklistedTokens()
+                    .forEach((token, ttlMillis) -> fresh.put(TokenDigest.sha256Base64(token), now + ttlMillis));
+
+            synchronized (filterLock) {
+                revoked.values().removeIf(expiresAt -> expiresAt <= now);
+                revoked.putAll(fresh);
+
+                BloomFilter rebuilt = newBloomFilter();
+                revoked.keySet().forEach(digest -> rebuilt.put(Base64.getDecoder().decode(digest)));
+                bloomFilter = rebuilt;
+            }
+
+            log.info("Đồng bộ {} token trong blacklist", revoked.size());
+        } catch (Exception e) {
+            log.warn("Đồng bộ blacklist từ Redis thất bại: {}", e.getMessage());
+        }
+    }
+
+    private void addLocal(String digest, long expiresAt) {
+        synchronized (filterLock) {
+            revoked.put(digest, expiresAt);
+            bloomFilter.put(Base64.getDecoder().decode(digest));
+        }
+    }
+
+    private BloomFilter newBloomFilter() {
+        return new BloomFilter(properties.getExpectedInsertions(), properties.getFalsePositiveRate());
+    }
+}
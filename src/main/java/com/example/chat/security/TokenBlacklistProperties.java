@@ -0,0 +1,18 @@
+package com.example.chat.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "security.token-blacklist")
+public class TokenBlacklistProperties {
+    // true: Redis lỗi thì cho qua (ưu tiên khả dụng), false: Redis lỗi thì từ chối token (ưu tiên an toàn)
+    private boolean failOpen = false;
+    private int expectedInsertions = 100_000;
+    private double falsePositiveRate = 0.001;
+    private String channel = "jwt:blacklist:events";
+}
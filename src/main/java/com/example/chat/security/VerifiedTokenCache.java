@@ -0,0 +1,54 @@
+package com.example.chat.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Cache các access token đã verify, key là SHA-256 của token, hết hạn đúng theo exp của token.
+ * Cache hit chỉ tốn một lần băm + một lần tra map thay vì parse và verify HMAC lại.
+ */
+@Component
+@RequiredArgsConstructor
+public class VerifiedTokenCache {
+
+    private final JwtTokenProvider jwtTokenProvider;
+
+    private static final int MAX_ENTRIES = 50_000;
+
+    private final Map<String, JwtPrincipal> verified = Collections.synchronizedMap(
+            new LinkedHashMap<>(1024, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, JwtPrincipal> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            }
+    );
+
+    public Optional<JwtPrincipal> verify(String token) {
+        if (token == null || token.isBlank()) return Optional.empty();
+
+        String key = TokenDigest.sha256Base64(token);
+        JwtPrincipal cached = verified.get(key);
+        if (cached != null) {
+            if (cached.expiresAt() > System.currentTimeMillis()) {
+                return Optional.of(cached);
+            }
+            verified.remove(key);
+            return Optional.empty();
+        }
+
+        Optional<JwtPrincipal> principal = jwtTokenProvider.verifyAccessToken(token);
+        principal.ifPresent(p -> verified.put(key, p));
+        return principal;
+    }
+
+    public void evict(String token) {
+        if (token == null) return;
+        verified.remove(TokenDigest.sha256Base64(token));
+    }
+}
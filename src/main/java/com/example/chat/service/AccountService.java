@@ -1,17 +1,21 @@
 package com.example.chat.service;
 
+import com.example.chat.cache.CacheNames;
 import com.example.chat.dto.PagingResponse;
 import com.example.chat.dto.req.UpdateAccountRequest;
 import com.example.chat.dto.res.*;
 import com.example.chat.entity.Account;
 import com.example.chat.entity.DoctorDetail;
 import com.example.chat.entity.UserDetail;
+import com.example.chat.enums.DeletionTarget;
 import com.example.chat.enums.Role;
 import com.example.chat.mapper.AccountMapper;
 import com.example.chat.repository.AccountRepository;
 import com.example.chat.repository.UserDetailRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -35,7 +39,17 @@ public class AccountService {
 
     private final AccountMapper accountMapper;
     private final CloudinaryService cloudinaryService;
+    private final BulkDeletionService bulkDeletionService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Username / avatar của tài khoản vừa đổi: các cache hiển thị tên, ảnh của tài khoản (danh bạ, chi tiết bác sĩ
+     * kèm review) tự evict theo sự kiện này. Listener chạy trong transaction nên evict diễn ra sau commit.
+     */
+    public record AccountProfileChangedEvent(Long accountId, Role role) {
+    }
 
+    @CacheEvict(cacheNames = CacheNames.USER_CARD, key = "#root.target.currentUserId()")
     @Transactional(rollbackFor = Exception.class)
     public AccountResponse updateAccount(UpdateAccountRequest request) {
 
@@ -61,6 +75,7 @@ public class AccountService {
         // 5. Lưu lại
         userDetailRepository.save(userDetail);
         accountRepository.save(account);
+        eventPublisher.publishEvent(new AccountProfileChangedEvent(account.getId(), account.getRole()));
 
         // 6. Trả về DTO
         return accountMapper.toDto(account);
@@ -172,6 +187,7 @@ public class AccountService {
     }
 
 
+    @CacheEvict(cacheNames = CacheNames.USER_CARD, key = "#root.target.currentUserId()")
     @Transactional
     public String updateAvatar(MultipartFile avatarFile) {
         if (avatarFile == null || avatarFile.isEmpty()) {
@@ -198,8 +214,26 @@ public class AccountService {
         userDetail.setAvatar_url(uploadResponse.getFileUrl());
 
         accountRepository.save(account);
+        eventPublisher.publishEvent(new AccountProfileChangedEvent(account.getId(), account.getRole()));
 
         return uploadResponse.getFileUrl();
     }
 
+    /**
+     * Tạo job xoá tài khoản (bài viết, comment, tin nhắn, lịch hẹn...) và trả về ngay.
+     */
+    @Transactional
+    public DeletionJobResponse deleteAccount(Long accountId) {
+        if (!accountRepository.existsById(accountId)) {
+            throw new EntityNotFoundException("Account not found");
+        }
+        return bulkDeletionService.toResponse(
+                bulkDeletionService.request(DeletionTarget.ACCOUNT, accountId, currentUserId())
+        );
+    }
+
+    // Dùng làm key cho @CacheEvict: user đang đăng nhập
+    public Long currentUserId() {
+        return (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    }
 }
@@ -1,15 +1,17 @@
 package com.example.chat.service;
 
 import com.example.chat.dto.res.AppointmentResponse;
-import com.example.chat.dto.res.PaymentInfoDto;
 import com.example.chat.entity.*;
 import com.example.chat.enums.AppointmentStatus;
 import com.example.chat.enums.NotificationType;
 import com.example.chat.enums.PaymentMethod;
-import com.example.chat.firebase.FcmService;
+import com.example.chat.exception.ConflictException;
 import com.example.chat.integration.zalopay.PaymentService;
+import com.example.chat.mapper.AppointmentMapper;
 import com.example.chat.repository.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,32 +25,15 @@ import java.util.*;
 public class AppointmentService {
     private final AppointmentRepository appointmentRepository;
     private final AccountRepository accountRepository;
-    private final TransactionRepository transactionRepository;
+    private final AppointmentMapper appointmentMapper;
 
-    private final DoctorDetailRepository doctorDetailRepository;
-    private final DoctorReviewRepository doctorReviewRepository;
-    private final UserDetailRepository userDetailRepository;
-
-    private final NotificationRepository notificationRepository;
-    private final DeviceTokenRepository deviceTokenRepository;
-    private final FcmService fcmService;
+    private final NotificationOutboxService notificationOutboxService;
     private final PaymentService  paymentService;
+    private final SlotAvailabilityService slotAvailabilityService;
+    private final SlotReservationService slotReservationService;
 
-    // Danh sách slot cố định trong ngày
-    private static final List<LocalTime> FIXED_SLOTS = Arrays.asList(
-            LocalTime.of(9, 0),
-            LocalTime.of(9, 30),
-            LocalTime.of(10, 0),
-            LocalTime.of(10, 30),
-            LocalTime.of(11, 0),
-            LocalTime.of(11, 30),
-            LocalTime.of(14, 0),
-            LocalTime.of(14, 30),
-            LocalTime.of(15, 0),
-            LocalTime.of(15, 30),
-            LocalTime.of(16, 0),
-            LocalTime.of(16, 30)
-    );
+    private static final List<LocalTime> FIXED_SLOTS = SlotAvailabilityService.FIXED_SLOTS;
+    private static final int MAX_PAGE_SIZE = 100;
 
     public List<LocalTime> getAvailableSlots(Long doctorId, LocalDate date) {
         // ❌ Không cho lấy slot cuối tuần
@@ -56,13 +41,22 @@ public class AppointmentService {
             case SATURDAY, SUNDAY -> throw new IllegalArgumentException("Không có lịch vào Thứ 7 hoặc Chủ nhật");
         }
 
-        Account doctor = accountRepository.findById(doctorId)
-                .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy bác sĩ"));
+        if (!accountRepository.existsById(doctorId)) {
+            throw new IllegalArgumentException("Không tìm thấy bác sĩ");
+        }
+
+        return slotAvailabilityService.getAvailableSlots(doctorId, date);
+    }
 
-        List<LocalTime> booked = appointmentRepository.findBookedSlots(doctor, date);
-        List<LocalTime> available = new ArrayList<>(FIXED_SLOTS);
-        available.removeAll(booked);
-        return available;
+    /**
+     * Slot còn trống theo từng ngày làm việc trong khoảng [from, to] (tối đa 31 ngày).
+     */
+    public Map<LocalDate, List<LocalTime>> getAvailableSlots(Long doctorId, LocalDate from, LocalDate to) {
+        if (!accountRepository.existsById(doctorId)) {
+            throw new IllegalArgumentException("Không tìm thấy bác sĩ");
+        }
+
+        return slotAvailabilityService.getAvailableSlots(doctorId, from, to);
     }
 
     @Transactional
@@ -87,9 +81,13 @@ public class AppointmentService {
                 .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy bác sĩ"));
         Account user = getCurrentUser();
 
-        // ❌ Slot đã có người đặt
-        appointmentRepository.findByDoctorAndAppointmentDateAndAppointmentTime(doctor, date, time)
-                .ifPresent(a -> { throw new IllegalArgumentException("Slot đã được đặt!"); });
+        // ❌ Slot đã có người đặt (bitmap)
+        if (slotAvailabilityService.isBooked(doctorId, date, time)) {
+            throw new ConflictException("Slot đã được đặt!");
+        }
+
+        // 🔒 Giữ chỗ: request tranh chấp cùng slot bị từ chối ngay, không phải chờ DB
+        slotReservationService.reserve(doctorId, date, time);
 
         // ✅ Tạo appointment
         Appointment appointment = Appointment.builder()
@@ -102,7 +100,14 @@ public class AppointmentService {
                 .status(AppointmentStatus.PENDING)
                 .build();
 
-        Appointment saved = appointmentRepository.save(appointment);
+        Appointment saved;
+        try {
+            // Partial unique index uq_appointments_active_slot: chốt chặn cuối khi Redis không khả dụng
+            saved = appointmentRepository.saveAndFlush(appointment);
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictException("Slot đã được đặt!");
+        }
+        slotAvailabilityService.markBooked(doctorId, date, time);
 
         // 🔔 Thông báo cho bác sĩ
         saveAndPushNotification(
@@ -169,6 +174,12 @@ public class AppointmentService {
         appointment.setStatus(newStatus);
         Appointment saved = appointmentRepository.save(appointment);
 
+        if (newStatus == AppointmentStatus.CANCELLED) {
+            slotAvailabilityService.markReleased(
+                    saved.getDoctor().getId(), saved.getAppointmentDate(), saved.getAppointmentTime()
+            );
+        }
+
         // ✅ Thông báo theo trạng thái
         switch (newStatus) {
             case CONFIRMED -> saveAndPushNotification(
@@ -216,36 +227,28 @@ public class AppointmentService {
     }
 
 
+    /**
+     * Lịch hẹn của bác sĩ hiện tại, mới nhất trước. Trang sau: truyền cursorId = id cuối của trang trước.
+     */
     @Transactional(readOnly = true)
-    public List<AppointmentResponse> getAppointmentsByDoctor(AppointmentStatus status) {
-        Account doctor = getCurrentUser();
-        List<Appointment> list;
-
-        if (status != null) {
-            list = appointmentRepository.findByDoctorAndStatus(doctor, status);
-        } else {
-            list = appointmentRepository.findByDoctor(doctor);
-        }
-
-        return list.stream()
-                .map(a -> toResponse(a, status))
-                .toList();
+    public List<AppointmentResponse> getAppointmentsByDoctor(AppointmentStatus status, Long cursorId, int limit) {
+        Long doctorId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        List<Appointment> list = appointmentRepository.findDoctorPage(
+                doctorId, status, cursorId, PageRequest.of(0, clampLimit(limit))
+        );
+        return appointmentMapper.toResponses(list, status);
     }
 
+    /**
+     * Lịch hẹn của bệnh nhân hiện tại, mới nhất trước. Trang sau: truyền cursorId = id cuối của trang trước.
+     */
     @Transactional(readOnly = true)
-    public List<AppointmentResponse> getAppointmentsByUser(AppointmentStatus status) {
-        Account user = getCurrentUser();
-        List<Appointment> list;
-
-        if (status != null) {
-            list = appointmentRepository.findByUserAndStatus(user, status);
-        } else {
-            list = appointmentRepository.findByUser(user);
-        }
-
-        return list.stream()
-                .map(a -> toResponse(a, status))
-                .toList();
+    public List<AppointmentResponse> getAppointmentsByUser(AppointmentStatus status, Long cursorId, int limit) {
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        List<Appointment> list = appointmentRepository.findUserPage(
+                userId, status, cursorId, PageRequest.of(0, clampLimit(limit))
+        );
+        return appointmentMapper.toResponses(list, status);
     }
 
 
@@ -275,16 +278,31 @@ public class AppointmentService {
             throw new IllegalArgumentException("Khung giờ không hợp lệ: " + time);
         }
 
+        Long doctorId = appointment.getDoctor().getId();
+
         // ❌ Slot mới đã được đặt rồi
-        appointmentRepository.findByDoctorAndAppointmentDateAndAppointmentTime(
-                appointment.getDoctor(), date, time
-        ).ifPresent(a -> { throw new IllegalStateException("Slot đã được đặt!"); });
+        if (slotAvailabilityService.isBooked(doctorId, date, time)) {
+            throw new ConflictException("Slot đã được đặt!");
+        }
+
+        // 🔒 Giữ chỗ slot mới
+        slotReservationService.reserve(doctorId, date, time);
+
+        LocalDate oldDate = appointment.getAppointmentDate();
+        LocalTime oldTime = appointment.getAppointmentTime();
 
         // ✅ Cập nhật thông tin lịch hẹn
         appointment.setAppointmentDate(date);
         appointment.setAppointmentTime(time);
 
-        Appointment saved = appointmentRepository.save(appointment);
+        Appointment saved;
+        try {
+            saved = appointmentRepository.saveAndFlush(appointment);
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictException("Slot đã được đặt!");
+        }
+        slotAvailabilityService.markReleased(doctorId, oldDate, oldTime);
+        slotAvailabilityService.markBooked(doctorId, date, time);
 
         // 🔔 Thông báo cho bác sĩ
         saveAndPushNotification(
@@ -298,55 +316,8 @@ public class AppointmentService {
         return saved;
     }
 
-    private AppointmentResponse toResponse(Appointment a, AppointmentStatus status) {
-        var detail = doctorDetailRepository.findByAccount_Id(a.getDoctor().getId()).orElse(null);
-        var userDetail = userDetailRepository.findByAccount_Id(a.getUser().getId()).orElse(null);
-
-        Long totalReviews = doctorReviewRepository.countByDoctorId(a.getDoctor().getId());
-        Number avgObj = doctorReviewRepository.avgRatingByDoctorId(a.getDoctor().getId());
-        Double avgRating = avgObj != null ? avgObj.doubleValue() : 0.0;
-
-        Boolean reviewed = null;
-        if (status == AppointmentStatus.COMPLETED) {
-            reviewed = doctorReviewRepository.existsByAppointmentIdAndUserId(
-                    a.getId(), a.getUser().getId()
-            );
-        }
-
-        Transaction tx = transactionRepository.findByAppointmentId(a.getId()).orElse(null);
-
-        PaymentInfoDto paymentInfo = null;
-
-        if (tx != null) {
-            paymentInfo = PaymentInfoDto.builder()
-                    .paymentStatus(tx.getPaymentStatus())
-                    .appTransId(tx.getAppTransId())
-                    .zpTransId(tx.getZpTransId())
-                    .refundId(tx.getRefundId())
-                    .zpRefundId(tx.getZpRefundId())
-                    .paymentDate(tx.getPaymentDate())
-                    .build();
-        }
-
-        return AppointmentResponse.builder()
-                .id(a.getId())
-                .date(a.getAppointmentDate())
-                .time(a.getAppointmentTime())
-                .status(a.getStatus())
-                .doctorId(a.getDoctor().getId())
-                .doctorName(a.getDoctor().getUsername())
-                .specialization(detail != null ? detail.getSpecialization() : null)
-                .doctorAvatarUrl(detail != null ? detail.getAvatar_url() : null)
-                .totalReviews(totalReviews)
-                .avgRating(avgRating)
-                .userId(a.getUser().getId())
-                .username(a.getUser().getUsername())
-                .userAvatarUrl(userDetail != null ? userDetail.getAvatar_url() : null)
-                .reviewed(reviewed)
-                .paymentMethod(a.getPaymentMethod())
-                .amount(a.getFee())
-                .paymentInfo(paymentInfo)
-                .build();
+    private int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
     }
 
     private Account getCurrentUser() {
@@ -357,29 +328,8 @@ public class AppointmentService {
 
     private void saveAndPushNotification(Long userId, String title, String body,
                                          NotificationType type) {
-        Notification noti = Notification.builder()
-                .userId(userId)
-                .title(title)
-                .body(body)
-                .type(type)
-                .isRead(false)
-                .build();
-        notificationRepository.save(noti);
-
-        var tokens = deviceTokenRepository.findByUserId(userId);
-        for (DeviceToken token : tokens) {
-            try {
-                fcmService.sendNotification(
-                        token.getFcmToken(),
-                        title,
-                        body,
-                        Map.of("type", type.name())
-                );
-            } catch (Exception e) {
-                // Log lỗi nhưng không làm fail nghiệp vụ
-                System.err.println("❌ Push FCM thất bại: " + e.getMessage());
-            }
-        }
+        // Push FCM được gửi bất đồng bộ sau khi transaction commit
+        notificationOutboxService.saveAndEnqueue(userId, title, body, type);
     }
 
 }
@@ -19,17 +19,38 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ArticleCommentService {
+    private static final int MAX_PAGE_SIZE = 50;
+    private static final int MAX_REPLY_PREVIEW = 20;
+    // Giới hạn độ sâu cây nạp trong một lần, tầng sâu hơn nạp qua "xem thêm trả lời"
+    private static final int MAX_THREAD_DEPTH = 10;
+
+    // Cursor mặc định cho trang đầu: comment gốc mới -> cũ, reply cũ -> mới
+    private static final LocalDateTime ROOT_CURSOR_START = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final LocalDateTime REPLY_CURSOR_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final Comparator<ArticleCommentResponse> OLDEST_FIRST = Comparator
+            .comparing(ArticleCommentResponse::getCreatedAt)
+            .thenComparing(ArticleCommentResponse::getId);
+
     private final ArticleCommentRepository articleCommentRepository;
     private final AccountRepository accountRepository;
     private final ArticleRepository articleRepository;
     private final CloudinaryService cloudinaryService;
     private final ArticleCommentVoteRepository articleCommentVoteRepository;
+    private final VoteCounterService voteCounterService;
+    private final TrendingArticleService trendingArticleService;
 
     @Transactional
     public ArticleCommentResponse createComment(
@@ -74,6 +95,7 @@ public class ArticleCommentService {
         // 7. Cập nhật số lượng comment cho bài viết
         article.setCommentCount(article.getCommentCount() + 1);
         articleRepository.save(article);
+        trendingArticleService.touch(article);
 
         // 8. Trả response
         return ArticleCommentMapper.toResponse(savedComment, user.getId());
@@ -87,40 +109,65 @@ public class ArticleCommentService {
 
         Article article = comment.getArticle();
 
-        // đếm tất cả comment sẽ bị xóa (bao gồm replies)
-        int deletedCount = countCommentsRecursively(comment);
+        // đếm tất cả comment sẽ bị xóa (bao gồm replies) bằng một recursive CTE
+        long deletedCount = articleCommentRepository.countSubtree(commentId);
 
-        // xóa comment
-        articleCommentRepository.delete(comment);
+        // xóa comment, replies và votes đi theo FK ON DELETE CASCADE
+        articleCommentRepository.deleteSubtree(commentId);
 
         // cập nhật commentCount trong article
-        article.setCommentCount(article.getCommentCount() - deletedCount);
+        article.setCommentCount((int) Math.max(article.getCommentCount() - deletedCount, 0));
         articleRepository.save(article);
+        trendingArticleService.touch(article);
     }
 
-    private int countCommentsRecursively(ArticleComment comment) {
-        int count = 1; // chính nó
-        if (comment.getReplies() != null) {
-            for (ArticleComment reply : comment.getReplies()) {
-                count += countCommentsRecursively(reply);
-            }
-        }
-        return count;
+    /**
+     * Một trang comment gốc của bài viết (mới -> cũ) kèm cây reply: mỗi comment nạp sẵn tối đa replyLimit reply đầu.
+     * Trang sau truyền cursorCreatedAt + cursorId = createdAt, id của comment gốc cuối trang trước.
+     */
+    @Transactional(readOnly = true)
+    public List<ArticleCommentResponse> getCommentsByArticle(Long articleId, LocalDateTime cursorCreatedAt, Long cursorId,
+                                                             int limit, int replyLimit) {
+        Long accountId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        Article article = articleRepository.findById(articleId)
+                .orElseThrow(() -> new RuntimeException("Bài viết không tồn tại"));
+
+        boolean hasCursor = cursorCreatedAt != null && cursorId != null;
+        List<Object[]> rows = articleCommentRepository.findRootThreads(
+                articleId,
+                hasCursor ? cursorCreatedAt : ROOT_CURSOR_START,
+                hasCursor ? cursorId : Long.MAX_VALUE,
+                clamp(limit, MAX_PAGE_SIZE),
+                clamp(replyLimit, MAX_REPLY_PREVIEW),
+                MAX_THREAD_DEPTH
+        );
+
+        return buildThreads(rows, article.getId(), article.getCommentCount(), accountId, OLDEST_FIRST.reversed());
     }
 
-    //get all comment by article id
+    /**
+     * "Xem thêm trả lời": trang reply trực tiếp tiếp theo của một comment (cũ -> mới) kèm cây reply của chúng.
+     * cursorCreatedAt + cursorId = createdAt, id của reply cuối cùng đã hiển thị.
+     */
     @Transactional(readOnly = true)
-    public List<ArticleCommentResponse> getCommentsByArticle(Long articleId) {
+    public List<ArticleCommentResponse> getReplies(Long commentId, LocalDateTime cursorCreatedAt, Long cursorId,
+                                                   int limit, int replyLimit) {
         Long accountId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        articleRepository.findById(articleId)
-                .orElseThrow(() -> new RuntimeException("Bài viết không tồn tại"));
+        ArticleComment parent = articleCommentRepository.findById(commentId)
+                .orElseThrow(() -> new RuntimeException("Comment not found"));
 
-        List<ArticleComment> rootComments = articleCommentRepository
-                .findByArticleIdAndParentCommentIsNullOrderByCreatedAtDesc(articleId);
+        boolean hasCursor = cursorCreatedAt != null && cursorId != null;
+        List<Object[]> rows = articleCommentRepository.findReplyThreads(
+                commentId,
+                hasCursor ? cursorCreatedAt : REPLY_CURSOR_START,
+                hasCursor ? cursorId : 0L,
+                clamp(limit, MAX_PAGE_SIZE),
+                clamp(replyLimit, MAX_REPLY_PREVIEW),
+                MAX_THREAD_DEPTH
+        );
 
-        return rootComments.stream()
-                .map(c -> ArticleCommentMapper.toResponseWithReplies(c, true, accountId))
-                .collect(Collectors.toList());
+        Article article = parent.getArticle();
+        return buildThreads(rows, article.getId(), article.getCommentCount(), accountId, OLDEST_FIRST);
     }
 
     @Transactional
@@ -129,14 +176,21 @@ public class ArticleCommentService {
         ArticleComment comment = articleCommentRepository.findById(commentId)
                 .orElseThrow(() -> new RuntimeException("Comment not found"));
 
+        // đọc (hoặc seed) bộ đếm trước khi ghi vote
+        long voteCount = voteCounterService.getOrSeed(VoteCounterService.Target.COMMENT, commentId);
+
         // tìm xem user đã vote chưa
         var existingVote = articleCommentVoteRepository.findByCommentIdAndUserId(commentId, user.getId());
+        int delta = 0;
+        VoteType userVote = reactionType;
 
         if (existingVote.isPresent()) {
             ArticleCommentVote vote = existingVote.get();
             if (vote.getReactionType() == reactionType) {
                 // Bấm lại cùng reaction => bỏ vote
                 articleCommentVoteRepository.delete(vote);
+                delta = -1;
+                userVote = null;
             } else {
                 // Đổi reaction
                 vote.setReactionType(reactionType);
@@ -150,14 +204,93 @@ public class ArticleCommentService {
                     .reactionType(reactionType)
                     .build();
             articleCommentVoteRepository.save(newVote);
+            delta = 1;
+        }
+
+        // cộng delta trên Redis sau commit, VoteCountFlushJob ghi xuống article_comments.vote_count
+        voteCounterService.addAfterCommit(VoteCounterService.Target.COMMENT, commentId, delta);
+
+        ArticleCommentResponse response = ArticleCommentMapper.toResponse(comment, user.getId());
+        response.setVoteCount((int) Math.max(voteCount + delta, 0));
+        response.setUserVoted(userVote != null);
+        response.setUserTypeVote(userVote);
+        return response;
+    }
+
+    /**
+     * Ráp cây từ các dòng [id, parentId, depth, replyCount] của recursive CTE: một query nạp comment + người viết,
+     * một query vote của người xem, số vote lấy từ bộ đếm Redis nếu có.
+     */
+    private List<ArticleCommentResponse> buildThreads(List<Object[]> rows, Long articleId, Integer articleCommentCount,
+                                                      Long viewerId, Comparator<ArticleCommentResponse> anchorOrder) {
+        if (rows.isEmpty()) {
+            return new ArrayList<>();
         }
 
-        // cập nhật voteCount trong comment
-        int voteCount = articleCommentVoteRepository.countByCommentId(commentId);
-        comment.setVoteCount(voteCount);
-        articleCommentRepository.save(comment);
+        List<Long> ids = rows.stream().map(row -> ((Number) row[0]).longValue()).toList();
+        Map<Long, ArticleComment> comments = articleCommentRepository.findWithUserByIdIn(ids)
+                .stream()
+                .collect(Collectors.toMap(ArticleComment::getId, Function.identity()));
+
+        Map<Long, VoteType> viewerReactions = new HashMap<>();
+        if (viewerId != null) {
+            for (Object[] row : articleCommentVoteRepository.findReactions(viewerId, ids)) {
+                viewerReactions.put((Long) row[0], (VoteType) row[1]);
+            }
+        }
+        Map<Long, Long> liveCounts = voteCounterService.getCounts(VoteCounterService.Target.COMMENT, ids);
+
+        // Ráp theo độ sâu tăng dần để node cha luôn có trước node con
+        List<Object[]> ordered = new ArrayList<>(rows);
+        ordered.sort(Comparator.comparingInt(row -> ((Number) row[2]).intValue()));
+
+        Map<Long, ArticleCommentResponse> nodes = new HashMap<>();
+        List<ArticleCommentResponse> anchors = new ArrayList<>();
+        for (Object[] row : ordered) {
+            Long id = ((Number) row[0]).longValue();
+            ArticleComment comment = comments.get(id);
+            if (comment == null) continue; // bị xoá giữa hai query
+
+            Long parentId = row[1] != null ? ((Number) row[1]).longValue() : null;
+            boolean anchor = ((Number) row[2]).intValue() == 0;
+            ArticleCommentResponse parent = anchor ? null : nodes.get(parentId);
+            if (!anchor && parent == null) continue;
+
+            Long live = liveCounts.get(id);
+            ArticleCommentResponse node = ArticleCommentMapper.toThreadNode(
+                    comment,
+                    articleId,
+                    articleCommentCount,
+                    live != null ? live.intValue() : (comment.getVoteCount() != null ? comment.getVoteCount() : 0),
+                    viewerReactions.get(id),
+                    ((Number) row[3]).intValue()
+            );
+            node.setParentCommentId(parentId);
+            nodes.put(id, node);
+
+            if (anchor) {
+                anchors.add(node);
+            } else {
+                if (parent.getReplies() == null) {
+                    parent.setReplies(new ArrayList<>());
+                }
+                parent.getReplies().add(node);
+            }
+        }
+
+        for (ArticleCommentResponse node : nodes.values()) {
+            int loaded = node.getReplies() != null ? node.getReplies().size() : 0;
+            node.setHasMoreReplies(node.getReplyCount() > loaded);
+            if (node.getReplies() != null) {
+                node.getReplies().sort(OLDEST_FIRST);
+            }
+        }
+        anchors.sort(anchorOrder);
+        return anchors;
+    }
 
-        return ArticleCommentMapper.toResponse(comment, user.getId());
+    private static int clamp(int value, int max) {
+        return Math.max(1, Math.min(value, max));
     }
 
     private Account getCurrentUser() {
@@ -4,11 +4,13 @@ import com.example.chat.dto.PagingResponse;
 import com.example.chat.dto.req.ArticleMediaRequest;
 import com.example.chat.dto.req.CreateArticleRequest;
 import com.example.chat.dto.res.ArticleResponse;
+import com.example.chat.dto.res.DeletionJobResponse;
 import com.example.chat.entity.Account;
 import com.example.chat.entity.Article;
 import com.example.chat.entity.ArticleMedia;
 import com.example.chat.entity.ArticleVote;
 import com.example.chat.enums.ArticleStatus;
+import com.example.chat.enums.DeletionTarget;
 import com.example.chat.enums.VoteType;
 import com.example.chat.mapper.ArticleMapper;
 import com.example.chat.repository.AccountRepository;
@@ -16,25 +18,37 @@ import com.example.chat.repository.ArticleMediaRepository;
 import com.example.chat.repository.ArticleRepository;
 import com.example.chat.repository.ArticleVoteRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ArticleService {
+    private static final int MAX_FEED_SIZE = 50;
+
     private final ArticleRepository articleRepository;
     private final ArticleMediaRepository articleMediaRepository;
     private final AccountRepository accountRepository;
     private final ArticleVoteRepository articleVoteRepository;
     private final ArticleMapper articleMapper;
+    private final VoteCounterService voteCounterService;
+    private final BulkDeletionService bulkDeletionService;
+    private final TrendingArticleService trendingArticleService;
+    private final HomeTimelineService homeTimelineService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public ArticleResponse createArticle(CreateArticleRequest request) {
@@ -66,11 +80,126 @@ public class ArticleService {
             }
         }
         article.setMedias(medias);
+        trendingArticleService.touch(article);
+        if (article.getStatus() == ArticleStatus.PUBLIC) {
+            // Fan-out vào timeline của người theo dõi sau commit
+            eventPublisher.publishEvent(new HomeTimelineService.ArticlePublishedEvent(article.getId(), user.getId()));
+        }
 
         // Map sang ArticleResponse và trả về
         return articleMapper.toArticleResponse(article, user.getId());
     }
 
+    /**
+     * Feed bài viết công khai, mới cập nhật trước. Trang sau: truyền updatedAt và id của bài cuối trang trước.
+     * Mỗi trang cố định 3 query (bài viết + tác giả, media, reaction của người xem) bất kể độ sâu hay số vote.
+     */
+    @Transactional(readOnly = true)
+    public List<ArticleResponse> getPublicFeed(LocalDateTime cursorUpdatedAt, Long cursorId, int limit) {
+        Long accountId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        boolean hasCursor = cursorUpdatedAt != null && cursorId != null;
+
+        List<Article> articles = articleRepository.findFeedPage(
+                ArticleStatus.PUBLIC,
+                hasCursor ? cursorUpdatedAt : null,
+                hasCursor ? cursorId : null,
+                PageRequest.of(0, Math.max(1, Math.min(limit, MAX_FEED_SIZE)))
+        );
+        return toFeedResponses(articles, accountId);
+    }
+
+    /**
+     * Bài viết thịnh hành (vote, comment, share giảm dần theo tuổi bài). Thứ hạng đọc từ Redis,
+     * bài viết nạp theo id nên không quét bảng articles.
+     */
+    @Transactional(readOnly = true)
+    public PagingResponse<ArticleResponse> getTrending(int page, int size) {
+        Long accountId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        TrendingArticleService.Page ranking = trendingArticleService.page(page, size);
+
+        List<Long> stale = new ArrayList<>();
+        List<Article> articles = loadPublicInOrder(ranking.articleIds(), stale);
+        trendingArticleService.remove(stale);
+
+        return PagingResponse.<ArticleResponse>builder()
+                .code(200)
+                .message("Success")
+                .page(Math.max(page, 0))
+                .size(ranking.size())
+                // Gần đúng: ZCARD của bảng, còn tính cả bài bị bỏ khi đọc (xem TrendingArticleService.page)
+                .totalElements(ranking.total())
+                .totalPages((int) Math.ceil((double) ranking.total() / ranking.size()))
+                .data(toFeedResponses(articles, accountId))
+                .build();
+    }
+
+    /**
+     * Timeline trang chủ: bài của các bác sĩ đang theo dõi và của chính mình, mới -> cũ.
+     * Trang sau truyền cursorId = id của bài cuối trang trước. Id đọc từ timeline trên Redis, bài viết nạp theo lô.
+     */
+    @Transactional(readOnly = true)
+    public List<ArticleResponse> getHomeTimeline(Long cursorId, int limit) {
+        Long accountId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        List<Long> articleIds = homeTimelineService.page(accountId, cursorId, limit);
+
+        List<Long> stale = new ArrayList<>();
+        List<Article> articles = loadPublicInOrder(articleIds, stale);
+        homeTimelineService.remove(accountId, stale);
+        return toFeedResponses(articles, accountId);
+    }
+
+    // Nạp bài viết (kèm tác giả) theo đúng thứ tự id; id đã bị xoá (vd. theo tài khoản) hoặc không còn công khai vào stale
+    private List<Article> loadPublicInOrder(List<Long> articleIds, List<Long> stale) {
+        if (articleIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Article> byId = articleRepository.findWithUserByIdIn(articleIds)
+                .stream()
+                .collect(Collectors.toMap(Article::getId, a -> a));
+
+        List<Article> articles = new ArrayList<>();
+        for (Long id : articleIds) {
+            Article article = byId.get(id);
+            if (article != null && article.getStatus() == ArticleStatus.PUBLIC) {
+                articles.add(article);
+            } else {
+                stale.add(id);
+            }
+        }
+        return articles;
+    }
+
+    // Hydrate một trang bài viết: media và reaction của người xem theo lô, số vote lấy bản mới nhất trên Redis
+    private List<ArticleResponse> toFeedResponses(List<Article> articles, Long accountId) {
+        if (articles.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> articleIds = articles.stream().map(Article::getId).toList();
+
+        Map<Long, List<ArticleMedia>> mediasByArticle = articleMediaRepository.findByArticleIds(articleIds)
+                .stream()
+                .collect(Collectors.groupingBy(m -> m.getArticle().getId()));
+
+        Map<Long, VoteType> viewerReactions = new HashMap<>();
+        if (accountId != null) {
+            for (Object[] row : articleVoteRepository.findReactions(accountId, articleIds)) {
+                viewerReactions.put((Long) row[0], (VoteType) row[1]);
+            }
+        }
+
+        List<ArticleResponse> responses = articleMapper.toArticleResponses(articles, mediasByArticle, viewerReactions);
+
+        // Số vote trên Redis mới hơn articles.vote_count (chưa được flush)
+        Map<Long, Long> liveCounts = voteCounterService.getCounts(VoteCounterService.Target.ARTICLE, articleIds);
+        responses.forEach(r -> {
+            Long live = liveCounts.get(r.getId());
+            if (live != null) r.setVoteCount(live.intValue());
+        });
+        return responses;
+    }
+
     public PagingResponse<ArticleResponse> listPublicArticles(Pageable pageable) {
         Long accountId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         Page<Article> page = articleRepository.findByStatus(ArticleStatus.PUBLIC, pageable);
@@ -97,13 +226,19 @@ public class ArticleService {
         Article article = articleRepository.findById(articleId)
                 .orElseThrow(() -> new RuntimeException("Bài viết không tồn tại"));
 
+        // Đọc (hoặc seed) bộ đếm trước khi ghi vote để bản đếm không chứa vote chưa commit
+        long voteCount = voteCounterService.getOrSeed(VoteCounterService.Target.ARTICLE, articleId);
         var existingVote = articleVoteRepository.findByArticleIdAndUserId(articleId, user.getId());
+        int delta = 0;
+        VoteType userVote = reactionType;
 
         if (existingVote.isPresent()) {
             ArticleVote vote = existingVote.get();
             if (vote.getReactionType() == reactionType) {
                 // Bấm lại cùng reaction => bỏ vote
                 articleVoteRepository.delete(vote);
+                delta = -1;
+                userVote = null;
             } else {
                 // Đổi reaction
                 vote.setReactionType(reactionType);
@@ -117,21 +252,30 @@ public class ArticleService {
                     .reactionType(reactionType)
                     .build();
             articleVoteRepository.save(newVote);
+            delta = 1;
         }
 
-        // Cập nhật voteCount trong Article
-        int voteCount = articleVoteRepository.countByArticleId(articleId);
-        article.setVoteCount(voteCount);
-
-        articleRepository.save(article);
+        // Không đếm lại / ghi dòng articles mỗi lần vote: cộng delta trên Redis sau commit,
+        // VoteCountFlushJob ghi tổng xuống articles.vote_count
+        voteCounterService.addAfterCommit(VoteCounterService.Target.ARTICLE, articleId, delta);
+        if (delta != 0) {
+            trendingArticleService.touch(article);
+        }
 
         // ✅ dùng bean ArticleMapper thay vì static
-        return articleMapper.toArticleResponse(article, user.getId());
+        ArticleResponse response = articleMapper.toArticleResponse(article, user.getId());
+        response.setVoteCount((int) Math.max(voteCount + delta, 0));
+        response.setUserVoted(userVote != null);
+        response.setUserTypeVote(userVote);
+        return response;
     }
 
 
+    /**
+     * Tạo job xoá bài viết (comment, vote, media, bài chia sẻ lại) và trả về ngay, xem BulkDeletionService.
+     */
     @Transactional
-    public void deleteArticle(Long articleId) {
+    public DeletionJobResponse deleteArticle(Long articleId) {
         Account user = getCurrentUser();
         Article article = articleRepository.findById(articleId)
                 .orElseThrow(() -> new RuntimeException("Bài viết không tồn tại"));
@@ -141,7 +285,9 @@ public class ArticleService {
             throw new RuntimeException("Bạn không có quyền xóa bài viết này");
         }
 
-        articleRepository.delete(article);
+        return bulkDeletionService.toResponse(
+                bulkDeletionService.request(DeletionTarget.ARTICLE, articleId, user.getId())
+        );
     }
 
 
@@ -11,6 +11,8 @@ import com.example.chat.repository.AccountRepository;
 import com.example.chat.repository.DeviceTokenRepository;
 import com.example.chat.repository.KeyRepository;
 import com.example.chat.security.JwtTokenProvider;
+import com.example.chat.security.TokenBlacklist;
+import com.example.chat.security.VerifiedTokenCache;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -35,7 +37,8 @@ public class AuthService {
 
     private final JwtTokenProvider jwtTokenProvider;
     private final OtpService otpService;
-    private final RedisBaseService redisBaseService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenBlacklist tokenBlacklist;
 
 
     public RegisterResponse register(RegisterRequest request) {
@@ -239,7 +242,8 @@ public class AuthService {
         Long accountId = jwtTokenProvider.extractUserIdIgnoreExpiration(token);
 
         long expireAt = jwtTokenProvider.getExpirationTime(token);
-        redisBaseService.blacklistToken(token, expireAt);
+        tokenBlacklist.revoke(token, expireAt);
+        verifiedTokenCache.evict(token);
 
         keyRepository.deleteByAccount_IdAndDeviceId(accountId, deviceId);
 
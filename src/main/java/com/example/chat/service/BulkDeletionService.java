@@ -0,0 +1,381 @@
+package com.example.chat.service;
+
+import com.example.chat.dto.res.DeletionJobResponse;
+import com.example.chat.entity.DeletionJob;
+import com.example.chat.enums.DeletionJobStatus;
+import com.example.chat.enums.DeletionTarget;
+import com.example.chat.exception.ConflictException;
+import com.example.chat.exception.UnauthorizedException;
+import com.example.chat.integration.minio.MinioChannel;
+import com.example.chat.repository.DeletionJobRepository;
+import com.example.chat.repository.MedicalRecordRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Xoá bài viết / bác sĩ / tài khoản bằng các lệnh DELETE theo tập, thay cho cascade của JPA (nạp cả cây
+ * comment, vote, media, tin nhắn, lịch hẹn vào persistence context rồi xoá từng dòng).
+ * Mỗi bước xoá tối đa BATCH_SIZE dòng một lần, mỗi lô là một transaction riêng, bước sau chạy khi bước trước hết dòng.
+ * Thứ tự bước đi từ lá lên gốc nên ON DELETE CASCADE của các khoá ngoại chỉ còn dọn vài dòng mỗi lần.
+ * Key MinIO của media bị xoá được ghi vào deletion_job_objects cùng transaction, phần DB xong mới dọn MinIO.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkDeletionService {
+
+    private final DeletionJobRepository deletionJobRepository;
+    private final MedicalRecordRepository medicalRecordRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final MinioChannel minioChannel;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DirectConversationService directConversationService;
+    private final MessageTailService messageTailService;
+
+    public static final int MAX_ATTEMPTS = 5;
+    private static final int BATCH_SIZE = 1000;
+    private static final int OBJECT_BATCH_SIZE = 500;
+    // Thời gian giữ lock một job, được gia hạn sau mỗi lô; quá hạn (node chết) thì worker khác nhận lại
+    private static final Duration LEASE = Duration.ofMinutes(2);
+    private static final Duration BASE_BACKOFF = Duration.ofSeconds(30);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(30);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private static final String ACCOUNT_STEP = "account";
+    private static final String MESSAGES_STEP = "messages";
+
+    private static final String COMMENT_IS_LEAF =
+            "NOT EXISTS (SELECT 1 FROM article_comments r WHERE r.parent_comment_id = t.id)";
+
+    // Loại bộ đếm trong deletion_job_counters
+    private static final String ARTICLE_COUNTER = "ARTICLE";
+    private static final String COMMENT_COUNTER = "COMMENT";
+    private static final String DOCTOR_COUNTER = "DOCTOR";
+
+    private static final String COUNTER_IDS =
+            "(SELECT k.target_id FROM deletion_job_counters k WHERE k.job_id = :jobId AND k.kind = :kind)";
+
+    /**
+     * Bộ đếm bị lệch khi xoá dòng: column là id (bài viết / comment / bác sĩ) cần đếm lại, ghi với loại kind.
+     */
+    private record Counter(String kind, String column) {
+    }
+
+    /**
+     * Một bước xoá: điều kiện WHERE trên bảng table (alias t), tham số :targetId.
+     * collectObjects = ghi file_url của các dòng bị xoá vào deletion_job_objects.
+     * counter = ghi id có bộ đếm bị lệch của các dòng bị xoá vào deletion_job_counters.
+     * Mỗi dòng bị xoá ghi đúng một dòng, để số dòng lệnh trả về vẫn là số dòng đã xoá.
+     */
+    private record Step(String name, String table, String condition, boolean collectObjects, Counter counter) {
+
+        Step(String name, String table, String condition) {
+            this(name, table, condition, false, null);
+        }
+
+        Step(String name, String table, String condition, boolean collectObjects) {
+            this(name, table, condition, collectObjects, null);
+        }
+
+        Step(String name, String table, String condition, Counter counter) {
+            this(name, table, condition, false, counter);
+        }
+
+        String sql() {
+            String delete = "DELETE FROM " + table + " WHERE ctid = ANY(ARRAY(" +
+                    "SELECT t.ctid FROM " + table + " t WHERE " + condition + " LIMIT :batchSize))";
+            if (collectObjects) {
+                return "WITH deleted AS (" + delete + " RETURNING file_url) " +
+                       "INSERT INTO deletion_job_objects (job_id, object_key) SELECT :jobId, file_url FROM deleted";
+            }
+            if (counter != null) {
+                return "WITH deleted AS (" + delete + " RETURNING " + counter.column() + ") " +
+                       "INSERT INTO deletion_job_counters (job_id, kind, target_id) " +
+                       "SELECT :jobId, '" + counter.kind() + "', " + counter.column() + " FROM deleted";
+            }
+            return delete;
+        }
+    }
+
+    /**
+     * Phát ra sau khi tạo job, worker nhận sau commit.
+     */
+    public record DeletionRequestedEvent(Long jobId) {
+    }
+
+    /**
+     * Phát ra khi job xoá xong (cả DB lẫn MinIO), để các cache / index liên quan tự dọn.
+     */
+    public record DeletionCompletedEvent(DeletionTarget targetType, Long targetId) {
+    }
+
+    /**
+     * Phát ra sau khi đếm lại trên DB các bộ đếm bị lệch do job xoá tài khoản,
+     * để bộ đếm vote trên Redis, bảng thịnh hành và cache bác sĩ tự sửa theo.
+     */
+    public record CountersRepairedEvent(List<Long> articleIds, List<Long> commentIds, List<Long> doctorIds) {
+    }
+
+    /**
+     * Tạo job xoá và trả về ngay. Nếu đối tượng đã có job đang chờ / đang chạy thì trả về job đó.
+     * Quyền và sự tồn tại của đối tượng do service gọi kiểm tra.
+     */
+    @Transactional
+    public DeletionJob request(DeletionTarget targetType, Long targetId, Long requestedBy) {
+        List<DeletionJob> active = deletionJobRepository.findActive(targetType, targetId);
+        if (!active.isEmpty()) {
+            return active.get(0);
+        }
+
+        // medical_records -> accounts là ON DELETE RESTRICT: hồ sơ bệnh án phải được giữ lại
+        if (targetType != DeletionTarget.ARTICLE && medicalRecordRepository.existsByDoctor_Id(targetId)) {
+            throw new ConflictException("Bác sĩ còn hồ sơ bệnh án, không thể xoá tài khoản");
+        }
+
+        DeletionJob job = deletionJobRepository.save(DeletionJob.builder()
+                .targetType(targetType)
+                .targetId(targetId)
+                .requestedBy(requestedBy)
+                .stepName(steps(targetType).get(0).name())
+                .build());
+
+        eventPublisher.publishEvent(new DeletionRequestedEvent(job.getId()));
+        return job;
+    }
+
+    /**
+     * Tiến độ job; chỉ người tạo job hoặc ADMIN được xem.
+     */
+    @Transactional(readOnly = true)
+    public DeletionJobResponse getStatus(Long jobId, Long viewerId, boolean admin) {
+        DeletionJob job = deletionJobRepository.findById(jobId)
+                .orElseThrow(() -> new EntityNotFoundException("Job xoá không tồn tại"));
+        if (!admin && !Objects.equals(job.getRequestedBy(), viewerId)) {
+            throw new UnauthorizedException("Bạn không có quyền xem job xoá này");
+        }
+        return DeletionJobResponse.from(job, steps(job.getTargetType()).size());
+    }
+
+    public DeletionJobResponse toResponse(DeletionJob job) {
+        return DeletionJobResponse.from(job, steps(job.getTargetType()).size());
+    }
+
+    /**
+     * Nhận một job đến hạn chạy và khoá nó trong LEASE; null nếu không còn job nào.
+     */
+    @Transactional
+    public DeletionJob claim() {
+        List<DeletionJob> rows = deletionJobRepository.findClaimable(LocalDateTime.now());
+        if (rows.isEmpty()) return null;
+
+        Long id = rows.get(0).getId();
+        // attempts tăng trong chính lệnh UPDATE; không sửa entity để flush lúc commit không ghi đè giá trị cũ
+        deletionJobRepository.markRunning(id, LocalDateTime.now().plus(LEASE));
+        return deletionJobRepository.findById(id).orElse(null);
+    }
+
+    /**
+     * Chạy job từ bước đang dở đến hết, rồi dọn object MinIO. Không mở transaction bao ngoài:
+     * mỗi lệnh DELETE tự commit để khoá dòng và WAL của một lô được giải phóng ngay.
+     */
+    public void execute(DeletionJob job) {
+        List<Step> steps = steps(job.getTargetType());
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("targetId", job.getTargetId())
+                .addValue("jobId", job.getId())
+                .addValue("batchSize", BATCH_SIZE);
+
+        for (int i = job.getStepIndex(); i < steps.size(); i++) {
+            Step step = steps.get(i);
+            if (ACCOUNT_STEP.equals(step.name())) {
+                // direct_conversations đi theo cascade của dòng accounts: bỏ các cặp khỏi cache trước khi xoá
+                directConversationService.evictAccount(job.getTargetId());
+            }
+            String sql = step.sql();
+            int deleted;
+            do {
+                deleted = jdbcTemplate.update(sql, params);
+                deletionJobRepository.recordProgress(job.getId(), i, step.name(), deleted, LocalDateTime.now().plus(LEASE));
+            } while (deleted > 0);
+
+            if (MESSAGES_STEP.equals(step.name())) {
+                // Đuôi lịch sử chat trên Redis còn giữ các tin nhắn vừa xoá
+                messageTailService.evictAccount(job.getTargetId());
+            }
+        }
+
+        repairCounters(job);
+        removeObjects(job);
+
+        deletionJobRepository.updateOutcome(job.getId(), DeletionJobStatus.DONE, LocalDateTime.now(), null, LocalDateTime.now());
+        log.info("Job xoá {} {} #{} hoàn tất", job.getTargetType(), job.getTargetId(), job.getId());
+        eventPublisher.publishEvent(new DeletionCompletedEvent(job.getTargetType(), job.getTargetId()));
+    }
+
+    /**
+     * Lỗi thì lùi lịch theo cấp số nhân và chạy lại từ bước đang dở; hết lượt thì đánh dấu FAILED.
+     */
+    public void markFailed(DeletionJob job, String error) {
+        String trimmed = error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+
+        if (job.getAttempts() >= MAX_ATTEMPTS) {
+            deletionJobRepository.updateOutcome(job.getId(), DeletionJobStatus.FAILED, LocalDateTime.now(), trimmed, LocalDateTime.now());
+            return;
+        }
+
+        long factor = 1L << Math.min(job.getAttempts() - 1, 16);
+        Duration backoff = BASE_BACKOFF.multipliedBy(factor);
+        if (backoff.compareTo(MAX_BACKOFF) > 0) {
+            backoff = MAX_BACKOFF;
+        }
+        deletionJobRepository.updateOutcome(
+                job.getId(), DeletionJobStatus.PENDING, LocalDateTime.now().plus(backoff), trimmed, null
+        );
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    /**
+     * Đếm lại từ bảng gốc comment_count / vote_count của bài viết, vote_count của comment và
+     * review_count / rating_sum của bác sĩ có dòng bị xoá, rồi bỏ các id đã ghi.
+     * Đếm lại (không trừ delta) nên chạy lại khi retry vẫn đúng.
+     */
+    private void repairCounters(DeletionJob job) {
+        List<Long> articleIds = counterIds(job, ARTICLE_COUNTER);
+        List<Long> commentIds = counterIds(job, COMMENT_COUNTER);
+        List<Long> doctorIds = counterIds(job, DOCTOR_COUNTER);
+        if (articleIds.isEmpty() && commentIds.isEmpty() && doctorIds.isEmpty()) return;
+
+        if (!articleIds.isEmpty()) {
+            jdbcTemplate.update("UPDATE articles a SET " +
+                    "comment_count = (SELECT COUNT(*) FROM article_comments c WHERE c.article_id = a.id), " +
+                    "vote_count = (SELECT COUNT(*) FROM article_votes v WHERE v.article_id = a.id) " +
+                    "WHERE a.id IN " + COUNTER_IDS, counterParams(job, ARTICLE_COUNTER));
+        }
+        if (!commentIds.isEmpty()) {
+            jdbcTemplate.update("UPDATE article_comments c SET " +
+                    "vote_count = (SELECT COUNT(*) FROM article_comment_votes v WHERE v.comment_id = c.id) " +
+                    "WHERE c.id IN " + COUNTER_IDS, counterParams(job, COMMENT_COUNTER));
+        }
+        if (!doctorIds.isEmpty()) {
+            jdbcTemplate.update("UPDATE doctor_details d SET " +
+                    "review_count = (SELECT COUNT(*) FROM doctor_reviews r WHERE r.doctor_id = d.user_id), " +
+                    "rating_sum = (SELECT COALESCE(SUM(r.rating), 0) FROM doctor_reviews r WHERE r.doctor_id = d.user_id) " +
+                    "WHERE d.user_id IN " + COUNTER_IDS, counterParams(job, DOCTOR_COUNTER));
+        }
+
+        eventPublisher.publishEvent(new CountersRepairedEvent(articleIds, commentIds, doctorIds));
+        jdbcTemplate.update("DELETE FROM deletion_job_counters WHERE job_id = :jobId",
+                new MapSqlParameterSource("jobId", job.getId()));
+    }
+
+    private List<Long> counterIds(DeletionJob job, String kind) {
+        return jdbcTemplate.queryForList("SELECT DISTINCT target_id FROM deletion_job_counters " +
+                "WHERE job_id = :jobId AND kind = :kind", counterParams(job, kind), Long.class);
+    }
+
+    private MapSqlParameterSource counterParams(DeletionJob job, String kind) {
+        return new MapSqlParameterSource()
+                .addValue("jobId", job.getId())
+                .addValue("kind", kind);
+    }
+
+    private void removeObjects(DeletionJob job) {
+        List<String> keys;
+        while (!(keys = deletionJobRepository.findObjectKeys(job.getId(), OBJECT_BATCH_SIZE)).isEmpty()) {
+            Set<String> failed;
+            try {
+                failed = minioChannel.removeObjects(keys);
+            } catch (Exception e) {
+                throw new IllegalStateException("Xoá object MinIO thất bại: " + e.getMessage(), e);
+            }
+
+            List<String> removed = keys.stream().filter(key -> !failed.contains(key)).toList();
+            if (!removed.isEmpty()) {
+                deletionJobRepository.deleteObjectKeys(job.getId(), removed);
+                deletionJobRepository.recordObjectsRemoved(job.getId(), removed.size(), LocalDateTime.now().plus(LEASE));
+            }
+            if (!failed.isEmpty()) {
+                // Giữ lại các key lỗi, lần chạy sau (retry) dọn tiếp
+                throw new IllegalStateException("Không xoá được " + failed.size() + " object MinIO");
+            }
+        }
+    }
+
+    /**
+     * Các bước xoá theo thứ tự lá -> gốc cho từng loại đối tượng.
+     */
+    private static List<Step> steps(DeletionTarget targetType) {
+        return switch (targetType) {
+            case ARTICLE -> articleSteps(
+                    "t.original_article_id = :targetId",
+                    "t.id = :targetId",
+                    "(SELECT a.id FROM articles a WHERE a.id = :targetId OR a.original_article_id = :targetId)"
+            );
+            case DOCTOR, ACCOUNT -> accountSteps();
+        };
+    }
+
+    /**
+     * @param sharedCondition   điều kiện (alias t) chọn các bài chia sẻ lại bài gốc
+     * @param originalCondition điều kiện (alias t) chọn các bài gốc
+     * @param articleIds        subquery id của cả bài gốc lẫn bài chia sẻ
+     */
+    private static List<Step> articleSteps(String sharedCondition, String originalCondition, String articleIds) {
+        List<Step> steps = new ArrayList<>();
+        steps.add(new Step("article_comment_votes", "article_comment_votes",
+                "t.comment_id IN (SELECT c.id FROM article_comments c WHERE c.article_id IN " + articleIds + ")"));
+        // Xoá comment lá trước để mỗi lệnh không kéo theo cả cây reply qua cascade
+        steps.add(new Step("article_comments", "article_comments",
+                "t.article_id IN " + articleIds + " AND " + COMMENT_IS_LEAF));
+        steps.add(new Step("article_votes", "article_votes", "t.article_id IN " + articleIds));
+        steps.add(new Step("article_medias", "article_medias", "t.article_id IN " + articleIds, true));
+        // Bài chia sẻ trước bài gốc: xoá bài gốc trước thì FK original_article_id bị SET NULL và bài chia sẻ sót lại
+        steps.add(new Step("shared_articles", "articles", sharedCondition));
+        steps.add(new Step("articles", "articles", originalCondition));
+        return steps;
+    }
+
+    private static List<Step> accountSteps() {
+        List<Step> steps = new ArrayList<>(articleSteps(
+                "t.original_article_id IN (SELECT o.id FROM articles o WHERE o.user_id = :targetId)",
+                "t.user_id = :targetId",
+                "(SELECT a.id FROM articles a WHERE a.user_id = :targetId " +
+                        "OR a.original_article_id IN (SELECT o.id FROM articles o WHERE o.user_id = :targetId))"
+        ));
+        // Hoạt động của tài khoản trên bài viết của người khác; ghi lại id để đếm lại vote / comment sau khi xoá
+        steps.add(new Step("own_comment_votes", "article_comment_votes", "t.user_id = :targetId",
+                new Counter(COMMENT_COUNTER, "comment_id")));
+        steps.add(new Step("own_article_votes", "article_votes", "t.user_id = :targetId",
+                new Counter(ARTICLE_COUNTER, "article_id")));
+        steps.add(new Step("own_comments", "article_comments", "t.user_id = :targetId AND " + COMMENT_IS_LEAF,
+                new Counter(ARTICLE_COUNTER, "article_id")));
+        steps.add(new Step("own_thread_comments", "article_comments", "t.user_id = :targetId",
+                new Counter(ARTICLE_COUNTER, "article_id")));
+        // Chat, lịch hẹn (doctor_reviews, transactions đi theo cascade của từng lịch hẹn), thông báo
+        steps.add(new Step(MESSAGES_STEP, "messages", "t.sender_id = :targetId"));
+        steps.add(new Step("call_sessions", "call_sessions", "t.caller_id = :targetId"));
+        // doctor_reviews của lịch hẹn bị xoá làm lệch review_count / rating_sum của bác sĩ
+        steps.add(new Step("appointments", "appointments", "t.doctor_id = :targetId OR t.user_id = :targetId",
+                new Counter(DOCTOR_COUNTER, "doctor_id")));
+        steps.add(new Step("notifications", "notifications", "t.user_id = :targetId"));
+        steps.add(new Step("notification_outbox", "notification_outbox", "t.user_id = :targetId"));
+        steps.add(new Step("favorite_doctors", "favorite_doctors", "t.user_id = :targetId OR t.doctor_id = :targetId"));
+        // Dòng accounts cuối cùng; keys, user_details, doctor_details, thành viên hội thoại... đi theo cascade
+        steps.add(new Step(ACCOUNT_STEP, "accounts", "t.id = :targetId"));
+        return steps;
+    }
+}
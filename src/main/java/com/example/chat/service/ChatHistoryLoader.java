@@ -0,0 +1,88 @@
+package com.example.chat.service;
+
+import com.example.chat.dto.ChatItem;
+import com.example.chat.dto.MessageDto;
+import com.example.chat.dto.UserDto;
+import com.example.chat.enums.MessageType;
+import com.example.chat.repository.MessageRepository;
+import com.example.chat.security.AesGcmEngine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Đọc một trang lịch sử chat bằng một native query (kèm người gửi), lấy ciphertext thô của
+ * message_content / file_url rồi giải mã cả trang bằng một lần AesGcmEngine.decryptAll,
+ * thay cho AesEncryptor chạy từng trường khi Hibernate dựng entity Message.
+ */
+@Service
+@RequiredArgsConstructor
+public class ChatHistoryLoader {
+
+    private final MessageRepository messageRepository;
+    private final AesGcmEngine aesGcmEngine;
+
+    /**
+     * Tối đa limit tin nhắn mới nhất của conversation, mới -> cũ.
+     */
+    public List<ChatItem> latest(Long conversationId, int limit) {
+        return load(conversationId, Long.MAX_VALUE, limit);
+    }
+
+    /**
+     * Tối đa limit tin nhắn cũ hơn lastMessageId, mới -> cũ.
+     */
+    public List<ChatItem> older(Long conversationId, Long lastMessageId, int limit) {
+        return load(conversationId, lastMessageId, limit);
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private List<ChatItem> load(Long conversationId, long beforeId, int limit) {
+        List<Object[]> rows = messageRepository.findRawPage(conversationId, beforeId, limit);
+
+        // Nội dung và URL của cả trang nằm chung một lô: [content0, url0, content1, url1, ...]
+        List<String> cipherTexts = new ArrayList<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            cipherTexts.add((String) row[2]);
+            cipherTexts.add((String) row[4]);
+        }
+        List<String> plain = aesGcmEngine.decryptAll(cipherTexts);
+
+        List<ChatItem> items = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            items.add(new ChatItem(
+                    UserDto.builder()
+                            .id(toLong(row[8]))
+                            .username((String) row[9])
+                            .avatarUrl((String) row[10])
+                            .build(),
+                    new MessageDto(
+                            toLong(row[0]),
+                            MessageType.valueOf((String) row[1]),
+                            plain.get(i * 2),
+                            (String) row[3],
+                            plain.get(i * 2 + 1),
+                            toLong(row[5]),
+                            (String) row[6],
+                            toLocalDateTime(row[7])
+                    )
+            ));
+        }
+        return items;
+    }
+
+    private static Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) return timestamp.toLocalDateTime();
+        return (LocalDateTime) value;
+    }
+}
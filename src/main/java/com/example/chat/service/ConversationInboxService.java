@@ -0,0 +1,133 @@
+package com.example.chat.service;
+
+import com.example.chat.dto.res.ConversationResponse;
+import com.example.chat.entity.*;
+import com.example.chat.mapper.ConversationMapper;
+import com.example.chat.repository.ConversationInboxRepository;
+import com.example.chat.repository.ConversationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class ConversationInboxService {
+    private static final int MAX_PAGE_SIZE = 50;
+
+    private final ConversationInboxRepository conversationInboxRepository;
+    private final ConversationRepository conversationRepository;
+    private final UnreadCounterService unreadCounterService;
+    private final ConversationMapper conversationMapper;
+
+    /**
+     * Lấy một trang inbox theo keyset (cursorTime, cursorId) = lastActivityAt và conversationId của phần tử cuối trang trước.
+     */
+    @Transactional(readOnly = true)
+    public List<ConversationResponse> getInbox(Long accountId, LocalDateTime cursorTime, Long cursorId, int limit) {
+        Pageable pageable = PageRequest.of(0, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+
+        List<ConversationInbox> entries = (cursorTime == null || cursorId == null)
+                ? conversationInboxRepository.findFirstPage(accountId, pageable)
+                : conversationInboxRepository.findPageAfter(accountId, cursorTime, cursorId, pageable);
+
+        List<Long> conversationIds = entries.stream()
+                .map(entry -> entry.getId().getConversationId())
+                .toList();
+        Map<Long, Long> unreadCounts = unreadCounterService.getUnreadCounts(conversationIds, accountId);
+
+        return entries.stream()
+                .map(entry -> conversationMapper.toDTO(
+                        entry,
+                        unreadCounts.getOrDefault(entry.getId().getConversationId(), 0L)
+                ))
+                .toList();
+    }
+
+    @Transactional
+    public void onConversationCreated(Conversation conversation, Account first, Account second) {
+        LocalDateTime now = LocalDateTime.now();
+        conversationInboxRepository.saveAll(List.of(
+                newEntry(conversation.getId(), first, second, now),
+                newEntry(conversation.getId(), second, first, now)
+        ));
+    }
+
+    /**
+     * Cập nhật tin nhắn cuối cho mọi thành viên của conversation. Bỏ qua nếu inbox đã giữ tin mới hơn;
+     * phép so sánh nằm trong lệnh UPDATE nên tin commit sau không ghi đè tin mới hơn.
+     */
+    @Transactional
+    public void onMessageSaved(Message message) {
+        Long conversationId = message.getConversation().getId();
+
+        List<ConversationInbox> entries = conversationInboxRepository.findById_ConversationId(conversationId);
+        if (entries.size() < 2) {
+            // Chỉ thêm các dòng còn thiếu, tin nhắn cuối ghi bằng lệnh UPDATE bên dưới
+            Set<Long> present = entries.stream().map(entry -> entry.getId().getAccountId()).collect(Collectors.toSet());
+            conversationInboxRepository.saveAllAndFlush(rebuildEntries(conversationId).stream()
+                    .filter(entry -> !present.contains(entry.getId().getAccountId()))
+                    .toList());
+        }
+
+        conversationInboxRepository.updateLastMessage(
+                conversationId,
+                message.getId(),
+                message.getMessageType(),
+                message.getMessageContent(),
+                message.getFileName(),
+                message.getFileUrl(),
+                message.getFileSize(),
+                message.getFileType(),
+                message.getCreatedAt() != null ? message.getCreatedAt() : LocalDateTime.now(),
+                LocalDateTime.now()
+        );
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    // Tạo lại các dòng inbox còn thiếu từ danh sách thành viên
+    private List<ConversationInbox> rebuildEntries(Long conversationId) {
+        Conversation conversation = conversationRepository.findByIdWithMembers(conversationId)
+                .orElseThrow(() -> new RuntimeException("Conversation not found"));
+
+        List<Account> accounts = conversation.getMembers().stream()
+                .map(ConversationMember::getAccount)
+                .toList();
+
+        List<ConversationInbox> existing = conversationInboxRepository.findById_ConversationId(conversationId);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<ConversationInbox> entries = new ArrayList<>();
+        for (Account account : accounts) {
+            Account partner = accounts.stream()
+                    .filter(other -> !other.getId().equals(account.getId()))
+                    .findFirst()
+                    .orElse(null);
+            if (partner == null) continue;
+
+            ConversationInbox entry = existing.stream()
+                    .filter(e -> e.getId().getAccountId().equals(account.getId()))
+                    .findFirst()
+                    .orElseGet(() -> newEntry(conversationId, account, partner, now));
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private ConversationInbox newEntry(Long conversationId, Account owner, Account partner, LocalDateTime now) {
+        return ConversationInbox.builder()
+                .id(new ConversationMemberId(conversationId, owner.getId()))
+                .partner(partner)
+                .lastActivityAt(now)
+                .build();
+    }
+}
@@ -1,51 +1,62 @@
 package com.example.chat.service;
 
 import com.example.chat.dto.ChatItem;
-import com.example.chat.dto.MessageDto;
-import com.example.chat.dto.UserDto;
 import com.example.chat.dto.res.ConversationResponse;
 import com.example.chat.dto.res.HistoryChatResponse;
 import com.example.chat.entity.*;
-import com.example.chat.mapper.ConversationMapper;
 import com.example.chat.repository.AccountRepository;
 import com.example.chat.repository.ConversationRepository;
 import com.example.chat.repository.MessageRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ConversationService {
     private final ConversationRepository conversationRepository;
     private final AccountRepository accountRepository;
-    private final ConversationMapper conversationMapper;
     private final MessageRepository messageRepository;
+    private final ConversationInboxService conversationInboxService;
+    private final DirectConversationService directConversationService;
+    private final MessageTailService messageTailService;
+    private final ChatHistoryLoader chatHistoryLoader;
 
     @Transactional
     public Conversation getOrCreateConversation(Long senderId, Long receiverId) {
-        List<Conversation> conversations = conversationRepository.findDirectConversationBetween(senderId, receiverId);
-        if (!conversations.isEmpty()) {
-            return conversations.getFirst();
+        // direct_conversations yêu cầu account_low_id < account_high_id
+        if (senderId.equals(receiverId)) {
+            throw new IllegalArgumentException("Không thể tạo cuộc trò chuyện với chính mình");
         }
+        Optional<Long> existingId = directConversationService.findConversationId(senderId, receiverId);
+        if (existingId.isPresent()) {
+            return conversationRepository.getReferenceById(existingId.get());
+        }
+
+        Account sender = getAccountOrThrow(senderId, "Sender");
+        Account receiver = getAccountOrThrow(receiverId, "Receiver");
 
         Conversation conversation = Conversation.builder()
                 .build();
         conversation = conversationRepository.save(conversation);
 
-        Account sender = getAccountOrThrow(senderId, "Sender");
-        Account receiver = getAccountOrThrow(receiverId, "Receiver");
+        // Unique (low, high) trong direct_conversations: nếu request đồng thời đã tạo trước thì dùng conversation đó
+        Long winnerId = directConversationService.register(senderId, receiverId, conversation.getId());
+        if (!winnerId.equals(conversation.getId())) {
+            conversationRepository.delete(conversation);
+            return conversationRepository.getReferenceById(winnerId);
+        }
 
         // Tạo thành viên cuộc trò chuyện
         ConversationMember member1 = createMember(conversation, sender);
@@ -59,14 +70,14 @@ public class ConversationService {
         conversation.setMembers(members);
 
         // Lưu lại conversation với members
-        return conversationRepository.save(conversation);
+        conversation = conversationRepository.save(conversation);
+
+        conversationInboxService.onConversationCreated(conversation, sender, receiver);
+        return conversation;
     }
 
-    public List<ConversationResponse> getUserConversations(Long userId) {
-        List<Conversation> conversations = conversationRepository.findAllByMemberId(userId);
-        return conversations.stream()
-                .map(conversation -> conversationMapper.toDTO(conversation, userId))
-                .collect(Collectors.toList());
+    public List<ConversationResponse> getUserConversations(Long userId, LocalDateTime cursorTime, Long cursorId, int limit) {
+        return conversationInboxService.getInbox(userId, cursorTime, cursorId, limit);
     }
 
     public HistoryChatResponse getLatestMessages(Long receiverId, int limit) {
@@ -74,17 +85,23 @@ public class ConversationService {
         Long conversationId = getConversationIdOrNull(userId, receiverId);
         if (conversationId == null) return new HistoryChatResponse(null, 0, false, List.of());
 
-        Pageable pageable = PageRequest.of(0, limit);
-        List<Message> messages = messageRepository.findTop10LatestMessages(conversationId, pageable);
+        // Phục vụ từ đuôi nóng nếu đủ tin nhắn
+        if (limit <= MessageTailService.CAPACITY) {
+            MessageTailService.Tail tail = messageTailService.getTail(conversationId);
+            List<ChatItem> page = tail.items().subList(0, Math.min(limit, tail.items().size()));
+            return fromTail(conversationId, tail, page, 0);
+        }
+
+        List<ChatItem> items = new ArrayList<>(chatHistoryLoader.latest(conversationId, limit));
 
         long total = messageRepository.countByConversationId(conversationId);
 
-        boolean hasMore = !messages.isEmpty() &&
-                messageRepository.existsByConversationIdAndIdLessThan(conversationId, messages.getLast().getId());
+        boolean hasMore = !items.isEmpty() &&
+                messageRepository.existsByConversationIdAndIdLessThan(conversationId, items.getLast().getMessage().getId());
 
-        Collections.reverse(messages);
+        Collections.reverse(items);
 
-        return new HistoryChatResponse(conversationId, total, hasMore, buildChatItems(messages));
+        return new HistoryChatResponse(conversationId, total, hasMore, items);
     }
 
     public HistoryChatResponse getOlderMessages(Long receiverId, Long lastMessageId, int limit) {
@@ -92,44 +109,46 @@ public class ConversationService {
         Long conversationId = getConversationIdOrNull(userId, receiverId);
         if (conversationId == null) return new HistoryChatResponse(null, 0, false, List.of());
 
-        Pageable pageable = PageRequest.of(0, limit);
-        List<Message> messages = messageRepository.findOlderMessages(conversationId, lastMessageId, pageable);
+        // Chỉ xuống DB khi trang cần đọc vượt quá phần đuôi đang được đệm
+        MessageTailService.Tail tail = messageTailService.getTail(conversationId);
+        List<ChatItem> items = tail.items();
+        int skipped = 0;
+        while (skipped < items.size() && items.get(skipped).getMessage().getId() >= lastMessageId) {
+            skipped++;
+        }
+        boolean tailIsComplete = items.size() >= tail.total();
+        if (skipped < items.size() && (items.size() - skipped >= limit || tailIsComplete)) {
+            List<ChatItem> page = items.subList(skipped, Math.min(skipped + limit, items.size()));
+            return fromTail(conversationId, tail, page, skipped);
+        }
+
+        List<ChatItem> older = new ArrayList<>(chatHistoryLoader.older(conversationId, lastMessageId, limit));
 
         long total = messageRepository.countByConversationId(conversationId);
 
-        boolean hasMore = !messages.isEmpty() &&
-                messageRepository.existsByConversationIdAndIdLessThan(conversationId, messages.getLast().getId());
+        boolean hasMore = !older.isEmpty() &&
+                messageRepository.existsByConversationIdAndIdLessThan(conversationId, older.getLast().getMessage().getId());
 
-        Collections.reverse(messages);
+        Collections.reverse(older);
 
-        return new HistoryChatResponse(conversationId, total, hasMore, buildChatItems(messages));
+        return new HistoryChatResponse(conversationId, total, hasMore, older);
     }
 
     // ==== Private Helper Methods ====
 
     private Long getConversationIdOrNull(Long userId, Long receiverId) {
-        return conversationRepository.findDirectConversationBetween(userId, receiverId)
-                .stream().findFirst()
-                .map(Conversation::getId)
+        return directConversationService.findConversationId(userId, receiverId)
                 .orElse(null);
     }
 
-    private List<ChatItem> buildChatItems(List<Message> messages) {
-        return messages.stream().map(message -> {
-            Account acc = message.getAccount();
-            return new ChatItem(
-                    UserDto.builder()
-                            .id(acc != null ? acc.getId() : null)
-                            .username(acc != null ? acc.getUsername() : null)
-                            .avatarUrl(acc != null && acc.getUserDetail() != null ? acc.getUserDetail().getAvatar_url() : null)
-                            .build(),
-                    new MessageDto(
-                            message.getId(), message.getMessageType(), message.getMessageContent(),
-                            message.getFileName(), message.getFileUrl(),
-                            message.getFileSize(), message.getFileType(), message.getCreatedAt()
-                    )
-            );
-        }).toList();
+    // page: các tin mới nhất trước, bắt đầu sau "skipped" tin trong đuôi
+    private HistoryChatResponse fromTail(Long conversationId, MessageTailService.Tail tail, List<ChatItem> page, int skipped) {
+        boolean hasMore = tail.total() > skipped + page.size();
+
+        List<ChatItem> chronological = new ArrayList<>(page);
+        Collections.reverse(chronological);
+
+        return new HistoryChatResponse(conversationId, tail.total(), hasMore, chronological);
     }
 
     private Account getAccountOrThrow(Long accountId, String role) {
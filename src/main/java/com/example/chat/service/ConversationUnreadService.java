@@ -1,62 +1,41 @@
 package com.example.chat.service;
 
-import com.example.chat.entity.Account;
-import com.example.chat.entity.Conversation;
 import com.example.chat.entity.ConversationUnread;
-import com.example.chat.entity.ConversationMemberId;
 import com.example.chat.repository.ConversationUnreadRepository;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Phía DB của bộ đếm tin chưa đọc. Bộ đếm "nóng" nằm ở UnreadCounterService (Redis),
+ * service này chỉ dùng để seed giá trị ban đầu và ghi snapshot xuống bảng conversation_unreads.
+ */
 @Service
 @RequiredArgsConstructor
 public class ConversationUnreadService {
 
     private final ConversationUnreadRepository conversationUnreadRepository;
 
-    @Transactional
-    public ConversationUnread incrementUnreadCount(Conversation conversation, Account receiver) {
-        ConversationMemberId id = new ConversationMemberId(conversation.getId(), receiver.getId());
-
-        // Tìm ConversationUnread theo ID
-        ConversationUnread unread = conversationUnreadRepository.findById(id)
-                .orElseGet(() -> {
-                    ConversationUnread newUnread = new ConversationUnread();
-                    newUnread.setId(id);
-                    newUnread.setUnreadCount(0);
-                    newUnread.setConversation(conversation);
-                    newUnread.setAccount(receiver);
-                    return newUnread;
-                });
-
-        // Tăng số lượng chưa đọc
-        unread.setUnreadCount(unread.getUnreadCount() + 1);
-
-        return conversationUnreadRepository.save(unread);
+    public long findUnreadCount(Long conversationId, Long accountId) {
+        return conversationUnreadRepository.findById_ConversationIdAndId_AccountId(conversationId, accountId)
+                .map(ConversationUnread::getUnreadCount)
+                .orElse(0)
+                .longValue();
     }
 
-    public void resetUnreadCount(Long conversationId, Long userId) {
-        ConversationMemberId id = new ConversationMemberId(conversationId, userId);
-
-        conversationUnreadRepository.findById(id)
-                .ifPresent(unread -> {
-                    unread.setUnreadCount(0);
-                    conversationUnreadRepository.save(unread);
-                });
+    public Map<Long, Integer> findUnreadCounts(Collection<Long> conversationIds, Long accountId) {
+        return conversationUnreadRepository.findById_AccountIdAndId_ConversationIdIn(accountId, conversationIds)
+                .stream()
+                .collect(Collectors.toMap(
+                        unread -> unread.getId().getConversationId(),
+                        ConversationUnread::getUnreadCount
+                ));
     }
 
-    public ConversationUnread getOrCreateUnread(Conversation conversation, Account account) {
-        ConversationMemberId id = new ConversationMemberId(conversation.getId(), account.getId());
-
-        return conversationUnreadRepository.findById(id)
-                .orElseGet(() -> {
-                    ConversationUnread newUnread = new ConversationUnread();
-                    newUnread.setId(id);
-                    newUnread.setUnreadCount(0);
-                    newUnread.setConversation(conversation);
-                    newUnread.setAccount(account);
-                    return newUnread;
-                });
+    public void saveUnreadCount(Long conversationId, Long accountId, int unreadCount) {
+        conversationUnreadRepository.upsertUnreadCount(conversationId, accountId, unreadCount);
     }
 }
@@ -0,0 +1,94 @@
+package com.example.chat.service;
+
+import com.example.chat.entity.DeletionJob;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Worker chạy các job trong deletion_jobs trên một luồng riêng, từng job một.
+ * Được đánh thức ngay sau khi transaction tạo job commit; DeletionSweepJob định kỳ nhận lại
+ * các job đến hạn retry hoặc bị bỏ dở khi node chết.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeletionWorker {
+
+    private final BulkDeletionService bulkDeletionService;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean rerun = new AtomicBoolean();
+
+    private ThreadPoolTaskExecutor coordinator;
+
+    @PostConstruct
+    public void init() {
+        coordinator = new ThreadPoolTaskExecutor();
+        coordinator.setCorePoolSize(1);
+        coordinator.setMaxPoolSize(1);
+        coordinator.setThreadNamePrefix("bulk-delete-");
+        coordinator.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdown();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRequested(BulkDeletionService.DeletionRequestedEvent event) {
+        wakeUp();
+    }
+
+    /**
+     * Yêu cầu quét deletion_jobs. Nếu đang chạy thì chỉ đánh dấu để quét thêm một vòng.
+     */
+    public void wakeUp() {
+        rerun.set(true);
+        if (draining.compareAndSet(false, true)) {
+            coordinator.execute(this::drainLoop);
+        }
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private void drainLoop() {
+        try {
+            while (rerun.getAndSet(false)) {
+                drain();
+            }
+        } catch (Exception e) {
+            log.error("Quét deletion jobs thất bại: {}", e.getMessage(), e);
+        } finally {
+            draining.set(false);
+        }
+        if (rerun.get()) {
+            wakeUp();
+        }
+    }
+
+    private void drain() {
+        DeletionJob job;
+        while ((job = bulkDeletionService.claim()) != null) {
+            try {
+                bulkDeletionService.execute(job);
+            } catch (Exception e) {
+                log.warn("Job xoá {} {} #{} thất bại (lần {}): {}",
+                        job.getTargetType(), job.getTargetId(), job.getId(), job.getAttempts(), e.getMessage());
+                try {
+                    bulkDeletionService.markFailed(job, e.getMessage());
+                } catch (Exception ex) {
+                    // Job vẫn ở RUNNING, sẽ được nhận lại khi hết lease
+                    log.error("Ghi kết quả job xoá #{} thất bại: {}", job.getId(), ex.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.chat.service;
+
+import com.example.chat.entity.DirectConversation;
+import com.example.chat.entity.DirectConversationId;
+import com.example.chat.enums.DeletionTarget;
+import com.example.chat.repository.DirectConversationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tra cứu conversation 1-1 theo cặp (min(accountId), max(accountId)).
+ * Thứ tự tra cứu: LRU trong JVM -> Redis (dùng chung giữa các node) -> bảng direct_conversations.
+ * Mapping không đổi sau khi tạo; khi tài khoản bị xoá (direct_conversations đi theo cascade) các cặp của nó bị evict.
+ * Entry trong JVM có hạn LOCAL_TTL để node khác không giữ mãi cặp đã bị evict ở node xoá.
+ */
+@Service
+@RequiredArgsConstructor
+public class DirectConversationService {
+
+    private final DirectConversationRepository directConversationRepository;
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private static final String PAIR_PREFIX = "chat:direct:";
+    private static final long PAIR_TTL_HOURS = 24;
+    private static final int LOCAL_CACHE_SIZE = 10_000;
+    private static final long LOCAL_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private record LocalEntry(Long conversationId, long expiresAt) {
+    }
+
+    private final Map<DirectConversationId, LocalEntry> localCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<DirectConversationId, LocalEntry> eldest) {
+                    return size() > LOCAL_CACHE_SIZE;
+                }
+            }
+    );
+
+    public Optional<Long> findConversationId(Long accountId1, Long accountId2) {
+        DirectConversationId pair = DirectConversationId.of(accountId1, accountId2);
+
+        LocalEntry cached = localCache.get(pair);
+        if (cached != null) {
+            if (cached.expiresAt() > System.currentTimeMillis()) return Optional.of(cached.conversationId());
+            localCache.remove(pair);
+        }
+
+        Object shared = redisTemplate.opsForValue().get(redisKey(pair));
+        if (shared != null) {
+            Long conversationId = ((Number) shared).longValue();
+            cacheLocal(pair, conversationId);
+            return Optional.of(conversationId);
+        }
+
+        Optional<Long> persisted = directConversationRepository.findById(pair)
+                .map(DirectConversation::getConversationId);
+        persisted.ifPresent(conversationId -> cache(pair, conversationId));
+        return persisted;
+    }
+
+    /**
+     * Đăng ký conversation cho cặp account. Nếu transaction khác đã đăng ký trước thì trả về conversation của nó.
+     * Không ghi cache ở đây vì transaction hiện tại có thể rollback; lần tra cứu sau sẽ nạp lại từ DB.
+     */
+    public Long register(Long accountId1, Long accountId2, Long conversationId) {
+        DirectConversationId pair = DirectConversationId.of(accountId1, accountId2);
+
+        int inserted = directConversationRepository.insertIfAbsent(
+                pair.getAccountLowId(), pair.getAccountHighId(), conversationId);
+        if (inserted == 1) return conversationId;
+
+        return directConversationRepository.findById(pair)
+                .map(DirectConversation::getConversationId)
+                .orElseThrow(() -> new IllegalStateException("Direct conversation not found"));
+    }
+
+    public void evict(Long accountId1, Long accountId2) {
+        DirectConversationId pair = DirectConversationId.of(accountId1, accountId2);
+        localCache.remove(pair);
+        redisTemplate.delete(redisKey(pair));
+    }
+
+    /**
+     * Gọi trước khi xoá tài khoản: evict mọi cặp 1-1 của tài khoản (bản ghi trong DB đi theo cascade).
+     */
+    public void evictAccount(Long accountId) {
+        for (DirectConversation direct : directConversationRepository.findByAccountId(accountId)) {
+            evict(direct.getId().getAccountLowId(), direct.getId().getAccountHighId());
+        }
+    }
+
+    @EventListener
+    public void onDeletionCompleted(BulkDeletionService.DeletionCompletedEvent event) {
+        if (event.targetType() == DeletionTarget.ARTICLE) return;
+        // Cặp tạo trong lúc job chạy: dọn phần trong JVM, Redis hết hạn theo PAIR_TTL_HOURS
+        synchronized (localCache) {
+            localCache.keySet().removeIf(pair ->
+                    pair.getAccountLowId().equals(event.targetId()) || pair.getAccountHighId().equals(event.targetId()));
+        }
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private void cacheLocal(DirectConversationId pair, Long conversationId) {
+        localCache.put(pair, new LocalEntry(conversationId, System.currentTimeMillis() + LOCAL_TTL_MILLIS));
+    }
+
+    private void cache(DirectConversationId pair, Long conversationId) {
+        cacheLocal(pair, conversationId);
+        redisTemplate.opsForValue().set(redisKey(pair), conversationId, PAIR_TTL_HOURS, TimeUnit.HOURS);
+    }
+
+    private String redisKey(DirectConversationId pair) {
+        return PAIR_PREFIX + pair.getAccountLowId() + ":" + pair.getAccountHighId();
+    }
+}
@@ -0,0 +1,369 @@
+package com.example.chat.service;
+
+import com.example.chat.config.LeaderboardProperties;
+import com.example.chat.entity.Account;
+import com.example.chat.entity.DoctorDetail;
+import com.example.chat.enums.DeletionTarget;
+import com.example.chat.enums.LeaderboardMetric;
+import com.example.chat.enums.Role;
+import com.example.chat.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Bảng xếp hạng bác sĩ trên Redis ZSET, một ZSET cho mỗi (metric, chuyên khoa) và một ZSET toàn hệ thống.
+ * Top-N chỉ tốn một ZREVRANGE. Review mới cộng dồn sau commit bằng Lua (đếm review, tổng sao của bác sĩ và
+ * toàn hệ thống, tính lại điểm Bayes của bác sĩ đó); LeaderboardRebuildJob dựng lại từ doctor_details
+ * để sửa lệch và cập nhật điểm Bayes của các bác sĩ khác khi rating trung bình toàn hệ thống đổi.
+ * Review ghi thời điểm vào ZSET "touched"; rebuild chép số liệu đang có của các bác sĩ được chạm trong lúc dựng
+ * sang bảng mới ngay trước RENAME (cùng một script) nên không mất review xen giữa lúc đọc DB và lúc thay bảng.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DoctorLeaderboardService {
+
+    private static final String KEY_PREFIX = "leaderboard:doctors:";
+    // Hash: "{doctorId}:n", "{doctorId}:sum", "total:n", "total:sum"
+    private static final String STATS_KEY = KEY_PREFIX + "stats";
+    // Set các đoạn key chuyên khoa đang có bảng xếp hạng
+    private static final String SPECS_KEY = KEY_PREFIX + "specs";
+    // ZSET doctorId -> thời điểm review gần nhất (ms)
+    private static final String TOUCHED_KEY = KEY_PREFIX + "touched";
+    // Bù lệch đồng hồ giữa các node khi so thời điểm review với lúc bắt đầu rebuild
+    private static final Duration CLOCK_SKEW = Duration.ofMinutes(1);
+
+    // KEYS[1] = stats, KEYS[2] = touched, KEYS[3] = specs, KEYS[4..] = từng cặp (zset review, zset rating).
+    // ARGV: doctorId, số sao, C, thời điểm (ms), đoạn key chuyên khoa ("" nếu không có).
+    // Stats chưa được seed (thiếu total:n, vd. hash bị mất) thì bỏ qua: cộng từ 0 sẽ cho bảng sai, để rebuild seed lại
+    private static final RedisScript<Long> RECORD_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('ZADD', KEYS[2], ARGV[4], ARGV[1])
+            if redis.call('HEXISTS', KEYS[1], 'total:n') == 0 then
+                return -1
+            end
+            local n = redis.call('HINCRBY', KEYS[1], ARGV[1] .. ':n', 1)
+            local sum = redis.call('HINCRBY', KEYS[1], ARGV[1] .. ':sum', ARGV[2])
+            local totalN = redis.call('HINCRBY', KEYS[1], 'total:n', 1)
+            local totalSum = redis.call('HINCRBY', KEYS[1], 'total:sum', ARGV[2])
+            local c = tonumber(ARGV[3])
+            local score = (c * (totalSum / totalN) + sum) / (c + n)
+            for i = 4, #KEYS, 2 do
+                redis.call('ZADD', KEYS[i], n, ARGV[1])
+                redis.call('ZADD', KEYS[i + 1], score, ARGV[1])
+            end
+            if ARGV[5] ~= '' then
+                redis.call('SADD', KEYS[3], ARGV[5])
+            end
+            return n
+            """, Long.class);
+
+    // KEYS[1] = stats, KEYS[2] = stats tạm, KEYS[3] = touched, KEYS[4] = specs, KEYS[5] = specs tạm,
+    // KEYS[6..] = từng bộ bốn (review, review tạm, rating, rating tạm) của mỗi đoạn.
+    // ARGV: mốc bắt đầu rebuild (ms), C, tên đoạn của từng bộ bốn ("" = toàn hệ thống).
+    // Bác sĩ được review sau mốc: lấy n / sum đang có trên stats cũ, tính lại điểm, rồi thay stats, bảng và specs
+    private static final RedisScript<Long> SWAP_SCRIPT = new DefaultRedisScript<>("""
+            local touched = redis.call('ZRANGEBYSCORE', KEYS[3], ARGV[1], '+inf')
+            local changed = {}
+            for _, id in ipairs(touched) do
+                local n = redis.call('HGET', KEYS[1], id .. ':n')
+                if n then
+                    local sum = redis.call('HGET', KEYS[1], id .. ':sum') or '0'
+                    local oldN = tonumber(redis.call('HGET', KEYS[2], id .. ':n') or '0')
+                    local oldSum = tonumber(redis.call('HGET', KEYS[2], id .. ':sum') or '0')
+                    redis.call('HSET', KEYS[2], id .. ':n', n, id .. ':sum', sum)
+                    redis.call('HINCRBY', KEYS[2], 'total:n', tonumber(n) - oldN)
+                    redis.call('HINCRBY', KEYS[2], 'total:sum', tonumber(sum) - oldSum)
+                    changed[#changed + 1] = id
+                end
+            end
+            local totalN = tonumber(redis.call('HGET', KEYS[2], 'total:n'))
+            local totalSum = tonumber(redis.call('HGET', KEYS[2], 'total:sum'))
+            local c = tonumber(ARGV[2])
+            for _, id in ipairs(changed) do
+                local n = tonumber(redis.call('HGET', KEYS[2], id .. ':n'))
+                local sum = tonumber(redis.call('HGET', KEYS[2], id .. ':sum'))
+                if n > 0 then
+                    local score = (c * (totalSum / totalN) + sum) / (c + n)
+                    for i = 6, #KEYS, 4 do
+                        if redis.call('ZSCORE', KEYS[i], id) or redis.call('ZSCORE', KEYS[i + 1], id) then
+                            redis.call('ZADD', KEYS[i + 1], n, id)
+                            redis.call('ZADD', KEYS[i + 3], score, id)
+                        end
+                    end
+                end
+            end
+            redis.call('ZREMRANGEBYSCORE', KEYS[3], '-inf', '(' .. ARGV[1])
+            redis.call('RENAME', KEYS[2], KEYS[1])
+
+            local passed = {}
+            for i = 6, #KEYS, 4 do
+                local segment = ARGV[3 + (i - 6) / 4]
+                passed[segment] = true
+                for j = i, i + 2, 2 do
+                    if redis.call('EXISTS', KEYS[j + 1]) == 1 then
+                        redis.call('RENAME', KEYS[j + 1], KEYS[j])
+                    else
+                        redis.call('DEL', KEYS[j])
+                    end
+                end
+                if segment ~= '' and redis.call('EXISTS', KEYS[i]) == 1 then
+                    redis.call('SADD', KEYS[5], segment)
+                end
+            end
+            -- Chuyên khoa mới có review trong lúc dựng (không nằm trong danh sách đã truyền) thì giữ nguyên
+            for _, segment in ipairs(redis.call('SMEMBERS', KEYS[4])) do
+                if not passed[segment] then
+                    redis.call('SADD', KEYS[5], segment)
+                end
+            end
+            if redis.call('EXISTS', KEYS[5]) == 1 then
+                redis.call('RENAME', KEYS[5], KEYS[4])
+            else
+                redis.call('DEL', KEYS[4])
+            end
+            return #changed
+            """, Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final AccountRepository accountRepository;
+    private final LeaderboardProperties properties;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("Dựng bảng xếp hạng bác sĩ khi khởi động thất bại: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Xoá tài khoản làm mất review (lịch hẹn bị xoá) hoặc cả bác sĩ: dựng lại từ doctor_details đã được đếm lại.
+     */
+    @EventListener
+    public void onDeletionCompleted(BulkDeletionService.DeletionCompletedEvent event) {
+        if (event.targetType() == DeletionTarget.ARTICLE) return;
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("Dựng lại bảng xếp hạng sau job xoá {} thất bại: {}", event.targetId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Id các bác sĩ đứng đầu, theo thứ tự hạng. metric null = defaultMetric, specialization null = toàn hệ thống.
+     * Redis lỗi thì trả về danh sách rỗng.
+     */
+    public List<Long> top(LeaderboardMetric metric, String specialization, int limit) {
+        LeaderboardMetric resolved = metric != null ? metric : properties.getDefaultMetric();
+        int count = Math.min(Math.max(limit, 1), properties.getMaxLimit());
+
+        try {
+            Set<Object> members = redisTemplate.opsForZSet().reverseRange(boardKey(resolved, specialization), 0, count - 1);
+            if (members == null) return List.of();
+
+            List<Long> ids = new ArrayList<>(members.size());
+            members.forEach(member -> ids.add(Long.valueOf(String.valueOf(member))));
+            return ids;
+        } catch (Exception e) {
+            log.warn("Đọc bảng xếp hạng bác sĩ thất bại: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Ghi nhận review mới sau khi transaction tạo review commit.
+     */
+    public void recordReview(Long doctorId, String specialization, int rating) {
+        afterCommit(() -> {
+            List<String> keys = new ArrayList<>();
+            keys.add(STATS_KEY);
+            keys.add(TOUCHED_KEY);
+            keys.add(SPECS_KEY);
+            keys.add(boardKey(LeaderboardMetric.REVIEW_COUNT, null));
+            keys.add(boardKey(LeaderboardMetric.BAYESIAN_RATING, null));
+            String spec = specKey(specialization);
+            if (spec != null) {
+                keys.add(boardKey(LeaderboardMetric.REVIEW_COUNT, specialization));
+                keys.add(boardKey(LeaderboardMetric.BAYESIAN_RATING, specialization));
+            }
+
+            try {
+                Long n = redisTemplate.execute(
+                        RECORD_SCRIPT,
+                        RedisSerializer.string(),
+                        null,
+                        keys,
+                        String.valueOf(doctorId), String.valueOf(rating), String.valueOf(properties.getPriorWeight()),
+                        String.valueOf(System.currentTimeMillis()), spec != null ? spec : ""
+                );
+                if (n != null && n < 0) {
+                    log.warn("Bảng xếp hạng chưa được seed, bỏ qua review của bác sĩ {} cho tới lần rebuild sau", doctorId);
+                }
+            } catch (Exception e) {
+                // LeaderboardRebuildJob sẽ bù lại
+                log.warn("Cập nhật bảng xếp hạng cho bác sĩ {} thất bại: {}", doctorId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Dựng lại toàn bộ bảng xếp hạng từ review_count / rating_sum trên doctor_details.
+     * Ghi vào key tạm, chép lại số liệu của các bác sĩ được review kể từ lúc bắt đầu đọc DB, rồi RENAME
+     * nên người đọc không thấy bảng dở dang. Trả về số bác sĩ có review.
+     */
+    public int rebuild() {
+        long startedAt = System.currentTimeMillis() - CLOCK_SKEW.toMillis();
+        List<Account> doctors = accountRepository.findWithDetailsByRole(Role.DOCTOR);
+
+        long totalN = 0;
+        long totalSum = 0;
+        for (Account doctor : doctors) {
+            DoctorDetail detail = doctor.getDoctorDetail();
+            if (detail != null) {
+                totalN += detail.getReviewCount();
+                totalSum += detail.getRatingSum();
+            }
+        }
+        double mean = totalN > 0 ? (double) totalSum / totalN : 0;
+        double c = properties.getPriorWeight();
+
+        Map<String, Set<Tuple>> boards = new HashMap<>();
+        Map<byte[], byte[]> stats = new HashMap<>();
+        Set<String> specs = new HashSet<>();
+        int ranked = 0;
+
+        for (Account doctor : doctors) {
+            DoctorDetail detail = doctor.getDoctorDetail();
+            if (detail == null || detail.getReviewCount() <= 0) continue;
+            ranked++;
+
+            long n = detail.getReviewCount();
+            long sum = detail.getRatingSum();
+            byte[] member = bytes(String.valueOf(doctor.getId()));
+            double bayesian = (c * mean + sum) / (c + n);
+
+            String spec = specKey(detail.getSpecialization());
+            // Bảng toàn hệ thống ("") và bảng của chuyên khoa
+            List<String> segments = spec != null ? List.of("", spec) : List.of("");
+            for (String segment : segments) {
+                String specSegment = segment.isEmpty() ? null : segment;
+                boards.computeIfAbsent(boardKeyForSegment(LeaderboardMetric.REVIEW_COUNT, specSegment), k -> new HashSet<>())
+                        .add(new DefaultTuple(member, (double) n));
+                boards.computeIfAbsent(boardKeyForSegment(LeaderboardMetric.BAYESIAN_RATING, specSegment), k -> new HashSet<>())
+                        .add(new DefaultTuple(member, bayesian));
+            }
+            if (spec != null) specs.add(spec);
+
+            stats.put(bytes(doctor.getId() + ":n"), bytes(String.valueOf(n)));
+            stats.put(bytes(doctor.getId() + ":sum"), bytes(String.valueOf(sum)));
+        }
+        stats.put(bytes("total:n"), bytes(String.valueOf(totalN)));
+        stats.put(bytes("total:sum"), bytes(String.valueOf(totalSum)));
+
+        // Đoạn cần thay: toàn hệ thống, chuyên khoa vừa dựng và chuyên khoa đang có bảng (không còn review thì bị xoá)
+        Set<String> segments = new LinkedHashSet<>();
+        segments.add("");
+        segments.addAll(specs);
+        // specs được ghi bằng chuỗi thô (script), không qua serializer JSON của template
+        Set<byte[]> previousSpecs = redisTemplate.execute((RedisCallback<Set<byte[]>>) connection ->
+                connection.setCommands().sMembers(bytes(SPECS_KEY)));
+        if (previousSpecs != null) {
+            previousSpecs.forEach(previous -> segments.add(RedisSerializer.string().deserialize(previous)));
+        }
+
+        String suffix = ":tmp:" + UUID.randomUUID();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<String, Set<Tuple>> board : boards.entrySet()) {
+                connection.zSetCommands().zAdd(bytes(board.getKey() + suffix), board.getValue());
+            }
+            connection.hashCommands().hMSet(bytes(STATS_KEY + suffix), stats);
+            return null;
+        });
+
+        List<String> keys = new ArrayList<>(List.of(
+                STATS_KEY, STATS_KEY + suffix, TOUCHED_KEY, SPECS_KEY, SPECS_KEY + suffix
+        ));
+        List<String> args = new ArrayList<>(List.of(String.valueOf(startedAt), String.valueOf(c)));
+        for (String segment : segments) {
+            String specSegment = segment.isEmpty() ? null : segment;
+            for (LeaderboardMetric metric : List.of(LeaderboardMetric.REVIEW_COUNT, LeaderboardMetric.BAYESIAN_RATING)) {
+                String board = boardKeyForSegment(metric, specSegment);
+                keys.add(board);
+                keys.add(board + suffix);
+            }
+            args.add(segment);
+        }
+        Long caughtUp = redisTemplate.execute(
+                SWAP_SCRIPT,
+                RedisSerializer.string(),
+                null,
+                keys,
+                args.toArray()
+        );
+        if (caughtUp != null && caughtUp > 0) {
+            log.info("Rebuild bảng xếp hạng: giữ {} bác sĩ được review trong lúc dựng", caughtUp);
+        }
+
+        log.info("Dựng lại bảng xếp hạng: {} bác sĩ, {} chuyên khoa", ranked, specs.size());
+        return ranked;
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private String boardKey(LeaderboardMetric metric, String specialization) {
+        return boardKeyForSegment(metric, specKey(specialization));
+    }
+
+    // specSegment đã chuẩn hoá bằng specKey (hoặc null)
+    private String boardKeyForSegment(LeaderboardMetric metric, String specSegment) {
+        return specSegment != null
+                ? KEY_PREFIX + metric.getKey() + ":spec:" + specSegment
+                : KEY_PREFIX + metric.getKey();
+    }
+
+    // "Nội tiết" -> "noi-tiet"; null nếu không có chuyên khoa
+    private static String specKey(String specialization) {
+        if (specialization == null || specialization.isBlank()) return null;
+        return DoctorSearchIndex.fold(specialization).trim().replaceAll("\\s+", "-");
+    }
+
+    private byte[] bytes(String value) {
+        return RedisSerializer.string().serialize(value);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
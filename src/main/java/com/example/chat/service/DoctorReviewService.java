@@ -1,13 +1,17 @@
 package com.example.chat.service;
 
+import com.example.chat.cache.CacheNames;
+import com.example.chat.cache.TwoTierCacheManager;
 import com.example.chat.dto.req.CreateReviewRequest;
 import com.example.chat.entity.Appointment;
 import com.example.chat.entity.DoctorReview;
 import com.example.chat.enums.AppointmentStatus;
 import com.example.chat.repository.AccountRepository;
 import com.example.chat.repository.AppointmentRepository;
+import com.example.chat.repository.DoctorDetailRepository;
 import com.example.chat.repository.DoctorReviewRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,6 +21,10 @@ import org.springframework.transaction.annotation.Transactional;
 public class DoctorReviewService {
     private final DoctorReviewRepository doctorReviewRepository;
     private final AppointmentRepository appointmentRepository;
+    private final DoctorDetailRepository doctorDetailRepository;
+    private final TwoTierCacheManager cacheManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DoctorLeaderboardService doctorLeaderboardService;
 
     @Transactional
     public DoctorReview createReview(CreateReviewRequest request) {
@@ -51,6 +59,34 @@ public class DoctorReviewService {
                 .comment(request.getComment())
                 .build();
 
-        return doctorReviewRepository.save(review);
+        DoctorReview saved = doctorReviewRepository.save(review);
+
+        // Cập nhật tổng hợp đánh giá trên doctor_details cùng transaction
+        doctorDetailRepository.addReview(appointment.getDoctor().getId(), request.getRating());
+        cacheManager.evict(CacheNames.DOCTOR_DETAIL, appointment.getDoctor().getId());
+        cacheManager.clear(CacheNames.DOCTOR_DIRECTORY);
+        eventPublisher.publishEvent(new DoctorSearchIndex.DoctorChangedEvent(appointment.getDoctor().getId()));
+        doctorLeaderboardService.recordReview(
+                appointment.getDoctor().getId(),
+                appointment.getDoctor().getDoctorDetail() != null
+                        ? appointment.getDoctor().getDoctorDetail().getSpecialization()
+                        : null,
+                request.getRating()
+        );
+
+        return saved;
+    }
+
+    /**
+     * Đối soát review_count / rating_sum với doctor_reviews (backfill hoặc sửa lệch). Trả về số bác sĩ đã sửa.
+     */
+    @Transactional
+    public int rebuildRatingAggregates() {
+        int fixed = doctorDetailRepository.rebuildRatingAggregates();
+        if (fixed > 0) {
+            cacheManager.clear(CacheNames.DOCTOR_DETAIL);
+            cacheManager.clear(CacheNames.DOCTOR_DIRECTORY);
+        }
+        return fixed;
     }
 }
@@ -0,0 +1,312 @@
+package com.example.chat.service;
+
+import com.example.chat.entity.Account;
+import com.example.chat.entity.DoctorDetail;
+import com.example.chat.enums.Role;
+import com.example.chat.repository.AccountRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Index tìm kiếm bác sĩ trong JVM: inverted index (term -> doctorId) trên tên, chuyên khoa và bio,
+ * term được bỏ dấu tiếng Việt và so khớp theo tiền tố. Lọc theo chuyên khoa, khoảng phí, rating tối thiểu;
+ * xếp hạng theo rating rồi số năm kinh nghiệm.
+ * Cập nhật từng bác sĩ sau khi transaction ghi commit (DoctorChangedEvent), báo các node khác qua pub/sub
+ * và được dựng lại toàn bộ định kỳ (DoctorIndexRebuildJob) để bù sự kiện bị lỡ.
+ * Dữ liệu trong index đã được giải mã (specialization, bio lưu mã hoá trong DB nên không tìm được bằng SQL).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DoctorSearchIndex implements MessageListener {
+
+    private static final String CHANNEL = "doctor:index:events";
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^a-z0-9]+");
+
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingDouble(Entry::avgRating).reversed()
+            .thenComparing(Comparator.comparingLong(Entry::reviewCount).reversed())
+            .thenComparing(Comparator.comparingInt(Entry::experienceYears).reversed())
+            .thenComparing(Entry::id);
+
+    private final AccountRepository accountRepository;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<Long, Set<String>> termsByDoctor = new HashMap<>();
+    private final NavigableMap<String, Set<Long>> postings = new TreeMap<>();
+    private final Map<String, Set<Long>> bySpecialization = new HashMap<>();
+
+    public record Entry(Long id, String name, String avatarUrl, String specialization,
+                        int experienceYears, long fee, long reviewCount, double avgRating) {
+    }
+
+    /**
+     * text: các từ khoá (AND, khớp tiền tố); specialization: so khớp nguyên chuỗi đã bỏ dấu.
+     * Các điều kiện null được bỏ qua.
+     */
+    public record Query(String text, String specialization, Long minFee, Long maxFee, Double minRating) {
+    }
+
+    public record Result(List<Entry> entries, long total) {
+    }
+
+    public record DoctorChangedEvent(Long doctorId) {
+    }
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        rebuild();
+    }
+
+    public Result search(Query query, int page, int size) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<String> tokens = tokenize(query.text());
+
+        List<Entry> matched = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Collection<Long> candidates = query.specialization() != null && !query.specialization().isBlank()
+                    ? bySpecialization.getOrDefault(fold(query.specialization()).trim(), Set.of())
+                    : null;
+
+            for (String token : tokens) {
+                Set<Long> hits = prefixMatches(token);
+                candidates = candidates == null ? hits : candidates.stream().filter(hits::contains).toList();
+                if (candidates.isEmpty()) break;
+            }
+            if (candidates == null) {
+                candidates = entries.keySet();
+            }
+
+            for (Long id : candidates) {
+                Entry entry = entries.get(id);
+                if (accepts(entry, query)) {
+                    matched.add(entry);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        matched.sort(RANKING);
+        int from = (int) Math.min((long) page * size, matched.size());
+        int to = Math.min(from + size, matched.size());
+        List<Entry> pageEntries = new ArrayList<>(matched.subList(from, to));
+
+        sample.stop(meterRegistry.timer("doctor.search", "text", String.valueOf(!tokens.isEmpty())));
+        return new Result(pageEntries, matched.size());
+    }
+
+    /**
+     * Lấy các bác sĩ theo đúng thứ tự id truyền vào, bỏ qua id không có trong index.
+     */
+    public List<Entry> get(List<Long> doctorIds) {
+        List<Entry> result = new ArrayList<>(doctorIds.size());
+        lock.readLock().lock();
+        try {
+            for (Long id : doctorIds) {
+                Entry entry = entries.get(id);
+                if (entry != null) {
+                    result.add(entry);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Dựng lại toàn bộ index từ DB.
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        List<Account> doctors = accountRepository.findWithDetailsByRole(Role.DOCTOR);
+
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            termsByDoctor.clear();
+            postings.clear();
+            bySpecialization.clear();
+            doctors.forEach(this::addLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Dựng lại index tìm kiếm bác sĩ: {} bác sĩ trong {} ms", doctors.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Nạp lại một bác sĩ từ DB; bác sĩ đã bị xoá thì bỏ khỏi index.
+     */
+    public void refresh(Long doctorId) {
+        Account account = accountRepository.findById(doctorId)
+                .filter(a -> a.getRole() == Role.DOCTOR)
+                .orElse(null);
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(doctorId);
+            if (account != null) {
+                addLocked(account);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Chạy async sau commit: đọc lại bằng session mới, không lấy bản cũ trong persistence context của request ghi
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDoctorChanged(DoctorChangedEvent event) {
+        try {
+            refresh(event.doctorId());
+            redisTemplate.convertAndSend(CHANNEL, nodeId + "|" + event.doctorId());
+        } catch (Exception e) {
+            log.warn("Cập nhật index cho bác sĩ {} thất bại: {}", event.doctorId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+            if (body == null) return;
+
+            String[] parts = body.toString().split("\\|");
+            if (nodeId.equals(parts[0])) return;
+            refresh(Long.parseLong(parts[1]));
+        } catch (Exception e) {
+            log.warn("Bỏ qua doctor index event không hợp lệ: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Bỏ dấu tiếng Việt và chuyển chữ thường: "Nội Tiết" -> "noi tiet", "Đa khoa" -> "da khoa".
+     */
+    public static String fold(String text) {
+        if (text == null) return "";
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("")
+                .replace('đ', 'd')
+                .replace('Đ', 'D')
+                .toLowerCase(Locale.ROOT);
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(fold(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private Set<Long> prefixMatches(String prefix) {
+        Set<Long> hits = new HashSet<>();
+        postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false)
+                .values()
+                .forEach(hits::addAll);
+        return hits;
+    }
+
+    private boolean accepts(Entry entry, Query query) {
+        return (query.minFee() == null || entry.fee() >= query.minFee())
+                && (query.maxFee() == null || entry.fee() <= query.maxFee())
+                && (query.minRating() == null || entry.avgRating() >= query.minRating());
+    }
+
+    private void addLocked(Account account) {
+        DoctorDetail detail = account.getDoctorDetail();
+        Entry entry = new Entry(
+                account.getId(),
+                account.getUsername(),
+                detail != null ? detail.getAvatar_url() : null,
+                detail != null ? detail.getSpecialization() : null,
+                detail != null && detail.getExperienceYears() != null ? detail.getExperienceYears() : 0,
+                detail != null && detail.getFee() != null ? detail.getFee() : 0L,
+                detail != null ? detail.getReviewCount() : 0L,
+                detail != null ? detail.averageRating() : 0.0
+        );
+        entries.put(entry.id(), entry);
+
+        Set<String> terms = new HashSet<>(tokenize(entry.name()));
+        terms.addAll(tokenize(entry.specialization()));
+        if (detail != null) {
+            terms.addAll(tokenize(detail.getBio()));
+        }
+        termsByDoctor.put(entry.id(), terms);
+        terms.forEach(term -> postings.computeIfAbsent(term, t -> new HashSet<>()).add(entry.id()));
+
+        if (entry.specialization() != null) {
+            bySpecialization.computeIfAbsent(fold(entry.specialization()).trim(), s -> new HashSet<>()).add(entry.id());
+        }
+    }
+
+    private void removeLocked(Long doctorId) {
+        Entry entry = entries.remove(doctorId);
+        if (entry == null) return;
+
+        Set<String> terms = termsByDoctor.remove(doctorId);
+        if (terms != null) {
+            for (String term : terms) {
+                Set<Long> ids = postings.get(term);
+                if (ids != null && ids.remove(doctorId) && ids.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+
+        if (entry.specialization() != null) {
+            String key = fold(entry.specialization()).trim();
+            Set<Long> ids = bySpecialization.get(key);
+            if (ids != null && ids.remove(doctorId) && ids.isEmpty()) {
+                bySpecialization.remove(key);
+            }
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.example.chat.service;
 
+import com.example.chat.cache.CacheNames;
+import com.example.chat.cache.TwoTierCacheManager;
+import com.example.chat.dto.PagingResponse;
 import com.example.chat.dto.req.CreateDoctorRequest;
 import com.example.chat.dto.req.UpdateDoctorRequest;
+import com.example.chat.dto.res.DeletionJobResponse;
 import com.example.chat.dto.res.DoctorDetailResponse;
 import com.example.chat.dto.res.DoctorResponse;
 import com.example.chat.dto.res.DoctorListResponse;
@@ -9,6 +13,8 @@ import com.example.chat.dto.res.DoctorReviewResponse;
 import com.example.chat.entity.Account;
 import com.example.chat.entity.DoctorDetail;
 import com.example.chat.entity.DoctorReview;
+import com.example.chat.enums.DeletionTarget;
+import com.example.chat.enums.LeaderboardMetric;
 import com.example.chat.enums.Role;
 import com.example.chat.exception.ConflictException;
 import com.example.chat.mapper.AccountMapper;
@@ -18,11 +24,16 @@ import com.example.chat.repository.DoctorReviewRepository;
 import com.example.chat.repository.FavoriteDoctorRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -32,12 +43,21 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class DoctorService {
 
+    // Danh bạ chỉ có một entry: toàn bộ bác sĩ, cờ yêu thích được gắn theo user lúc trả về
+    private static final String DIRECTORY_KEY = "all";
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+
     private final AccountRepository accountRepository;
     private final DoctorDetailRepository doctorDetailRepository;
     private final PasswordEncoder passwordEncoder;
     private final AccountMapper accountMapper;
     private final DoctorReviewRepository doctorReviewRepository;
     private final FavoriteDoctorRepository  favoriteDoctorRepository;
+    private final TwoTierCacheManager cacheManager;
+    private final DoctorSearchIndex doctorSearchIndex;
+    private final DoctorLeaderboardService doctorLeaderboardService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BulkDeletionService bulkDeletionService;
 
     @Transactional(rollbackFor = Exception.class)
     public DoctorResponse createDoctor(CreateDoctorRequest request) {
@@ -60,7 +80,10 @@ public class DoctorService {
                 .build();
 
         account.setDoctorDetail(detail);
-        return accountMapper.toDoctorDto(accountRepository.save(account));
+        Account saved = accountRepository.save(account);
+        cacheManager.evict(CacheNames.DOCTOR_DIRECTORY, DIRECTORY_KEY);
+        eventPublisher.publishEvent(new DoctorSearchIndex.DoctorChangedEvent(saved.getId()));
+        return accountMapper.toDoctorDto(saved);
     }
 
     @Transactional(rollbackFor = Exception.class)
@@ -75,84 +98,106 @@ public class DoctorService {
         return updateAndSave(getCurrentUser(), request);
     }
 
+    /**
+     * Tạo job xoá tài khoản bác sĩ và trả về ngay; cache / index được dọn khi job xong (onDeletionCompleted).
+     */
     @Transactional(rollbackFor = Exception.class)
-    public void deleteDoctorById(Long accountId) {
+    public DeletionJobResponse deleteDoctorById(Long accountId) {
         Account account = accountRepository.findById(accountId)
                 .orElseThrow(() -> new EntityNotFoundException("Account not found"));
-        accountRepository.delete(account);
+        if (account.getRole() != Role.DOCTOR) {
+            throw new EntityNotFoundException("Doctor not found");
+        }
+        Long adminId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return bulkDeletionService.toResponse(
+                bulkDeletionService.request(DeletionTarget.DOCTOR, accountId, adminId)
+        );
     }
 
-    public List<DoctorListResponse> getAllDoctors() {
-        List<Account> doctors = accountRepository.findByRole(Role.DOCTOR);
-        List<Long> doctorIds = doctors.stream().map(Account::getId).toList();
-        Long currentUserId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-
-        Set<Long> favoritedIds = currentUserId != null && !doctorIds.isEmpty()
-                ? favoriteDoctorRepository.findFavoritedDoctorIds(currentUserId, doctorIds)
-                : Collections.emptySet();
-
-        return doctors.stream().map(doctor -> {
-            DoctorDetail detail = doctorDetailRepository.findByAccount_Id(doctor.getId()).orElse(null);
-
-            Long totalReviews = doctorReviewRepository.countByDoctorId(doctor.getId());
-            Number avgObj = doctorReviewRepository.avgRatingByDoctorId(doctor.getId());
-            Double avgRating = avgObj != null ? avgObj.doubleValue() : 0;
-
-            boolean isFav = favoritedIds.contains(doctor.getId());
-            return buildDoctorDto(doctor, detail, totalReviews, avgRating, isFav);
-        }).collect(Collectors.toList());
+    @EventListener
+    public void onDeletionCompleted(BulkDeletionService.DeletionCompletedEvent event) {
+        if (event.targetType() != DeletionTarget.ARTICLE) {
+            evictDoctor(event.targetId());
+        }
     }
 
+    /**
+     * Job xoá tài khoản đã đếm lại review_count / rating_sum của các bác sĩ này: bỏ bản cũ trong cache / index.
+     */
+    @EventListener
+    public void onCountersRepaired(BulkDeletionService.CountersRepairedEvent event) {
+        event.doctorIds().forEach(this::evictDoctor);
+    }
 
-    public List<DoctorListResponse> getTop3Doctors() {
-        List<Object[]> result = doctorReviewRepository.findTopDoctorsByReviewCount();
+    /**
+     * Tài khoản đổi username / avatar: bỏ các trang chi tiết bác sĩ có review của tài khoản đó,
+     * và nếu là bác sĩ thì cả danh bạ, trang chi tiết, index của chính bác sĩ.
+     */
+    @EventListener
+    public void onAccountProfileChanged(AccountService.AccountProfileChangedEvent event) {
+        if (event.role() == Role.DOCTOR) {
+            evictDoctor(event.accountId());
+        }
+        for (Long doctorId : doctorReviewRepository.findReviewedDoctorIds(event.accountId())) {
+            cacheManager.evict(CacheNames.DOCTOR_DETAIL, doctorId);
+        }
+    }
 
-        List<Long> doctorIds = result.stream().map(r -> (Long) r[0]).toList();
+    public List<DoctorListResponse> getAllDoctors() {
+        List<DoctorListResponse> directory = cacheManager.getCache(CacheNames.DOCTOR_DIRECTORY)
+                .get(DIRECTORY_KEY, this::loadDirectory);
+        List<Long> doctorIds = directory.stream().map(DoctorListResponse::getId).toList();
         Long currentUserId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+
         Set<Long> favoritedIds = currentUserId != null && !doctorIds.isEmpty()
                 ? favoriteDoctorRepository.findFavoritedDoctorIds(currentUserId, doctorIds)
                 : Collections.emptySet();
 
-        return result.stream()
-                .limit(3)
-                .map(obj -> {
-                    Long doctorId = (Long) obj[0];
-                    Long totalReviews = (Long) obj[1];
-                    Number avgObj = (Number) obj[2];
-                    Double avgRating = avgObj != null ? avgObj.doubleValue() : 0;
-
-                    Account doctor = accountRepository.findById(doctorId).orElse(null);
-                    DoctorDetail detail = doctorDetailRepository.findByAccount_Id(doctorId).orElse(null);
-
-                    boolean isFav = favoritedIds.contains(doctorId);
-                    return buildDoctorDto(doctor, detail, totalReviews, avgRating, isFav);
-                })
+        // Bản trong cache dùng chung giữa các request nên phải copy trước khi gắn cờ yêu thích
+        return directory.stream()
+                .map(entry -> withFavorite(entry, favoritedIds.contains(entry.getId())))
                 .collect(Collectors.toList());
     }
 
-    public List<DoctorListResponse> getDoctorsBySpecialization(String specialization) {
-        List<DoctorDetail> details = doctorDetailRepository.findBySpecializationIgnoreCase(specialization);
-
-        List<Long> doctorIds = details.stream().map(d -> d.getAccount().getId()).toList();
 
-        Long currentUserId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    public List<DoctorListResponse> getTop3Doctors() {
+        List<Long> doctorIds = doctorLeaderboardService.top(LeaderboardMetric.REVIEW_COUNT, null, 3);
+        if (!doctorIds.isEmpty()) {
+            return toListResponses(doctorSearchIndex.get(doctorIds));
+        }
 
-        Set<Long> favoritedIds = currentUserId != null && !doctorIds.isEmpty()
-                ? favoriteDoctorRepository.findFavoritedDoctorIds(currentUserId, doctorIds)
-                : Collections.emptySet();
+        // Redis chưa có bảng xếp hạng (hoặc lỗi): đọc thẳng doctor_details
+        List<DoctorDetail> details = doctorDetailRepository.findTopByReviewCount(PageRequest.of(0, 3));
+        return toListResponses(doctorSearchIndex.get(details.stream().map(d -> d.getAccount().getId()).toList()));
+    }
 
-        return details.stream().map(detail -> {
-            Account doctor = detail.getAccount();
+    public List<DoctorListResponse> getTopDoctors(LeaderboardMetric metric, String specialization, int limit) {
+        return toListResponses(doctorSearchIndex.get(doctorLeaderboardService.top(metric, specialization, limit)));
+    }
 
-            Long totalReviews = doctorReviewRepository.countByDoctorId(doctor.getId());
-            Number avgObj = doctorReviewRepository.avgRatingByDoctorId(doctor.getId());
-            Double avgRating = avgObj != null ? avgObj.doubleValue() : 0;
+    // specialization lưu mã hoá (IV ngẫu nhiên) nên không so khớp được bằng SQL, lọc trên index đã giải mã
+    public List<DoctorListResponse> getDoctorsBySpecialization(String specialization) {
+        DoctorSearchIndex.Query query = new DoctorSearchIndex.Query(null, specialization, null, null, null);
+        return toListResponses(doctorSearchIndex.search(query, 0, Integer.MAX_VALUE).entries());
+    }
 
-            boolean isFav = favoritedIds.contains(doctor.getId());
-            return buildDoctorDto(doctor, detail, totalReviews, avgRating, isFav);
-        }).collect(Collectors.toList());
+    public PagingResponse<DoctorListResponse> searchDoctors(DoctorSearchIndex.Query query, int page, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_SEARCH_PAGE_SIZE);
+        int pageNumber = Math.max(page, 0);
+        DoctorSearchIndex.Result result = doctorSearchIndex.search(query, pageNumber, pageSize);
+
+        return PagingResponse.<DoctorListResponse>builder()
+                .code(200)
+                .message("Kết quả tìm kiếm bác sĩ")
+                .page(pageNumber)
+                .size(pageSize)
+                .totalElements(result.total())
+                .totalPages((int) ((result.total() + pageSize - 1) / pageSize))
+                .data(toListResponses(result.entries()))
+                .build();
     }
 
+    @Cacheable(cacheNames = CacheNames.DOCTOR_DETAIL, key = "#doctorId")
     public DoctorDetailResponse getDoctorDetail(Long doctorId) {
         Account doctor = accountRepository.findById(doctorId)
                 .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy bác sĩ"));
@@ -160,9 +205,8 @@ public class DoctorService {
         DoctorDetail detail = doctorDetailRepository.findByAccount_Id(doctorId)
                 .orElse(null);
 
-        Long totalReviews = doctorReviewRepository.countByDoctorId(doctorId);
-        Number avgObj = doctorReviewRepository.avgRatingByDoctorId(doctorId);
-        Double avgRating = avgObj != null ? avgObj.doubleValue() : 0.0;
+        Long totalReviews = detail != null ? detail.getReviewCount() : 0L;
+        Double avgRating = detail != null ? detail.averageRating() : 0.0;
 
         // lấy danh sách review
         List<DoctorReview> reviews = doctorReviewRepository.findAllByDoctor_Id(doctorId);
@@ -199,22 +243,67 @@ public class DoctorService {
         return dto;
     }
 
-    private DoctorListResponse buildDoctorDto(Account doctor, DoctorDetail detail,
-                                              Long totalReviews, Double avgRating,
-                                              boolean isFavorited) {
+    private DoctorListResponse buildDoctorDto(Account doctor, DoctorDetail detail, boolean isFavorited) {
         DoctorListResponse dto = new DoctorListResponse();
         dto.setId(doctor != null ? doctor.getId() : null);
         dto.setDoctorName(doctor != null ? doctor.getUsername() : null);
         dto.setDoctorAvatarUrl(detail != null ? detail.getAvatar_url() : null);
         dto.setSpecialization(detail != null ? detail.getSpecialization() : null);
         dto.setExperienceYears(detail != null ? detail.getExperienceYears() : 0);
-        dto.setTotalReviews(totalReviews != null ? totalReviews : 0);
-        dto.setAvgRating(avgRating != null ? avgRating : 0);
+        dto.setTotalReviews(detail != null ? detail.getReviewCount() : 0);
+        dto.setAvgRating(detail != null ? detail.averageRating() : 0);
         dto.setIsFavorited(isFavorited);
         return dto;
     }
 
+    private List<DoctorListResponse> toListResponses(List<DoctorSearchIndex.Entry> entries) {
+        List<Long> doctorIds = entries.stream().map(DoctorSearchIndex.Entry::id).toList();
+        Long currentUserId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+
+        Set<Long> favoritedIds = currentUserId != null && !doctorIds.isEmpty()
+                ? favoriteDoctorRepository.findFavoritedDoctorIds(currentUserId, doctorIds)
+                : Collections.emptySet();
+
+        return entries.stream().map(entry -> {
+            DoctorListResponse dto = new DoctorListResponse();
+            dto.setId(entry.id());
+            dto.setDoctorName(entry.name());
+            dto.setDoctorAvatarUrl(entry.avatarUrl());
+            dto.setSpecialization(entry.specialization());
+            dto.setExperienceYears(entry.experienceYears());
+            dto.setTotalReviews(entry.reviewCount());
+            dto.setAvgRating(entry.avgRating());
+            dto.setIsFavorited(favoritedIds.contains(entry.id()));
+            return dto;
+        }).collect(Collectors.toList());
+    }
+
+    private ArrayList<DoctorListResponse> loadDirectory() {
+        return accountRepository.findWithDetailsByRole(Role.DOCTOR).stream()
+                .map(doctor -> buildDoctorDto(doctor, doctor.getDoctorDetail(), false))
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
 
+    private DoctorListResponse withFavorite(DoctorListResponse entry, boolean isFavorited) {
+        DoctorListResponse dto = new DoctorListResponse();
+        dto.setId(entry.getId());
+        dto.setDoctorName(entry.getDoctorName());
+        dto.setDoctorAvatarUrl(entry.getDoctorAvatarUrl());
+        dto.setSpecialization(entry.getSpecialization());
+        dto.setExperienceYears(entry.getExperienceYears());
+        dto.setTotalReviews(entry.getTotalReviews());
+        dto.setAvgRating(entry.getAvgRating());
+        dto.setIsFavorited(isFavorited);
+        return dto;
+    }
+
+    // Các cache evict sau khi transaction commit (cache được bọc transaction-aware)
+    private void evictDoctor(Long accountId) {
+        cacheManager.evict(CacheNames.DOCTOR_DIRECTORY, DIRECTORY_KEY);
+        cacheManager.evict(CacheNames.DOCTOR_DETAIL, accountId);
+        cacheManager.evict(CacheNames.USER_CARD, accountId);
+        eventPublisher.publishEvent(new DoctorSearchIndex.DoctorChangedEvent(accountId));
+    }
 
     private DoctorResponse updateAndSave(Account account, UpdateDoctorRequest request) {
         validateEmailUnique(request.getEmail(), account.getEmail());
@@ -230,6 +319,7 @@ public class DoctorService {
         accountMapper.updateDoctorDetailFromDTO(request, detail);
         doctorDetailRepository.save(detail);
         accountRepository.save(account);
+        evictDoctor(account.getId());
 
         return accountMapper.toDoctorDto(account);
     }
@@ -2,9 +2,9 @@ package com.example.chat.service;
 
 import com.example.chat.dto.res.FavoriteDoctorResponse;
 import com.example.chat.entity.Account;
+import com.example.chat.entity.DoctorDetail;
 import com.example.chat.entity.FavoriteDoctor;
 import com.example.chat.repository.AccountRepository;
-import com.example.chat.repository.DoctorReviewRepository;
 import com.example.chat.repository.FavoriteDoctorRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -20,7 +20,7 @@ import java.util.stream.Collectors;
 public class FavoriteDoctorService {
     private final FavoriteDoctorRepository favoriteDoctorRepository;
     private final AccountRepository accountRepository;
-    private final DoctorReviewRepository  doctorReviewRepository;
+    private final HomeTimelineService homeTimelineService;
 
     private Account getCurrentUser() {
         Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
@@ -44,6 +44,8 @@ public class FavoriteDoctorService {
                 .build();
 
         favoriteDoctorRepository.save(fav);
+        // Timeline trang chủ dựng lại với bài của bác sĩ vừa theo dõi
+        homeTimelineService.evictAfterCommit(user.getId());
     }
 
     @Transactional
@@ -53,21 +55,24 @@ public class FavoriteDoctorService {
                 .orElseThrow(() -> new EntityNotFoundException("Bác sĩ không tồn tại"));
 
         favoriteDoctorRepository.findByUserAndDoctor(user, doctor)
-                .ifPresent(favoriteDoctorRepository::delete);
+                .ifPresent(fav -> {
+                    favoriteDoctorRepository.delete(fav);
+                    homeTimelineService.evictAfterCommit(user.getId());
+                });
     }
 
     @Transactional(readOnly = true)
     public List<FavoriteDoctorResponse> getFavorites() {
-        Account user = getCurrentUser();
-        List<FavoriteDoctor> favorites = favoriteDoctorRepository.findAllByUser(user);
+        Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        List<FavoriteDoctor> favorites = favoriteDoctorRepository.findAllWithDoctorByUserId(userId);
 
         return favorites.stream().map(fav -> {
             Account doctor = fav.getDoctor();
 
-            // ✅ Tính toán reviews
-            Long totalReviews = doctorReviewRepository.countByDoctorId(doctor.getId());
-            Number avgObj = doctorReviewRepository.avgRatingByDoctorId(doctor.getId());
-            Double avgRating = avgObj != null ? avgObj.doubleValue() : 0.0;
+            // ✅ Tổng hợp reviews lưu sẵn trên doctor_details
+            DoctorDetail detail = doctor.getDoctorDetail();
+            Long totalReviews = detail != null ? detail.getReviewCount() : 0L;
+            Double avgRating = detail != null ? detail.averageRating() : 0.0;
 
             FavoriteDoctorResponse dto = new FavoriteDoctorResponse();
             dto.setId(doctor.getId());
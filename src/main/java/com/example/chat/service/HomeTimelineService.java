@@ -0,0 +1,273 @@
+package com.example.chat.service;
+
+import com.example.chat.config.TimelineProperties;
+import com.example.chat.repository.ArticleRepository;
+import com.example.chat.repository.FavoriteDoctorRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Timeline trang chủ của từng người: bài công khai của các bác sĩ đang theo dõi (danh sách yêu thích)
+ * và của chính người đó, mới -> cũ. Mỗi timeline là một ZSET trên Redis, member = score = id bài viết
+ * (id tăng theo thời gian đăng) nên trang sau chỉ là ZREVRANGEBYSCORE dưới cursor, giữ tối đa maxSize bài.
+ * Bài mới được fan-out vào timeline của người theo dõi sau commit; bác sĩ có hơn fanOutLimit người theo dõi
+ * thì không fan-out, bài của họ được lấy từ DB và trộn vào lúc đọc (hybrid fan-out-on-read).
+ * Fan-out bỏ qua timeline chưa có trên Redis, nên bài commit trong lúc đang dựng timeline được bù lại bằng
+ * một lần đọc trang đầu ngay sau RENAME.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HomeTimelineService {
+
+    private static final String KEY_PREFIX = "timeline:home:";
+    // Set các tác giả đang đi theo nhánh fan-out-on-read
+    private static final String FAN_OUT_ON_READ_KEY = "timeline:fan-out-on-read";
+
+    // KEYS = timeline của người nhận. ARGV: articleId, maxSize.
+    // Chỉ ghi vào timeline đang có: timeline chưa dựng / đã hết hạn sẽ được dựng từ DB ở lần đọc sau, đã gồm bài này
+    private static final RedisScript<Long> PUSH_SCRIPT = new DefaultRedisScript<>("""
+            local pushed = 0
+            for i = 1, #KEYS do
+                if redis.call('EXISTS', KEYS[i]) == 1 then
+                    redis.call('ZADD', KEYS[i], ARGV[1], ARGV[1])
+                    redis.call('ZREMRANGEBYRANK', KEYS[i], 0, -(tonumber(ARGV[2]) + 1))
+                    pushed = pushed + 1
+                end
+            end
+            return pushed
+            """, Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ArticleRepository articleRepository;
+    private final FavoriteDoctorRepository favoriteDoctorRepository;
+    private final TimelineProperties properties;
+
+    public record ArticlePublishedEvent(Long articleId, Long authorId) {
+    }
+
+    /**
+     * Id bài viết của một trang timeline, mới -> cũ. Trang sau truyền cursorId = id của bài cuối trang trước.
+     * Redis lỗi thì đọc thẳng từ DB.
+     */
+    public List<Long> page(Long accountId, Long cursorId, int limit) {
+        int count = Math.min(Math.max(limit, 1), properties.getMaxPageSize());
+        List<Long> followed = favoriteDoctorRepository.findDoctorIdsByUserId(accountId);
+
+        TreeSet<Long> ids = new TreeSet<>(Comparator.reverseOrder());
+        Set<Long> onRead;
+        try {
+            onRead = fanOutOnReadAuthors(followed);
+
+            String key = KEY_PREFIX + accountId;
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
+                rebuild(accountId, followed, onRead);
+            }
+            // Score là id nguyên nên "id < cursorId" = score <= cursorId - 1
+            double max = cursorId != null ? cursorId - 1 : Double.POSITIVE_INFINITY;
+            Set<Object> members = redisTemplate.opsForZSet().reverseRangeByScore(key, Double.NEGATIVE_INFINITY, max, 0, count);
+            if (members != null) {
+                members.forEach(member -> ids.add(Long.valueOf(String.valueOf(member))));
+            }
+        } catch (Exception e) {
+            log.warn("Đọc timeline của {} trên Redis thất bại, đọc từ DB: {}", accountId, e.getMessage());
+            onRead = new HashSet<>(followed);
+            onRead.add(accountId);
+        }
+
+        // Bài của tác giả không fan-out: mỗi tác giả tối đa count dòng theo index (user_id, id), trộn theo id
+        if (!onRead.isEmpty()) {
+            ids.addAll(articleRepository.findTimelineIds(onRead, beforeId(cursorId), count));
+        }
+        return ids.stream().limit(count).toList();
+    }
+
+    // Chạy async sau commit để request đăng bài không chờ fan-out
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticlePublished(ArticlePublishedEvent event) {
+        try {
+            fanOut(event.articleId(), event.authorId());
+        } catch (Exception e) {
+            // Timeline thiếu bài sẽ đủ lại khi hết hạn và được dựng lại
+            log.warn("Fan-out bài {} thất bại: {}", event.articleId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Đẩy bài vào timeline của tác giả và của người theo dõi (theo lô fanOutBatchSize).
+     * Tác giả có hơn fanOutLimit người theo dõi chỉ được đánh dấu fan-out-on-read.
+     * Tác giả vừa rời nhánh fan-out-on-read: timeline của người theo dõi được dựng khi chưa có bài của họ
+     * và lúc đọc không còn trộn nữa, nên xoá các timeline này thay vì đẩy bài (lần đọc sau dựng lại đủ).
+     */
+    public void fanOut(Long articleId, Long authorId) {
+        push(List.of(authorId), articleId);
+
+        long followers = favoriteDoctorRepository.countByDoctor_Id(authorId);
+        if (followers > properties.getFanOutLimit()) {
+            redisTemplate.opsForSet().add(FAN_OUT_ON_READ_KEY, authorId);
+            return;
+        }
+        Long left = redisTemplate.opsForSet().remove(FAN_OUT_ON_READ_KEY, authorId);
+        boolean evict = left != null && left > 0;
+
+        int afterId = 0;
+        int batchSize = properties.getFanOutBatchSize();
+        int pushed = 0;
+        while (true) {
+            List<Object[]> rows = favoriteDoctorRepository.findFollowerPage(authorId, afterId, PageRequest.of(0, batchSize));
+            if (rows.isEmpty()) break;
+
+            List<Long> followerIds = rows.stream().map(row -> (Long) row[1]).toList();
+            if (evict) {
+                redisTemplate.delete(followerIds.stream().map(id -> KEY_PREFIX + id).toList());
+            } else {
+                pushed += push(followerIds, articleId);
+            }
+            afterId = ((Number) rows.get(rows.size() - 1)[0]).intValue();
+            if (rows.size() < batchSize) break;
+        }
+        if (evict) {
+            log.info("Tác giả {} rời fan-out-on-read, xoá timeline của người theo dõi", authorId);
+        }
+        log.debug("Fan-out bài {} của {}: {} timeline", articleId, authorId, pushed);
+    }
+
+    /**
+     * Bỏ các bài không còn hiển thị được (đã xoá / không còn công khai) khỏi timeline của một người.
+     */
+    public void remove(Long accountId, Collection<Long> articleIds) {
+        if (articleIds.isEmpty()) return;
+        try {
+            byte[][] members = articleIds.stream().map(id -> bytes(String.valueOf(id))).toArray(byte[][]::new);
+            redisTemplate.execute((RedisCallback<Long>) connection ->
+                    connection.zSetCommands().zRem(bytes(KEY_PREFIX + accountId), members));
+        } catch (Exception e) {
+            log.warn("Xoá bài khỏi timeline của {} thất bại: {}", accountId, e.getMessage());
+        }
+    }
+
+    /**
+     * Xoá timeline sau commit (vd. theo dõi / bỏ theo dõi bác sĩ); lần đọc sau dựng lại từ DB.
+     */
+    public void evictAfterCommit(Long accountId) {
+        afterCommit(() -> {
+            try {
+                redisTemplate.delete(KEY_PREFIX + accountId);
+            } catch (Exception e) {
+                log.warn("Xoá timeline của {} thất bại: {}", accountId, e.getMessage());
+            }
+        });
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private long push(List<Long> accountIds, Long articleId) {
+        List<String> keys = accountIds.stream().map(id -> KEY_PREFIX + id).toList();
+        Long pushed = redisTemplate.execute(
+                PUSH_SCRIPT,
+                RedisSerializer.string(),
+                null,
+                keys,
+                String.valueOf(articleId), String.valueOf(properties.getMaxSize())
+        );
+        return pushed != null ? pushed : 0;
+    }
+
+    // Dựng timeline từ DB vào key tạm rồi RENAME; không gồm bài của tác giả fan-out-on-read (trộn lúc đọc)
+    private void rebuild(Long accountId, List<Long> followed, Set<Long> onRead) {
+        List<Long> authors = new ArrayList<>();
+        authors.add(accountId);
+        followed.stream().filter(id -> !onRead.contains(id)).forEach(authors::add);
+
+        List<Long> articleIds = articleRepository.findTimelineIds(authors, Long.MAX_VALUE, properties.getMaxSize());
+        // Timeline rỗng không lưu: lần đọc sau lại hỏi DB, một query theo index
+        if (articleIds.isEmpty()) return;
+
+        byte[] key = bytes(KEY_PREFIX + accountId);
+        byte[] tmp = bytes(KEY_PREFIX + accountId + ":tmp:" + UUID.randomUUID());
+        long ttlSeconds = properties.getTtl().toSeconds();
+        Set<Tuple> tuples = tuples(articleIds);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.zSetCommands().zAdd(tmp, tuples);
+            connection.keyCommands().rename(tmp, key);
+            connection.keyCommands().expire(key, ttlSeconds);
+            return null;
+        });
+
+        // Bài commit sau lần đọc trên nhưng fan-out trước RENAME bị PUSH_SCRIPT bỏ qua (key chưa tồn tại).
+        // Fan-out sau RENAME đã thấy key, nên đọc lại trang đầu lúc này là đủ bù các bài đó
+        List<Long> latest = articleRepository.findTimelineIds(authors, Long.MAX_VALUE, properties.getMaxPageSize());
+        Set<Long> snapshot = new HashSet<>(articleIds);
+        Set<Tuple> missed = tuples(latest.stream().filter(id -> !snapshot.contains(id)).toList());
+        if (missed.isEmpty()) return;
+        int maxSize = properties.getMaxSize();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.zSetCommands().zAdd(key, missed);
+            connection.zSetCommands().zRemRange(key, 0, -(maxSize + 1L));
+            return null;
+        });
+    }
+
+    private Set<Tuple> tuples(List<Long> articleIds) {
+        Set<Tuple> tuples = new HashSet<>();
+        articleIds.forEach(id -> tuples.add(new DefaultTuple(bytes(String.valueOf(id)), (double) id)));
+        return tuples;
+    }
+
+    // Trang đầu (cursor null) đọc mọi id
+    private static long beforeId(Long cursorId) {
+        return cursorId != null ? cursorId : Long.MAX_VALUE;
+    }
+
+    private Set<Long> fanOutOnReadAuthors(List<Long> followed) {
+        if (followed.isEmpty()) return new HashSet<>();
+
+        Set<Object> members = redisTemplate.opsForSet().members(FAN_OUT_ON_READ_KEY);
+        Set<Long> authors = new HashSet<>();
+        if (members != null) {
+            members.forEach(member -> authors.add(Long.valueOf(String.valueOf(member))));
+        }
+        authors.retainAll(followed);
+        return authors;
+    }
+
+    private byte[] bytes(String value) {
+        return RedisSerializer.string().serialize(value);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -6,7 +6,6 @@ import com.example.chat.dto.res.SendMessageResponse;
 import com.example.chat.dto.res.UploadImageResponse;
 import com.example.chat.entity.Account;
 import com.example.chat.entity.Conversation;
-import com.example.chat.entity.ConversationUnread;
 import com.example.chat.entity.Message;
 import com.example.chat.enums.MessageType;
 import com.example.chat.repository.AccountRepository;
@@ -26,7 +25,9 @@ public class MessageService {
     private final MessageRepository messageRepository;
     private final ConversationService conversationService;
     private final AccountRepository accountRepository;
-    private final ConversationUnreadService conversationUnreadService;
+    private final UnreadCounterService unreadCounterService;
+    private final ConversationInboxService conversationInboxService;
+    private final MessageTailService messageTailService;
     private final SimpMessagingTemplate messagingTemplate;
     private final CloudinaryService cloudinaryService;
 
@@ -77,8 +78,10 @@ public class MessageService {
 
     private SendMessageResponse saveAndNotify(Message message, Conversation conversation, Account sender, Account receiver) {
         Message savedMessage = messageRepository.save(message);
+        conversationInboxService.onMessageSaved(savedMessage);
+        messageTailService.append(conversation.getId(), MessageTailService.toChatItem(savedMessage, sender));
 
-        ConversationUnread unread = conversationUnreadService.incrementUnreadCount(conversation, receiver);
+        long receiverUnread = unreadCounterService.increment(conversation.getId(), receiver.getId());
 
         SendMessageResponse response = new SendMessageResponse(
                 conversation.getId(),
@@ -94,7 +97,7 @@ public class MessageService {
                         savedMessage.getFileType(),
                         savedMessage.getCreatedAt()
                 ),
-                unread.getUnreadCount().longValue()
+                receiverUnread
         );
 
         messagingTemplate.convertAndSendToUser(
@@ -103,7 +106,7 @@ public class MessageService {
                 response
         );
 
-        ConversationUnread unread_sender = conversationUnreadService.getOrCreateUnread(conversation, sender);
+        long senderUnread = unreadCounterService.getUnreadCount(conversation.getId(), sender.getId());
         return new SendMessageResponse(
                 conversation.getId(),
                 new UserDto(sender.getId(), sender.getUsername(),
@@ -118,7 +121,7 @@ public class MessageService {
                         savedMessage.getFileType(),
                         savedMessage.getCreatedAt()
                 ),
-                unread_sender.getUnreadCount().longValue()
+                senderUnread
         );
     }
 
@@ -0,0 +1,263 @@
+package com.example.chat.service;
+
+import com.example.chat.dto.ChatItem;
+import com.example.chat.dto.MessageDto;
+import com.example.chat.dto.UserDto;
+import com.example.chat.entity.Account;
+import com.example.chat.entity.Message;
+import com.example.chat.repository.ConversationRepository;
+import com.example.chat.repository.MessageRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Bộ đệm "đuôi nóng" của lịch sử chat: N tin nhắn mới nhất (đã giải mã) của mỗi conversation.
+ * Tầng Redis (list + counter) dùng chung giữa các node, tầng JVM là ring buffer được kiểm tra phiên bản
+ * bằng tổng số tin nhắn trên Redis nên mở một cuộc trò chuyện không cần đụng tới Postgres.
+ */
+@Slf4j
+@Service
+public class MessageTailService {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final MessageRepository messageRepository;
+    private final ChatHistoryLoader chatHistoryLoader;
+    private final ConversationRepository conversationRepository;
+    private final ObjectMapper objectMapper;
+
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+
+    public static final int CAPACITY = 50;
+    private static final int LOCAL_CONVERSATIONS = 2_000;
+    private static final long TTL_SECONDS = 24 * 60 * 60;
+
+    private static final String TAIL_PREFIX = "chat:tail:";
+    private static final String COUNT_PREFIX = "chat:tail:count:";
+    // Đánh dấu đang seed (giá trị = token của lần seed), đặt trước khi đọc ảnh chụp từ DB
+    private static final String SEED_PREFIX = "chat:tail:seed:";
+    private static final long SEED_TTL_SECONDS = 10;
+
+    // Chỉ append khi đuôi đã được seed (counter tồn tại), nếu không lần đọc sau sẽ seed lại từ DB.
+    // Tin nhắn đến khi đang seed thì huỷ lần seed đó: ảnh chụp DB có thể đã được đọc trước tin nhắn này
+    private static final RedisScript<Long> APPEND_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[2]) == 0 then
+                redis.call('DEL', KEYS[3])
+                return -1
+            end
+            redis.call('LPUSH', KEYS[1], ARGV[1])
+            redis.call('LTRIM', KEYS[1], 0, tonumber(ARGV[2]) - 1)
+            local total = redis.call('INCR', KEYS[2])
+            redis.call('EXPIRE', KEYS[1], tonumber(ARGV[3]))
+            redis.call('EXPIRE', KEYS[2], tonumber(ARGV[3]))
+            return total
+            """, Long.class);
+
+    // KEYS: tail, count, seed. ARGV: token, total, ttl, item...
+    // Chỉ ghi ảnh chụp nếu lần seed vẫn còn hiệu lực (không có append nào xen vào) và đuôi chưa tồn tại
+    private static final RedisScript<Long> SEED_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[3]) ~= ARGV[1] or redis.call('EXISTS', KEYS[2]) == 1 then
+                return 0
+            end
+            redis.call('DEL', KEYS[1])
+            for i = 4, #ARGV do
+                redis.call('RPUSH', KEYS[1], ARGV[i])
+            end
+            if #ARGV >= 4 then
+                redis.call('EXPIRE', KEYS[1], tonumber(ARGV[3]))
+            end
+            redis.call('SET', KEYS[2], ARGV[2], 'EX', tonumber(ARGV[3]))
+            redis.call('DEL', KEYS[3])
+            return 1
+            """, Long.class);
+
+    private final Map<Long, Tail> localTails = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Tail> eldest) {
+                    return size() > LOCAL_CONVERSATIONS;
+                }
+            }
+    );
+
+    public MessageTailService(RedisTemplate<String, Object> redisTemplate,
+                              MessageRepository messageRepository,
+                              ConversationRepository conversationRepository,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              ChatHistoryLoader chatHistoryLoader) {
+        this.redisTemplate = redisTemplate;
+        this.messageRepository = messageRepository;
+        this.chatHistoryLoader = chatHistoryLoader;
+        this.conversationRepository = conversationRepository;
+        this.objectMapper = objectMapper;
+
+        this.localHits = meterRegistry.counter("chat.history.tail", "result", "hit_local");
+        this.redisHits = meterRegistry.counter("chat.history.tail", "result", "hit_redis");
+        this.misses = meterRegistry.counter("chat.history.tail", "result", "miss");
+        meterRegistry.gaugeMapSize("chat.history.tail.local.size", List.of(), localTails);
+    }
+
+    /**
+     * Ảnh chụp đuôi lịch sử: items sắp xếp mới nhất trước, total là tổng số tin nhắn của conversation.
+     */
+    public record Tail(long total, List<ChatItem> items) {
+    }
+
+    /**
+     * Thêm tin nhắn vừa lưu vào đuôi. Nếu đang trong transaction thì chỉ ghi sau khi commit,
+     * tránh để lại tin nhắn "ma" khi rollback.
+     */
+    public void append(Long conversationId, ChatItem item) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doAppend(conversationId, item);
+                }
+            });
+        } else {
+            doAppend(conversationId, item);
+        }
+    }
+
+    public Tail getTail(Long conversationId) {
+        try {
+            Object rawTotal = redisTemplate.opsForValue().get(COUNT_PREFIX + conversationId);
+
+            if (rawTotal != null) {
+                long total = ((Number) rawTotal).longValue();
+
+                Tail local = localTails.get(conversationId);
+                if (local != null && local.total() == total) {
+                    localHits.increment();
+                    return local;
+                }
+
+                List<Object> rawItems = redisTemplate.opsForList().range(TAIL_PREFIX + conversationId, 0, CAPACITY - 1);
+                if (rawItems != null) {
+                    Tail tail = new Tail(total, normalize(rawItems));
+                    localTails.put(conversationId, tail);
+                    redisHits.increment();
+                    return tail;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Đọc message tail {} từ Redis thất bại: {}", conversationId, e.getMessage());
+        }
+
+        misses.increment();
+        return seed(conversationId);
+    }
+
+    public void evict(Long conversationId) {
+        localTails.remove(conversationId);
+        redisTemplate.delete(List.of(TAIL_PREFIX + conversationId, COUNT_PREFIX + conversationId));
+    }
+
+    /**
+     * Bỏ đuôi của mọi conversation mà tài khoản tham gia (sau khi tin nhắn của tài khoản bị xoá).
+     * Node khác thấy counter trên Redis mất nên cũng bỏ bản trong JVM.
+     */
+    public void evictAccount(Long accountId) {
+        conversationRepository.findIdsByMemberId(accountId).forEach(this::evict);
+    }
+
+    public static ChatItem toChatItem(Message message, Account sender) {
+        return new ChatItem(
+                UserDto.builder()
+                        .id(sender != null ? sender.getId() : null)
+                        .username(sender != null ? sender.getUsername() : null)
+                        .avatarUrl(sender != null && sender.getUserDetail() != null ? sender.getUserDetail().getAvatar_url() : null)
+                        .build(),
+                MessageDto.from(message)
+        );
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private void doAppend(Long conversationId, ChatItem item) {
+        try {
+            Long total = redisTemplate.execute(
+                    APPEND_SCRIPT,
+                    List.of(TAIL_PREFIX + conversationId, COUNT_PREFIX + conversationId, SEED_PREFIX + conversationId),
+                    item, CAPACITY, TTL_SECONDS
+            );
+            if (total == null || total < 0) {
+                localTails.remove(conversationId);
+            }
+        } catch (Exception e) {
+            // Không làm hỏng luồng gửi tin nhắn; xoá đuôi để lần đọc sau seed lại từ DB
+            log.warn("Append message tail {} thất bại: {}", conversationId, e.getMessage());
+            localTails.remove(conversationId);
+            try {
+                redisTemplate.delete(COUNT_PREFIX + conversationId);
+            } catch (Exception ignored) {
+                // Redis không khả dụng, TTL sẽ tự dọn
+            }
+        }
+    }
+
+    private Tail seed(Long conversationId) {
+        String seedKey = SEED_PREFIX + conversationId;
+        String token = UUID.randomUUID().toString();
+        boolean seeding;
+        try {
+            // Đặt trước khi đọc DB: append nào tới sau điểm này đều huỷ lần seed
+            seeding = Boolean.TRUE.equals(
+                    redisTemplate.opsForValue().setIfAbsent(seedKey, token, Duration.ofSeconds(SEED_TTL_SECONDS)));
+        } catch (Exception e) {
+            log.warn("Seed message tail {} thất bại: {}", conversationId, e.getMessage());
+            seeding = false;
+        }
+
+        // Nội dung / URL của cả đuôi được giải mã theo lô
+        List<ChatItem> items = chatHistoryLoader.latest(conversationId, CAPACITY);
+        long total = messageRepository.countByConversationId(conversationId);
+
+        Tail tail = new Tail(total, items);
+        // Node khác đang seed, hoặc Redis lỗi: trả ảnh chụp cho lần đọc này, không ghi cache
+        if (!seeding) return tail;
+
+        try {
+            List<Object> args = new ArrayList<>();
+            args.add(token);
+            args.add(total);
+            args.add(TTL_SECONDS);
+            args.addAll(items);
+            Long installed = redisTemplate.execute(
+                    SEED_SCRIPT,
+                    List.of(TAIL_PREFIX + conversationId, COUNT_PREFIX + conversationId, seedKey),
+                    args.toArray()
+            );
+            if (installed != null && installed == 1) {
+                localTails.put(conversationId, tail);
+            }
+        } catch (Exception e) {
+            log.warn("Seed message tail {} thất bại: {}", conversationId, e.getMessage());
+        }
+        return tail;
+    }
+
+    // Giá trị đọc từ Redis là Map (Jackson không kèm type) -> convert về ChatItem, bỏ trùng và sắp xếp theo id giảm dần
+    private List<ChatItem> normalize(List<Object> rawItems) {
+        Map<Long, ChatItem> byId = new TreeMap<>(Comparator.reverseOrder());
+        for (Object raw : rawItems) {
+            ChatItem item = raw instanceof ChatItem chatItem ? chatItem : objectMapper.convertValue(raw, ChatItem.class);
+            byId.putIfAbsent(item.getMessage().getId(), item);
+        }
+        return List.copyOf(byId.values());
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.chat.service;
+
+import com.example.chat.entity.NotificationOutbox;
+import com.example.chat.firebase.FcmSendException;
+import com.example.chat.firebase.FcmService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Worker gửi push từ notification_outbox: một luồng điều phối nhận từng lô bản ghi và gửi bất đồng bộ
+ * qua FcmService, pool giới hạn WORKERS luồng ghi kết quả xuống DB.
+ * Được đánh thức ngay sau khi transaction ghi outbox commit, job định kỳ quét phần retry còn lại.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationDispatcher {
+
+    private final NotificationOutboxService notificationOutboxService;
+    private final FcmService fcmService;
+
+    private static final int BATCH_SIZE = 100;
+    private static final int WORKERS = 4;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean rerun = new AtomicBoolean();
+
+    private ThreadPoolTaskExecutor coordinator;
+    private ThreadPoolTaskExecutor workers;
+
+    @PostConstruct
+    public void init() {
+        coordinator = new ThreadPoolTaskExecutor();
+        coordinator.setCorePoolSize(1);
+        coordinator.setMaxPoolSize(1);
+        coordinator.setThreadNamePrefix("fcm-outbox-");
+        coordinator.initialize();
+
+        workers = new ThreadPoolTaskExecutor();
+        workers.setCorePoolSize(WORKERS);
+        workers.setMaxPoolSize(WORKERS);
+        workers.setQueueCapacity(BATCH_SIZE);
+        // Hàng đợi đầy thì luồng gọi tự ghi kết quả, không bỏ mất bản ghi nào
+        workers.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        workers.setThreadNamePrefix("fcm-outbox-result-");
+        workers.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdown();
+        workers.shutdown();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEnqueued(NotificationOutboxService.OutboxEnqueuedEvent event) {
+        wakeUp();
+    }
+
+    /**
+     * Yêu cầu quét outbox. Nếu đang quét thì chỉ đánh dấu để quét thêm một vòng.
+     */
+    public void wakeUp() {
+        rerun.set(true);
+        if (draining.compareAndSet(false, true)) {
+            coordinator.execute(this::drainLoop);
+        }
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private void drainLoop() {
+        try {
+            while (rerun.getAndSet(false)) {
+                drain();
+            }
+        } catch (Exception e) {
+            log.error("Quét notification outbox thất bại: {}", e.getMessage(), e);
+        } finally {
+            draining.set(false);
+        }
+        if (rerun.get()) {
+            wakeUp();
+        }
+    }
+
+    private void drain() {
+        List<NotificationOutbox> batch;
+        do {
+            batch = notificationOutboxService.claim(BATCH_SIZE);
+            // FcmService tự giới hạn số request đang bay; kết quả được ghi DB trên pool workers
+            CompletableFuture.allOf(batch.stream()
+                    .map(row -> fcmService.sendAsync(
+                                    row.getFcmToken(),
+                                    row.getTitle(),
+                                    row.getBody(),
+                                    Map.of("type", row.getType().name()))
+                            .handleAsync((ignored, error) -> {
+                                record(row, error instanceof CompletionException ? error.getCause() : error);
+                                return null;
+                            }, workers))
+                    .toArray(CompletableFuture[]::new)
+            ).join();
+        } while (batch.size() == BATCH_SIZE);
+    }
+
+    private void record(NotificationOutbox row, Throwable error) {
+        try {
+            if (error == null) {
+                notificationOutboxService.markSent(row);
+            } else if (error instanceof FcmSendException e && e.isUnregistered()) {
+                log.info("Xoá FCM token đã huỷ đăng ký của user {}", row.getUserId());
+                notificationOutboxService.markUnregistered(row);
+            } else {
+                // Lỗi mạng / lấy access token: coi là tạm thời
+                boolean retryable = !(error instanceof FcmSendException e) || e.isRetryable();
+                log.warn("Push FCM tới user {} thất bại (lần {}): {}", row.getUserId(), row.getAttempts(), error.getMessage());
+                notificationOutboxService.markFailed(row, error.getMessage(), retryable);
+            }
+        } catch (Exception e) {
+            // Bản ghi vẫn ở PROCESSING, sẽ được nhận lại khi hết lease
+            log.error("Ghi kết quả outbox {} thất bại: {}", row.getId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.chat.service;
+
+import com.example.chat.entity.DeviceToken;
+import com.example.chat.entity.Notification;
+import com.example.chat.entity.NotificationOutbox;
+import com.example.chat.enums.NotificationType;
+import com.example.chat.enums.OutboxStatus;
+import com.example.chat.repository.DeviceTokenRepository;
+import com.example.chat.repository.NotificationOutboxRepository;
+import com.example.chat.repository.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Lưu notification và outbox push trong cùng transaction của nghiệp vụ.
+ * Việc gọi FCM do NotificationDispatcher đảm nhận sau khi commit, nên latency đặt lịch
+ * không phụ thuộc vào FCM.
+ */
+@Service
+@RequiredArgsConstructor
+public class NotificationOutboxService {
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final DeviceTokenRepository deviceTokenRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public static final int MAX_ATTEMPTS = 6;
+    // Thời gian giữ lock một bản ghi đang gửi, quá hạn (node chết) thì được nhận lại
+    private static final Duration LEASE = Duration.ofMinutes(2);
+    private static final Duration BASE_BACKOFF = Duration.ofSeconds(10);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(30);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    /**
+     * Phát ra sau khi có bản ghi outbox mới, dispatcher nhận sau commit.
+     */
+    public record OutboxEnqueuedEvent(int count) {
+    }
+
+    @Transactional
+    public void saveAndEnqueue(Long userId, String title, String body, NotificationType type) {
+        Notification noti = notificationRepository.save(Notification.builder()
+                .userId(userId)
+                .title(title)
+                .body(body)
+                .type(type)
+                .isRead(false)
+                .build());
+
+        List<DeviceToken> tokens = deviceTokenRepository.findByUserId(userId);
+        if (tokens.isEmpty()) return;
+
+        notificationOutboxRepository.saveAll(tokens.stream()
+                .map(token -> NotificationOutbox.builder()
+                        .notificationId(noti.getId())
+                        .userId(userId)
+                        .fcmToken(token.getFcmToken())
+                        .title(title)
+                        .body(body)
+                        .type(type)
+                        .build())
+                .toList());
+
+        eventPublisher.publishEvent(new OutboxEnqueuedEvent(tokens.size()));
+    }
+
+    /**
+     * Nhận tối đa limit bản ghi đến hạn gửi và khoá chúng trong LEASE.
+     */
+    @Transactional
+    public List<NotificationOutbox> claim(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<NotificationOutbox> rows = notificationOutboxRepository.findClaimable(now, limit);
+        if (rows.isEmpty()) return rows;
+
+        List<Long> ids = rows.stream().map(NotificationOutbox::getId).toList();
+        notificationOutboxRepository.markProcessing(ids, now.plus(LEASE));
+        // Đọc lại sau UPDATE để status / attempts / next_attempt_at khớp với DB
+        return notificationOutboxRepository.findAllById(ids);
+    }
+
+    public void markSent(NotificationOutbox row) {
+        notificationOutboxRepository.deleteById(row.getId());
+    }
+
+    /**
+     * Token đã bị gỡ: xoá token khỏi device_tokens và bỏ bản ghi outbox.
+     */
+    public void markUnregistered(NotificationOutbox row) {
+        deviceTokenRepository.deleteByFcmToken(row.getFcmToken());
+        notificationOutboxRepository.deleteById(row.getId());
+    }
+
+    /**
+     * Lỗi tạm thời thì lùi lịch theo cấp số nhân; hết lượt hoặc lỗi vĩnh viễn thì đánh dấu FAILED.
+     */
+    public void markFailed(NotificationOutbox row, String error, boolean retryable) {
+        String trimmed = error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+
+        if (!retryable || row.getAttempts() >= MAX_ATTEMPTS) {
+            notificationOutboxRepository.updateOutcome(row.getId(), OutboxStatus.FAILED, LocalDateTime.now(), trimmed);
+            return;
+        }
+
+        long factor = 1L << Math.min(row.getAttempts() - 1, 16);
+        Duration backoff = BASE_BACKOFF.multipliedBy(factor);
+        if (backoff.compareTo(MAX_BACKOFF) > 0) {
+            backoff = MAX_BACKOFF;
+        }
+        notificationOutboxRepository.updateOutcome(
+                row.getId(), OutboxStatus.PENDING, LocalDateTime.now().plus(backoff), trimmed
+        );
+    }
+}
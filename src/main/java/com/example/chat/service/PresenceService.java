@@ -0,0 +1,265 @@
+package com.example.chat.service;
+
+import com.example.chat.dto.OnlineUsersRequest;
+import com.example.chat.dto.PresencePayload;
+import com.example.chat.dto.PresenceSnapshot;
+import com.example.chat.repository.AppointmentRepository;
+import com.example.chat.repository.ConversationInboxRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Trạng thái online dùng chung giữa các node, lưu trên Redis:
+ * - presence:sessions:{userId}: tập "nodeId:sessionId" đang mở (nhiều tab = nhiều session)
+ * - presence:last-seen: hash userId -> thời điểm offline gần nhất
+ * Chỉ phát delta join/leave lên /topic/presence/{userId} khi số session chuyển 0 -> 1 hoặc 1 -> 0.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PresenceService {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ConversationInboxRepository conversationInboxRepository;
+    private final AppointmentRepository appointmentRepository;
+
+    public static final String PRESENCE_TOPIC = "/topic/presence/";
+
+    private static final String SESSIONS_PREFIX = "presence:sessions:";
+    private static final String LAST_SEEN_KEY = "presence:last-seen";
+    private static final String NODES_KEY = "presence:nodes";
+    private static final String NODE_PREFIX = "presence:node:";
+    private static final String NODE_USERS_SUFFIX = ":users";
+    private static final Duration NODE_TTL = Duration.ofSeconds(90);
+    private static final int MAX_PAGE_SIZE = 200;
+
+    // Trả về 1 nếu đây là session đầu tiên của user
+    private static final RedisScript<Long> JOIN_SCRIPT = new DefaultRedisScript<>("""
+            local added = redis.call('SADD', KEYS[1], ARGV[1])
+            redis.call('SADD', KEYS[2], ARGV[2])
+            if added == 1 and redis.call('SCARD', KEYS[1]) == 1 then
+                return 1
+            end
+            return 0
+            """, Long.class);
+
+    // Trả về 1 nếu vừa đóng session cuối cùng của user.
+    // Hết session trên node của member (phần trước dấu ':' đầu tiên) thì bỏ user khỏi presence:node:{id}:users
+    private static final RedisScript<Long> LEAVE_SCRIPT = new DefaultRedisScript<>("""
+            local removed = redis.call('SREM', KEYS[1], ARGV[1])
+            if removed == 0 then
+                return 0
+            end
+            local prefix = string.match(ARGV[1], '^[^:]*:')
+            local onNode = false
+            if prefix then
+                for _, session in ipairs(redis.call('SMEMBERS', KEYS[1])) do
+                    if string.sub(session, 1, #prefix) == prefix then
+                        onNode = true
+                        break
+                    end
+                end
+            end
+            if not onNode then
+                redis.call('SREM', KEYS[3], ARGV[2])
+            end
+            if redis.call('SCARD', KEYS[1]) == 0 then
+                redis.call('HSET', KEYS[2], ARGV[2], ARGV[3])
+                return 1
+            end
+            return 0
+            """, Long.class);
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @PostConstruct
+    public void init() {
+        try {
+            heartbeat();
+        } catch (Exception e) {
+            log.warn("Đăng ký presence node {} thất bại: {}", nodeId, e.getMessage());
+        }
+    }
+
+    public void connect(Long userId, String sessionId) {
+        Long first = redisTemplate.execute(
+                JOIN_SCRIPT,
+                List.of(SESSIONS_PREFIX + userId, NODE_PREFIX + nodeId + NODE_USERS_SUFFIX),
+                member(nodeId, sessionId), userId
+        );
+
+        if (Long.valueOf(1).equals(first)) {
+            publish(new PresencePayload(userId, true, null));
+        }
+    }
+
+    public void disconnect(Long userId, String sessionId) {
+        leave(userId, nodeId, sessionId);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * true nếu user còn session mở trên node khác (dùng để quyết định có cần relay tin nhắn hay không).
+     */
+    public boolean hasRemoteSessions(Long userId) {
+        Set<Object> sessions = redisTemplate.opsForSet().members(SESSIONS_PREFIX + userId);
+        if (sessions == null) return false;
+
+        String localPrefix = nodeId + ":";
+        return sessions.stream().anyMatch(session -> !session.toString().startsWith(localPrefix));
+    }
+
+    /**
+     * Ảnh chụp trạng thái của các user được yêu cầu (mặc định: mọi liên hệ), có phân trang.
+     * Chỉ trả về user là liên hệ của requester, các id khác trong request bị bỏ qua.
+     */
+    public PresenceSnapshot snapshot(Long requesterId, OnlineUsersRequest request) {
+        Set<Long> contacts = contactIds(requesterId);
+        List<Long> userIds = request != null && request.getUserIds() != null && !request.getUserIds().isEmpty()
+                ? request.getUserIds().stream().distinct().filter(contacts::contains).toList()
+                : new ArrayList<>(contacts);
+
+        int page = request != null ? Math.max(request.getPage(), 0) : 0;
+        int size = request != null ? Math.min(Math.max(request.getSize(), 1), MAX_PAGE_SIZE) : 50;
+
+        int from = Math.min(page * size, userIds.size());
+        int to = Math.min(from + size, userIds.size());
+        List<Long> pageIds = userIds.subList(from, to);
+
+        return PresenceSnapshot.builder()
+                .page(page)
+                .size(size)
+                .totalElements(userIds.size())
+                .data(lookup(pageIds))
+                .build();
+    }
+
+    /**
+     * Liên hệ của một user: partner trong inbox và đối tác lịch hẹn. Chỉ liên hệ mới được xem trạng thái online.
+     */
+    public Set<Long> contactIds(Long accountId) {
+        Set<Long> contacts = new LinkedHashSet<>(conversationInboxRepository.findPartnerIds(accountId));
+        contacts.addAll(appointmentRepository.findCounterpartIds(accountId));
+        return contacts;
+    }
+
+    /**
+     * viewerId có được theo dõi /topic/presence/{targetId} không (chính mình hoặc là liên hệ).
+     */
+    public boolean canWatch(Long viewerId, Long targetId) {
+        return viewerId.equals(targetId)
+                || conversationInboxRepository.existsById_AccountIdAndPartner_Id(viewerId, targetId)
+                || appointmentRepository.existsBetween(viewerId, targetId);
+    }
+
+    /**
+     * Gia hạn node hiện tại và dọn session của các node đã chết (không gia hạn quá NODE_TTL).
+     */
+    public void heartbeat() {
+        redisTemplate.opsForValue().set(NODE_PREFIX + nodeId, System.currentTimeMillis(), NODE_TTL);
+        redisTemplate.opsForSet().add(NODES_KEY, nodeId);
+
+        Set<Object> nodes = redisTemplate.opsForSet().members(NODES_KEY);
+        if (nodes == null) return;
+
+        for (Object node : nodes) {
+            String otherNode = node.toString();
+            if (otherNode.equals(nodeId) || Boolean.TRUE.equals(redisTemplate.hasKey(NODE_PREFIX + otherNode))) {
+                continue;
+            }
+            pruneNode(otherNode);
+        }
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private void pruneNode(String deadNode) {
+        String usersKey = NODE_PREFIX + deadNode + NODE_USERS_SUFFIX;
+        Set<Object> users = redisTemplate.opsForSet().members(usersKey);
+
+        if (users != null) {
+            String prefix = deadNode + ":";
+            for (Object user : users) {
+                Long userId = ((Number) user).longValue();
+                Set<Object> sessions = redisTemplate.opsForSet().members(SESSIONS_PREFIX + userId);
+                if (sessions == null) continue;
+
+                sessions.stream()
+                        .map(Object::toString)
+                        .filter(session -> session.startsWith(prefix))
+                        .forEach(session -> leave(userId, deadNode, session.substring(prefix.length())));
+            }
+        }
+
+        redisTemplate.delete(usersKey);
+        redisTemplate.opsForSet().remove(NODES_KEY, deadNode);
+        log.info("Đã dọn presence của node {}", deadNode);
+    }
+
+    private void leave(Long userId, String node, String sessionId) {
+        long now = System.currentTimeMillis();
+        Long last = redisTemplate.execute(
+                LEAVE_SCRIPT,
+                List.of(SESSIONS_PREFIX + userId, LAST_SEEN_KEY, NODE_PREFIX + node + NODE_USERS_SUFFIX),
+                member(node, sessionId), userId, now
+        );
+
+        if (Long.valueOf(1).equals(last)) {
+            publish(new PresencePayload(userId, false, now));
+        }
+    }
+
+    private List<PresencePayload> lookup(List<Long> userIds) {
+        if (userIds.isEmpty()) return List.of();
+
+        @SuppressWarnings("unchecked")
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+
+        List<Object> sessionCounts = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long userId : userIds) {
+                connection.setCommands().sCard(keySerializer.serialize(SESSIONS_PREFIX + userId));
+            }
+            return null;
+        });
+
+        List<Object> lastSeen = redisTemplate.<String, Object>opsForHash().multiGet(
+                LAST_SEEN_KEY,
+                userIds.stream().map(String::valueOf).toList()
+        );
+
+        List<PresencePayload> result = new ArrayList<>(userIds.size());
+        for (int i = 0; i < userIds.size(); i++) {
+            Object count = sessionCounts.get(i);
+            Object seen = lastSeen.get(i);
+            result.add(new PresencePayload(
+                    userIds.get(i),
+                    count instanceof Number number && number.longValue() > 0,
+                    seen instanceof Number number ? number.longValue() : null
+            ));
+        }
+        return result;
+    }
+
+    private void publish(PresencePayload payload) {
+        messagingTemplate.convertAndSend(PRESENCE_TOPIC + payload.getUserId(), payload);
+    }
+
+    private String member(String node, String sessionId) {
+        return node + ":" + sessionId;
+    }
+}
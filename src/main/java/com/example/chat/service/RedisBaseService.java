@@ -1,9 +1,13 @@
 package com.example.chat.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -48,4 +52,26 @@ public class RedisBaseService {
     public boolean isTokenBlacklisted(String token) {
         return redisTemplate.hasKey(BLACKLIST_PREFIX + token);
     }
+
+    /**
+     * Lấy toàn bộ token đang bị blacklist kèm TTL còn lại (milliseconds)
+     */
+    public Map<String, Long> findBlacklistedTokens() {
+        Map<String, Long> result = new HashMap<>();
+        ScanOptions options = ScanOptions.scanOptions()
+                .match(BLACKLIST_PREFIX + "*")
+                .count(500)
+                .build();
+
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                String key = cursor.next();
+                Long ttl = redisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
+                if (ttl != null && ttl > 0) {
+                    result.put(key.substring(BLACKLIST_PREFIX.length()), ttl);
+                }
+            }
+        }
+        return result;
+    }
 }
\ No newline at end of file
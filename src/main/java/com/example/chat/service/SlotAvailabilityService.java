@@ -0,0 +1,424 @@
+package com.example.chat.service;
+
+import com.example.chat.repository.AppointmentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Bitmap slot đã đặt theo (bác sĩ, ngày): bit i = FIXED_SLOTS[i] đã có lịch chưa huỷ.
+ * Tầng Redis: hash appointment:slots:{doctorId}, field = ngày (ISO), value = mask.
+ * Tầng JVM giữ mask trong LOCAL_TTL_MS để trang xem lịch tuần không phải gọi Redis liên tục.
+ * Bitmap được cập nhật sau khi commit đặt / huỷ / đổi lịch, job reconcile đối chiếu lại với bảng appointments.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SlotAvailabilityService {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final AppointmentRepository appointmentRepository;
+
+    // Danh sách slot cố định trong ngày
+    public static final List<LocalTime> FIXED_SLOTS = List.of(
+            LocalTime.of(9, 0),
+            LocalTime.of(9, 30),
+            LocalTime.of(10, 0),
+            LocalTime.of(10, 30),
+            LocalTime.of(11, 0),
+            LocalTime.of(11, 30),
+            LocalTime.of(14, 0),
+            LocalTime.of(14, 30),
+            LocalTime.of(15, 0),
+            LocalTime.of(15, 30),
+            LocalTime.of(16, 0),
+            LocalTime.of(16, 30)
+    );
+
+    public static final int MAX_RANGE_DAYS = 31;
+    private static final int RECONCILE_DAYS = 30;
+    private static final int RECONCILE_BATCH = 200;
+
+    private static final String SLOTS_PREFIX = "appointment:slots:";
+    private static final String DOCTORS_KEY = "appointment:slots:doctors";
+    // Đánh dấu đang seed (giá trị = token của lần seed), đặt trước khi đọc DB
+    private static final String SEED_PREFIX = "appointment:slots:seed:";
+    private static final long SEED_TTL_SECONDS = 10;
+    private static final Duration TTL = Duration.ofDays(14);
+
+    private static final long LOCAL_TTL_MS = 5_000;
+    private static final int LOCAL_ENTRIES = 10_000;
+
+    // Chỉ sửa mask đã được seed; chưa có thì lần đọc sau tự seed từ DB.
+    // Đặt / huỷ lịch khi đang seed thì huỷ lần seed đó: ảnh chụp DB có thể đã được đọc trước thay đổi này
+    private static final RedisScript<Long> UPDATE_SCRIPT = new DefaultRedisScript<>("""
+            local current = redis.call('HGET', KEYS[1], ARGV[1])
+            if not current then
+                redis.call('DEL', KEYS[2])
+                return -1
+            end
+            local mask = tonumber(current)
+            local slot = tonumber(ARGV[2])
+            if ARGV[3] == '1' then
+                mask = bit.bor(mask, slot)
+            else
+                mask = bit.band(mask, bit.bnot(slot))
+            end
+            redis.call('HSET', KEYS[1], ARGV[1], mask)
+            return mask
+            """, Long.class);
+
+    // Reconcile: chỉ ghi đè nếu mask chưa bị thay đổi kể từ lúc đọc
+    private static final RedisScript<Long> COMPARE_AND_SET_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('HGET', KEYS[1], ARGV[1]) == ARGV[2] then
+                redis.call('HSET', KEYS[1], ARGV[1], ARGV[3])
+                return 1
+            end
+            return 0
+            """, Long.class);
+
+    // KEYS: hash, seed. ARGV: token, ttl, (ngày, mask)...
+    // Chỉ ghi nếu lần seed còn hiệu lực (không có cập nhật nào xen vào), và chỉ điền field còn thiếu (HSETNX).
+    // Trả về {1 | 0 (đã ghi hay chưa), giá trị đang lưu của từng ngày...}
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final RedisScript<List> SEED_SCRIPT = new DefaultRedisScript<>("""
+            local installed = 0
+            if redis.call('GET', KEYS[2]) == ARGV[1] then
+                for i = 3, #ARGV, 2 do
+                    redis.call('HSETNX', KEYS[1], ARGV[i], ARGV[i + 1])
+                end
+                redis.call('EXPIRE', KEYS[1], ARGV[2])
+                redis.call('DEL', KEYS[2])
+                installed = 1
+            end
+            local stored = {tostring(installed)}
+            for i = 3, #ARGV, 2 do
+                stored[#stored + 1] = redis.call('HGET', KEYS[1], ARGV[i])
+            end
+            return stored
+            """, List.class);
+
+    private record LocalMask(int mask, long loadedAt) {
+    }
+
+    private final Map<String, LocalMask> localMasks = Collections.synchronizedMap(
+            new LinkedHashMap<>(1024, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, LocalMask> eldest) {
+                    return size() > LOCAL_ENTRIES;
+                }
+            }
+    );
+
+    public static boolean isWeekend(LocalDate date) {
+        return date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY;
+    }
+
+    public List<LocalTime> getAvailableSlots(Long doctorId, LocalDate date) {
+        return freeSlots(getMasks(doctorId, List.of(date), true).get(date));
+    }
+
+    /**
+     * Slot còn trống của từng ngày làm việc trong [from, to], bỏ qua cuối tuần.
+     */
+    public Map<LocalDate, List<LocalTime>> getAvailableSlots(Long doctorId, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Khoảng ngày không hợp lệ");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Chỉ được xem tối đa " + MAX_RANGE_DAYS + " ngày");
+        }
+
+        List<LocalDate> dates = from.datesUntil(to.plusDays(1))
+                .filter(date -> !isWeekend(date))
+                .toList();
+
+        Map<LocalDate, Integer> masks = getMasks(doctorId, dates, true);
+        Map<LocalDate, List<LocalTime>> result = new LinkedHashMap<>();
+        for (LocalDate date : dates) {
+            result.put(date, freeSlots(masks.get(date)));
+        }
+        return result;
+    }
+
+    /**
+     * Kiểm tra nhanh trước khi đặt lịch. Bỏ qua tầng JVM để không từ chối nhầm slot vừa được huỷ ở node khác.
+     */
+    public boolean isBooked(Long doctorId, LocalDate date, LocalTime time) {
+        int index = FIXED_SLOTS.indexOf(time);
+        if (index < 0) return false;
+
+        Integer mask = getMasks(doctorId, List.of(date), false).get(date);
+        return mask != null && (mask & (1 << index)) != 0;
+    }
+
+    public void markBooked(Long doctorId, LocalDate date, LocalTime time) {
+        afterCommit(() -> update(doctorId, date, time, true));
+    }
+
+    public void markReleased(Long doctorId, LocalDate date, LocalTime time) {
+        afterCommit(() -> update(doctorId, date, time, false));
+    }
+
+    /**
+     * Đối chiếu bitmap của các bác sĩ đang được cache với bảng appointments trong RECONCILE_DAYS ngày tới.
+     * Trả về số mask bị lệch đã được sửa.
+     */
+    public int reconcile() {
+        Set<Object> members = redisTemplate.opsForSet().members(DOCTORS_KEY);
+        if (members == null || members.isEmpty()) return 0;
+
+        List<Long> doctorIds = members.stream().map(id -> ((Number) id).longValue()).toList();
+        LocalDate today = LocalDate.now();
+        LocalDate until = today.plusDays(RECONCILE_DAYS);
+        int fixed = 0;
+
+        for (int start = 0; start < doctorIds.size(); start += RECONCILE_BATCH) {
+            List<Long> batch = doctorIds.subList(start, Math.min(start + RECONCILE_BATCH, doctorIds.size()));
+
+            // Đọc Redis trước rồi mới đọc DB: cập nhật xen giữa sẽ làm CAS thất bại thay vì bị ghi đè
+            Map<Long, Map<Object, Object>> cached = new HashMap<>();
+            for (Long doctorId : batch) {
+                cached.put(doctorId, redisTemplate.opsForHash().entries(SLOTS_PREFIX + doctorId));
+            }
+
+            Map<Long, Map<LocalDate, Integer>> expected = new HashMap<>();
+            for (Object[] row : appointmentRepository.findBookedSlotsBetween(batch, today, until)) {
+                int index = FIXED_SLOTS.indexOf((LocalTime) row[2]);
+                if (index < 0) continue;
+                expected.computeIfAbsent((Long) row[0], id -> new HashMap<>())
+                        .merge((LocalDate) row[1], 1 << index, (a, b) -> a | b);
+            }
+
+            for (Long doctorId : batch) {
+                String key = SLOTS_PREFIX + doctorId;
+                Map<Object, Object> entries = cached.get(doctorId);
+                if (entries.isEmpty()) {
+                    // Hash đã hết hạn
+                    redisTemplate.opsForSet().remove(DOCTORS_KEY, doctorId);
+                    continue;
+                }
+
+                Map<LocalDate, Integer> expectedMasks = expected.getOrDefault(doctorId, Map.of());
+                for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+                    LocalDate date = LocalDate.parse(entry.getKey().toString());
+                    if (date.isBefore(today)) {
+                        redisTemplate.opsForHash().delete(key, entry.getKey());
+                        continue;
+                    }
+                    if (date.isAfter(until)) continue;
+
+                    int actual = ((Number) entry.getValue()).intValue();
+                    int wanted = expectedMasks.getOrDefault(date, 0);
+                    if (actual != wanted && compareAndSet(key, date, actual, wanted)) {
+                        localMasks.remove(localKey(doctorId, date));
+                        fixed++;
+                    }
+                }
+            }
+        }
+
+        if (fixed > 0) {
+            log.warn("Reconcile slot bitmap: sửa {} mask bị lệch", fixed);
+        }
+        return fixed;
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private Map<LocalDate, Integer> getMasks(Long doctorId, List<LocalDate> dates, boolean useLocal) {
+        Map<LocalDate, Integer> result = new HashMap<>();
+        List<LocalDate> remaining = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        for (LocalDate date : dates) {
+            LocalMask local = useLocal ? localMasks.get(localKey(doctorId, date)) : null;
+            if (local != null && now - local.loadedAt() < LOCAL_TTL_MS) {
+                result.put(date, local.mask());
+            } else {
+                remaining.add(date);
+            }
+        }
+        if (remaining.isEmpty()) return result;
+
+        List<LocalDate> missing = remaining;
+        try {
+            List<Object> cached = redisTemplate.opsForHash().multiGet(
+                    SLOTS_PREFIX + doctorId,
+                    remaining.stream().map(date -> (Object) date.toString()).toList()
+            );
+            missing = new ArrayList<>();
+            for (int i = 0; i < remaining.size(); i++) {
+                if (cached.get(i) instanceof Number mask) {
+                    putLocal(doctorId, remaining.get(i), mask.intValue(), now);
+                    result.put(remaining.get(i), mask.intValue());
+                } else {
+                    missing.add(remaining.get(i));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Đọc slot bitmap của bác sĩ {} từ Redis thất bại: {}", doctorId, e.getMessage());
+        }
+
+        if (!missing.isEmpty()) {
+            result.putAll(seed(doctorId, missing, now));
+        }
+        return result;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private Map<LocalDate, Integer> seed(Long doctorId, List<LocalDate> dates, long now) {
+        String seedKey = SEED_PREFIX + doctorId;
+        String token = UUID.randomUUID().toString();
+        boolean seeding;
+        try {
+            // Đặt trước khi đọc DB: cập nhật nào commit sau điểm này đều huỷ lần seed
+            seeding = Boolean.TRUE.equals(redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                    connection.stringCommands().set(
+                            RedisSerializer.string().serialize(seedKey),
+                            RedisSerializer.string().serialize(token),
+                            Expiration.seconds(SEED_TTL_SECONDS),
+                            RedisStringCommands.SetOption.ifAbsent()
+                    )));
+        } catch (Exception e) {
+            log.warn("Seed slot bitmap của bác sĩ {} thất bại: {}", doctorId, e.getMessage());
+            seeding = false;
+        }
+
+        LocalDate from = Collections.min(dates);
+        LocalDate to = Collections.max(dates);
+
+        Map<LocalDate, Integer> masks = new HashMap<>();
+        dates.forEach(date -> masks.put(date, 0));
+        for (Object[] row : appointmentRepository.findBookedSlotsBetween(List.of(doctorId), from, to)) {
+            int index = FIXED_SLOTS.indexOf((LocalTime) row[2]);
+            LocalDate date = (LocalDate) row[1];
+            if (index >= 0 && masks.containsKey(date)) {
+                masks.merge(date, 1 << index, (a, b) -> a | b);
+            }
+        }
+
+        // Node khác đang seed, hoặc Redis lỗi: trả ảnh chụp cho lần đọc này, không ghi cache
+        if (!seeding) return masks;
+
+        try {
+            List<LocalDate> ordered = new ArrayList<>(masks.keySet());
+            List<String> args = new ArrayList<>(2 + ordered.size() * 2);
+            args.add(token);
+            args.add(String.valueOf(TTL.toSeconds()));
+            for (LocalDate date : ordered) {
+                args.add(date.toString());
+                args.add(String.valueOf(masks.get(date)));
+            }
+            List<?> stored = redisTemplate.execute(
+                    SEED_SCRIPT,
+                    RedisSerializer.string(),
+                    (RedisSerializer) RedisSerializer.string(),
+                    List.of(SLOTS_PREFIX + doctorId, seedKey),
+                    args.toArray()
+            );
+            if (stored == null || stored.isEmpty()) return masks;
+
+            // Field đã có sẵn (node khác seed / cập nhật trước) thì dùng giá trị trong Redis
+            for (int i = 0; i < ordered.size() && i + 1 < stored.size(); i++) {
+                if (stored.get(i + 1) != null) {
+                    masks.put(ordered.get(i), Integer.parseInt(stored.get(i + 1).toString()));
+                }
+            }
+            // Chỉ giữ ở tầng JVM khi đã ghi; lần seed bị huỷ thì ảnh chụp có thể đã cũ
+            if ("1".equals(String.valueOf(stored.get(0)))) {
+                masks.forEach((date, mask) -> putLocal(doctorId, date, mask, now));
+                redisTemplate.opsForSet().add(DOCTORS_KEY, doctorId);
+            }
+        } catch (Exception e) {
+            log.warn("Seed slot bitmap của bác sĩ {} thất bại: {}", doctorId, e.getMessage());
+        }
+        return masks;
+    }
+
+    private void update(Long doctorId, LocalDate date, LocalTime time, boolean booked) {
+        int index = FIXED_SLOTS.indexOf(time);
+        if (index < 0) return;
+
+        localMasks.remove(localKey(doctorId, date));
+        try {
+            Long mask = redisTemplate.execute(
+                    UPDATE_SCRIPT,
+                    RedisSerializer.string(),
+                    null,
+                    List.of(SLOTS_PREFIX + doctorId, SEED_PREFIX + doctorId),
+                    date.toString(), String.valueOf(1 << index), booked ? "1" : "0"
+            );
+            if (mask != null && mask >= 0) {
+                putLocal(doctorId, date, mask.intValue(), System.currentTimeMillis());
+            }
+        } catch (Exception e) {
+            // Xoá field để lần đọc sau seed lại từ DB
+            log.warn("Cập nhật slot bitmap của bác sĩ {} thất bại: {}", doctorId, e.getMessage());
+            try {
+                redisTemplate.opsForHash().delete(SLOTS_PREFIX + doctorId, date.toString());
+            } catch (Exception ignored) {
+                // Redis không khả dụng, reconcile sẽ sửa
+            }
+        }
+    }
+
+    private boolean compareAndSet(String key, LocalDate date, int expected, int value) {
+        Long result = redisTemplate.execute(
+                COMPARE_AND_SET_SCRIPT,
+                RedisSerializer.string(),
+                null,
+                List.of(key),
+                date.toString(), String.valueOf(expected), String.valueOf(value)
+        );
+        return Long.valueOf(1).equals(result);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private List<LocalTime> freeSlots(Integer mask) {
+        int booked = mask != null ? mask : 0;
+        List<LocalTime> available = new ArrayList<>(FIXED_SLOTS.size());
+        for (int i = 0; i < FIXED_SLOTS.size(); i++) {
+            if ((booked & (1 << i)) == 0) {
+                available.add(FIXED_SLOTS.get(i));
+            }
+        }
+        return available;
+    }
+
+    private void putLocal(Long doctorId, LocalDate date, int mask, long loadedAt) {
+        localMasks.put(localKey(doctorId, date), new LocalMask(mask, loadedAt));
+    }
+
+    private String localKey(Long doctorId, LocalDate date) {
+        return doctorId + ":" + date;
+    }
+}
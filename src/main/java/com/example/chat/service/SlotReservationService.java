@@ -0,0 +1,85 @@
+package com.example.chat.service;
+
+import com.example.chat.exception.ConflictException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Giữ chỗ slot bằng Redis SET NX EX: chỉ một request được đi tiếp tới bước insert,
+ * các request tranh chấp bị từ chối ngay. Giữ chỗ được trả lại khi transaction kết thúc;
+ * partial unique index uq_appointments_active_slot vẫn là chốt chặn cuối cùng nếu Redis không khả dụng.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SlotReservationService {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private static final String RESERVE_PREFIX = "appointment:reserve:";
+    // Đủ dài cho một transaction đặt lịch (kể cả gọi ZaloPay), tự hết hạn nếu node chết
+    private static final Duration RESERVATION_TTL = Duration.ofSeconds(30);
+
+    // Chỉ xoá khi vẫn là giữ chỗ của mình (tránh xoá giữ chỗ của request khác sau khi TTL hết)
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    /**
+     * Giữ slot cho đến hết transaction hiện tại.
+     * @throws ConflictException nếu slot đang được request khác giữ
+     */
+    public void reserve(Long doctorId, LocalDate date, LocalTime time) {
+        String key = RESERVE_PREFIX + doctorId + ":" + date + ":" + time;
+        String token = UUID.randomUUID().toString();
+
+        Boolean acquired;
+        try {
+            acquired = redisTemplate.opsForValue().setIfAbsent(key, token, RESERVATION_TTL);
+        } catch (Exception e) {
+            // Redis lỗi: để unique index quyết định
+            log.warn("Giữ chỗ slot {} thất bại, dùng unique index: {}", key, e.getMessage());
+            return;
+        }
+
+        if (!Boolean.TRUE.equals(acquired)) {
+            throw new ConflictException("Slot đang được người khác đặt, vui lòng chọn slot khác!");
+        }
+
+        releaseAfterCompletion(key, token);
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private void releaseAfterCompletion(String key, String token) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return; // Không có transaction: để TTL tự giải phóng
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    redisTemplate.execute(RELEASE_SCRIPT, List.of(key), token);
+                } catch (Exception e) {
+                    log.warn("Trả giữ chỗ slot {} thất bại: {}", key, e.getMessage());
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.chat.service;
+
+import com.example.chat.config.TrendingProperties;
+import com.example.chat.entity.Article;
+import com.example.chat.enums.ArticleStatus;
+import com.example.chat.enums.DeletionTarget;
+import com.example.chat.repository.ArticleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Bảng bài viết thịnh hành trên Redis ZSET. Điểm giảm dần theo tuổi bài với chu kỳ bán rã halfLife:
+ * trending = ln(1 + E) - tuổi / tau, tau = halfLife / ln 2. Vì "- now / tau" như nhau với mọi bài,
+ * ZSET lưu ln(1 + E) + createdAt / tau nên điểm của một bài chỉ đổi khi chính bài đó có vote / comment mới,
+ * không cần chấm lại cả bảng theo thời gian.
+ * Member ghi dạng chuỗi thô (không qua serializer JSON của template), giống bảng xếp hạng bác sĩ.
+ * Đọc top chỉ tốn ZREVRANGE; TrendingRebuildJob dựng lại từ articles để thêm bài mới vào cửa sổ và bỏ bài quá cũ.
+ * touch / remove ghi thời điểm vào ZSET "touched"; rebuild chép lại điểm của các bài được chạm trong lúc dựng
+ * sang bảng mới ngay trước RENAME (cùng một script) nên không mất cập nhật xen giữa lúc đọc DB và lúc thay bảng.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrendingArticleService {
+
+    private static final String KEY = "trending:articles";
+    // member = id bài, score = thời điểm (ms) touch / remove gần nhất
+    private static final String TOUCHED_KEY = KEY + ":touched";
+    // Bù lệch đồng hồ giữa các node khi so thời điểm touch với lúc bắt đầu rebuild
+    private static final Duration CLOCK_SKEW = Duration.ofMinutes(1);
+
+    // KEYS[1] = bảng, KEYS[2] = bảng tạm, KEYS[3] = touched. ARGV: mốc bắt đầu rebuild (ms), maxSize.
+    // Bài được chạm sau mốc: lấy điểm đang có trên bảng (không còn trên bảng = đã bị remove), rồi thay bảng
+    private static final RedisScript<Long> SWAP_SCRIPT = new DefaultRedisScript<>("""
+            local touched = redis.call('ZRANGEBYSCORE', KEYS[3], ARGV[1], '+inf')
+            for _, member in ipairs(touched) do
+                local score = redis.call('ZSCORE', KEYS[1], member)
+                if score then
+                    redis.call('ZADD', KEYS[2], score, member)
+                else
+                    redis.call('ZREM', KEYS[2], member)
+                end
+            end
+            redis.call('ZREMRANGEBYSCORE', KEYS[3], '-inf', '(' .. ARGV[1])
+            if redis.call('EXISTS', KEYS[2]) == 0 then
+                redis.call('DEL', KEYS[1])
+                return 0
+            end
+            redis.call('ZREMRANGEBYRANK', KEYS[2], 0, -(tonumber(ARGV[2]) + 1))
+            redis.call('RENAME', KEYS[2], KEYS[1])
+            return redis.call('ZCARD', KEYS[1])
+            """, Long.class);
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ArticleRepository articleRepository;
+    private final VoteCounterService voteCounterService;
+    private final TrendingProperties properties;
+
+    // size: kích thước trang sau khi giới hạn theo maxPageSize
+    public record Page(List<Long> articleIds, int size, long total) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("Dựng bảng bài viết thịnh hành khi khởi động thất bại: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Id bài viết của một trang, theo thứ tự thịnh hành. Redis lỗi thì trả về trang rỗng.
+     * total là ZCARD của bảng nên chỉ gần đúng: bảng còn có thể chứa bài đã xoá / không còn công khai
+     * (bị bỏ khi đọc tới) và bài quá cửa sổ chưa được rebuild dọn.
+     */
+    public Page page(int page, int size) {
+        int count = Math.min(Math.max(size, 1), properties.getMaxPageSize());
+        long start = (long) Math.max(page, 0) * count;
+
+        try {
+            Set<Object> members = redisTemplate.opsForZSet().reverseRange(KEY, start, start + count - 1);
+            Long total = redisTemplate.opsForZSet().zCard(KEY);
+
+            List<Long> ids = new ArrayList<>();
+            if (members != null) {
+                members.forEach(member -> ids.add(Long.valueOf(String.valueOf(member))));
+            }
+            return new Page(ids, count, total != null ? total : 0);
+        } catch (Exception e) {
+            log.warn("Đọc bảng bài viết thịnh hành thất bại: {}", e.getMessage());
+            return new Page(List.of(), count, 0);
+        }
+    }
+
+    /**
+     * Chấm lại điểm một bài sau khi transaction có vote / comment / bài mới commit.
+     * Gọi sau VoteCounterService.addAfterCommit để đọc được số vote đã cộng.
+     */
+    public void touch(Article article) {
+        Long articleId = article.getId();
+        ArticleStatus status = article.getStatus();
+        LocalDateTime createdAt = article.getCreatedAt();
+        long comments = article.getCommentCount() != null ? article.getCommentCount() : 0;
+        long shares = article.getShareCount() != null ? article.getShareCount() : 0;
+        long persistedVotes = article.getVoteCount() != null ? article.getVoteCount() : 0;
+
+        afterCommit(() -> {
+            try {
+                if (status != ArticleStatus.PUBLIC || createdAt == null || !inWindow(createdAt)) {
+                    remove(List.of(articleId));
+                    return;
+                }
+                Long live = voteCounterService.getCounts(VoteCounterService.Target.ARTICLE, List.of(articleId)).get(articleId);
+                double score = score(createdAt, live != null ? live : persistedVotes, comments, shares);
+
+                byte[] key = bytes(KEY);
+                byte[] member = bytes(String.valueOf(articleId));
+                redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    connection.zSetCommands().zAdd(key, score, member);
+                    // Giữ tối đa maxSize bài điểm cao nhất
+                    connection.zSetCommands().zRemRange(key, 0, -(properties.getMaxSize() + 1L));
+                    connection.zSetCommands().zAdd(bytes(TOUCHED_KEY), System.currentTimeMillis(), member);
+                    return null;
+                });
+            } catch (Exception e) {
+                // TrendingRebuildJob sẽ bù lại
+                log.warn("Cập nhật điểm thịnh hành cho bài {} thất bại: {}", articleId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Bỏ các bài không còn hiển thị được (đã xoá / không còn công khai) khỏi bảng.
+     */
+    public void remove(Collection<Long> articleIds) {
+        if (articleIds.isEmpty()) return;
+        try {
+            byte[][] members = articleIds.stream().map(id -> bytes(String.valueOf(id))).toArray(byte[][]::new);
+            Set<Tuple> touched = new HashSet<>();
+            double now = System.currentTimeMillis();
+            for (byte[] member : members) {
+                touched.add(new DefaultTuple(member, now));
+            }
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.zSetCommands().zRem(bytes(KEY), members);
+                connection.zSetCommands().zAdd(bytes(TOUCHED_KEY), touched);
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Xoá bài khỏi bảng thịnh hành thất bại: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onDeletionCompleted(BulkDeletionService.DeletionCompletedEvent event) {
+        if (event.targetType() == DeletionTarget.ARTICLE) {
+            remove(List.of(event.targetId()));
+        }
+    }
+
+    /**
+     * Job xoá tài khoản đã đếm lại vote / comment của các bài này: chấm lại điểm theo số mới.
+     */
+    @EventListener
+    public void onCountersRepaired(BulkDeletionService.CountersRepairedEvent event) {
+        if (event.articleIds().isEmpty()) return;
+        try {
+            articleRepository.findAllById(event.articleIds()).forEach(this::touch);
+        } catch (Exception e) {
+            log.warn("Chấm lại điểm thịnh hành sau job xoá thất bại: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Dựng lại bảng từ các bài công khai trong cửa sổ window. Ghi vào key tạm, chép lại điểm của các bài
+     * được touch / remove kể từ lúc bắt đầu đọc DB, rồi RENAME. Trả về số bài trong bảng.
+     */
+    public int rebuild() {
+        long startedAt = System.currentTimeMillis() - CLOCK_SKEW.toMillis();
+        LocalDateTime since = LocalDateTime.now().minus(properties.getWindow());
+        List<Object[]> rows = articleRepository.findTrendingCandidates(ArticleStatus.PUBLIC, since);
+
+        List<Long> ids = rows.stream().map(row -> (Long) row[0]).toList();
+        Map<Long, Long> liveVotes = voteCounterService.getCounts(VoteCounterService.Target.ARTICLE, ids);
+
+        List<Tuple> tuples = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            long votes = liveVotes.getOrDefault(id, row[2] != null ? ((Number) row[2]).longValue() : 0L);
+            long comments = row[3] != null ? ((Number) row[3]).longValue() : 0L;
+            long shares = row[4] != null ? ((Number) row[4]).longValue() : 0L;
+            tuples.add(new DefaultTuple(bytes(String.valueOf(id)), score((LocalDateTime) row[1], votes, comments, shares)));
+        }
+        // Chỉ giữ maxSize bài điểm cao nhất
+        tuples.sort((a, b) -> Double.compare(b.getScore(), a.getScore()));
+        Set<Tuple> top = new HashSet<>(tuples.subList(0, Math.min(tuples.size(), properties.getMaxSize())));
+
+        String tmp = KEY + ":tmp:" + UUID.randomUUID();
+        if (!top.isEmpty()) {
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.zSetCommands().zAdd(bytes(tmp), top));
+        }
+        Long size = redisTemplate.execute(
+                SWAP_SCRIPT,
+                RedisSerializer.string(),
+                null,
+                List.of(KEY, tmp, TOUCHED_KEY),
+                String.valueOf(startedAt), String.valueOf(properties.getMaxSize())
+        );
+
+        int ranked = size != null ? size.intValue() : 0;
+        log.info("Dựng lại bảng bài viết thịnh hành: {} bài", ranked);
+        return ranked;
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    // Điểm lưu trên ZSET: ln(1 + E) + createdAt / tau
+    double score(LocalDateTime createdAt, long votes, long comments, long shares) {
+        double engagement = Math.max(0, votes) * properties.getVoteWeight()
+                + Math.max(0, comments) * properties.getCommentWeight()
+                + Math.max(0, shares) * properties.getShareWeight();
+        double tauSeconds = properties.getHalfLife().toSeconds() / Math.log(2);
+        return Math.log1p(engagement) + createdAt.atZone(ZONE).toEpochSecond() / tauSeconds;
+    }
+
+    private boolean inWindow(LocalDateTime createdAt) {
+        return createdAt.isAfter(LocalDateTime.now().minus(properties.getWindow()));
+    }
+
+    private byte[] bytes(String value) {
+        return RedisSerializer.string().serialize(value);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
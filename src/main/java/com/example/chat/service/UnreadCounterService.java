@@ -0,0 +1,202 @@
+package com.example.chat.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bộ đếm tin chưa đọc trên Redis (HINCRBY / HSET), chạy song song với bảng conversation_unreads.
+ * Mỗi conversation là một hash: field = accountId, value = số tin chưa đọc.
+ * Các cặp (conversation, account) vừa thay đổi được đánh dấu "dirty" và ghi xuống DB định kỳ bởi UnreadFlushJob.
+ * Mỗi hash hết hạn sau UNREAD_TTL không được ghi; lần đọc sau seed lại từ DB.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UnreadCounterService {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ConversationUnreadService conversationUnreadService;
+
+    private static final String UNREAD_PREFIX = "chat:unread:";
+    private static final String DIRTY_KEY = "chat:unread:dirty";
+    // Dài hơn nhiều so với chu kỳ UnreadFlushJob nên bộ đếm dirty luôn được ghi xuống DB trước khi hết hạn
+    private static final Duration UNREAD_TTL = Duration.ofDays(7);
+
+    /**
+     * Tăng số tin chưa đọc. Nếu đang trong transaction thì chỉ HINCRBY sau khi commit, tránh để lại
+     * bộ đếm "ma" khi lưu tin nhắn bị rollback. Seed từ DB chạy ngay (trước khi ghi tin nhắn).
+     *
+     * @return số tin chưa đọc sau khi tăng (ước lượng nếu tăng sau commit)
+     */
+    public long increment(Long conversationId, Long accountId) {
+        String key = UNREAD_PREFIX + conversationId;
+        String field = String.valueOf(accountId);
+
+        long current = seedIfAbsent(key, field, conversationId, accountId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    try {
+                        doIncrement(key, field, conversationId, accountId);
+                    } catch (Exception e) {
+                        // Tin nhắn đã commit: lần seed sau (khi hash hết hạn) đếm lại từ DB
+                        log.warn("Tăng unread {}:{} trên Redis thất bại: {}", conversationId, accountId, e.getMessage());
+                    }
+                }
+            });
+            return current + 1;
+        }
+        return doIncrement(key, field, conversationId, accountId);
+    }
+
+    public void reset(Long conversationId, Long accountId) {
+        String key = UNREAD_PREFIX + conversationId;
+        hashOps().put(key, String.valueOf(accountId), 0);
+        redisTemplate.expire(key, UNREAD_TTL);
+        markDirty(conversationId, accountId);
+    }
+
+    public long getUnreadCount(Long conversationId, Long accountId) {
+        String key = UNREAD_PREFIX + conversationId;
+        String field = String.valueOf(accountId);
+
+        Object value = hashOps().get(key, field);
+        if (value != null) {
+            return toLong(value);
+        }
+        return seedIfAbsent(key, field, conversationId, accountId);
+    }
+
+    /**
+     * Đọc số tin chưa đọc của một account trên nhiều conversation bằng một pipeline HGET.
+     * Các giá trị chưa có trên Redis được nạp từ DB bằng một query rồi seed lại.
+     */
+    public Map<Long, Long> getUnreadCounts(Collection<Long> conversationIds, Long accountId) {
+        Map<Long, Long> result = new HashMap<>();
+        if (conversationIds.isEmpty()) return result;
+
+        List<Long> ids = new ArrayList<>(conversationIds);
+        String field = String.valueOf(accountId);
+
+        List<Object> values = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long conversationId : ids) {
+                connection.hashCommands().hGet(
+                        rawKey(UNREAD_PREFIX + conversationId),
+                        rawKey(field)
+                );
+            }
+            return null;
+        });
+
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Object value = values.get(i);
+            if (value != null) {
+                result.put(ids.get(i), toLong(value));
+            } else {
+                missing.add(ids.get(i));
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Map<Long, Integer> persisted = conversationUnreadService.findUnreadCounts(missing, accountId);
+            for (Long conversationId : missing) {
+                long count = persisted.getOrDefault(conversationId, 0);
+                if (Boolean.TRUE.equals(hashOps().putIfAbsent(UNREAD_PREFIX + conversationId, field, count))) {
+                    redisTemplate.expire(UNREAD_PREFIX + conversationId, UNREAD_TTL);
+                }
+                result.put(conversationId, count);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ghi tối đa batchSize bộ đếm "dirty" xuống bảng conversation_unreads.
+     *
+     * @return số bản ghi đã lấy ra khỏi hàng đợi dirty
+     */
+    public int flushDirty(int batchSize) {
+        List<Object> members = redisTemplate.opsForSet().pop(DIRTY_KEY, batchSize);
+        if (members == null || members.isEmpty()) return 0;
+
+        for (Object member : members) {
+            String[] parts = member.toString().split(":");
+            Long conversationId = Long.parseLong(parts[0]);
+            Long accountId = Long.parseLong(parts[1]);
+
+            Object value = hashOps().get(UNREAD_PREFIX + conversationId, parts[1]);
+            if (value == null) continue;
+
+            try {
+                conversationUnreadService.saveUnreadCount(conversationId, accountId, (int) toLong(value));
+            } catch (DataIntegrityViolationException e) {
+                // Conversation hoặc account đã bị xoá -> bỏ bộ đếm
+                log.warn("Bỏ qua unread {}: {}", member, e.getMessage());
+                hashOps().delete(UNREAD_PREFIX + conversationId, parts[1]);
+            } catch (Exception e) {
+                log.error("Flush unread {} thất bại: {}", member, e.getMessage());
+                redisTemplate.opsForSet().add(DIRTY_KEY, member);
+            }
+        }
+        return members.size();
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private long doIncrement(String key, String field, Long conversationId, Long accountId) {
+        Long count = hashOps().increment(key, field, 1);
+        redisTemplate.expire(key, UNREAD_TTL);
+        markDirty(conversationId, accountId);
+        return count != null ? count : 0L;
+    }
+
+    private long seedIfAbsent(String key, String field, Long conversationId, Long accountId) {
+        if (Boolean.TRUE.equals(hashOps().hasKey(key, field))) {
+            return toLong(hashOps().get(key, field));
+        }
+
+        long persisted = conversationUnreadService.findUnreadCount(conversationId, accountId);
+        // HSETNX: nếu node khác đã seed trước thì giữ giá trị của nó
+        if (Boolean.TRUE.equals(hashOps().putIfAbsent(key, field, persisted))) {
+            redisTemplate.expire(key, UNREAD_TTL);
+            return persisted;
+        }
+        return toLong(hashOps().get(key, field));
+    }
+
+    private void markDirty(Long conversationId, Long accountId) {
+        redisTemplate.opsForSet().add(DIRTY_KEY, conversationId + ":" + accountId);
+    }
+
+    private HashOperations<String, String, Object> hashOps() {
+        return redisTemplate.opsForHash();
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey(String value) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer())
+                .serialize(value);
+    }
+
+    private long toLong(Object value) {
+        if (value instanceof Number number) return number.longValue();
+        return value != null ? Long.parseLong(value.toString()) : 0L;
+    }
+}
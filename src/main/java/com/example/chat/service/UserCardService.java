@@ -0,0 +1,27 @@
+package com.example.chat.service;
+
+import com.example.chat.cache.CacheNames;
+import com.example.chat.dto.UserDto;
+import com.example.chat.repository.AccountRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+/**
+ * Thẻ user (id, username, avatar) dùng trong các payload socket. Được cache theo accountId,
+ * bị evict khi AccountService / DoctorService cập nhật tên hoặc avatar.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserCardService {
+
+    private final AccountRepository accountRepository;
+
+    @Cacheable(cacheNames = CacheNames.USER_CARD, key = "#userId")
+    public UserDto getUserCard(Long userId) {
+        return accountRepository.findById(userId)
+                .map(UserDto::from)
+                .orElseThrow(() -> new EntityNotFoundException("UserId not found"));
+    }
+}
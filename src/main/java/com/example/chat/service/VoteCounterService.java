@@ -0,0 +1,275 @@
+package com.example.chat.service;
+
+import com.example.chat.repository.ArticleCommentRepository;
+import com.example.chat.repository.ArticleCommentVoteRepository;
+import com.example.chat.repository.ArticleRepository;
+import com.example.chat.repository.ArticleVoteRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bộ đếm vote của bài viết / comment trên Redis (HINCRBY), thay cho việc đếm lại bảng vote và ghi lại dòng cha
+ * sau mỗi lần bấm. Mỗi loại đối tượng là một hash: field = id, value = số vote.
+ * Vote được cộng delta sau khi transaction ghi vote commit; id vừa thay đổi được đánh dấu "dirty"
+ * và VoteCountFlushJob ghi tổng xuống articles.vote_count / article_comments.vote_count.
+ * Id có vote gần đây được ghi vào ZSET "recent" (trước khi ghi vote); VoteCountReconcileJob đếm lại các id này
+ * từ bảng vote để sửa bộ đếm bị lệch (delta bị mất khi Redis lỗi hoặc node chết giữa commit và HINCRBY).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VoteCounterService {
+
+    public enum Target {
+        ARTICLE("article"),
+        COMMENT("comment");
+
+        private final String key;
+
+        Target(String key) {
+            this.key = key;
+        }
+    }
+
+    private static final String COUNT_PREFIX = "vote:count:";
+    private static final String DIRTY_KEY = "vote:count:dirty";
+    private static final String RECENT_PREFIX = "vote:count:recent:";
+
+    // Chỉ đối soát id có vote trong RECONCILE_WINDOW và đã yên ít nhất SETTLE_DELAY (vote đang dở đã tới Redis)
+    private static final Duration RECONCILE_WINDOW = Duration.ofMinutes(30);
+    private static final Duration SETTLE_DELAY = Duration.ofMinutes(1);
+    private static final int RECONCILE_BATCH = 500;
+
+    // Ghi đè số vote khi bộ đếm chưa đổi kể từ lúc đọc và id không có vote mới sau mốc cutoff
+    private static final RedisScript<Long> RECONCILE_SCRIPT = new DefaultRedisScript<>("""
+            local touched = redis.call('ZSCORE', KEYS[2], ARGV[1])
+            if touched and tonumber(touched) > tonumber(ARGV[4]) then
+                return 0
+            end
+            if redis.call('HGET', KEYS[1], ARGV[1]) ~= ARGV[2] then
+                return 0
+            end
+            redis.call('HSET', KEYS[1], ARGV[1], ARGV[3])
+            return 1
+            """, Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ArticleRepository articleRepository;
+    private final ArticleVoteRepository articleVoteRepository;
+    private final ArticleCommentRepository articleCommentRepository;
+    private final ArticleCommentVoteRepository articleCommentVoteRepository;
+
+    /**
+     * Số vote hiện tại; nếu Redis chưa có thì đếm từ bảng vote rồi seed (HSETNX).
+     * Phải gọi trước khi ghi vote trong transaction, để bản đếm seed không chứa vote chưa commit.
+     */
+    public long getOrSeed(Target target, Long id) {
+        String key = COUNT_PREFIX + target.key;
+        String field = String.valueOf(id);
+
+        Object value = hashOps().get(key, field);
+        if (value != null) {
+            return toLong(value);
+        }
+
+        long persisted = target == Target.ARTICLE
+                ? articleVoteRepository.countByArticleId(id)
+                : articleCommentVoteRepository.countByCommentId(id);
+        // Node khác đã seed trước thì giữ giá trị của nó
+        if (Boolean.TRUE.equals(hashOps().putIfAbsent(key, field, persisted))) {
+            return persisted;
+        }
+        return toLong(hashOps().get(key, field));
+    }
+
+    /**
+     * Cộng delta (+1 vote mới, -1 bỏ vote) sau khi transaction commit.
+     * Id được ghi vào ZSET recent ngay (trước commit) để reconcile vẫn thấy nó nếu bước HINCRBY bị mất.
+     */
+    public void addAfterCommit(Target target, Long id, int delta) {
+        if (delta == 0) return;
+        try {
+            redisTemplate.opsForZSet().add(RECENT_PREFIX + target.key, id, System.currentTimeMillis());
+        } catch (Exception e) {
+            log.warn("Ghi vote gần đây {}:{} thất bại: {}", target.key, id, e.getMessage());
+        }
+        afterCommit(() -> {
+            try {
+                hashOps().increment(COUNT_PREFIX + target.key, String.valueOf(id), delta);
+                redisTemplate.opsForSet().add(DIRTY_KEY, target.key + ":" + id);
+            } catch (Exception e) {
+                // Vote đã commit: reconcile sẽ đếm lại từ bảng vote
+                log.warn("Cộng vote {}:{} trên Redis thất bại: {}", target.key, id, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Số vote đang có trên Redis cho nhiều id (một HMGET); id chưa có trên Redis không nằm trong kết quả.
+     */
+    public Map<Long, Long> getCounts(Target target, Collection<Long> ids) {
+        Map<Long, Long> result = new HashMap<>();
+        if (ids.isEmpty()) return result;
+
+        List<Long> idList = new ArrayList<>(ids);
+        List<Object> values = hashOps().multiGet(
+                COUNT_PREFIX + target.key,
+                idList.stream().map(String::valueOf).toList()
+        );
+        for (int i = 0; i < idList.size(); i++) {
+            if (values.get(i) != null) {
+                result.put(idList.get(i), toLong(values.get(i)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ghi tối đa batchSize bộ đếm "dirty" xuống bảng articles / article_comments.
+     *
+     * @return số bộ đếm đã lấy ra khỏi hàng đợi dirty
+     */
+    public int flushDirty(int batchSize) {
+        List<Object> members = redisTemplate.opsForSet().pop(DIRTY_KEY, batchSize);
+        if (members == null || members.isEmpty()) return 0;
+
+        for (Object member : members) {
+            String[] parts = member.toString().split(":");
+            String key = COUNT_PREFIX + parts[0];
+            Long id = Long.parseLong(parts[1]);
+
+            Object value = hashOps().get(key, parts[1]);
+            if (value == null) continue;
+
+            try {
+                int updated = Target.ARTICLE.key.equals(parts[0])
+                        ? articleRepository.updateVoteCount(id, (int) toLong(value))
+                        : articleCommentRepository.updateVoteCount(id, (int) toLong(value));
+                if (updated == 0) {
+                    // Bài viết / comment đã bị xoá -> bỏ bộ đếm
+                    hashOps().delete(key, parts[1]);
+                }
+            } catch (Exception e) {
+                log.error("Flush vote count {} thất bại: {}", member, e.getMessage());
+                redisTemplate.opsForSet().add(DIRTY_KEY, member);
+            }
+        }
+        return members.size();
+    }
+
+    /**
+     * Đếm lại từ bảng vote các id có vote trong RECONCILE_WINDOW (đã yên SETTLE_DELAY) và sửa bộ đếm bị lệch.
+     * Bộ đếm được đọc trước khi đếm DB; script chỉ ghi khi bộ đếm chưa đổi và không có vote mới xen vào.
+     *
+     * @return số bộ đếm đã sửa
+     */
+    public int reconcile(Target target) {
+        String recentKey = RECENT_PREFIX + target.key;
+        long now = System.currentTimeMillis();
+        long cutoff = now - SETTLE_DELAY.toMillis();
+
+        redisTemplate.opsForZSet().removeRangeByScore(recentKey, 0, now - RECONCILE_WINDOW.toMillis());
+        Set<Object> members = redisTemplate.opsForZSet().rangeByScore(recentKey, now - RECONCILE_WINDOW.toMillis(), cutoff);
+        if (members == null || members.isEmpty()) return 0;
+
+        List<Long> ids = members.stream().map(this::toLong).toList();
+        int fixed = 0;
+        for (int start = 0; start < ids.size(); start += RECONCILE_BATCH) {
+            List<Long> batch = ids.subList(start, Math.min(start + RECONCILE_BATCH, ids.size()));
+
+            Map<Long, Long> cached = getCounts(target, batch);
+            Map<Long, Long> persisted = new HashMap<>();
+            List<Object[]> rows = target == Target.ARTICLE
+                    ? articleVoteRepository.countByArticleIds(batch)
+                    : articleCommentVoteRepository.countByCommentIds(batch);
+            for (Object[] row : rows) {
+                persisted.put((Long) row[0], (Long) row[1]);
+            }
+
+            for (Long id : batch) {
+                Long actual = cached.get(id);
+                long wanted = persisted.getOrDefault(id, 0L);
+                // Chưa có trên Redis: lần đọc sau tự seed từ DB
+                if (actual == null || actual == wanted) continue;
+
+                Long result = redisTemplate.execute(
+                        RECONCILE_SCRIPT,
+                        RedisSerializer.string(),
+                        null,
+                        List.of(COUNT_PREFIX + target.key, recentKey),
+                        String.valueOf(id), String.valueOf(actual), String.valueOf(wanted), String.valueOf(cutoff)
+                );
+                if (Long.valueOf(1).equals(result)) {
+                    redisTemplate.opsForSet().add(DIRTY_KEY, target.key + ":" + id);
+                    fixed++;
+                }
+            }
+        }
+        return fixed;
+    }
+
+    /**
+     * Job xoá tài khoản đã đếm lại vote_count trên DB: đưa các id vào ZSET recent với mốc đã yên
+     * để lần reconcile kế tiếp sửa bộ đếm trên Redis (CAS, không đè vote mới xen vào).
+     */
+    @EventListener
+    public void onCountersRepaired(BulkDeletionService.CountersRepairedEvent event) {
+        markForReconcile(Target.ARTICLE, event.articleIds());
+        markForReconcile(Target.COMMENT, event.commentIds());
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private void markForReconcile(Target target, Collection<Long> ids) {
+        if (ids.isEmpty()) return;
+        double score = System.currentTimeMillis() - SETTLE_DELAY.toMillis();
+        Set<ZSetOperations.TypedTuple<Object>> tuples = new HashSet<>();
+        ids.forEach(id -> tuples.add(ZSetOperations.TypedTuple.of(id, score)));
+        try {
+            redisTemplate.opsForZSet().add(RECENT_PREFIX + target.key, tuples);
+        } catch (Exception e) {
+            log.warn("Đánh dấu đối soát vote {} cho {} id thất bại: {}", target.key, ids.size(), e.getMessage());
+        }
+    }
+
+    private HashOperations<String, String, Object> hashOps() {
+        return redisTemplate.opsForHash();
+    }
+
+    private long toLong(Object value) {
+        if (value instanceof Number number) return number.longValue();
+        return value != null ? Long.parseLong(value.toString()) : 0L;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
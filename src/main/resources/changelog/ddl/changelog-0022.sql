@@ -0,0 +1,68 @@
+-- Read model cho danh sách hội thoại (inbox): mỗi thành viên một dòng
+CREATE TABLE public.conversation_inbox (
+    account_id BIGINT NOT NULL,
+    conversation_id BIGINT NOT NULL,
+    partner_id BIGINT NOT NULL,
+    last_message_id BIGINT,
+    last_message_type VARCHAR(20),
+    last_message_content TEXT,
+    last_file_name VARCHAR(255),
+    last_file_url TEXT,
+    last_file_size BIGINT,
+    last_file_type VARCHAR(255),
+    last_activity_at TIMESTAMP(6) WITHOUT TIME ZONE NOT NULL,
+    created_at TIMESTAMP(6) WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP(6) WITHOUT TIME ZONE
+);
+
+ALTER TABLE public.conversation_inbox
+    ADD CONSTRAINT pk_conversation_inbox PRIMARY KEY (account_id, conversation_id);
+
+ALTER TABLE public.conversation_inbox
+    ADD CONSTRAINT fk_conversation_inbox_account_id FOREIGN KEY (account_id) REFERENCES public.accounts(id) ON DELETE CASCADE;
+
+ALTER TABLE public.conversation_inbox
+    ADD CONSTRAINT fk_conversation_inbox_conversation_id FOREIGN KEY (conversation_id) REFERENCES public.conversations(id) ON DELETE CASCADE;
+
+ALTER TABLE public.conversation_inbox
+    ADD CONSTRAINT fk_conversation_inbox_partner_id FOREIGN KEY (partner_id) REFERENCES public.accounts(id) ON DELETE CASCADE;
+
+-- Keyset pagination theo hoạt động gần nhất
+CREATE INDEX idx_conversation_inbox_account_activity
+    ON public.conversation_inbox (account_id, last_activity_at DESC, conversation_id DESC);
+
+-- Lấy tin nhắn cuối / phân trang lịch sử theo conversation
+CREATE INDEX idx_messages_conversation_id_id
+    ON public.messages (conversation_id, id DESC);
+
+-- Backfill từ dữ liệu hiện có (nội dung đã mã hoá được copy nguyên vẹn)
+INSERT INTO public.conversation_inbox (
+    account_id, conversation_id, partner_id,
+    last_message_id, last_message_type, last_message_content,
+    last_file_name, last_file_url, last_file_size, last_file_type,
+    last_activity_at
+)
+SELECT me.account_id,
+       me.conversation_id,
+       partner.account_id,
+       lm.id,
+       lm.message_type,
+       lm.message_content,
+       lm.file_name,
+       lm.file_url,
+       lm.file_size,
+       lm.file_type,
+       COALESCE(lm.created_at, c.created_at)
+FROM public.conversation_members me
+JOIN public.conversation_members partner
+    ON partner.conversation_id = me.conversation_id
+   AND partner.account_id <> me.account_id
+JOIN public.conversations c ON c.id = me.conversation_id
+LEFT JOIN LATERAL (
+    SELECT m.*
+    FROM public.messages m
+    WHERE m.conversation_id = me.conversation_id
+    ORDER BY m.id DESC
+    LIMIT 1
+) lm ON TRUE
+ON CONFLICT DO NOTHING;
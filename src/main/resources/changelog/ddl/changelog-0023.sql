@@ -0,0 +1,38 @@
+-- Chỉ mục cặp (min(accountId), max(accountId)) -> conversation cho chat 1-1
+CREATE TABLE public.direct_conversations (
+    account_low_id BIGINT NOT NULL,
+    account_high_id BIGINT NOT NULL,
+    conversation_id BIGINT NOT NULL,
+    created_at TIMESTAMP(6) WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CHECK (account_low_id < account_high_id)
+);
+
+ALTER TABLE public.direct_conversations
+    ADD CONSTRAINT pk_direct_conversations PRIMARY KEY (account_low_id, account_high_id);
+
+ALTER TABLE public.direct_conversations
+    ADD CONSTRAINT uk_direct_conversations_conversation_id UNIQUE (conversation_id);
+
+ALTER TABLE public.direct_conversations
+    ADD CONSTRAINT fk_direct_conversations_conversation_id FOREIGN KEY (conversation_id) REFERENCES public.conversations(id) ON DELETE CASCADE;
+
+ALTER TABLE public.direct_conversations
+    ADD CONSTRAINT fk_direct_conversations_account_low_id FOREIGN KEY (account_low_id) REFERENCES public.accounts(id) ON DELETE CASCADE;
+
+ALTER TABLE public.direct_conversations
+    ADD CONSTRAINT fk_direct_conversations_account_high_id FOREIGN KEY (account_high_id) REFERENCES public.accounts(id) ON DELETE CASCADE;
+
+-- Backfill: mỗi cặp giữ conversation có id nhỏ nhất (nếu đã lỡ tạo trùng)
+INSERT INTO public.direct_conversations (account_low_id, account_high_id, conversation_id)
+SELECT pair.low_id, pair.high_id, MIN(pair.conversation_id)
+FROM (
+    SELECT m1.conversation_id,
+           LEAST(m1.account_id, m2.account_id) AS low_id,
+           GREATEST(m1.account_id, m2.account_id) AS high_id
+    FROM public.conversation_members m1
+    JOIN public.conversation_members m2
+        ON m2.conversation_id = m1.conversation_id
+       AND m1.account_id < m2.account_id
+    WHERE (SELECT COUNT(*) FROM public.conversation_members cm WHERE cm.conversation_id = m1.conversation_id) = 2
+) pair
+GROUP BY pair.low_id, pair.high_id;
@@ -0,0 +1,37 @@
+-- Outbox push FCM: ghi cùng transaction với nghiệp vụ, worker gửi bất đồng bộ có retry
+CREATE TABLE public.notification_outbox (
+    id BIGINT NOT NULL,
+    notification_id BIGINT,
+    user_id BIGINT NOT NULL,
+    fcm_token VARCHAR(512) NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    body TEXT NOT NULL,
+    type VARCHAR(50) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP(6) WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP(6) WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP(6) WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Auto-increment id
+ALTER TABLE public.notification_outbox
+ALTER COLUMN id ADD GENERATED BY DEFAULT AS IDENTITY (
+    SEQUENCE NAME public.notification_outbox_id_seq
+    START WITH 1
+    INCREMENT BY 1
+    NO MINVALUE
+    NO MAXVALUE
+);
+
+-- Primary key
+ALTER TABLE ONLY public.notification_outbox
+    ADD CONSTRAINT notification_outbox_pkey PRIMARY KEY (id);
+
+-- Worker chỉ quét các bản ghi chưa xong, theo thời điểm được phép gửi
+CREATE INDEX idx_notification_outbox_pending
+    ON public.notification_outbox (next_attempt_at, id)
+    WHERE status IN ('PENDING', 'PROCESSING');
+
+CREATE INDEX idx_device_tokens_fcm_token ON public.device_tokens (fcm_token);
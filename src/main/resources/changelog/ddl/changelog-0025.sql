@@ -0,0 +1,7 @@
+-- Lịch đã huỷ không còn giữ slot: thay unique constraint bằng partial unique index cho lịch chưa huỷ
+ALTER TABLE public.appointments
+    DROP CONSTRAINT IF EXISTS uq_doctor_date_time;
+
+CREATE UNIQUE INDEX uq_appointments_active_slot
+    ON public.appointments (doctor_id, appointment_date, appointment_time)
+    WHERE status <> 'CANCELLED';
@@ -0,0 +1,6 @@
+-- Keyset danh sách lịch hẹn theo bác sĩ / bệnh nhân (ORDER BY id DESC)
+CREATE INDEX idx_appointments_doctor_id_id ON public.appointments (doctor_id, id DESC);
+CREATE INDEX idx_appointments_user_id_id ON public.appointments (user_id, id DESC);
+
+-- Nạp điểm đánh giá theo lô bác sĩ
+CREATE INDEX idx_doctor_reviews_doctor_id ON public.doctor_reviews (doctor_id);
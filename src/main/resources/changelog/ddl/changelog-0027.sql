@@ -0,0 +1,18 @@
+-- Tổng hợp đánh giá lưu sẵn trên doctor_details, cập nhật khi tạo review
+ALTER TABLE public.doctor_details
+    ADD COLUMN review_count BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN rating_sum BIGINT NOT NULL DEFAULT 0;
+
+-- Backfill từ doctor_reviews
+UPDATE public.doctor_details d
+SET review_count = r.cnt,
+    rating_sum = r.total
+FROM (
+    SELECT doctor_id, COUNT(*) AS cnt, COALESCE(SUM(rating), 0) AS total
+    FROM public.doctor_reviews
+    GROUP BY doctor_id
+) r
+WHERE r.doctor_id = d.user_id;
+
+-- Top bác sĩ theo số đánh giá
+CREATE INDEX idx_doctor_details_review_count ON public.doctor_details (review_count DESC);
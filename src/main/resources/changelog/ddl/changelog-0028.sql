@@ -0,0 +1,8 @@
+-- Feed bài viết công khai: keyset theo (updated_at, id) giảm dần
+CREATE INDEX idx_articles_status_updated_at_id ON public.articles (status, updated_at DESC, id DESC);
+
+-- Nạp media theo lô bài viết
+CREATE INDEX idx_article_medias_article_id ON public.article_medias (article_id);
+
+-- Reaction của người xem trên một trang bài viết (uq_votes_article_user dẫn đầu bằng article_id)
+CREATE INDEX idx_article_votes_user_id_article_id ON public.article_votes (user_id, article_id);
@@ -0,0 +1,9 @@
+-- Trang comment gốc của bài viết: keyset theo (created_at, id) giảm dần
+CREATE INDEX idx_article_comments_root_page ON public.article_comments (article_id, created_at DESC, id DESC)
+    WHERE parent_comment_id IS NULL;
+
+-- Duyệt cây reply (recursive CTE) và trang "xem thêm trả lời" theo (created_at, id) tăng dần
+CREATE INDEX idx_article_comments_parent_created_at_id ON public.article_comments (parent_comment_id, created_at, id);
+
+-- Vote của người xem trên các comment của một thread
+CREATE INDEX idx_article_comment_votes_user_id_comment_id ON public.article_comment_votes (user_id, comment_id);
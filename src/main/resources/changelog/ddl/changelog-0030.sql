@@ -0,0 +1,55 @@
+-- Job xoá hàng loạt (bài viết / bác sĩ / tài khoản): API trả job id ngay, worker xoá theo lô và ghi tiến độ
+CREATE TABLE public.deletion_jobs (
+    id BIGINT NOT NULL,
+    target_type VARCHAR(20) NOT NULL CHECK (target_type IN ('ARTICLE', 'DOCTOR', 'ACCOUNT')),
+    target_id BIGINT NOT NULL,
+    requested_by BIGINT,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    step_index INT NOT NULL DEFAULT 0,
+    step_name VARCHAR(100),
+    deleted_rows BIGINT NOT NULL DEFAULT 0,
+    removed_objects INT NOT NULL DEFAULT 0,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP(6) WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP(6) WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP(6) WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    finished_at TIMESTAMP(6) WITHOUT TIME ZONE
+);
+
+-- Auto-increment id
+ALTER TABLE public.deletion_jobs
+ALTER COLUMN id ADD GENERATED BY DEFAULT AS IDENTITY (
+    SEQUENCE NAME public.deletion_jobs_id_seq
+    START WITH 1
+    INCREMENT BY 1
+    NO MINVALUE
+    NO MAXVALUE
+);
+
+-- Primary key
+ALTER TABLE ONLY public.deletion_jobs
+    ADD CONSTRAINT deletion_jobs_pkey PRIMARY KEY (id);
+
+-- Worker chỉ quét các job chưa xong, theo thời điểm được phép chạy
+CREATE INDEX idx_deletion_jobs_pending
+    ON public.deletion_jobs (next_attempt_at, id)
+    WHERE status IN ('PENDING', 'RUNNING');
+
+-- Object MinIO của các dòng đã xoá, chờ dọn sau khi phần DB xong (ghi cùng transaction với lệnh xoá)
+CREATE TABLE public.deletion_job_objects (
+    job_id BIGINT NOT NULL,
+    object_key TEXT NOT NULL
+);
+
+ALTER TABLE public.deletion_job_objects
+    ADD CONSTRAINT fk_deletion_job_objects_job_id FOREIGN KEY (job_id) REFERENCES public.deletion_jobs(id) ON DELETE CASCADE;
+
+CREATE INDEX idx_deletion_job_objects_job_id ON public.deletion_job_objects (job_id);
+
+-- Các điều kiện xoá theo lô cần index trên cột khoá ngoại
+CREATE INDEX idx_article_comments_article_id ON public.article_comments (article_id);
+CREATE INDEX idx_article_comments_user_id ON public.article_comments (user_id);
+CREATE INDEX idx_articles_user_id ON public.articles (user_id);
+CREATE INDEX idx_articles_original_article_id ON public.articles (original_article_id);
+CREATE INDEX idx_messages_sender_id ON public.messages (sender_id);
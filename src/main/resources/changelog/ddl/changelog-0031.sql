@@ -0,0 +1,2 @@
+-- Dựng lại bảng bài viết thịnh hành: bài công khai đăng trong cửa sổ window
+CREATE INDEX idx_articles_status_created_at ON public.articles (status, created_at);
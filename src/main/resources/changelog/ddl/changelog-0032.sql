@@ -0,0 +1,5 @@
+-- Timeline trang chủ: bài công khai của các tác giả đang theo dõi, mới -> cũ theo id
+CREATE INDEX idx_articles_user_id_id_public ON public.articles (user_id, id DESC) WHERE status = 'PUBLIC';
+
+-- Fan-out bài mới: duyệt người theo dõi của bác sĩ theo keyset trên id
+CREATE INDEX idx_favorite_doctors_doctor_id_id ON public.favorite_doctors (doctor_id, id);
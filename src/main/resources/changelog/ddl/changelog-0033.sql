@@ -0,0 +1,2 @@
+-- /api/storage/download-urls: tra objectKey -> bài viết để kiểm tra quyền xem trước khi ký URL
+CREATE INDEX idx_article_medias_file_url ON public.article_medias (file_url);
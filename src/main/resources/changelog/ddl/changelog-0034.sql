@@ -0,0 +1,12 @@
+-- Id các bài viết / comment / bác sĩ có bộ đếm bị lệch do job xoá tài khoản (vote, comment, review của tài khoản),
+-- ghi cùng transaction với lệnh xoá; phần DB xong thì đếm lại các id này
+CREATE TABLE public.deletion_job_counters (
+    job_id BIGINT NOT NULL,
+    kind VARCHAR(20) NOT NULL,
+    target_id BIGINT NOT NULL
+);
+
+ALTER TABLE public.deletion_job_counters
+    ADD CONSTRAINT fk_deletion_job_counters_job_id FOREIGN KEY (job_id) REFERENCES public.deletion_jobs(id) ON DELETE CASCADE;
+
+CREATE INDEX idx_deletion_job_counters_job_id ON public.deletion_job_counters (job_id, kind);
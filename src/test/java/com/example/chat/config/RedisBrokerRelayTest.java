@@ -0,0 +1,161 @@
+package com.example.chat.config;
+
+import com.example.chat.service.PresenceService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Hai node trong cùng JVM, mỗi node có brokerChannel + SimpMessagingTemplate riêng,
+ * nối với nhau bằng một "Redis pub/sub" trong bộ nhớ dùng cùng serializer với RedisConfig.
+ */
+class RedisBrokerRelayTest {
+
+    private static final String CHANNEL = "stomp:relay";
+
+    private final Jackson2JsonRedisSerializer<Object> serializer =
+            new Jackson2JsonRedisSerializer<>(new ObjectMapper().findAndRegisterModules(), Object.class);
+
+    private final List<Node> nodes = new ArrayList<>();
+    private int published;
+    private boolean redisDown;
+
+    private Node nodeA;
+    private Node nodeB;
+
+    @BeforeEach
+    void setUp() {
+        nodeA = new Node("node-a");
+        nodeB = new Node("node-b");
+    }
+
+    @Test
+    void topicMessageIsDeliveredOnBothNodesExactlyOnce() {
+        nodeA.template.convertAndSend("/topic/conversation/1", "xin chào");
+
+        assertThat(nodeA.delivered).hasSize(1);
+        assertThat(nodeB.delivered).hasSize(1);
+        assertThat(published).isEqualTo(1);
+
+        Message<?> relayed = nodeB.delivered.get(0);
+        assertThat(SimpMessageHeaderAccessor.getDestination(relayed.getHeaders())).isEqualTo("/topic/conversation/1");
+        assertThat(new String((byte[]) relayed.getPayload(), StandardCharsets.UTF_8)).isEqualTo("xin chào");
+    }
+
+    @Test
+    void userMessageIsRelayedOnlyWhenRecipientHasSessionsElsewhere() {
+        when(nodeA.presence.hasRemoteSessions(7L)).thenReturn(false);
+        nodeA.template.convertAndSend("/user/7/queue/messages", "local");
+        assertThat(published).isZero();
+        assertThat(nodeB.delivered).isEmpty();
+
+        when(nodeA.presence.hasRemoteSessions(7L)).thenReturn(true);
+        nodeA.template.convertAndSend("/user/7/queue/messages", "remote");
+        assertThat(published).isEqualTo(1);
+        assertThat(nodeB.delivered).hasSize(1);
+        assertThat(SimpMessageHeaderAccessor.getDestination(nodeB.delivered.get(0).getHeaders()))
+                .isEqualTo("/user/7/queue/messages");
+    }
+
+    @Test
+    void resolvedSessionDestinationStaysOnNode() {
+        nodeA.template.convertAndSend("/queue/messages-user3f2a", "session");
+
+        assertThat(published).isZero();
+        assertThat(nodeA.delivered).hasSize(1);
+        assertThat(nodeB.delivered).isEmpty();
+    }
+
+    @Test
+    void localDeliverySurvivesRedisOutage() {
+        redisDown = true;
+        nodeA.template.convertAndSend("/topic/conversation/1", "offline");
+
+        assertThat(nodeA.delivered).hasSize(1);
+        assertThat(nodeB.delivered).isEmpty();
+    }
+
+    // ================= HELPERS =================
+
+    private void publish(Object envelope) {
+        if (redisDown) {
+            throw new IllegalStateException("Redis down");
+        }
+        published++;
+        byte[] body = serializer.serialize(envelope);
+        for (Node node : nodes) {
+            node.relay.onMessage(new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), body), null);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private class Node {
+        final List<Message<?>> delivered = new ArrayList<>();
+        final PresenceService presence = mock(PresenceService.class);
+        final SimpMessagingTemplate template;
+        final RedisBrokerRelay relay;
+
+        Node(String nodeId) {
+            when(presence.getNodeId()).thenReturn(nodeId);
+            when(presence.hasRemoteSessions(anyLong())).thenReturn(false);
+
+            RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+            doAnswer(invocation -> {
+                publish(invocation.getArgument(1));
+                return 1L;
+            }).when(redisTemplate).convertAndSend(anyString(), any());
+
+            BrokerRelayProperties properties = new BrokerRelayProperties();
+            properties.setMode(BrokerRelayProperties.Mode.REDIS);
+            properties.setChannel(CHANNEL);
+
+            ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+            template = new SimpMessagingTemplate(brokerChannel);
+            // Như brokerMessageConverter của Spring: payload trên brokerChannel là byte[]
+            template.setMessageConverter(new CompositeMessageConverter(List.of(
+                    new StringMessageConverter(), new ByteArrayMessageConverter(), new MappingJackson2MessageConverter())));
+
+            ObjectProvider<SimpMessagingTemplate> templateProvider = mock(ObjectProvider.class);
+            when(templateProvider.getObject()).thenReturn(template);
+            ObjectProvider<PresenceService> presenceProvider = mock(ObjectProvider.class);
+            when(presenceProvider.getObject()).thenReturn(presence);
+
+            relay = new RedisBrokerRelay(
+                    redisTemplate,
+                    mock(RedisMessageListenerContainer.class),
+                    properties,
+                    new ObjectMapper(),
+                    templateProvider,
+                    presenceProvider
+            );
+            brokerChannel.addInterceptor(relay);
+            brokerChannel.subscribe(delivered::add);
+            nodes.add(this);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.chat.integration.minio;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MinioClient;
+import io.minio.S3Escaper;
+import io.minio.Signer;
+import io.minio.http.Method;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * URL do PresignedUrlService tự ký phải trùng từng ký tự với URL MinIO SDK ký cho cùng credentials và thời điểm.
+ */
+class PresignedUrlServiceTest {
+
+    private static final String ENDPOINT = "http://minio.local:9000";
+    private static final String ACCESS_KEY = "test-access-key";
+    private static final String SECRET_KEY = "test-secret-key/with+chars";
+    private static final String BUCKET = "media";
+    private static final int TTL = 3600;
+    private static final Instant NOW = Instant.parse("2026-10-17T03:15:42Z");
+    private static final DateTimeFormatter AMZ_DATE =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    private MinioProps props;
+
+    @BeforeEach
+    void setUp() {
+        props = new MinioProps();
+        props.setEndpoint(ENDPOINT);
+        props.setAccessKey(ACCESS_KEY);
+        props.setSecretKey(SECRET_KEY);
+        props.setBucket(BUCKET);
+        props.setGetUrlExpirySeconds(TTL);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "articles/3f2a9c1e-photo.jpg",
+            "articles/9b1d-ảnh bệnh án (1).png",
+            "articles/a+b=c&d~e_f.pdf"
+    })
+    void matchesMinioSignerAtFixedTime(String objectKey) throws Exception {
+        PresignedUrlService service = new PresignedUrlService(props, new SimpleMeterRegistry(), Clock.fixed(NOW, ZoneOffset.UTC));
+
+        // Cùng cách MinioClient.getPresignedObjectUrl dựng request trước khi gọi Signer.presignV4
+        HttpUrl url = HttpUrl.parse(ENDPOINT).newBuilder()
+                .addEncodedPathSegment(S3Escaper.encode(BUCKET))
+                .addEncodedPathSegments(S3Escaper.encodePath(objectKey))
+                .build();
+        Request request = new Request.Builder()
+                .url(url)
+                .header("Host", "minio.local:9000")
+                .header("x-amz-date", AMZ_DATE.format(NOW))
+                .get()
+                .build();
+        String expected = Signer.presignV4(request, props.getRegion(), ACCESS_KEY, SECRET_KEY, TTL).toString();
+
+        PresignedUrlService.PresignedUrl presigned = service.presignGet(objectKey);
+
+        assertThat(presigned.url()).isEqualTo(expected);
+        assertThat(presigned.expiresAt()).isEqualTo(NOW.plusSeconds(TTL));
+    }
+
+    @Test
+    void matchesMinioClientPresignedObjectUrl() throws Exception {
+        MinioClient client = MinioClient.builder()
+                .endpoint(ENDPOINT)
+                .credentials(ACCESS_KEY, SECRET_KEY)
+                .region(props.getRegion())
+                .build();
+        String objectKey = "articles/5e0c-kết quả xét nghiệm.pdf";
+
+        // MinioClient ký theo giờ hệ thống: lặp lại nếu hai lần ký rơi vào hai giây khác nhau
+        for (int attempt = 0; attempt < 5; attempt++) {
+            String expected = client.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                    .method(Method.GET)
+                    .bucket(BUCKET)
+                    .object(objectKey)
+                    .expiry(TTL)
+                    .build());
+            String actual = new PresignedUrlService(props, new SimpleMeterRegistry()).presignGet(objectKey).url();
+            if (amzDate(expected).equals(amzDate(actual))) {
+                assertThat(actual).isEqualTo(expected);
+                return;
+            }
+        }
+        throw new AssertionError("Không ký được hai URL trong cùng một giây");
+    }
+
+    @Test
+    void defaultPortIsLeftOutOfHostAndUrl() throws Exception {
+        props.setEndpoint("https://files.example.com:443");
+        PresignedUrlService service = new PresignedUrlService(props, new SimpleMeterRegistry(), Clock.fixed(NOW, ZoneOffset.UTC));
+
+        HttpUrl url = HttpUrl.parse("https://files.example.com/" + BUCKET + "/articles/x.jpg");
+        Request request = new Request.Builder()
+                .url(url)
+                .header("Host", "files.example.com")
+                .header("x-amz-date", AMZ_DATE.format(NOW))
+                .get()
+                .build();
+        String expected = Signer.presignV4(request, props.getRegion(), ACCESS_KEY, SECRET_KEY, TTL).toString();
+
+        assertThat(service.presignGet("articles/x.jpg").url()).isEqualTo(expected);
+    }
+
+    @Test
+    void cachedUrlIsReusedUntilRefreshPoint() {
+        MutableClock clock = new MutableClock(NOW);
+        PresignedUrlService service = new PresignedUrlService(props, new SimpleMeterRegistry(), clock);
+
+        String first = service.presignGet("articles/a.jpg").url();
+        clock.now = NOW.plusSeconds(TTL / 2);
+        assertThat(service.presignGet("articles/a.jpg").url()).isEqualTo(first);
+
+        // Còn dưới 25% thời hạn thì ký lại
+        clock.now = NOW.plusSeconds(TTL * 3 / 4 + 1);
+        assertThat(service.presignGet("articles/a.jpg").url()).isNotEqualTo(first);
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private static String amzDate(String url) {
+        return HttpUrl.parse(url).queryParameter("X-Amz-Date");
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
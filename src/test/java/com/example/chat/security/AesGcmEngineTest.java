@@ -0,0 +1,151 @@
+package com.example.chat.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AesGcmEngineTest {
+
+    private static final String KEY = "0123456789abcdef0123456789abcdef";
+
+    private AesGcmEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        EncryptionProperties properties = new EncryptionProperties();
+        properties.setKey(KEY);
+        engine = new AesGcmEngine(properties);
+        engine.init();
+    }
+
+    @Test
+    void decryptAllKeepsOrderAndNulls() {
+        List<String> cipherTexts = new ArrayList<>();
+        cipherTexts.add(engine.encrypt("tin nhắn 1"));
+        cipherTexts.add(null);
+        cipherTexts.add(engine.encrypt("https://files.example.com/a.png"));
+        cipherTexts.add("");
+        cipherTexts.add(engine.encrypt("tin nhắn 3"));
+
+        assertThat(engine.decryptAll(cipherTexts))
+                .containsExactly("tin nhắn 1", null, "https://files.example.com/a.png", null, "tin nhắn 3");
+        assertThat(engine.decryptAll(List.of())).isEmpty();
+    }
+
+    @Test
+    void decryptAllRejectsTamperedValue() {
+        String valid = engine.encrypt("b");
+        String tampered = valid.substring(0, 20) + (valid.charAt(20) == 'A' ? 'B' : 'A') + valid.substring(21);
+
+        assertThatThrownBy(() -> engine.decryptAll(List.of(engine.encrypt("a"), tampered)))
+                .isInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    void roundTrip() {
+        for (String plain : List.of("a", "Bác sĩ Nội tiết 🩺", "x".repeat(10_000))) {
+            assertThat(engine.decrypt(engine.encrypt(plain))).isEqualTo(plain);
+        }
+    }
+
+    @Test
+    void blankValuesAreStoredAsNull() {
+        assertThat(engine.encrypt(null)).isNull();
+        assertThat(engine.encrypt("  ")).isNull();
+        assertThat(engine.decrypt(null)).isNull();
+        assertThat(engine.decrypt("")).isNull();
+    }
+
+    @Test
+    void usesFreshIvForEveryValue() {
+        assertThat(engine.encrypt("same")).isNotEqualTo(engine.encrypt("same"));
+    }
+
+    @Test
+    void decryptsValuesWrittenByPreviousConverter() throws Exception {
+        String plain = "Tiền sử dị ứng penicillin";
+        assertThat(engine.decrypt(legacyEncrypt(plain))).isEqualTo(plain);
+    }
+
+    @Test
+    void previousConverterDecryptsNewValues() throws Exception {
+        String plain = "Chuyên khoa Tim mạch";
+        assertThat(legacyDecrypt(engine.encrypt(plain))).isEqualTo(plain);
+    }
+
+    @Test
+    void rejectsTamperedCiphertext() {
+        byte[] bytes = Base64.getDecoder().decode(engine.encrypt("payload"));
+        bytes[bytes.length - 1] ^= 1;
+
+        assertThatThrownBy(() -> engine.decrypt(Base64.getEncoder().encodeToString(bytes)))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Decrypt failed");
+    }
+
+    @Test
+    void threadLocalCiphersDoNotInterfere() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                results.add(pool.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        String plain = "thread-" + thread + "-" + i;
+                        if (!plain.equals(engine.decrypt(engine.encrypt(plain)))) return false;
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Cách mã hoá / giải mã của AesEncryptor trước khi chuyển sang AesGcmEngine
+
+    private static String legacyEncrypt(String plain) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        byte[] iv = new byte[12];
+        new SecureRandom().nextBytes(iv);
+        cipher.init(Cipher.ENCRYPT_MODE, legacyKey(), new GCMParameterSpec(128, iv));
+        byte[] encrypted = cipher.doFinal(plain.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(
+                ByteBuffer.allocate(iv.length + encrypted.length).put(iv).put(encrypted).array());
+    }
+
+    private static String legacyDecrypt(String stored) throws Exception {
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(stored));
+        byte[] iv = new byte[12];
+        buffer.get(iv);
+        byte[] encrypted = new byte[buffer.remaining()];
+        buffer.get(encrypted);
+
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, legacyKey(), new GCMParameterSpec(128, iv));
+        return new String(cipher.doFinal(encrypted), StandardCharsets.UTF_8);
+    }
+
+    private static SecretKeySpec legacyKey() {
+        return new SecretKeySpec(KEY.getBytes(StandardCharsets.UTF_8), "AES");
+    }
+}
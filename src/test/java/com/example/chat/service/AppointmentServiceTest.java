@@ -0,0 +1,184 @@
+package com.example.chat.service;
+
+import com.example.chat.entity.Account;
+import com.example.chat.entity.Appointment;
+import com.example.chat.enums.AppointmentStatus;
+import com.example.chat.enums.PaymentMethod;
+import com.example.chat.exception.ConflictException;
+import com.example.chat.integration.zalopay.PaymentService;
+import com.example.chat.mapper.AppointmentMapper;
+import com.example.chat.repository.AccountRepository;
+import com.example.chat.repository.AppointmentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Đặt lịch tranh chấp một slot khi Redis không giữ được chỗ: unique index uq_appointments_active_slot quyết định,
+ * một request thành công, request còn lại nhận ConflictException. Lịch đã huỷ không còn giữ slot.
+ * appointmentRepository.saveAndFlush kiểm tra đúng điều kiện của partial index (changelog-0025).
+ */
+class AppointmentServiceTest {
+
+    private static final Long DOCTOR_ID = 7L;
+    private static final Long PATIENT_A = 21L;
+    private static final Long PATIENT_B = 22L;
+    private static final LocalDate DATE = LocalDate.of(2026, 10, 19);
+    private static final LocalTime TIME = LocalTime.of(9, 30);
+
+    private final List<Appointment> appointments = new ArrayList<>();
+    private final AtomicLong ids = new AtomicLong();
+    // Khác null: các insert chờ nhau để cùng tới unique index
+    private volatile CyclicBarrier insertBarrier;
+
+    private AppointmentService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+        when(appointmentRepository.saveAndFlush(any(Appointment.class))).thenAnswer(inv -> {
+            Appointment appointment = inv.getArgument(0);
+            CyclicBarrier barrier = insertBarrier;
+            if (barrier != null) {
+                barrier.await(5, TimeUnit.SECONDS);
+            }
+            return insert(appointment);
+        });
+        when(appointmentRepository.save(any(Appointment.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(appointmentRepository.findById(anyLong())).thenAnswer(inv -> {
+            synchronized (appointments) {
+                return appointments.stream().filter(a -> a.getId().equals(inv.getArgument(0))).findFirst();
+            }
+        });
+
+        AccountRepository accountRepository = mock(AccountRepository.class);
+        for (Long id : List.of(DOCTOR_ID, PATIENT_A, PATIENT_B)) {
+            Account account = Account.builder().id(id).username("account-" + id).build();
+            when(accountRepository.findById(id)).thenReturn(Optional.of(account));
+        }
+
+        // Redis không khả dụng: reserve() cho qua, chỉ còn unique index
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, Object> valueOps = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        when(valueOps.setIfAbsent(anyString(), any(), any(Duration.class)))
+                .thenThrow(new RedisConnectionFailureException("Redis down"));
+
+        service = new AppointmentService(
+                appointmentRepository,
+                accountRepository,
+                mock(AppointmentMapper.class),
+                mock(NotificationOutboxService.class),
+                mock(PaymentService.class),
+                mock(SlotAvailabilityService.class),
+                new SlotReservationService(redisTemplate)
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void concurrentBookingsOfOneSlotGiveOneSuccessAndOneConflict() throws Exception {
+        insertBarrier = new CyclicBarrier(2);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Throwable> first = pool.submit(() -> book(PATIENT_A));
+            Future<Throwable> second = pool.submit(() -> book(PATIENT_B));
+
+            List<Throwable> outcomes = new ArrayList<>();
+            outcomes.add(first.get(10, TimeUnit.SECONDS));
+            outcomes.add(second.get(10, TimeUnit.SECONDS));
+
+            assertThat(outcomes).containsOnlyOnce((Throwable) null);
+            assertThat(outcomes).filteredOn(error -> error != null)
+                    .singleElement()
+                    .isInstanceOf(ConflictException.class);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(appointments).hasSize(1);
+    }
+
+    @Test
+    void cancelledSlotCanBeBookedAgain() {
+        assertThat(book(PATIENT_A)).isNull();
+        assertThat(book(PATIENT_B)).isInstanceOf(ConflictException.class);
+
+        Long appointmentId = appointments.getFirst().getId();
+        authenticate(PATIENT_A, "USER");
+        service.updateStatus(appointmentId, AppointmentStatus.CANCELLED);
+
+        assertThat(book(PATIENT_B)).isNull();
+        assertThat(appointments).extracting(Appointment::getStatus)
+                .containsExactly(AppointmentStatus.CANCELLED, AppointmentStatus.PENDING);
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    // Trả về lỗi của lần đặt lịch, null nếu thành công
+    private Throwable book(Long patientId) {
+        authenticate(patientId, "USER");
+        try {
+            service.bookAppointment(DOCTOR_ID, DATE, TIME, PaymentMethod.CASH, 200_000L);
+            return null;
+        } catch (RuntimeException e) {
+            return e;
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private Appointment insert(Appointment appointment) {
+        synchronized (appointments) {
+            // uq_appointments_active_slot: (doctor_id, appointment_date, appointment_time) WHERE status <> 'CANCELLED'
+            boolean taken = appointments.stream().anyMatch(existing ->
+                    existing.getStatus() != AppointmentStatus.CANCELLED
+                            && existing.getDoctor().getId().equals(appointment.getDoctor().getId())
+                            && existing.getAppointmentDate().equals(appointment.getAppointmentDate())
+                            && existing.getAppointmentTime().equals(appointment.getAppointmentTime()));
+            if (taken) {
+                throw new DataIntegrityViolationException("duplicate key value violates unique constraint \"uq_appointments_active_slot\"");
+            }
+            appointment.setId(ids.incrementAndGet());
+            appointments.add(appointment);
+            return appointment;
+        }
+    }
+
+    private static void authenticate(Long accountId, String role) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                accountId, null, List.of(new SimpleGrantedAuthority("ROLE_" + role))));
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.chat.service;
+
+import com.example.chat.config.LeaderboardProperties;
+import com.example.chat.entity.Account;
+import com.example.chat.entity.DoctorDetail;
+import com.example.chat.enums.Role;
+import com.example.chat.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Review ghi vào "touched" để rebuild chép lại; rebuild truyền cho SWAP_SCRIPT bộ bốn key của mọi đoạn
+ * (toàn hệ thống, chuyên khoa vừa dựng, chuyên khoa đang có bảng) để thay bảng trong cùng một script.
+ */
+class DoctorLeaderboardServiceTest {
+
+    private static final String PREFIX = "leaderboard:doctors:";
+
+    private RedisTemplate<String, Object> redisTemplate;
+    private AccountRepository accountRepository;
+    private DoctorLeaderboardService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        accountRepository = mock(AccountRepository.class);
+        service = new DoctorLeaderboardService(redisTemplate, accountRepository, new LeaderboardProperties());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordReviewTouchesDoctorAndRegistersSpecialization() {
+        service.recordReview(5L, "Nội tiết", 4);
+
+        Object[] call = scriptCall();
+        assertThat((List<String>) call[3]).containsExactly(
+                PREFIX + "stats", PREFIX + "touched", PREFIX + "specs",
+                PREFIX + "reviews", PREFIX + "rating",
+                PREFIX + "reviews:spec:noi-tiet", PREFIX + "rating:spec:noi-tiet"
+        );
+        List<Object> args = scriptArgs(call);
+        assertThat(args).hasSize(5);
+        assertThat(args.get(0)).isEqualTo("5");
+        assertThat(args.get(4)).isEqualTo("noi-tiet");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuildSwapsEverySegmentIncludingPreviousSpecializations() {
+        when(accountRepository.findWithDetailsByRole(Role.DOCTOR)).thenReturn(List.of(doctor(5L, "Nội tiết", 3, 12)));
+        // Chuyên khoa "tim-mach" đang có bảng nhưng không còn bác sĩ nào có review
+        when(redisTemplate.execute(any(RedisCallback.class))).thenReturn(Set.of(bytes("tim-mach")));
+
+        long before = System.currentTimeMillis();
+        assertThat(service.rebuild()).isEqualTo(1);
+
+        Object[] call = scriptCall();
+        List<String> swapKeys = (List<String>) call[3];
+        String suffix = swapKeys.get(1).substring((PREFIX + "stats").length());
+        assertThat(suffix).startsWith(":tmp:");
+        assertThat(swapKeys).containsExactly(
+                PREFIX + "stats", PREFIX + "stats" + suffix, PREFIX + "touched",
+                PREFIX + "specs", PREFIX + "specs" + suffix,
+                PREFIX + "reviews", PREFIX + "reviews" + suffix, PREFIX + "rating", PREFIX + "rating" + suffix,
+                PREFIX + "reviews:spec:noi-tiet", PREFIX + "reviews:spec:noi-tiet" + suffix,
+                PREFIX + "rating:spec:noi-tiet", PREFIX + "rating:spec:noi-tiet" + suffix,
+                PREFIX + "reviews:spec:tim-mach", PREFIX + "reviews:spec:tim-mach" + suffix,
+                PREFIX + "rating:spec:tim-mach", PREFIX + "rating:spec:tim-mach" + suffix
+        );
+
+        List<Object> swapArgs = scriptArgs(call);
+        // Mốc bắt đầu lùi lại để bù lệch đồng hồ, rồi C, rồi tên đoạn của từng bộ bốn
+        assertThat(Long.parseLong((String) swapArgs.get(0))).isLessThan(before);
+        assertThat(swapArgs.subList(2, swapArgs.size())).containsExactly("", "noi-tiet", "tim-mach");
+    }
+
+    @Test
+    void recordReviewSkipsWhenRedisFails() {
+        when(redisTemplate.execute(any(RedisScript.class), any(), any(), anyList(), any(Object[].class)))
+                .thenThrow(new IllegalStateException("Redis down"));
+
+        // Lỗi Redis không được lan ra luồng tạo review
+        service.recordReview(5L, null, 5);
+        verify(redisTemplate).execute(any(RedisScript.class), any(), any(), anyList(), any(Object[].class));
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    // Lần gọi execute(script, argsSerializer, resultSerializer, keys, args...) duy nhất
+    private Object[] scriptCall() {
+        return mockingDetails(redisTemplate).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("execute")
+                        && invocation.getRawArguments().length == 5)
+                .map(invocation -> invocation.getRawArguments())
+                .reduce((first, second) -> {
+                    throw new AssertionError("Script được gọi nhiều lần");
+                })
+                .orElseThrow(() -> new AssertionError("Script không được gọi"));
+    }
+
+    private static List<Object> scriptArgs(Object[] call) {
+        return Arrays.asList((Object[]) call[4]);
+    }
+
+    private static Account doctor(Long id, String specialization, long reviews, long ratingSum) {
+        DoctorDetail detail = DoctorDetail.builder()
+                .specialization(specialization)
+                .reviewCount(reviews)
+                .ratingSum(ratingSum)
+                .build();
+        return Account.builder().id(id).doctorDetail(detail).build();
+    }
+
+    private static byte[] bytes(String value) {
+        return RedisSerializer.string().serialize(value);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.chat.service;
+
+import com.example.chat.entity.Account;
+import com.example.chat.entity.DoctorDetail;
+import com.example.chat.enums.Role;
+import com.example.chat.repository.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * fold() bỏ dấu tiếng Việt; search khớp tiền tố trên term đã bỏ dấu, lọc và xếp hạng đúng.
+ */
+class DoctorSearchIndexTest {
+
+    private AccountRepository accountRepository;
+    private DoctorSearchIndex index;
+    private final List<Account> doctors = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        accountRepository = mock(AccountRepository.class);
+        when(accountRepository.findWithDetailsByRole(Role.DOCTOR)).thenReturn(doctors);
+        index = new DoctorSearchIndex(
+                accountRepository,
+                mock(RedisTemplate.class),
+                mock(RedisMessageListenerContainer.class),
+                new SimpleMeterRegistry()
+        );
+
+        doctors.add(doctor(1L, "Nguyễn Văn An", "Nội tiết", "Điều trị đái tháo đường", 300_000L, 10, 45, 12));
+        doctors.add(doctor(2L, "Trần Thị Bình", "Nhi khoa", "Khám trẻ sơ sinh", 200_000L, 4, 20, 5));
+        doctors.add(doctor(3L, "Lê Đức Anh", "Nội tiết", "Tuyến giáp", 500_000L, 8, 40, 20));
+        doctors.add(doctor(4L, "Phạm Ngọc Ánh", "Da liễu", "Mụn trứng cá", 150_000L, 0, 0, 2));
+        index.rebuild();
+    }
+
+    @Test
+    void foldRemovesVietnameseDiacriticsAndLowercases() {
+        assertThat(DoctorSearchIndex.fold("Nội Tiết")).isEqualTo("noi tiet");
+        assertThat(DoctorSearchIndex.fold("Đa khoa")).isEqualTo("da khoa");
+        assertThat(DoctorSearchIndex.fold("đường")).isEqualTo("duong");
+        assertThat(DoctorSearchIndex.fold("Ưu tiên Ở Huế")).isEqualTo("uu tien o hue");
+        assertThat(DoctorSearchIndex.fold("Nhi khoa")).isEqualTo("nhi khoa");
+        assertThat(DoctorSearchIndex.fold(null)).isEmpty();
+    }
+
+    @Test
+    void foldedQueryMatchesAccentedAndUnaccentedInput() {
+        assertThat(ids(search("Nội tiết"))).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(ids(search("noi tiet"))).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(ids(search("DUC"))).containsExactly(3L);
+    }
+
+    @Test
+    void tokensMatchByPrefixAndAreAnded() {
+        // "an" là tiền tố của an, anh, anh (Ánh): cả ba bác sĩ
+        assertThat(ids(search("an"))).containsExactlyInAnyOrder(1L, 3L, 4L);
+        assertThat(ids(search("an noi"))).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(ids(search("anh tuyen"))).containsExactly(3L);
+        assertThat(ids(search("duong"))).containsExactly(1L);
+        assertThat(ids(search("xyz"))).isEmpty();
+    }
+
+    @Test
+    void prefixDoesNotMatchInsideATerm() {
+        // "khoa" là một term riêng của "Nhi khoa" nên khớp; "hoa" chỉ nằm giữa term nên không khớp
+        assertThat(ids(search("khoa"))).containsExactly(2L);
+        assertThat(ids(search("hoa"))).isEmpty();
+    }
+
+    @Test
+    void filtersAndRankingApply() {
+        DoctorSearchIndex.Result byRating = index.search(
+                new DoctorSearchIndex.Query(null, "noi tiet", null, null, null), 0, 10);
+        // Bác sĩ 1: 45/10 = 4.5; bác sĩ 3: 40/8 = 5.0
+        assertThat(ids(byRating)).containsExactly(3L, 1L);
+
+        DoctorSearchIndex.Result byFee = index.search(
+                new DoctorSearchIndex.Query(null, null, 150_000L, 300_000L, 4.6), 0, 10);
+        assertThat(ids(byFee)).containsExactly(2L);
+    }
+
+    @Test
+    void pagingReportsTotal() {
+        DoctorSearchIndex.Result page = index.search(new DoctorSearchIndex.Query("an", null, null, null, null), 1, 2);
+        assertThat(page.total()).isEqualTo(3);
+        assertThat(page.entries()).hasSize(1);
+    }
+
+    @Test
+    void refreshReplacesOldTerms() {
+        Account renamed = doctor(4L, "Phạm Ngọc Bảo", "Da liễu", "Mụn trứng cá", 150_000L, 0, 0, 2);
+        when(accountRepository.findById(4L)).thenReturn(Optional.of(renamed));
+
+        index.refresh(4L);
+
+        assertThat(ids(search("anh"))).containsExactly(3L);
+        assertThat(ids(search("bao"))).containsExactly(4L);
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private DoctorSearchIndex.Result search(String text) {
+        return index.search(new DoctorSearchIndex.Query(text, null, null, null, null), 0, 50);
+    }
+
+    private static List<Long> ids(DoctorSearchIndex.Result result) {
+        return result.entries().stream().map(DoctorSearchIndex.Entry::id).toList();
+    }
+
+    private static Account doctor(Long id, String name, String specialization, String bio,
+                                  long fee, long reviewCount, long ratingSum, int experienceYears) {
+        Account account = Account.builder()
+                .id(id)
+                .username(name)
+                .role(Role.DOCTOR)
+                .build();
+        account.setDoctorDetail(DoctorDetail.builder()
+                .specialization(specialization)
+                .bio(bio)
+                .fee(fee)
+                .reviewCount(reviewCount)
+                .ratingSum(ratingSum)
+                .experienceYears(experienceYears)
+                .account(account)
+                .build());
+        return account;
+    }
+}
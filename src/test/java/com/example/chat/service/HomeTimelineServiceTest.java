@@ -0,0 +1,189 @@
+package com.example.chat.service;
+
+import com.example.chat.config.TimelineProperties;
+import com.example.chat.repository.ArticleRepository;
+import com.example.chat.repository.FavoriteDoctorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * page() trộn timeline trên Redis với bài của tác giả fan-out-on-read theo keyset id giảm dần:
+ * đi hết các trang bằng cursor phải ra đúng danh sách trộn, không trùng, không sót.
+ */
+class HomeTimelineServiceTest {
+
+    private static final Long ACCOUNT_ID = 1L;
+    private static final Long PUSHED_AUTHOR = 5L;
+    private static final Long ON_READ_AUTHOR = 9L;
+
+    // Timeline trên Redis (fan-out) và bài của tác giả fan-out-on-read trong DB
+    private static final List<Long> TIMELINE = List.of(100L, 90L, 70L, 50L, 30L, 10L);
+    private static final List<Long> ON_READ_ARTICLES = List.of(95L, 80L, 60L, 55L, 20L);
+
+    private RedisTemplate<String, Object> redisTemplate;
+    private ZSetOperations<String, Object> zSetOps;
+    private SetOperations<String, Object> setOps;
+    private ArticleRepository articleRepository;
+    private FavoriteDoctorRepository favoriteDoctorRepository;
+    private TimelineProperties properties;
+    private HomeTimelineService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        zSetOps = mock(ZSetOperations.class);
+        setOps = mock(SetOperations.class);
+        articleRepository = mock(ArticleRepository.class);
+        favoriteDoctorRepository = mock(FavoriteDoctorRepository.class);
+        properties = new TimelineProperties();
+
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOps);
+        when(redisTemplate.opsForSet()).thenReturn(setOps);
+        when(redisTemplate.hasKey("timeline:home:" + ACCOUNT_ID)).thenReturn(true);
+        when(setOps.members("timeline:fan-out-on-read")).thenReturn(Set.of(ON_READ_AUTHOR));
+        when(favoriteDoctorRepository.findDoctorIdsByUserId(ACCOUNT_ID)).thenReturn(List.of(PUSHED_AUTHOR, ON_READ_AUTHOR));
+
+        when(zSetOps.reverseRangeByScore(anyString(), anyDouble(), anyDouble(), anyLong(), anyLong()))
+                .thenAnswer(inv -> {
+                    double max = inv.getArgument(2);
+                    long count = inv.getArgument(4);
+                    Set<Object> members = new LinkedHashSet<>();
+                    TIMELINE.stream().filter(id -> id <= max).limit(count).forEach(members::add);
+                    return members;
+                });
+        when(articleRepository.findTimelineIds(any(), anyLong(), anyInt()))
+                .thenAnswer(inv -> {
+                    long beforeId = inv.getArgument(1);
+                    int limit = inv.getArgument(2);
+                    return ON_READ_ARTICLES.stream().filter(id -> id < beforeId).limit(limit).toList();
+                });
+
+        service = new HomeTimelineService(redisTemplate, articleRepository, favoriteDoctorRepository, properties);
+    }
+
+    @Test
+    void firstPageMergesTimelineWithOnReadAuthorsNewestFirst() {
+        assertThat(service.page(ACCOUNT_ID, null, 4)).containsExactly(100L, 95L, 90L, 80L);
+
+        // Chỉ tác giả fan-out-on-read được đọc từ DB; bài của chính mình đã nằm trong timeline
+        verify(articleRepository).findTimelineIds(eq(Set.of(ON_READ_AUTHOR)), eq(Long.MAX_VALUE), eq(4));
+    }
+
+    @Test
+    void cursorPagesCoverTheMergedListWithoutGapsOrDuplicates() {
+        List<Long> expected = new ArrayList<>(TIMELINE);
+        expected.addAll(ON_READ_ARTICLES);
+        expected.sort(Comparator.reverseOrder());
+
+        List<List<Long>> pages = new ArrayList<>();
+        List<Long> all = new ArrayList<>();
+        Long cursor = null;
+        while (true) {
+            List<Long> page = service.page(ACCOUNT_ID, cursor, 4);
+            if (page.isEmpty()) break;
+            pages.add(page);
+            all.addAll(page);
+            cursor = page.get(page.size() - 1);
+        }
+
+        assertThat(pages).containsExactly(
+                List.of(100L, 95L, 90L, 80L),
+                List.of(70L, 60L, 55L, 50L),
+                List.of(30L, 20L, 10L)
+        );
+        assertThat(all).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void cursorIsExclusiveOnBothSources() {
+        assertThat(service.page(ACCOUNT_ID, 90L, 3)).containsExactly(80L, 70L, 60L);
+
+        // Score nguyên: id < 90 tương đương score <= 89
+        verify(zSetOps).reverseRangeByScore("timeline:home:" + ACCOUNT_ID, Double.NEGATIVE_INFINITY, 89, 0, 3);
+        verify(articleRepository).findTimelineIds(eq(Set.of(ON_READ_AUTHOR)), eq(90L), eq(3));
+    }
+
+    @Test
+    void redisFailureReadsEveryAuthorFromDatabase() {
+        when(setOps.members("timeline:fan-out-on-read")).thenThrow(new IllegalStateException("redis down"));
+        when(articleRepository.findTimelineIds(any(), anyLong(), anyInt())).thenReturn(List.of(95L, 90L, 80L));
+
+        assertThat(service.page(ACCOUNT_ID, null, 2)).containsExactly(95L, 90L);
+        verify(articleRepository).findTimelineIds(
+                eq(Set.of(ACCOUNT_ID, PUSHED_AUTHOR, ON_READ_AUTHOR)), eq(Long.MAX_VALUE), eq(2));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuildAddsArticlesCommittedBeforeRename() {
+        when(redisTemplate.hasKey("timeline:home:" + ACCOUNT_ID)).thenReturn(false);
+        // Lần đọc dựng timeline chưa thấy bài 110; lần đọc lại sau RENAME thấy
+        when(articleRepository.findTimelineIds(eq(List.of(ACCOUNT_ID, PUSHED_AUTHOR)), anyLong(), anyInt()))
+                .thenReturn(List.of(100L, 90L), List.of(110L, 100L, 90L));
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisZSetCommands zSetCommands = mock(RedisZSetCommands.class);
+        when(connection.zSetCommands()).thenReturn(zSetCommands);
+        when(connection.keyCommands()).thenReturn(mock(RedisKeyCommands.class));
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(inv -> {
+            ((RedisCallback<Object>) inv.getArgument(0)).doInRedis(connection);
+            return List.of();
+        });
+
+        service.page(ACCOUNT_ID, null, 4);
+
+        byte[] key = RedisSerializer.string().serialize("timeline:home:" + ACCOUNT_ID);
+        verify(zSetCommands).zAdd(eq(key), eq(Set.of(new DefaultTuple(bytes("110"), 110d))));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void authorLeavingFanOutOnReadEvictsFollowerTimelines() {
+        when(favoriteDoctorRepository.countByDoctor_Id(ON_READ_AUTHOR)).thenReturn(2L);
+        when(setOps.remove("timeline:fan-out-on-read", ON_READ_AUTHOR)).thenReturn(1L);
+        when(favoriteDoctorRepository.findFollowerPage(eq(ON_READ_AUTHOR), anyInt(), any(Pageable.class)))
+                .thenReturn(List.of(new Object[]{1, 21L}, new Object[]{2, 22L}));
+
+        service.fanOut(200L, ON_READ_AUTHOR);
+
+        verify(redisTemplate).delete(List.of("timeline:home:21", "timeline:home:22"));
+        // Chỉ đẩy vào timeline của chính tác giả
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), any(), any(), anyList(), any(Object[].class));
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private static byte[] bytes(String value) {
+        return RedisSerializer.string().serialize(value);
+    }
+}
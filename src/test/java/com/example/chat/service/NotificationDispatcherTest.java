@@ -0,0 +1,117 @@
+package com.example.chat.service;
+
+import com.example.chat.entity.NotificationOutbox;
+import com.example.chat.enums.NotificationType;
+import com.example.chat.firebase.FcmSendException;
+import com.example.chat.firebase.FcmService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Outbox lớn hơn BATCH_SIZE phải được chia lô: claim lặp đến khi lô cuối thiếu,
+ * mỗi bản ghi được gửi đúng một lần và kết quả được ghi theo loại lỗi.
+ */
+class NotificationDispatcherTest {
+
+    private NotificationOutboxService outboxService;
+    private FcmService fcmService;
+    private NotificationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        outboxService = mock(NotificationOutboxService.class);
+        fcmService = mock(FcmService.class);
+        dispatcher = new NotificationDispatcher(outboxService, fcmService);
+        dispatcher.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void drainSplitsOutboxIntoBatchesAndSendsEachRowOnce() {
+        when(outboxService.claim(anyInt()))
+                .thenReturn(rows(1, 100), rows(101, 200), rows(201, 250), List.of());
+        Set<String> sent = ConcurrentHashMap.newKeySet();
+        when(fcmService.sendAsync(anyString(), anyString(), anyString(), any())).thenAnswer(inv -> {
+            assertThat(sent.add(inv.getArgument(0))).as("gửi trùng token").isTrue();
+            return CompletableFuture.completedFuture(null);
+        });
+
+        dispatcher.wakeUp();
+
+        verify(outboxService, timeout(5_000).times(250)).markSent(any());
+        // Lô cuối 50 < 100 thì dừng, không claim thêm vòng rỗng
+        verify(outboxService, times(3)).claim(100);
+        assertThat(sent).hasSize(250);
+    }
+
+    @Test
+    void fullLastBatchTriggersOneMoreClaim() {
+        when(outboxService.claim(anyInt())).thenReturn(rows(1, 100), List.of());
+        when(fcmService.sendAsync(anyString(), anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        dispatcher.wakeUp();
+
+        verify(outboxService, timeout(5_000).times(2)).claim(100);
+        verify(outboxService, timeout(5_000).times(100)).markSent(any());
+    }
+
+    @Test
+    void outcomesAreRecordedByFailureKind() {
+        List<NotificationOutbox> batch = rows(1, 3);
+        when(outboxService.claim(anyInt())).thenReturn(batch);
+        when(fcmService.sendAsync(eq("token-1"), anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new FcmSendException("FCM 404", true, false, null)));
+        when(fcmService.sendAsync(eq("token-2"), anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new FcmSendException("FCM 503", false, true, null)));
+        when(fcmService.sendAsync(eq("token-3"), anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new FcmSendException("FCM 400", false, false, null)));
+
+        dispatcher.wakeUp();
+
+        verify(outboxService, timeout(5_000)).markUnregistered(batch.get(0));
+        verify(outboxService, timeout(5_000)).markFailed(batch.get(1), "FCM 503", true);
+        verify(outboxService, timeout(5_000)).markFailed(batch.get(2), "FCM 400", false);
+        verify(outboxService, never()).markSent(any());
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private static List<NotificationOutbox> rows(long fromId, long toId) {
+        List<NotificationOutbox> rows = new ArrayList<>();
+        LongStream.rangeClosed(fromId, toId).forEach(id -> rows.add(NotificationOutbox.builder()
+                .id(id)
+                .userId(id)
+                .fcmToken("token-" + id)
+                .title("Lịch hẹn")
+                .body("Lịch hẹn của bạn đã được xác nhận")
+                .type(NotificationType.APPOINTMENT_CONFIRMED)
+                .attempts(1)
+                .build()));
+        return rows;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.chat.service;
+
+import com.example.chat.repository.AppointmentRepository;
+import com.example.chat.repository.ConversationInboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Đóng session phải truyền presence:node:{id}:users của đúng node giữ session cho LEAVE_SCRIPT,
+ * để user được bỏ khỏi tập user của node khi session cuối trên node đó đóng.
+ */
+class PresenceServiceTest {
+
+    private static final Long USER_ID = 7L;
+    private static final String DEAD_NODE = "dead-node";
+
+    private RedisTemplate<String, Object> redisTemplate;
+    private SetOperations<String, Object> setOps;
+    private PresenceService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        setOps = mock(SetOperations.class);
+        when(redisTemplate.opsForSet()).thenReturn(setOps);
+        when(redisTemplate.opsForValue()).thenReturn(mock(ValueOperations.class));
+
+        service = new PresenceService(
+                redisTemplate,
+                mock(SimpMessagingTemplate.class),
+                mock(ConversationInboxRepository.class),
+                mock(AppointmentRepository.class)
+        );
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void disconnectPassesThisNodesUserSet() {
+        service.disconnect(USER_ID, "s1");
+
+        verify(redisTemplate).execute(
+                any(RedisScript.class),
+                eq(List.of(
+                        "presence:sessions:" + USER_ID,
+                        "presence:last-seen",
+                        "presence:node:" + service.getNodeId() + ":users"
+                )),
+                eq(service.getNodeId() + ":s1"), eq(USER_ID), anyLong()
+        );
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void pruningDeadNodeLeavesWithThatNodesUserSet() {
+        when(setOps.members("presence:nodes")).thenReturn(Set.of(service.getNodeId(), DEAD_NODE));
+        when(redisTemplate.hasKey("presence:node:" + DEAD_NODE)).thenReturn(false);
+        when(setOps.members("presence:node:" + DEAD_NODE + ":users")).thenReturn(Set.of(USER_ID));
+        when(setOps.members("presence:sessions:" + USER_ID))
+                .thenReturn(Set.of(DEAD_NODE + ":s9", service.getNodeId() + ":s1"));
+
+        service.heartbeat();
+
+        verify(redisTemplate).execute(
+                any(RedisScript.class),
+                eq(List.of(
+                        "presence:sessions:" + USER_ID,
+                        "presence:last-seen",
+                        "presence:node:" + DEAD_NODE + ":users"
+                )),
+                eq(DEAD_NODE + ":s9"), eq(USER_ID), anyLong()
+        );
+    }
+}
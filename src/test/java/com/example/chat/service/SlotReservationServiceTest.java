@@ -0,0 +1,101 @@
+package com.example.chat.service;
+
+import com.example.chat.exception.ConflictException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Giữ chỗ slot: SET NX thất bại -> ConflictException; giữ chỗ được trả bằng compare-and-delete với đúng token
+ * khi transaction kết thúc; Redis lỗi thì cho qua để unique index quyết định (xem AppointmentServiceTest).
+ */
+class SlotReservationServiceTest {
+
+    private static final Long DOCTOR_ID = 7L;
+    private static final LocalDate DATE = LocalDate.of(2026, 10, 19);
+    private static final LocalTime TIME = LocalTime.of(9, 30);
+    private static final String KEY = "appointment:reserve:" + DOCTOR_ID + ":" + DATE + ":" + TIME;
+
+    private RedisTemplate<String, Object> redisTemplate;
+    private ValueOperations<String, Object> valueOps;
+    private SlotReservationService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        valueOps = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        service = new SlotReservationService(redisTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void slotHeldByAnotherRequestIsAConflict() {
+        when(valueOps.setIfAbsent(eq(KEY), any(), any(Duration.class))).thenReturn(false);
+
+        assertThatThrownBy(() -> service.reserve(DOCTOR_ID, DATE, TIME))
+                .isInstanceOf(ConflictException.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reservationIsReleasedWithItsOwnTokenWhenTransactionCompletes() {
+        when(valueOps.setIfAbsent(eq(KEY), any(), any(Duration.class))).thenReturn(true);
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.reserve(DOCTOR_ID, DATE, TIME);
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any());
+
+        ArgumentCaptor<Object> token = ArgumentCaptor.forClass(Object.class);
+        verify(valueOps).setIfAbsent(eq(KEY), token.capture(), any(Duration.class));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(KEY)), eq(token.getValue()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redisFailureLetsTheUniqueIndexDecide() {
+        when(valueOps.setIfAbsent(anyString(), any(), any(Duration.class)))
+                .thenThrow(new RedisConnectionFailureException("Redis down"));
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.reserve(DOCTOR_ID, DATE, TIME);
+
+        // Không có giữ chỗ nào để trả
+        assertThat(TransactionSynchronizationManager.getSynchronizations()).isEmpty();
+    }
+}
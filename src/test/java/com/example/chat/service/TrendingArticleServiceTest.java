@@ -0,0 +1,84 @@
+package com.example.chat.service;
+
+import com.example.chat.config.TrendingProperties;
+import com.example.chat.repository.ArticleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Điểm thịnh hành: ln(1 + E) + createdAt / tau, tau = halfLife / ln 2.
+ * Bài mới hơn một halfLife cần một nửa (1 + E) để bằng điểm bài cũ.
+ */
+class TrendingArticleServiceTest {
+
+    private static final double EPSILON = 1e-9;
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2026, 10, 17, 8, 0);
+
+    private TrendingProperties properties;
+    private TrendingArticleService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        properties = new TrendingProperties();
+        service = new TrendingArticleService(
+                mock(RedisTemplate.class),
+                mock(ArticleRepository.class),
+                mock(VoteCounterService.class),
+                properties
+        );
+    }
+
+    @Test
+    void engagementIsWeightedAndLogScaled() {
+        double base = service.score(CREATED_AT, 0, 0, 0);
+
+        // Trọng số mặc định: vote 1, comment 2, share 3
+        assertThat(service.score(CREATED_AT, 1, 0, 0) - base).isCloseTo(Math.log(2), within(EPSILON));
+        assertThat(service.score(CREATED_AT, 0, 1, 0) - base).isCloseTo(Math.log(3), within(EPSILON));
+        assertThat(service.score(CREATED_AT, 0, 0, 1) - base).isCloseTo(Math.log(4), within(EPSILON));
+        assertThat(service.score(CREATED_AT, 2, 3, 4) - base).isCloseTo(Math.log1p(2 + 6 + 12), within(EPSILON));
+    }
+
+    @Test
+    void newerArticleGainsLn2PerHalfLife() {
+        LocalDateTime newer = CREATED_AT.plus(properties.getHalfLife());
+
+        assertThat(service.score(newer, 5, 1, 0) - service.score(CREATED_AT, 5, 1, 0))
+                .isCloseTo(Math.log(2), within(EPSILON));
+    }
+
+    @Test
+    void olderArticleNeedsDoubleEngagementToTie() {
+        LocalDateTime newer = CREATED_AT.plus(properties.getHalfLife());
+
+        // 1 + 1 vote = 2 so với 1 + 3 vote = 4
+        assertThat(service.score(CREATED_AT, 3, 0, 0)).isCloseTo(service.score(newer, 1, 0, 0), within(EPSILON));
+        assertThat(service.score(CREATED_AT, 2, 0, 0)).isLessThan(service.score(newer, 1, 0, 0));
+        assertThat(service.score(CREATED_AT, 4, 0, 0)).isGreaterThan(service.score(newer, 1, 0, 0));
+    }
+
+    @Test
+    void negativeCountsAreClampedToZero() {
+        assertThat(service.score(CREATED_AT, -3, -1, -2)).isEqualTo(service.score(CREATED_AT, 0, 0, 0));
+    }
+
+    @Test
+    void customWeightsAndHalfLifeApply() {
+        properties.setVoteWeight(0.5);
+        properties.setHalfLife(properties.getHalfLife().multipliedBy(2));
+        LocalDateTime newer = CREATED_AT.plus(properties.getHalfLife());
+
+        assertThat(service.score(CREATED_AT, 2, 0, 0) - service.score(CREATED_AT, 0, 0, 0))
+                .isCloseTo(Math.log(2), within(EPSILON));
+        assertThat(service.score(newer, 0, 0, 0) - service.score(CREATED_AT, 0, 0, 0))
+                .isCloseTo(Math.log(2), within(EPSILON));
+    }
+}
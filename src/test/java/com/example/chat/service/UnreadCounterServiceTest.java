@@ -0,0 +1,105 @@
+package com.example.chat.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * HINCRBY unread chỉ chạy khi transaction lưu tin nhắn commit; rollback không để lại bộ đếm "ma".
+ */
+class UnreadCounterServiceTest {
+
+    private static final Long CONVERSATION_ID = 3L;
+    private static final Long ACCOUNT_ID = 8L;
+    private static final String KEY = "chat:unread:" + CONVERSATION_ID;
+
+    private RedisTemplate<String, Object> redisTemplate;
+    private HashOperations<String, Object, Object> hashOps;
+    private SetOperations<String, Object> setOps;
+    private UnreadCounterService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        hashOps = mock(HashOperations.class);
+        setOps = mock(SetOperations.class);
+        when(redisTemplate.opsForHash()).thenReturn(hashOps);
+        when(redisTemplate.opsForSet()).thenReturn(setOps);
+        when(hashOps.hasKey(KEY, "8")).thenReturn(true);
+        when(hashOps.get(KEY, "8")).thenReturn(4);
+        when(hashOps.increment(anyString(), any(), anyLong())).thenReturn(5L);
+
+        service = new UnreadCounterService(redisTemplate, mock(ConversationUnreadService.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void incrementWaitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertThat(service.increment(CONVERSATION_ID, ACCOUNT_ID)).isEqualTo(5);
+        verify(hashOps, never()).increment(anyString(), any(), anyLong());
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        verify(hashOps).increment(KEY, "8", 1);
+        verify(redisTemplate).expire(eq(KEY), any(Duration.class));
+        verify(setOps).add("chat:unread:dirty", CONVERSATION_ID + ":" + ACCOUNT_ID);
+    }
+
+    @Test
+    void rollbackLeavesCounterUntouched() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.increment(CONVERSATION_ID, ACCOUNT_ID);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verify(hashOps, never()).increment(anyString(), any(), anyLong());
+        verify(setOps, never()).add(anyString(), any());
+    }
+
+    @Test
+    void incrementOutsideTransactionWritesImmediately() {
+        assertThat(service.increment(CONVERSATION_ID, ACCOUNT_ID)).isEqualTo(5);
+        verify(hashOps).increment(KEY, "8", 1);
+        verify(redisTemplate).expire(eq(KEY), any(Duration.class));
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(sync -> sync.afterCompletion(status));
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.chat.service;
+
+import com.example.chat.repository.ArticleCommentRepository;
+import com.example.chat.repository.ArticleCommentVoteRepository;
+import com.example.chat.repository.ArticleRepository;
+import com.example.chat.repository.ArticleVoteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.doubleThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Delta vote chỉ tới Redis sau commit; nhiều vote trên một bài gộp thành một bộ đếm dirty và một lần UPDATE;
+ * reconcile chỉ ghi đè bằng CAS với giá trị đọc trước khi đếm DB, và chỉ đánh dấu dirty khi CAS thành công.
+ */
+class VoteCounterServiceTest {
+
+    private static final String ARTICLE_COUNTS = "vote:count:article";
+    private static final String ARTICLE_RECENT = "vote:count:recent:article";
+    private static final String DIRTY_KEY = "vote:count:dirty";
+    private static final Long ARTICLE_ID = 42L;
+    private static final String FIELD = String.valueOf(ARTICLE_ID);
+
+    private RedisTemplate<String, Object> redisTemplate;
+    private HashOperations<String, Object, Object> hashOps;
+    private SetOperations<String, Object> setOps;
+    private ZSetOperations<String, Object> zSetOps;
+    private ArticleRepository articleRepository;
+    private ArticleVoteRepository articleVoteRepository;
+    private VoteCounterService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        hashOps = mock(HashOperations.class);
+        setOps = mock(SetOperations.class);
+        zSetOps = mock(ZSetOperations.class);
+        when(redisTemplate.opsForHash()).thenReturn(hashOps);
+        when(redisTemplate.opsForSet()).thenReturn(setOps);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOps);
+
+        articleRepository = mock(ArticleRepository.class);
+        articleVoteRepository = mock(ArticleVoteRepository.class);
+
+        service = new VoteCounterService(
+                redisTemplate,
+                articleRepository,
+                articleVoteRepository,
+                mock(ArticleCommentRepository.class),
+                mock(ArticleCommentVoteRepository.class)
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void voteDeltaReachesRedisOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.addAfterCommit(VoteCounterService.Target.ARTICLE, ARTICLE_ID, -1);
+
+        // Id vào ZSET recent ngay, trước khi vote được ghi
+        verify(zSetOps).add(eq(ARTICLE_RECENT), eq(ARTICLE_ID), anyDouble());
+        verify(hashOps, never()).increment(anyString(), any(), anyLong());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        verify(hashOps).increment(ARTICLE_COUNTS, FIELD, -1L);
+        verify(setOps).add(DIRTY_KEY, "article:" + ARTICLE_ID);
+    }
+
+    @Test
+    void manyVotesOnOneArticleAreFlushedWithOneUpdate() {
+        for (int i = 0; i < 1_000; i++) {
+            service.addAfterCommit(VoteCounterService.Target.ARTICLE, ARTICLE_ID, 1);
+        }
+        verify(hashOps, times(1_000)).increment(ARTICLE_COUNTS, FIELD, 1L);
+
+        // Tập dirty gộp mọi vote của bài thành một phần tử
+        when(setOps.pop(DIRTY_KEY, 500)).thenReturn(List.of("article:" + ARTICLE_ID));
+        when(hashOps.get(ARTICLE_COUNTS, FIELD)).thenReturn(2_000L);
+        when(articleRepository.updateVoteCount(ARTICLE_ID, 2_000)).thenReturn(1);
+
+        assertThat(service.flushDirty(500)).isEqualTo(1);
+        verify(articleRepository, times(1)).updateVoteCount(anyLong(), anyInt());
+        verify(articleRepository).updateVoteCount(ARTICLE_ID, 2_000);
+    }
+
+    @Test
+    void flushDropsCounterOfDeletedArticle() {
+        when(setOps.pop(DIRTY_KEY, 500)).thenReturn(List.of("article:" + ARTICLE_ID));
+        when(hashOps.get(ARTICLE_COUNTS, FIELD)).thenReturn(7L);
+        when(articleRepository.updateVoteCount(ARTICLE_ID, 7)).thenReturn(0);
+
+        assertThat(service.flushDirty(500)).isEqualTo(1);
+        verify(hashOps).delete(ARTICLE_COUNTS, FIELD);
+    }
+
+    @Test
+    void failedIncrementIsLeftForReconcile() {
+        when(hashOps.increment(anyString(), any(), anyLong())).thenThrow(new IllegalStateException("Redis down"));
+
+        // Không ném lỗi ra request đã commit
+        service.addAfterCommit(VoteCounterService.Target.ARTICLE, ARTICLE_ID, 1);
+
+        verify(zSetOps).add(eq(ARTICLE_RECENT), eq(ARTICLE_ID), anyDouble());
+        verify(setOps, never()).add(anyString(), any());
+    }
+
+    @Test
+    void reconcileRepairsCounterWithCompareAndSetFromValueReadBeforeRecount() {
+        settledRecent();
+        when(hashOps.multiGet(ARTICLE_COUNTS, List.of(FIELD))).thenReturn(Arrays.asList(10L));
+        when(articleVoteRepository.countByArticleIds(List.of(ARTICLE_ID)))
+                .thenReturn(List.<Object[]>of(new Object[]{ARTICLE_ID, 12L}));
+        when(redisTemplate.execute(any(RedisScript.class), any(), any(), anyList(), any(Object[].class)))
+                .thenReturn(1L);
+
+        long before = System.currentTimeMillis();
+        assertThat(service.reconcile(VoteCounterService.Target.ARTICLE)).isEqualTo(1);
+
+        List<Object> args = scriptArgs();
+        assertThat(args.subList(0, 3)).containsExactly(FIELD, "10", "12");
+        // Mốc cutoff: vote trong phút cuối làm CAS thất bại
+        assertThat(Long.parseLong((String) args.get(3)))
+                .isBetween(before - 60_000, System.currentTimeMillis() - 60_000);
+        verify(setOps).add(DIRTY_KEY, "article:" + ARTICLE_ID);
+    }
+
+    @Test
+    void rejectedCompareAndSetIsNotCountedOrFlushed() {
+        settledRecent();
+        when(hashOps.multiGet(ARTICLE_COUNTS, List.of(FIELD))).thenReturn(Arrays.asList(10L));
+        when(articleVoteRepository.countByArticleIds(List.of(ARTICLE_ID)))
+                .thenReturn(List.<Object[]>of(new Object[]{ARTICLE_ID, 11L}));
+        // Vote mới đã cộng vào Redis trong lúc đếm DB
+        when(redisTemplate.execute(any(RedisScript.class), any(), any(), anyList(), any(Object[].class)))
+                .thenReturn(0L);
+
+        assertThat(service.reconcile(VoteCounterService.Target.ARTICLE)).isZero();
+        verify(setOps, never()).add(anyString(), any());
+    }
+
+    @Test
+    void reconcileSkipsCountersThatAlreadyMatch() {
+        settledRecent();
+        when(hashOps.multiGet(ARTICLE_COUNTS, List.of(FIELD))).thenReturn(Arrays.asList(12L));
+        when(articleVoteRepository.countByArticleIds(List.of(ARTICLE_ID)))
+                .thenReturn(List.<Object[]>of(new Object[]{ARTICLE_ID, 12L}));
+
+        assertThat(service.reconcile(VoteCounterService.Target.ARTICLE)).isZero();
+        verify(redisTemplate, never()).execute(any(RedisScript.class), any(), any(), anyList(), any(Object[].class));
+    }
+
+    @Test
+    void oldRecentEntriesAreTrimmed() {
+        long before = System.currentTimeMillis();
+
+        assertThat(service.reconcile(VoteCounterService.Target.ARTICLE)).isZero();
+
+        // Cửa sổ đối soát 30 phút
+        verify(zSetOps).removeRangeByScore(eq(ARTICLE_RECENT), eq(0d),
+                doubleThat(max -> max >= before - 30 * 60_000 && max <= System.currentTimeMillis() - 30 * 60_000));
+    }
+
+    // ================= PRIVATE HELPERS =================
+
+    private void settledRecent() {
+        when(zSetOps.rangeByScore(eq(ARTICLE_RECENT), anyDouble(), anyDouble())).thenReturn(Set.of(ARTICLE_ID));
+    }
+
+    // Tham số của lần gọi execute(script, argsSerializer, resultSerializer, keys, args...) duy nhất
+    private List<Object> scriptArgs() {
+        Object[] raw = mockingDetails(redisTemplate).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("execute")
+                        && invocation.getRawArguments().length == 5)
+                .map(invocation -> invocation.getRawArguments())
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Script không được gọi"));
+        return Arrays.asList((Object[]) raw[4]);
+    }
+}